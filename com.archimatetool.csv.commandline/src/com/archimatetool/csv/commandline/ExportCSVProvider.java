@@ -40,6 +40,8 @@ public class ExportCSVProvider extends AbstractCommandLineProvider {
     static final String OPTION_STRIP_NEW_LINES = "csv.exportStripNewLines"; //$NON-NLS-1$
     static final String OPTION_LEADING_CHARS_HACK = "csv.exportLeadingZeros"; //$NON-NLS-1$
     static final String OPTION_ENCODING = "csv.exportEncoding"; //$NON-NLS-1$
+    static final String OPTION_NO_SORT = "csv.exportNoSort"; //$NON-NLS-1$
+    static final String OPTION_MODEL_FILE = "csv.exportModelFile"; //$NON-NLS-1$
 
     
     public ExportCSVProvider() {
@@ -52,14 +54,27 @@ public class ExportCSVProvider extends AbstractCommandLineProvider {
             return;
         }
         
-        IArchimateModel model = CommandLineState.getModel();
+        // Model file to stream, if set, or the current model
+        File modelFile = null;
+        IArchimateModel model = null;
         
-        if(model == null) {
-            throw new IOException(Messages.ExportCSVProvider_1);
+        String value = commandLine.getOptionValue(OPTION_MODEL_FILE);
+        if(StringUtils.isSet(value)) {
+            modelFile = new File(value);
+            if(!modelFile.exists()) {
+                logError(NLS.bind(Messages.ExportCSVProvider_19, value));
+                return;
+            }
+        }
+        else {
+            model = CommandLineState.getModel();
+            if(model == null) {
+                throw new IOException(Messages.ExportCSVProvider_1);
+            }
         }
         
         // Folder
-        String value = commandLine.getOptionValue(OPTION_EXPORT_CSV);
+        value = commandLine.getOptionValue(OPTION_EXPORT_CSV);
         if(!StringUtils.isSet(value)) {
             logError(Messages.ExportCSVProvider_2);
             return;
@@ -72,7 +87,7 @@ public class ExportCSVProvider extends AbstractCommandLineProvider {
             return;
         }
         
-        CSVExporter exporter = new CSVExporter(model);
+        CSVExporter exporter = modelFile != null ? new CSVExporter(modelFile) : new CSVExporter(model);
 
         // Delimiter
         value = commandLine.getOptionValue(OPTION_DELIMITER);
@@ -109,8 +124,11 @@ public class ExportCSVProvider extends AbstractCommandLineProvider {
 
         // Strip newlines
         exporter.setStripNewLines(commandLine.hasOption(OPTION_STRIP_NEW_LINES));
+        
+        // Don't sort
+        exporter.setSortConcepts(!commandLine.hasOption(OPTION_NO_SORT));
 
-        logMessage(NLS.bind(Messages.ExportCSVProvider_4, model.getName(), folderOutput.getPath()));
+        logMessage(NLS.bind(Messages.ExportCSVProvider_4, modelFile != null ? modelFile.getPath() : model.getName(), folderOutput.getPath()));
         exporter.export(folderOutput);
         logMessage(Messages.ExportCSVProvider_5);
     }
@@ -167,6 +185,20 @@ public class ExportCSVProvider extends AbstractCommandLineProvider {
                 .build();
         options.addOption(option);
         
+        option = Option.builder()
+                .longOpt(OPTION_NO_SORT)
+                .desc(Messages.ExportCSVProvider_16)
+                .build();
+        options.addOption(option);
+        
+        option = Option.builder()
+                .longOpt(OPTION_MODEL_FILE)
+                .hasArg()
+                .argName(Messages.ExportCSVProvider_17)
+                .desc(Messages.ExportCSVProvider_18)
+                .build();
+        options.addOption(option);
+        
         return options;
     }
     
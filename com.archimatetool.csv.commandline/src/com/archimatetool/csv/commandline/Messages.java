@@ -22,6 +22,14 @@ public class Messages extends NLS {
 
     public static String ExportCSVProvider_15;
 
+    public static String ExportCSVProvider_16;
+
+    public static String ExportCSVProvider_17;
+
+    public static String ExportCSVProvider_18;
+
+    public static String ExportCSVProvider_19;
+
     public static String ExportCSVProvider_2;
 
     public static String ExportCSVProvider_3;
@@ -5,20 +5,34 @@
  */
 package com.archimatetool.csv.export;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import org.eclipse.emf.ecore.EObject;
 
 import com.archimatetool.csv.CSVConstants;
+import com.archimatetool.editor.model.IEditorModelManager;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IAccessRelationship;
@@ -29,6 +43,9 @@ import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IFolder;
 import com.archimatetool.model.IInfluenceRelationship;
 import com.archimatetool.model.IProperty;
+import com.archimatetool.model.ModelVersion;
+import com.archimatetool.model.util.IModelStreamVisitor;
+import com.archimatetool.model.util.ModelStreamReader;
 
 
 
@@ -39,11 +56,15 @@ import com.archimatetool.model.IProperty;
  */
 public class CSVExporter implements CSVConstants {
     
+    private static final Pattern NEWLINES_PATTERN = Pattern.compile("(\r\n|\r|\n)"); //$NON-NLS-1$
+    
     private char fDelimiter = ',';
     private String fFilePrefix = ""; //$NON-NLS-1$
     
     private boolean fStripNewLines = false;
     
+    private boolean fSortConcepts = true;
+    
     // See http://www.creativyst.com/Doc/Articles/CSV/CSV01.htm#CSVAndExcel
     private boolean fUseLeadingCharsHack = false;
     
@@ -60,14 +81,207 @@ public class CSVExporter implements CSVConstants {
     
     private IArchimateModel fModel;
     
+    // If set the model is streamed from this file rather than loaded
+    private File fModelFile;
+    
     public CSVExporter(IArchimateModel model) {
         fModel = model;
     }
     
+    /**
+     * Create an exporter that reads the model from a model file as a stream without loading it.
+     * This allows very large models to be exported in constant memory, but elements and relations are not sorted.
+     * A model file saved with a different model version than this one is loaded instead so that any compatibility
+     * conversions are applied to it.
+     * @param modelFile The model file
+     */
+    public CSVExporter(File modelFile) {
+        fModelFile = modelFile;
+    }
+    
+    /**
+     * Export the model to the elements, relations and properties files in folder.
+     * The model is traversed once and then the three files are written concurrently.
+     * The model should not be changed while this is in progress.
+     */
     public void export(File folder) throws IOException {
-        writeModelAndElements(new File(folder, createElementsFileName()));
-        writeRelationships(new File(folder, createRelationsFileName()));
-        writeProperties(new File(folder, createPropertiesFileName()));
+        if(fModelFile != null) {
+            if(isCurrentModelVersion(fModelFile)) {
+                exportModelFile(folder);
+                return;
+            }
+            
+            // The stream reader doesn't apply the compatibility conversions so load the model
+            fModel = IEditorModelManager.INSTANCE.loadModel(fModelFile);
+            if(fModel == null) {
+                throw new IOException("Could not load model: " + fModelFile); //$NON-NLS-1$
+            }
+        }
+        
+        ModelIndex index = new ModelIndex();
+        
+        List<Callable<Void>> writers = new ArrayList<Callable<Void>>();
+        
+        writers.add(() -> {
+            writeModelAndElements(new File(folder, createElementsFileName()), index);
+            return null;
+        });
+        
+        writers.add(() -> {
+            writeRelationships(new File(folder, createRelationsFileName()), index);
+            return null;
+        });
+        
+        writers.add(() -> {
+            writeProperties(new File(folder, createPropertiesFileName()), index);
+            return null;
+        });
+        
+        ExecutorService executor = Executors.newFixedThreadPool(writers.size());
+        
+        try {
+            for(Future<Void> future : executor.invokeAll(writers)) {
+                future.get();
+            }
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        catch(ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * @return true if the model file was saved with the current model version and so can be read as a stream
+     */
+    private boolean isCurrentModelVersion(File modelFile) throws IOException {
+        String[] version = new String[1];
+        
+        try {
+            new ModelStreamReader(new IModelStreamVisitor() {
+                @Override
+                public void startModel(IArchimateModel model) throws IOException {
+                    version[0] = model.getVersion();
+                    // Only the root element is needed
+                    throw new StopReadingException();
+                }
+            }).read(modelFile);
+        }
+        catch(StopReadingException ex) {
+            // Stopped at the root element
+        }
+        
+        return ModelVersion.VERSION.equals(version[0]);
+    }
+    
+    /**
+     * Thrown to stop reading a model file once what is needed has been read
+     */
+    @SuppressWarnings("serial")
+    private static class StopReadingException extends IOException {
+    }
+    
+    /**
+     * Export the model file to the elements, relations and properties files in folder, reading the model file as a stream.
+     * Elements, relations and properties are written in the order they are in the model file.
+     * The model's row and properties are written first but are only known at the end of the model file,
+     * so the element and property rows are first written to temporary files in the system temp folder and then appended.
+     */
+    private void exportModelFile(File folder) throws IOException {
+        File elementRowsFile = null;
+        File propertyRowsFile = null;
+        
+        try {
+            elementRowsFile = File.createTempFile("archi-csv-elements", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+            propertyRowsFile = File.createTempFile("archi-csv-properties", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+            
+            IArchimateModel[] model = new IArchimateModel[1];
+            boolean[] hasRelations = new boolean[1];
+            
+            try(Writer elementsWriter = createWriter(elementRowsFile);
+                    Writer relationsWriter = createWriter(new File(folder, createRelationsFileName()));
+                    Writer propertiesWriter = createWriter(propertyRowsFile)) {
+                
+                writeBOM(relationsWriter);
+                relationsWriter.write(createHeader(RELATIONSHIPS_HEADER));
+                
+                new ModelStreamReader(new IModelStreamVisitor() {
+                    @Override
+                    public void visitElement(IArchimateElement element) throws IOException {
+                        elementsWriter.write(CRLF);
+                        elementsWriter.write(createElementRow(element));
+                        writeConceptProperties(propertiesWriter, element);
+                    }
+                    
+                    @Override
+                    public void visitRelationship(IArchimateRelationship relationship, String sourceID, String targetID) throws IOException {
+                        relationsWriter.write(CRLF);
+                        relationsWriter.write(createRelationshipRow(relationship, sourceID, targetID));
+                        writeConceptProperties(propertiesWriter, relationship);
+                        hasRelations[0] = true;
+                    }
+                    
+                    @Override
+                    public void endModel(IArchimateModel m) {
+                        model[0] = m;
+                    }
+                }).read(fModelFile);
+            }
+            
+            if(model[0] == null) {
+                throw new IOException("No model in: " + fModelFile); //$NON-NLS-1$
+            }
+            
+            if(!fWriteEmptyFile && !hasRelations[0]) {
+                new File(folder, createRelationsFileName()).delete();
+            }
+            
+            // Header and model row followed by the element rows
+            try(OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(folder, createElementsFileName())))) {
+                Writer writer = new BufferedWriter(createOutputStreamWriter(out));
+                writeBOM(writer);
+                writer.write(createHeader(MODEL_ELEMENTS_HEADER));
+                writer.write(CRLF);
+                writer.write(createModelRow(model[0]));
+                writer.flush();
+                Files.copy(elementRowsFile.toPath(), out);
+            }
+            
+            // Header and model properties followed by the concept properties
+            if(fWriteEmptyFile || !model[0].getProperties().isEmpty() || propertyRowsFile.length() > 0) {
+                try(OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(folder, createPropertiesFileName())))) {
+                    Writer writer = new BufferedWriter(createOutputStreamWriter(out));
+                    writeBOM(writer);
+                    writer.write(createHeader(PROPERTIES_HEADER));
+                    for(IProperty property : model[0].getProperties()) {
+                        writer.write(CRLF);
+                        writer.write(createPropertyRow(model[0].getId(), property));
+                    }
+                    writer.flush();
+                    Files.copy(propertyRowsFile.toPath(), out);
+                }
+            }
+        }
+        finally {
+            if(elementRowsFile != null) {
+                elementRowsFile.delete();
+            }
+            if(propertyRowsFile != null) {
+                propertyRowsFile.delete();
+            }
+        }
     }
     
     /**
@@ -93,6 +307,15 @@ public class CSVExporter implements CSVConstants {
         fStripNewLines = set;
     }
     
+    /**
+     * Set whether to sort elements and relations by type and name.
+     * Default is true. If false they are written in model order which is faster for large models.
+     * @param set
+     */
+    public void setSortConcepts(boolean set) {
+        fSortConcepts = set;
+    }
+    
     public void setUseLeadingCharsHack(boolean set) {
         fUseLeadingCharsHack = set;
     }
@@ -104,8 +327,8 @@ public class CSVExporter implements CSVConstants {
     /**
      * Write the Model and All Elements
      */
-    private void writeModelAndElements(File file) throws IOException {
-        Writer writer = createOutputStreamWriter(file);
+    private void writeModelAndElements(File file, ModelIndex index) throws IOException {
+        Writer writer = createWriter(file);
         
         // Write BOM
         writeBOM(writer);
@@ -122,13 +345,13 @@ public class CSVExporter implements CSVConstants {
         writer.write(modelRow);
         
         // Write Elements
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.STRATEGY));
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.BUSINESS));
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.APPLICATION));
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.TECHNOLOGY));
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.MOTIVATION));
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.IMPLEMENTATION_MIGRATION));
-        writeElementsInFolder(writer, fModel.getFolder(FolderType.OTHER));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.STRATEGY));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.BUSINESS));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.APPLICATION));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.TECHNOLOGY));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.MOTIVATION));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.IMPLEMENTATION_MIGRATION));
+        writeElementsInFolder(writer, index, fModel.getFolder(FolderType.OTHER));
         
         writer.close();
     }
@@ -136,13 +359,15 @@ public class CSVExporter implements CSVConstants {
     /**
      * Write all elements in a given folder and its child folders to Writer
      */
-    private void writeElementsInFolder(Writer writer, IFolder folder) throws IOException {
+    private void writeElementsInFolder(Writer writer, ModelIndex index, IFolder folder) throws IOException {
         if(folder == null) {
             return;
         }
         
-        List<IArchimateConcept> concepts = getConcepts(folder);
-        sort(concepts);
+        List<IArchimateConcept> concepts = index.getConcepts(folder);
+        if(fSortConcepts) {
+            sort(concepts);
+        }
         
         for(IArchimateConcept concept : concepts) {
             if(concept instanceof IArchimateElement) {
@@ -155,16 +380,18 @@ public class CSVExporter implements CSVConstants {
     /**
      * Write All Relationships
      */
-    private void writeRelationships(File file) throws IOException {
-        List<IArchimateConcept> concepts = getConcepts(fModel.getFolder(FolderType.RELATIONS));
-        sort(concepts);
+    private void writeRelationships(File file, ModelIndex index) throws IOException {
+        List<IArchimateConcept> concepts = index.getConcepts(fModel.getFolder(FolderType.RELATIONS));
+        if(fSortConcepts) {
+            sort(concepts);
+        }
         
         // Are there any to write?
         if(!fWriteEmptyFile && concepts.isEmpty()) {
             return;
         }
         
-        Writer writer = createOutputStreamWriter(file);
+        Writer writer = createWriter(file);
         
         // Write BOM
         writeBOM(writer);
@@ -187,13 +414,13 @@ public class CSVExporter implements CSVConstants {
     /**
      * Write All Properties
      */
-    private void writeProperties(File file) throws IOException {
+    private void writeProperties(File file, ModelIndex index) throws IOException {
         // Are there any to write?
-        if(!fWriteEmptyFile && !hasProperties()) {
+        if(!fWriteEmptyFile && !index.hasProperties) {
             return;
         }
         
-        Writer writer = createOutputStreamWriter(file);
+        Writer writer = createWriter(file);
         
         // Write BOM
         writeBOM(writer);
@@ -209,24 +436,26 @@ public class CSVExporter implements CSVConstants {
         }
         
         // Write Element and Relationship Properties
-        for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            if(eObject instanceof IArchimateConcept) {
-                IArchimateConcept concept = (IArchimateConcept)eObject;
-                
-                for(IProperty property : concept.getProperties()) {
-                    writer.write(CRLF);
-                    writer.write(createPropertyRow(concept.getId(), property));
-                }
-                
-                // Write special attributes as properties
-                writeSpecialProperties(writer, concept);
-            }
+        for(IArchimateConcept concept : index.conceptsInModelOrder) {
+            writeConceptProperties(writer, concept);
         }
         
         writer.close();
     }
     
+    /**
+     * Write a concept's properties and special attributes as properties
+     */
+    private void writeConceptProperties(Writer writer, IArchimateConcept concept) throws IOException {
+        for(IProperty property : concept.getProperties()) {
+            writer.write(CRLF);
+            writer.write(createPropertyRow(concept.getId(), property));
+        }
+        
+        // Write special attributes as properties
+        writeSpecialProperties(writer, concept);
+    }
+    
     private void writeSpecialProperties(Writer writer, IArchimateConcept concept) throws IOException {
         // Influence relationship strength
         if(concept instanceof IInfluenceRelationship) {
@@ -288,20 +517,27 @@ public class CSVExporter implements CSVConstants {
      * Create a String Row for the Archimate Model
      */
     String createModelRow() {
+        return createModelRow(fModel);
+    }
+    
+    /**
+     * Create a String Row for a given Archimate Model
+     */
+    String createModelRow(IArchimateModel model) {
         StringBuffer sb = new StringBuffer();
         
-        String id = fModel.getId();
+        String id = model.getId();
         sb.append(surroundWithQuotes(id));
         sb.append(fDelimiter);
         
         sb.append(surroundWithQuotes(ARCHIMATE_MODEL_TYPE));
         sb.append(fDelimiter);
         
-        String name = normalise(fModel.getName());
+        String name = normalise(model.getName());
         sb.append(surroundWithQuotes(name));
         sb.append(fDelimiter);
         
-        String purpose = normalise(fModel.getPurpose());
+        String purpose = normalise(model.getPurpose());
         sb.append(surroundWithQuotes(purpose));
         
         return sb.toString();
@@ -334,6 +570,15 @@ public class CSVExporter implements CSVConstants {
      * Create a String Row for a Relationship
      */
     String createRelationshipRow(IArchimateRelationship relationship) {
+        String sourceID = relationship.getSource() != null ? relationship.getSource().getId() : null;
+        String targetID = relationship.getTarget() != null ? relationship.getTarget().getId() : null;
+        return createRelationshipRow(relationship, sourceID, targetID);
+    }
+    
+    /**
+     * Create a String Row for a Relationship with given source and target IDs
+     */
+    String createRelationshipRow(IArchimateRelationship relationship, String sourceID, String targetID) {
         StringBuffer sb = new StringBuffer();
         
         String id = relationship.getId();
@@ -351,8 +596,7 @@ public class CSVExporter implements CSVConstants {
         sb.append(surroundWithQuotes(documentation));
         sb.append(fDelimiter);
         
-        if(relationship.getSource() != null) {
-            String sourceID = relationship.getSource().getId();
+        if(sourceID != null) {
             sb.append(surroundWithQuotes(sourceID));
         }
         else {
@@ -360,8 +604,7 @@ public class CSVExporter implements CSVConstants {
         }
         sb.append(fDelimiter);
         
-        if(relationship.getTarget() != null) {
-            String targetID = relationship.getTarget().getId();
+        if(targetID != null) {
             sb.append(surroundWithQuotes(targetID));
         }
         else {
@@ -420,7 +663,7 @@ public class CSVExporter implements CSVConstants {
         
         // Newlines (optional)
         if(fStripNewLines) {
-            s = s.replaceAll("(\r\n|\r|\n)", " ");  //$NON-NLS-1$//$NON-NLS-2$
+            s = NEWLINES_PATTERN.matcher(s).replaceAll(" "); //$NON-NLS-1$
         }
         
         // Tabs become a space
@@ -444,26 +687,57 @@ public class CSVExporter implements CSVConstants {
     }
     
     /**
-     * Return a list of all elements/relations in a given folder and its child folders
+     * Index of the model's concepts built in one traversal of the model's folders
      */
-    private List<IArchimateConcept> getConcepts(IFolder folder) {
-        List<IArchimateConcept> list = new ArrayList<IArchimateConcept>();
-        
-        if(folder == null) {
-            return list;
+    private class ModelIndex {
+        // Top level folder -> all elements/relations in the folder and its child folders.
+        // In each folder its elements come before those of its child folders.
+        private Map<IFolder, List<IArchimateConcept>> folderConcepts = new HashMap<IFolder, List<IArchimateConcept>>();
+        
+        // All elements/relations in the same order as fModel.eAllContents() so that Properties are written in model order.
+        // Child folders come before a folder's elements in eAllContents()
+        private List<IArchimateConcept> conceptsInModelOrder = new ArrayList<IArchimateConcept>();
+        
+        // True if the model has any user properties
+        private boolean hasProperties = !fModel.getProperties().isEmpty();
+        
+        ModelIndex() {
+            for(IFolder folder : fModel.getFolders()) {
+                List<IArchimateConcept> concepts = new ArrayList<IArchimateConcept>();
+                addFolder(folder, concepts);
+                folderConcepts.put(folder, concepts);
+            }
         }
         
-        for(EObject object : folder.getElements()) {
-            if(object instanceof IArchimateConcept) {
-                list.add((IArchimateConcept)object);
+        private void addFolder(IFolder folder, List<IArchimateConcept> concepts) {
+            int start = concepts.size();
+            
+            for(EObject object : folder.getElements()) {
+                if(object instanceof IArchimateConcept) {
+                    concepts.add((IArchimateConcept)object);
+                }
+            }
+            
+            int end = concepts.size();
+            
+            for(IFolder f : folder.getFolders()) {
+                addFolder(f, concepts);
+            }
+            
+            for(int i = start; i < end; i++) {
+                IArchimateConcept concept = concepts.get(i);
+                conceptsInModelOrder.add(concept);
+                hasProperties |= !concept.getProperties().isEmpty();
             }
         }
         
-        for(IFolder f : folder.getFolders()) {
-            list.addAll(getConcepts(f));
+        /**
+         * @return A new list of all elements/relations in a given top level folder and its child folders
+         */
+        List<IArchimateConcept> getConcepts(IFolder folder) {
+            List<IArchimateConcept> concepts = folderConcepts.get(folder);
+            return concepts == null ? new ArrayList<IArchimateConcept>() : new ArrayList<IArchimateConcept>(concepts);
         }
-        
-        return list;
     }
 
     /**
@@ -503,15 +777,23 @@ public class CSVExporter implements CSVConstants {
         return fFilePrefix + PROPERTIES_FILENAME + FILE_EXTENSION;
     }
     
+    private Writer createWriter(File file) throws IOException {
+        return new BufferedWriter(createOutputStreamWriter(file));
+    }
+    
     OutputStreamWriter createOutputStreamWriter(File file) throws IOException {
+        return createOutputStreamWriter(new FileOutputStream(file));
+    }
+    
+    private OutputStreamWriter createOutputStreamWriter(OutputStream out) throws IOException {
         if("ANSI".equals(fEncoding)) { //$NON-NLS-1$
-            return new OutputStreamWriter(new FileOutputStream(file));
+            return new OutputStreamWriter(out);
         }
         else if(fEncoding.startsWith("UTF-8")) { //$NON-NLS-1$
-            return new OutputStreamWriter(new FileOutputStream(file), "UTF-8"); //$NON-NLS-1$
+            return new OutputStreamWriter(out, "UTF-8"); //$NON-NLS-1$
         }
         else {
-            return new OutputStreamWriter(new FileOutputStream(file), fEncoding);
+            return new OutputStreamWriter(out, fEncoding);
         }
     }
 }
@@ -9,12 +9,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.Reader;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -54,6 +54,12 @@ import com.archimatetool.model.util.ArchimateModelUtils;
  */
 public class CSVImporter implements CSVConstants {
     
+    // Number of characters read from the start of a file to sniff the delimiter
+    static final int DELIMITER_SNIFF_SIZE = 8192;
+    
+    private static final Pattern NEWLINES_PATTERN = Pattern.compile("(\r\n|\r|\n|\t)"); //$NON-NLS-1$
+    private static final Pattern VALID_ID_PATTERN = Pattern.compile("^[a-zA-Z0-9._-]+$"); //$NON-NLS-1$
+    
     private IArchimateModel fModel;
     
     // ID -> IArchimateConcept: new elements and relations added
@@ -67,6 +73,9 @@ public class CSVImporter implements CSVConstants {
 
     // IArchimateConcept -> Map [EAttribute, value] : Updated concepts' features
     Map<IArchimateConcept, Map<EAttribute, Object>> updatedConcepts = new HashMap<IArchimateConcept, Map<EAttribute, Object>>();
+    
+    // IProperties object -> Map [key, IProperty] : Index of existing Properties' keys, built when first needed for an object
+    private Map<IProperties, Map<String, IProperty>> propertyKeys = new HashMap<IProperties, Map<String, IProperty>>();
 
     // CSV Model id. This might be set as a reference for Properties. Might be null.
     private String modelID;
@@ -202,32 +211,36 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException
      */
     void importElements(File file) throws IOException, CSVParseException {
-        List<CSVRecord> records = getRecords(file);
-        
-        // Should have at least one record
-        if(records.isEmpty()) {
-            throw new CSVParseException(Messages.CSVImporter_1);
-        }
+        boolean hasRecords = false;
         
-        for(CSVRecord csvRecord : records) {
-            if(!isElementsRecordCorrectSize(csvRecord)) {
-                throw new CSVParseException(Messages.CSVImporter_2);
-            }
+        try(CSVParser parser = getParser(file)) {
+            for(CSVRecord csvRecord : parser) {
+                hasRecords = true;
+                
+                if(!isElementsRecordCorrectSize(csvRecord)) {
+                    throw new CSVParseException(Messages.CSVImporter_2);
+                }
 
-            // Header
-            if(isHeaderRecord(csvRecord, MODEL_ELEMENTS_HEADER)) {
-                continue;
-            }
+                // Header
+                if(isHeaderRecord(csvRecord, MODEL_ELEMENTS_HEADER)) {
+                    continue;
+                }
 
-            // Model (this is optional)
-            if(isModelRecord(csvRecord)) {
-                parseModelRecord(csvRecord);
-            }
-            // Element
-            else {
-                createElementFromRecord(csvRecord);
+                // Model (this is optional)
+                if(isModelRecord(csvRecord)) {
+                    parseModelRecord(csvRecord);
+                }
+                // Element
+                else {
+                    createElementFromRecord(csvRecord);
+                }
             }
         }
+        
+        // Should have at least one record
+        if(!hasRecords) {
+            throw new CSVParseException(Messages.CSVImporter_1);
+        }
     }
     
     /**
@@ -308,18 +321,20 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException
      */
     void importRelations(File file) throws IOException, CSVParseException {
-        for(CSVRecord csvRecord : getRecords(file)) {
-            if(!isRelationsRecordCorrectSize(csvRecord)) {
-                throw new CSVParseException(Messages.CSVImporter_2);
-            }
+        try(CSVParser parser = getParser(file)) {
+            for(CSVRecord csvRecord : parser) {
+                if(!isRelationsRecordCorrectSize(csvRecord)) {
+                    throw new CSVParseException(Messages.CSVImporter_2);
+                }
 
-            // Header
-            if(isHeaderRecord(csvRecord, RELATIONSHIPS_HEADER)) {
-                continue;
-            }
-            // Relation
-            else {
-                createRelationFromRecord(csvRecord);
+                // Header
+                if(isHeaderRecord(csvRecord, RELATIONSHIPS_HEADER)) {
+                    continue;
+                }
+                // Relation
+                else {
+                    createRelationFromRecord(csvRecord);
+                }
             }
         }
         
@@ -406,18 +421,20 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException
      */
     void importProperties(File file) throws IOException, CSVParseException {
-        for(CSVRecord csvRecord : getRecords(file)) {
-            if(!isPropertiesRecordCorrectSize(csvRecord)) {
-                throw new CSVParseException(Messages.CSVImporter_2);
-            }
+        try(CSVParser parser = getParser(file)) {
+            for(CSVRecord csvRecord : parser) {
+                if(!isPropertiesRecordCorrectSize(csvRecord)) {
+                    throw new CSVParseException(Messages.CSVImporter_2);
+                }
 
-            // Header
-            if(isHeaderRecord(csvRecord, PROPERTIES_HEADER)) {
-                continue;
-            }
-            // Property
-            else {
-                createPropertyFromRecord(csvRecord);
+                // Header
+                if(isHeaderRecord(csvRecord, PROPERTIES_HEADER)) {
+                    continue;
+                }
+                // Property
+                else {
+                    createPropertyFromRecord(csvRecord);
+                }
             }
         }
     }
@@ -445,7 +462,7 @@ public class CSVImporter implements CSVConstants {
         
         // Not found, check if it's referencing an existing element in the model
         if(propertiesObject == null) {
-            EObject eObject = ArchimateModelUtils.getObjectByID(fModel, id);
+            EObject eObject = fModel.getObjectByID(id);
             if(eObject instanceof IProperties) {
                 propertiesObject = (IProperties)eObject;
             }
@@ -493,60 +510,76 @@ public class CSVImporter implements CSVConstants {
     // -------------------------------- Helpers --------------------------------
     
     /**
-     * Get all records for a CSV file.
-     * This is a brute-force approach to try with a comma delimiter first. If that fails then
-     * try a semicolon, and if that fails, a tab.
+     * Get a parser for a CSV file that reads one record at a time.
+     * The delimiter is sniffed from the start of the file (see {@link #getDelimiter(File)}).
+     * The caller is responsible for closing the parser.
      * 
      * @param file The file to open
-     * @return Records, which may be empty but never null
+     * @return The parser
      * @throws IOException
      */
-    List<CSVRecord> getRecords(File file) throws IOException {
-        List<CSVRecord> records = new ArrayList<CSVRecord>(); 
-        CSVParser parser = null;
-        
-        String errorMessage = "invalid char between encapsulated token and delimiter"; //$NON-NLS-1$
+    CSVParser getParser(File file) throws IOException {
+        char delimiter = getDelimiter(file);
+        return new CSVParser(createReader(file), CSVFormat.DEFAULT.withDelimiter(delimiter));
+    }
+    
+    /**
+     * Sniff the delimiter of a CSV file by reading only a small prefix of it.
+     * The first record is scanned and the delimiter that occurs most often outside of quoted fields is chosen.
+     * If no delimiter is found, or there is a tie, the earlier one in DELIMITERS (comma first) is preferred.
+     * 
+     * @param file The file to sniff
+     * @return The delimiter, one of DELIMITERS
+     * @throws IOException
+     */
+    char getDelimiter(File file) throws IOException {
+        int[] counts = new int[DELIMITERS.length];
         
-        try {
-            InputStreamReader is = new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
-            parser = new CSVParser(is, CSVFormat.DEFAULT);
-            records = parser.getRecords();
-        }
-        catch(IOException ex) {
-            if(parser != null) {
-                parser.close();
+        try(Reader reader = createReader(file)) {
+            char[] buffer = new char[DELIMITER_SNIFF_SIZE];
+            
+            int length = 0;
+            int read;
+            while(length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
             }
-            if(ex.getMessage() != null && ex.getMessage().contains(errorMessage)) {
-                try {
-                    InputStreamReader is = new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
-                    parser = new CSVParser(is, CSVFormat.DEFAULT.withDelimiter(';'));
-                    records = parser.getRecords();
+            
+            boolean inQuotes = false;
+            
+            for(int i = 0; i < length; i++) {
+                char c = buffer[i];
+                
+                // An escaped double quote toggles twice so this works for those as well
+                if(c == '"') {
+                    inQuotes = !inQuotes;
                 }
-                catch(IOException ex2) {
-                    if(parser != null) {
-                        parser.close();
+                else if(!inQuotes) {
+                    // End of first record
+                    if(c == '\r' || c == '\n') {
+                        break;
                     }
-                    if(ex2.getMessage() != null && ex2.getMessage().contains(errorMessage)) {
-                        InputStreamReader is = new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
-                        parser = new CSVParser(is, CSVFormat.DEFAULT.withDelimiter('\t'));
-                        records = parser.getRecords();
-                    }
-                    else {
-                        throw ex2;
+                    
+                    for(int j = 0; j < DELIMITERS.length; j++) {
+                        if(c == DELIMITERS[j]) {
+                            counts[j]++;
+                        }
                     }
                 }
             }
-            else {
-                throw ex;
-            }
         }
-        finally {
-            if(parser != null) {
-                parser.close();
+        
+        int index = 0;
+        for(int j = 1; j < counts.length; j++) {
+            if(counts[j] > counts[index]) {
+                index = j;
             }
         }
         
-        return records;
+        return DELIMITERS[index];
+    }
+    
+    private Reader createReader(File file) throws IOException {
+        return new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
     }
     
     /**
@@ -601,7 +634,7 @@ public class CSVImporter implements CSVConstants {
         }
         
         // Newlines and Tabs
-        s = s.replaceAll("(\r\n|\r|\n|\t)", " ");  //$NON-NLS-1$//$NON-NLS-2$
+        s = NEWLINES_PATTERN.matcher(s).replaceAll(" "); //$NON-NLS-1$
         
         return s;
     }
@@ -637,7 +670,7 @@ public class CSVImporter implements CSVConstants {
     }
     
     void checkIDForInvalidCharacters(String id) throws CSVParseException {
-        if(!id.matches("^[a-zA-Z0-9._-]+$")) { //$NON-NLS-1$
+        if(!VALID_ID_PATTERN.matcher(id).matches()) {
             throw new CSVParseException(Messages.CSVImporter_12 + id);
         }
     }
@@ -647,7 +680,7 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException 
      */
     IArchimateConcept findArchimateConceptInModel(String id, EClass eClass) throws CSVParseException {
-        EObject eObject = ArchimateModelUtils.getObjectByID(fModel, id);
+        EObject eObject = fModel.getObjectByID(id);
         
         // Found an element with this id
         if(eObject != null) {
@@ -674,7 +707,7 @@ public class CSVImporter implements CSVConstants {
         
         // No. How about in the model?
         if(eObject == null) {
-            eObject = ArchimateModelUtils.getObjectByID(fModel, id);
+            eObject = fModel.getObjectByID(id);
         }
         
         // Not found
@@ -712,14 +745,23 @@ public class CSVImporter implements CSVConstants {
         return false;
     }
     
+    /**
+     * Get the first existing Property with the given key.
+     * The keys of an object's Properties are indexed the first time it is looked up so that
+     * importing many Properties for the same object does not search its list of Properties each time.
+     */
     IProperty getProperty(IProperties propertiesObject, String key) {
-        for(IProperty property : propertiesObject.getProperties()) {
-            if(property.getKey().equals(key)) {
-                return property;
+        Map<String, IProperty> keys = propertyKeys.get(propertiesObject);
+        
+        if(keys == null) {
+            keys = new HashMap<String, IProperty>();
+            for(IProperty property : propertiesObject.getProperties()) {
+                keys.putIfAbsent(property.getKey(), property);
             }
+            propertyKeys.put(propertiesObject, keys);
         }
         
-        return null;
+        return keys.get(key);
     }
     
     void storeUpdatedConceptFeature(IArchimateConcept concept, EAttribute feature, Object value) {
@@ -45,6 +45,12 @@ public class DiagramEditorInputFactory implements IElementFactory {
 
         if(viewID != null && fileName != null) {
             File file = new File(fileName);
+            
+            // The model might still be loading in the background
+            if(IEditorModelManager.INSTANCE.getLoadingModelFiles().contains(file)) {
+                IEditorModelManager.INSTANCE.loadModel(file);
+            }
+            
             for(IArchimateModel model : IEditorModelManager.INSTANCE.getModels()) {
                 if(file.equals(model.getFile())) {
                     for(IDiagramModel diagramModel : model.getDiagramModels()) {
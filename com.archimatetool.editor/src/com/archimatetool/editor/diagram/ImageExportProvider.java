@@ -20,6 +20,7 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Spinner;
 
 import com.archimatetool.editor.diagram.util.DiagramUtils;
+import com.archimatetool.editor.diagram.util.TiledImageWriter;
 import com.archimatetool.editor.preferences.Preferences;
 import com.archimatetool.editor.ui.ImageFactory;
 
@@ -37,6 +38,12 @@ public class ImageExportProvider implements IImageExportProvider {
     public static final String PNG_IMAGE_EXPORT_PROVIDER = "com.archimatetool.editor.pngImageExportProvider"; //$NON-NLS-1$
     
     final static String PREFS_IMAGE_SCALE = "imageExportScale"; //$NON-NLS-1$
+    
+    /**
+     * PNG and BMP images with more pixels than this are painted and written a tile at a time
+     * rather than as one Image so that very large diagrams can be exported
+     */
+    public static final long MAX_UNTILED_PIXELS = 4096 * 4096;
 
     private IFigure fFigure;
     
@@ -47,7 +54,26 @@ public class ImageExportProvider implements IImageExportProvider {
         Image image = null;
         
         try {
-            image = DiagramUtils.createImage(fFigure, (double)fScaleSpinner.getSelection() / 100, 10);
+            double scale = (double)fScaleSpinner.getSelection() / 100;
+            
+            // Large PNG or BMP image
+            if(!JPEG_IMAGE_EXPORT_PROVIDER.equals(providerID)) {
+                TiledImageWriter writer = new TiledImageWriter(fFigure, scale, 10);
+                if((long)writer.getWidth() * writer.getHeight() > MAX_UNTILED_PIXELS) {
+                    if(BMP_IMAGE_EXPORT_PROVIDER.equals(providerID)) {
+                        writer.write(file, SWT.IMAGE_BMP);
+                    }
+                    else if(PNG_IMAGE_EXPORT_PROVIDER.equals(providerID)) {
+                        writer.write(file, SWT.IMAGE_PNG);
+                    }
+                    else {
+                        writer.write(new File(file.getPath() + ".png"), SWT.IMAGE_PNG); //$NON-NLS-1$
+                    }
+                    return;
+                }
+            }
+            
+            image = DiagramUtils.createImage(fFigure, scale, 10);
             ImageData imageData = image.getImageData(ImageFactory.getDeviceZoom());
             
             ImageLoader loader = new ImageLoader();
@@ -18,6 +18,7 @@ import org.eclipse.gef.NodeEditPart;
 import org.eclipse.gef.Request;
 import org.eclipse.jface.util.PropertyChangeEvent;
 
+import com.archimatetool.editor.model.commands.NotificationBatcher;
 import com.archimatetool.editor.preferences.IPreferenceConstants;
 import com.archimatetool.editor.preferences.Preferences;
 import com.archimatetool.model.IArchimatePackage;
@@ -40,10 +41,15 @@ implements NodeEditPart {
         super(figureClass);
     }
 
+    /**
+     * Notifications during a NonNotifyingCompoundCommand are delivered coalesced at the end of it
+     */
+    private NotificationBatcher batcher = new NotificationBatcher(this::eCoreChanged);
+    
     private Adapter adapter = new AdapterImpl() {
         @Override
         public void notifyChanged(Notification msg) {
-            eCoreChanged(msg);
+            batcher.notifyChanged(msg);
         }
     };
     
@@ -111,6 +117,12 @@ implements NodeEditPart {
         return adapter;
     }
     
+    @Override
+    protected void removeECoreAdapter() {
+        super.removeECoreAdapter();
+        batcher.clear();
+    }
+    
     @Override
     protected List<IDiagramModelConnection> getModelSourceConnections() {
         return getFilteredModelSourceConnections();
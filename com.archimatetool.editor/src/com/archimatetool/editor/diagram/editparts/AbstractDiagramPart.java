@@ -29,6 +29,7 @@ import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.swt.SWT;
 
 import com.archimatetool.editor.diagram.util.AnimationUtil;
+import com.archimatetool.editor.model.commands.NotificationBatcher;
 import com.archimatetool.editor.preferences.IPreferenceConstants;
 import com.archimatetool.editor.preferences.Preferences;
 import com.archimatetool.model.IArchimatePackage;
@@ -50,10 +51,15 @@ implements IEditPartFilterProvider {
      */
     private List<IEditPartFilter> fEditPartFilters;
     
+    /**
+     * Notifications during a NonNotifyingCompoundCommand are delivered coalesced at the end of it
+     */
+    private NotificationBatcher batcher = new NotificationBatcher(this::eCoreChanged);
+    
     private Adapter adapter = new AdapterImpl() {
         @Override
         public void notifyChanged(Notification msg) {
-            eCoreChanged(msg);
+            batcher.notifyChanged(msg);
         }
     };
     
@@ -151,6 +157,7 @@ implements IEditPartFilterProvider {
         
         // Remove Model listener
         getModel().eAdapters().remove(adapter);
+        batcher.clear();
         
         // Remove Prefs listener
         Preferences.STORE.removePropertyChangeListener(prefsListener);
@@ -44,6 +44,7 @@ import com.archimatetool.editor.diagram.figures.connections.AbstractDiagramConne
 import com.archimatetool.editor.diagram.figures.connections.IDiagramConnectionFigure;
 import com.archimatetool.editor.diagram.policies.ManualBendpointEditPolicy;
 import com.archimatetool.editor.model.commands.EObjectFeatureCommand;
+import com.archimatetool.editor.model.commands.NotificationBatcher;
 import com.archimatetool.editor.preferences.IPreferenceConstants;
 import com.archimatetool.editor.preferences.Preferences;
 import com.archimatetool.editor.ui.services.ViewManager;
@@ -61,10 +62,15 @@ import com.archimatetool.model.ILockable;
  */
 public class DiagramConnectionEditPart extends AbstractConnectionEditPart {
 
+    /**
+     * Notifications during a NonNotifyingCompoundCommand are delivered coalesced at the end of it
+     */
+    private NotificationBatcher batcher = new NotificationBatcher(this::eCoreChanged);
+    
     private Adapter adapter = new AdapterImpl() {
         @Override
         public void notifyChanged(Notification msg) {
-            eCoreChanged(msg);
+            batcher.notifyChanged(msg);
         }
     };
     
@@ -176,6 +182,7 @@ public class DiagramConnectionEditPart extends AbstractConnectionEditPart {
         if(getECoreAdapter() != null) {
             getModel().eAdapters().remove(getECoreAdapter());
         }
+        batcher.clear();
     }
     
     /**
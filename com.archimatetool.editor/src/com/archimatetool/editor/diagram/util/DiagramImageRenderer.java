@@ -0,0 +1,146 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.gef.EditPart;
+import org.eclipse.gef.EditPartFactory;
+import org.eclipse.gef.GraphicalEditPart;
+import org.eclipse.gef.LayerConstants;
+import org.eclipse.gef.editparts.FreeformGraphicalRootEditPart;
+import org.eclipse.gef.editparts.LayerManager;
+import org.eclipse.gef.ui.parts.GraphicalViewerImpl;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import com.archimatetool.editor.diagram.figures.IDiagramModelObjectFigure;
+import com.archimatetool.model.IDiagramModel;
+
+
+
+/**
+ * Creates images of diagram models without a Shell or a visible GraphicalViewer.
+ *
+ * DiagramUtils.createModelReferencedImage(IDiagramModel, ...) creates a new Shell and GraphicalViewer for each diagram model.
+ * This is costly when creating images of all of the Views in a model for a report, so this renderer is created once and re-used for each View.
+ * The viewer has no control, so its edit parts are never activated and don't add listeners to the model or to Preferences.
+ * They are only used to build the figures, which are painted and then thrown away before the next View.
+ *
+ * Must be used on the Display thread. Clients must call dispose() when done.
+ *
+ * @author Phillip Beauvoir
+ */
+public class DiagramImageRenderer {
+
+    private GraphicalViewerImpl fViewer;
+
+    private Map<EClass, EditPartFactory> fEditPartFactories = new HashMap<>();
+
+    public DiagramImageRenderer() {
+        fViewer = new GraphicalViewerImpl();
+        fViewer.setRootEditPart(new FreeformGraphicalRootEditPart());
+
+        // The root figure would get its font from the control, so set it to the same font here
+        getRootFigure().setFont(Display.getDefault().getSystemFont());
+    }
+
+    /**
+     * @param model The model to create the image from
+     * @param scale The scale to use. 1 is full size.
+     * @param margin amount of white space margin to apply around the image
+     * @return A Scaled Image from the given Diagram Model
+     *         Clients must dispose of the Image when done.
+     *         If model has no children a blank image of 100x100 is returned
+     */
+    public Image createImage(IDiagramModel model, double scale, int margin) {
+        return createModelReferencedImage(model, scale, margin).getImage();
+    }
+
+    /**
+     * @param model The model to create the image from
+     * @param scale The scale to use. 1 is full size.
+     * @param margin amount of white space margin to apply around the image
+     * @return ModelReferencedImage wrapper class containing a Scaled Image from the given Diagram Model and offset bounds
+     *         Clients must dispose of the Image when done.
+     *         If model has no children a blank image of 100x100 is returned
+     */
+    public ModelReferencedImage createModelReferencedImage(IDiagramModel model, double scale, int margin) {
+        return renderFigure(model, figure -> DiagramUtils.createModelReferencedImage(figure, scale, margin));
+    }
+
+    /**
+     * Build the figures of a diagram model and pass them to a function that paints them, such as to an SVG Graphics.
+     * The figures are disposed of when the function returns so it should not keep a reference to them.
+     * @param model The diagram model
+     * @param function The function that is passed the figure of the printable layers of the diagram model
+     * @return The result of the function
+     */
+    public <T> T renderFigure(IDiagramModel model, Function<IFigure, T> function) {
+        if(fViewer == null) {
+            throw new IllegalStateException("Renderer is disposed"); //$NON-NLS-1$
+        }
+
+        fViewer.setEditPartFactory(fEditPartFactories.computeIfAbsent(model.eClass(), eClass -> DiagramUtils.createEditPartFactory(model)));
+
+        try {
+            fViewer.setContents(model);
+            fViewer.flush();
+
+            // Lay out the figures now as there is no control to do it
+            getRootFigure().validate();
+
+            LayerManager layerManager = (LayerManager)fViewer.getEditPartRegistry().get(LayerManager.ID);
+            return function.apply(layerManager.getLayer(LayerConstants.PRINTABLE_LAYERS));
+        }
+        finally {
+            clearContents();
+        }
+    }
+
+    /**
+     * Dispose of the figures and remove the edit parts of the last diagram model
+     */
+    private void clearContents() {
+        // The edit parts are not active so they won't dispose of their figures
+        List<Object> editParts = new ArrayList<>(fViewer.getEditPartRegistry().values());
+        for(Object editPart : editParts) {
+            if(editPart instanceof GraphicalEditPart) {
+                IFigure figure = ((GraphicalEditPart)editPart).getFigure();
+                if(figure instanceof IDiagramModelObjectFigure) {
+                    ((IDiagramModelObjectFigure)figure).dispose();
+                }
+            }
+        }
+
+        fViewer.setContents((EditPart)null);
+    }
+
+    private IFigure getRootFigure() {
+        IFigure figure = ((GraphicalEditPart)fViewer.getRootEditPart()).getFigure();
+        while(figure.getParent() != null) {
+            figure = figure.getParent();
+        }
+        return figure;
+    }
+
+    /**
+     * Dispose of this renderer
+     */
+    public void dispose() {
+        if(fViewer != null) {
+            fViewer.setContents((EditPart)null);
+            fViewer = null;
+            fEditPartFactories.clear();
+        }
+    }
+}
@@ -49,6 +49,26 @@ public final class DiagramUtils {
      * @return A Graphical Viewer
      */
     public static GraphicalViewerImpl createViewer(IDiagramModel model, Composite parent) {
+        GraphicalViewerImpl viewer = new GraphicalViewerImpl();
+        viewer.createControl(parent);
+        
+        viewer.setEditPartFactory(createEditPartFactory(model));
+        
+        RootEditPart rootPart = new FreeformGraphicalRootEditPart();
+        viewer.setRootEditPart(rootPart);
+        
+        viewer.setContents(model);
+        viewer.flush();
+        
+        return viewer;
+    }
+    
+    /**
+     * @param model The diagram model
+     * @return A new EditPartFactory for the type of diagram model
+     * @throws RuntimeException if the type of diagram model is not supported
+     */
+    static EditPartFactory createEditPartFactory(IDiagramModel model) {
         EditPartFactory editPartFactory = null;
         
         if(model instanceof IArchimateDiagramModel) {
@@ -69,18 +89,7 @@ public final class DiagramUtils {
             throw new RuntimeException("Unsupported model type"); //$NON-NLS-1$
         }
         
-        GraphicalViewerImpl viewer = new GraphicalViewerImpl();
-        viewer.createControl(parent);
-        
-        viewer.setEditPartFactory(editPartFactory);
-        
-        RootEditPart rootPart = new FreeformGraphicalRootEditPart();
-        viewer.setRootEditPart(rootPart);
-        
-        viewer.setContents(model);
-        viewer.flush();
-        
-        return viewer;
+        return editPartFactory;
     }
     
     /**
@@ -102,6 +111,7 @@ public final class DiagramUtils {
      * @return ModelReferencedImage wrapper class containing a Scaled Image from the given Diagram Model and offset bounds
      *         Clients must dispose of the Image when done.
      *         If model has no children a blank image of 100x100 is returned
+     * @see DiagramImageRenderer for creating images of many diagram models
      */
     public static ModelReferencedImage createModelReferencedImage(IDiagramModel model, double scale, int margin) {
         Shell shell = new Shell();
@@ -144,21 +154,9 @@ public final class DiagramUtils {
         return createModelReferencedImage(figure, scale, margin).getImage();
     }
 
-    private static ModelReferencedImage createModelReferencedImage(IFigure figure, double scale, int margin) {
-        if(scale <= 0) {
-            scale = 1;
-        }
-        if(scale > 5) {
-            scale = 5;
-        }
-        
-        Rectangle bounds = getMinimumBounds(figure);
-        if(bounds == null) {
-            bounds = new Rectangle(0, 0, 100, 100); // At least a minimum
-        }
-        else {
-            bounds.expand(margin / scale, margin / scale);
-        }
+    static ModelReferencedImage createModelReferencedImage(IFigure figure, double scale, int margin) {
+        scale = getValidScale(scale);
+        Rectangle bounds = getImageBounds(figure, scale, margin);
         
         Image image = new Image(Display.getDefault(), (int)(bounds.width * scale), (int)(bounds.height * scale) );
         GC gc = new GC(image);
@@ -187,6 +185,35 @@ public final class DiagramUtils {
         return new ModelReferencedImage(image, bounds);
     }
     
+    /**
+     * @param scale The requested scale
+     * @return The scale limited to the range that is allowed for images, 1 if scale is not more than 0 and a maximum of 5
+     */
+    static double getValidScale(double scale) {
+        if(scale <= 0) {
+            return 1;
+        }
+        return Math.min(scale, 5);
+    }
+    
+    /**
+     * @param figure The Figure to create the image from
+     * @param scale The valid scale
+     * @param margin amount of white space margin to apply around the image
+     * @return The bounds of figure to paint into an image, including the margin, or 100x100 if figure has no children
+     */
+    static Rectangle getImageBounds(IFigure figure, double scale, int margin) {
+        Rectangle bounds = getMinimumBounds(figure);
+        if(bounds == null) {
+            bounds = new Rectangle(0, 0, 100, 100); // At least a minimum
+        }
+        else {
+            // Copy, as the bounds of a simple Figure are its own bounds
+            bounds = bounds.getCopy().expand(margin / scale, margin / scale);
+        }
+        return bounds;
+    }
+    
     /**
      * Return the extents of the diagram by extending from the left-topmost child to the right-bottom-most child.
      * If there are no children in the diagram a minimal size of 100x100 is returned.
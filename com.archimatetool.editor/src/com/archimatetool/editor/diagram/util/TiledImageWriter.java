@@ -0,0 +1,415 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.ScaledGraphics;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+import com.archimatetool.editor.ui.ImageFactory;
+
+
+
+/**
+ * Writes an image of a Figure to a PNG or BMP file one tile at a time.
+ *
+ * DiagramUtils.createImage(IFigure, ...) creates one Image the size of the whole diagram multiplied by the scale,
+ * which can fail with "No more handles" or run out of memory for very large diagrams.
+ * This paints the figure into one small Image that is re-used for each tile and writes the pixels a band of rows at a time,
+ * so only the tile and one band of rows are in memory. The height of a band is reduced for very wide diagrams
+ * so that a band is no more than MAX_BAND_BYTES however large the diagram is.
+ *
+ * Must be used on the Display thread.
+ *
+ * @author Phillip Beauvoir
+ */
+public class TiledImageWriter {
+
+    /**
+     * Width and height of a tile in image pixels before device zoom
+     */
+    public static final int TILE_SIZE = 512;
+
+    /**
+     * Maximum size of the buffer holding a band of rows. A band is always at least one row.
+     */
+    public static final int MAX_BAND_BYTES = 8 * 1024 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = { (byte)137, 80, 78, 71, 13, 10, 26, 10 };
+
+    private static final int PNG_CHUNK_SIZE = 64 * 1024;
+
+    private static final int BMP_HEADER_SIZE = 54;
+
+    private IFigure fFigure;
+    private double fScale;
+    private Rectangle fBounds;
+    private int fWidth, fHeight;
+    private int fDeviceZoom;
+    private int fMaxBandBytes = MAX_BAND_BYTES;
+
+    /**
+     * @param figure The Figure to create the image from
+     * @param scale The scale to use. 1 is full size. Max of 5 is allowed.
+     * @param margin amount of white space margin to apply around the image
+     */
+    public TiledImageWriter(IFigure figure, double scale, int margin) {
+        fFigure = figure;
+        fScale = DiagramUtils.getValidScale(scale);
+        fBounds = DiagramUtils.getImageBounds(figure, fScale, margin);
+
+        // Same size as the Image that DiagramUtils would create
+        fWidth = (int)(fBounds.width * fScale);
+        fHeight = (int)(fBounds.height * fScale);
+
+        fDeviceZoom = ImageFactory.getDeviceZoom();
+    }
+
+    /**
+     * @return The width of the written image in pixels
+     */
+    public int getWidth() {
+        return toPixels(fWidth);
+    }
+
+    /**
+     * @return The height of the written image in pixels
+     */
+    public int getHeight() {
+        return toPixels(fHeight);
+    }
+
+    /**
+     * Set the maximum size of the band buffer. For testing.
+     */
+    void setMaxBandBytes(int maxBandBytes) {
+        fMaxBandBytes = maxBandBytes;
+    }
+
+    /**
+     * Write the image to file
+     * @param file The file to write to
+     * @param format SWT.IMAGE_PNG or SWT.IMAGE_BMP
+     * @throws IOException
+     */
+    public void write(File file, int format) throws IOException {
+        if(format == SWT.IMAGE_PNG) {
+            try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                writePNG(out);
+            }
+        }
+        else if(format == SWT.IMAGE_BMP) {
+            try(RandomAccessFile out = new RandomAccessFile(file, "rw")) { //$NON-NLS-1$
+                writeBMP(out);
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported image format: " + format); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Write the image as a PNG to out, streaming the rows through the deflater
+     */
+    void writePNG(OutputStream out) throws IOException {
+        int width = getWidth();
+        int height = getHeight();
+        int rowBytes = width * 3;
+
+        out.write(PNG_SIGNATURE);
+
+        // Header, 8 bit RGB
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height).put((byte)8).put((byte)2).put((byte)0).put((byte)0).put((byte)0);
+        writePNGChunk(out, "IHDR", header.array(), header.position()); //$NON-NLS-1$
+
+        Deflater deflater = new Deflater();
+
+        try {
+            DeflaterOutputStream idat = new DeflaterOutputStream(new PNGDataOutputStream(out), deflater, PNG_CHUNK_SIZE);
+            byte[] filtered = new byte[rowBytes + 1];
+
+            paintBands((band, rows) -> {
+                for(int row = 0; row < rows; row++) {
+                    // Sub filter as diagrams have large areas of the same colour
+                    int offset = row * rowBytes;
+                    filtered[0] = 1;
+                    for(int i = 0; i < rowBytes; i++) {
+                        int left = i < 3 ? 0 : band[offset + i - 3];
+                        filtered[i + 1] = (byte)(band[offset + i] - left);
+                    }
+                    idat.write(filtered);
+                }
+            });
+
+            // Writes the last IDAT chunk but doesn't close out
+            idat.close();
+        }
+        finally {
+            deflater.end();
+        }
+
+        writePNGChunk(out, "IEND", new byte[0], 0); //$NON-NLS-1$
+    }
+
+    /**
+     * Write the image as a 24 bit BMP to out.
+     * BMP rows are stored bottom up, so each band is written at its position in the file.
+     */
+    void writeBMP(RandomAccessFile out) throws IOException {
+        int width = getWidth();
+        int height = getHeight();
+        int rowBytes = width * 3;
+        int paddedRowBytes = (rowBytes + 3) & ~3;
+
+        long imageSize = (long)paddedRowBytes * height;
+        if(BMP_HEADER_SIZE + imageSize > 0xFFFFFFFFL) {
+            throw new IOException("Image is too large to save as a BMP file"); //$NON-NLS-1$
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(BMP_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte)'B').put((byte)'M').putInt((int)(BMP_HEADER_SIZE + imageSize)).putInt(0).putInt(BMP_HEADER_SIZE);
+        header.putInt(40).putInt(width).putInt(height).putShort((short)1).putShort((short)24).putInt(0).putInt((int)imageSize);
+        header.putInt(2835).putInt(2835).putInt(0).putInt(0); // 72 dpi
+        out.setLength(0);
+        out.write(header.array());
+
+        int[] y = new int[1];
+
+        paintBands((band, rows) -> {
+            byte[] bmpRows = new byte[paddedRowBytes * rows];
+
+            for(int row = 0; row < rows; row++) {
+                // Rows are bottom up, and pixels are BGR
+                int source = row * rowBytes;
+                int target = (rows - 1 - row) * paddedRowBytes;
+                for(int i = 0; i < rowBytes; i += 3) {
+                    bmpRows[target + i] = band[source + i + 2];
+                    bmpRows[target + i + 1] = band[source + i + 1];
+                    bmpRows[target + i + 2] = band[source + i];
+                }
+            }
+
+            out.seek(BMP_HEADER_SIZE + (long)(height - y[0] - rows) * paddedRowBytes);
+            out.write(bmpRows);
+
+            y[0] += rows;
+        });
+    }
+
+    /**
+     * Receives the RGB pixels of each band of rows, top to bottom
+     */
+    private interface BandWriter {
+        void write(byte[] band, int rows) throws IOException;
+    }
+
+    /**
+     * Paint the figure a tile at a time, and pass each band of rows to writer as RGB pixels.
+     * A band is the height of a tile, which is TILE_SIZE rows or fewer if the band would be more than fMaxBandBytes.
+     */
+    private void paintBands(BandWriter writer) throws IOException {
+        int width = getWidth();
+        int rowBytes = width * 3;
+        int tileSize = Math.min(TILE_SIZE, Math.max(fWidth, fHeight));
+
+        // Rows in the band buffer, less one in case device zoom rounding adds a row to a band
+        int maxBandRows = Math.max(fMaxBandBytes / rowBytes - 1, 1);
+        int tileHeight = Math.max(Math.min(tileSize, maxBandRows * 100 / fDeviceZoom), 1);
+
+        byte[] band = new byte[rowBytes * (toPixels(Math.min(tileHeight, fHeight)) + 1)];
+        int[] pixels = new int[toPixels(tileSize)];
+
+        Image tile = new Image(Display.getDefault(), tileSize, tileHeight);
+
+        try {
+            for(int tileY = 0; tileY < fHeight; tileY += tileHeight) {
+                int bandTop = toPixels(tileY);
+                int bandRows = toPixels(Math.min(tileY + tileHeight, fHeight)) - bandTop;
+
+                // White background in case a tile is a pixel short when device zoom is rounded
+                Arrays.fill(band, (byte)0xFF);
+
+                for(int tileX = 0; tileX < fWidth; tileX += tileSize) {
+                    paintTile(tile, tileX, tileY);
+
+                    ImageData imageData = tile.getImageData(fDeviceZoom);
+
+                    int tileLeft = toPixels(tileX);
+                    int columns = Math.min(imageData.width, width - tileLeft);
+                    int rows = Math.min(imageData.height, bandRows);
+
+                    if(pixels.length < columns) {
+                        pixels = new int[columns];
+                    }
+
+                    for(int row = 0; row < rows; row++) {
+                        imageData.getPixels(0, row, columns, pixels, 0);
+                        copyPixels(imageData.palette, pixels, columns, band, row * rowBytes + tileLeft * 3);
+                    }
+                }
+
+                writer.write(band, bandRows);
+            }
+        }
+        finally {
+            tile.dispose();
+        }
+    }
+
+    /**
+     * Paint the part of the figure at tileX, tileY in image co-ordinates into tile
+     */
+    private void paintTile(Image tile, int tileX, int tileY) {
+        GC gc = new GC(tile);
+        SWTGraphics swtGraphics = new SWTGraphics(gc);
+        Graphics graphics = swtGraphics;
+
+        try {
+            // Clear the last tile
+            swtGraphics.setBackgroundColor(Display.getDefault().getSystemColor(SWT.COLOR_WHITE));
+            swtGraphics.fillRectangle(0, 0, TILE_SIZE, TILE_SIZE);
+
+            // Move to the tile in image co-ordinates
+            swtGraphics.translate(-tileX, -tileY);
+
+            // If scaled, then scale now
+            if(fScale != 1) {
+                graphics = new ScaledGraphics(swtGraphics);
+                graphics.scale(fScale);
+            }
+
+            // Compensate for negative co-ordinates
+            graphics.translate(fBounds.x * -1, fBounds.y * -1);
+
+            // Paint onto graphics
+            fFigure.paint(graphics);
+        }
+        finally {
+            gc.dispose();
+            graphics.dispose();
+            if(swtGraphics != graphics) {
+                swtGraphics.dispose();
+            }
+        }
+    }
+
+    /**
+     * Copy pixels as RGB bytes to target
+     */
+    private void copyPixels(PaletteData palette, int[] pixels, int count, byte[] target, int offset) {
+        for(int i = 0; i < count; i++) {
+            int pixel = pixels[i];
+            int index = offset + i * 3;
+
+            if(palette.isDirect) {
+                target[index] = (byte)shift(pixel & palette.redMask, palette.redShift);
+                target[index + 1] = (byte)shift(pixel & palette.greenMask, palette.greenShift);
+                target[index + 2] = (byte)shift(pixel & palette.blueMask, palette.blueShift);
+            }
+            else {
+                RGB rgb = palette.getRGB(pixel);
+                target[index] = (byte)rgb.red;
+                target[index + 1] = (byte)rgb.green;
+                target[index + 2] = (byte)rgb.blue;
+            }
+        }
+    }
+
+    private int shift(int value, int shift) {
+        return shift < 0 ? value >>> -shift : value << shift;
+    }
+
+    private int toPixels(int size) {
+        return size * fDeviceZoom / 100;
+    }
+
+    private static void writePNGChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(length);
+        dataOut.write(typeBytes);
+        dataOut.write(data, 0, length);
+        dataOut.writeInt((int)crc.getValue());
+        dataOut.flush();
+    }
+
+    /**
+     * Writes the deflated image data as IDAT chunks, and doesn't close the underlying stream
+     */
+    private static class PNGDataOutputStream extends OutputStream {
+        private OutputStream out;
+        private byte[] buffer = new byte[PNG_CHUNK_SIZE];
+        private int count;
+
+        PNGDataOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if(count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte)b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while(len > 0) {
+                if(count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if(count > 0) {
+                writePNGChunk(out, "IDAT", buffer, count); //$NON-NLS-1$
+                count = 0;
+            }
+        }
+    }
+}
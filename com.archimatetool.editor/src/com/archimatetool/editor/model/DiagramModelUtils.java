@@ -15,13 +15,13 @@ import org.eclipse.emf.ecore.EObject;
 import com.archimatetool.editor.preferences.ConnectionPreferences;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IConnectable;
 import com.archimatetool.model.IDiagramModel;
 import com.archimatetool.model.IDiagramModelArchimateComponent;
 import com.archimatetool.model.IDiagramModelArchimateConnection;
 import com.archimatetool.model.IDiagramModelArchimateObject;
-import com.archimatetool.model.IDiagramModelComponent;
 import com.archimatetool.model.IDiagramModelConnection;
 import com.archimatetool.model.IDiagramModelContainer;
 import com.archimatetool.model.IDiagramModelObject;
@@ -42,18 +42,16 @@ public class DiagramModelUtils {
      * @return A List of diagram models that archimateConcept is currently referenced in as a node or connection. May be empty, but never null.
      */
     public static List<IDiagramModel> findReferencedDiagramsForArchimateConcept(IArchimateConcept archimateConcept) {
-        List<IDiagramModel> models = new ArrayList<IDiagramModel>();
+        if(archimateConcept == null) {
+            return new ArrayList<IDiagramModel>();
+        }
         
-        if(archimateConcept != null && archimateConcept.getArchimateModel() != null) {
-            List<IDiagramModelComponent> components = findDiagramModelComponentsForArchimateConcept(archimateConcept);
-            for(IDiagramModelComponent dmc : components) {
-                if(!models.contains(dmc.getDiagramModel())) {
-                    models.add(dmc.getDiagramModel());
-                }
-            }
+        IArchimateModel model = archimateConcept.getArchimateModel();
+        if(model == null) {
+            return new ArrayList<IDiagramModel>();
         }
         
-        return models;
+        return new ArrayList<IDiagramModel>(model.getIDAdapter().getDiagramComponentIndex().getDiagramModels(archimateConcept));
     }
 
     /**
@@ -62,33 +60,16 @@ public class DiagramModelUtils {
      * @return true if archimateComponent is referenced in a node or connection in any diagram model
      */
     public static boolean isArchimateConceptReferencedInDiagrams(IArchimateConcept archimateConcept) {
-        if(archimateConcept == null || archimateConcept.getArchimateModel() == null) {
+        if(archimateConcept == null) {
             return false;
         }
         
-        return !findDiagramModelComponentsForArchimateConcept(archimateConcept).isEmpty();
+        IArchimateModel model = archimateConcept.getArchimateModel();
+        return model != null && model.getIDAdapter().getDiagramComponentIndex().isReferenced(archimateConcept);
     }
 
     // ============================= Fast methods of finding components using reference list ==============================
     
-    /**
-     * Find all (visible and extant) Diagram Model Components that reference a given Archimate concept.
-     * @param archimateConcept The Archimate concept to search on.
-     * @return The list of active Diagram Model Components. May be empty, but never null.
-     */
-    private static List<IDiagramModelComponent> findDiagramModelComponentsForArchimateConcept(IArchimateConcept archimateConcept) {
-        List<IDiagramModelComponent> list = new ArrayList<IDiagramModelComponent>();
-        
-        if(archimateConcept instanceof IArchimateElement) {
-            list.addAll(findDiagramModelObjectsForElement((IArchimateElement)archimateConcept));
-        }
-        else if(archimateConcept instanceof IArchimateRelationship) {
-            list.addAll(findDiagramModelConnectionsForRelation((IArchimateRelationship)archimateConcept));
-        }
-        
-        return list;
-    }
-
     /**
      * Find all (visible and extant) Diagram Model Objects that reference a given Archimate element.
      * @param element The Archimate element to search on.
@@ -97,6 +78,15 @@ public class DiagramModelUtils {
     static List<IDiagramModelArchimateObject> findDiagramModelObjectsForElement(IArchimateElement element) {
         List<IDiagramModelArchimateObject> list = new ArrayList<IDiagramModelArchimateObject>();
         
+        // Use the model's index if the element is in a model
+        IArchimateModel model = element.getArchimateModel();
+        if(model != null) {
+            for(IDiagramModelArchimateComponent dmc : model.getIDAdapter().getDiagramComponentIndex().getComponents(element)) {
+                list.add((IDiagramModelArchimateObject)dmc);
+            }
+            return list;
+        }
+        
         /*
          * It's not simply a case of returning the list of references.
          * If an *ancestor* of a dmo is deleted, or the diagram model itself, but not the direct parent,
@@ -121,6 +111,15 @@ public class DiagramModelUtils {
     static List<IDiagramModelArchimateConnection> findDiagramModelConnectionsForRelation(IArchimateRelationship relationship) {
         List<IDiagramModelArchimateConnection> list = new ArrayList<IDiagramModelArchimateConnection>();
         
+        // Use the model's index if the relationship is in a model
+        IArchimateModel model = relationship.getArchimateModel();
+        if(model != null) {
+            for(IDiagramModelArchimateComponent dmc : model.getIDAdapter().getDiagramComponentIndex().getComponents(relationship)) {
+                list.add((IDiagramModelArchimateConnection)dmc);
+            }
+            return list;
+        }
+        
         /*
          * It's not simply a case of returning the list of references.
          * If an *ancestor* of a dmc is deleted, or the diagram model itself, but not the direct parent,
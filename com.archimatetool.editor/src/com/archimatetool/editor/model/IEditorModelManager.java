@@ -28,6 +28,13 @@ public interface IEditorModelManager {
     String PROPERTY_MODEL_CREATED = "IEditorModelManager.model.created"; //$NON-NLS-1$
     String PROPERTY_MODEL_OPENED = "IEditorModelManager.model.opened"; //$NON-NLS-1$
     String PROPERTY_MODEL_LOADED = "IEditorModelManager.model.loaded"; //$NON-NLS-1$
+    
+    /*
+     * Notification that a model that was being loaded in the background has finished loading.
+     * The old value is the model's file and the new value is the model, or null if it could not be loaded.
+     */
+    String PROPERTY_MODEL_LOADING_FINISHED = "IEditorModelManager.model.loading.finished"; //$NON-NLS-1$
+    
     String PROPERTY_MODEL_REMOVED = "IEditorModelManager.model.removed"; //$NON-NLS-1$
     String PROPERTY_MODEL_SAVED = "IEditorModelManager.model.saved"; //$NON-NLS-1$
     
@@ -58,6 +65,11 @@ public interface IEditorModelManager {
      * @return Models
      */
     List<IArchimateModel> getModels();
+    
+    /**
+     * @return The files of models that are still being loaded in the background when the application starts
+     */
+    List<File> getLoadingModelFiles();
 
     /**
      * @return New Model
@@ -6,10 +6,17 @@
 package com.archimatetool.editor.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Shell;
 
@@ -17,17 +24,23 @@ import com.archimatetool.editor.Logger;
 import com.archimatetool.editor.ui.ArchiLabelProvider;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IDiagramModelArchimateConnection;
 import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IFolder;
 import com.archimatetool.model.IIdentifier;
 
 
 /**
  * Check Model for integrity
  * 
+ * All checks are made in one pass over the model, with the top level folders checked in parallel.
+ * Checking only reads the model. The messages are created on the calling thread once the folders have been checked.
+ * Used as a listener to model notifications it can also check only the objects that have changed since the model was last checked and saved.
+ * 
  * @author Phillip Beauvoir
  */
 public class ModelChecker {
@@ -36,24 +49,233 @@ public class ModelChecker {
     
     private List<String> fErrorMessages;
     
+    /**
+     * Objects that have changed, and objects that have been added with their child objects, since the last call to {@link #clearChanges()}
+     */
+    private Set<EObject> fChangedObjects = new LinkedHashSet<EObject>();
+    private Set<EObject> fAddedObjects = new LinkedHashSet<EObject>();
+    
+    /**
+     * Whether the whole model has to be checked by {@link #checkChanges()} because it has not been checked yet
+     */
+    private boolean fCheckAll = true;
+    
+    /**
+     * Error messages of each check found in one pass.
+     * Objects without an identifier are kept rather than their messages so that their labels are got on the calling thread.
+     */
+    private static class CheckResults {
+        List<EObject> identifiers = new ArrayList<EObject>();
+        List<String> relations = new ArrayList<String>();
+        List<String> diagrams = new ArrayList<String>();
+        
+        void addAll(CheckResults results) {
+            identifiers.addAll(results.identifiers);
+            relations.addAll(results.relations);
+            diagrams.addAll(results.diagrams);
+        }
+        
+        List<String> getMessages() {
+            List<String> messages = new ArrayList<String>();
+            for(EObject eObject : identifiers) {
+                messages.add(createNoIdentifierMessage(eObject));
+            }
+            messages.addAll(relations);
+            messages.addAll(diagrams);
+            return messages;
+        }
+    }
+    
     public ModelChecker(IArchimateModel model) {
         fModel = model;
     }
     
     /**
+     * Check the whole model in one pass over each top level folder, with the folders checked in parallel.
+     * Each folder's objects are only visited by one thread.
      * @return True if OK, false if not OK
      */
     public boolean checkAll() {
-        fErrorMessages = new ArrayList<String>();
-        
         // fErrorMessages.addAll(checkFolderStructure()); // not that important
-        fErrorMessages.addAll(checkHasIdentifiers());
-        fErrorMessages.addAll(checkRelationsHaveElements());
-        fErrorMessages.addAll(checkDiagramObjectsReferences());
+        
+        CheckResults results = new CheckResults();
+        
+        for(CheckResults folderResults : fModel.getFolders().parallelStream().map(this::checkFolder).collect(Collectors.toList())) {
+            results.addAll(folderResults);
+        }
+        
+        fErrorMessages = results.getMessages();
+        
+        return fErrorMessages.isEmpty();
+    }
+    
+    /**
+     * Check only the objects that have changed since the last call to {@link #clearChanges()}.
+     * If the model has not been checked since this ModelChecker was created then the whole model is checked.
+     * @return True if OK, false if not OK
+     */
+    public boolean checkChanges() {
+        if(fCheckAll) {
+            return checkAll();
+        }
+        
+        CheckResults results = new CheckResults();
+        Set<EObject> checked = new HashSet<EObject>();
+        
+        for(EObject eObject : fChangedObjects) {
+            if(isInModel(eObject) && checked.add(eObject)) {
+                checkObject(eObject, results);
+            }
+        }
+        
+        for(EObject eObject : fAddedObjects) {
+            if(isInModel(eObject)) {
+                if(checked.add(eObject)) {
+                    checkObject(eObject, results);
+                }
+                for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+                    EObject child = iter.next();
+                    if(checked.add(child)) {
+                        checkObject(child, results);
+                    }
+                }
+            }
+        }
+        
+        fErrorMessages = results.getMessages();
         
         return fErrorMessages.isEmpty();
     }
     
+    /**
+     * Forget the changed objects. Call this when the model has been checked and saved.
+     */
+    public void clearChanges() {
+        fChangedObjects.clear();
+        fAddedObjects.clear();
+        fCheckAll = false;
+    }
+    
+    /**
+     * Keep track of the objects affected by a model notification so that they are checked by {@link #checkChanges()}
+     */
+    @SuppressWarnings("unchecked")
+    public void notifyChanged(Notification msg) {
+        if(msg.isTouch()) {
+            return;
+        }
+        
+        if(msg.getNotifier() instanceof EObject) {
+            fChangedObjects.add((EObject)msg.getNotifier());
+        }
+        
+        switch(msg.getEventType()) {
+            case Notification.ADD:
+                addAddedObject(msg.getNewValue());
+                break;
+
+            case Notification.ADD_MANY:
+                for(Object o : (Collection<Object>)msg.getNewValue()) {
+                    addAddedObject(o);
+                }
+                break;
+
+            case Notification.REMOVE:
+                addReferencingObjects(msg.getOldValue());
+                break;
+
+            case Notification.REMOVE_MANY:
+                for(Object o : (Collection<Object>)msg.getOldValue()) {
+                    addReferencingObjects(o);
+                }
+                break;
+
+            case Notification.SET:
+            case Notification.UNSET:
+                addReferencingObjects(msg.getOldValue());
+                addAddedObject(msg.getNewValue());
+                break;
+
+            default:
+                break;
+        }
+    }
+    
+    private void addAddedObject(Object object) {
+        if(object instanceof EObject) {
+            fAddedObjects.add((EObject)object);
+        }
+    }
+    
+    /**
+     * An object has been removed so the objects that reference it, and its child objects, may now be orphaned
+     */
+    private void addReferencingObjects(Object object) {
+        if(object instanceof EObject) {
+            addReferencingObjects((EObject)object);
+            for(Iterator<EObject> iter = ((EObject)object).eAllContents(); iter.hasNext();) {
+                addReferencingObjects(iter.next());
+            }
+        }
+    }
+    
+    private void addReferencingObjects(EObject eObject) {
+        if(eObject instanceof IArchimateConcept) {
+            IArchimateConcept concept = (IArchimateConcept)eObject;
+            for(IArchimateRelationship relation : concept.getSourceRelationships()) {
+                fChangedObjects.add(relation);
+                fChangedObjects.addAll(relation.getReferencingDiagramConnections());
+            }
+            for(IArchimateRelationship relation : concept.getTargetRelationships()) {
+                fChangedObjects.add(relation);
+                fChangedObjects.addAll(relation.getReferencingDiagramConnections());
+            }
+        }
+        
+        if(eObject instanceof IArchimateElement) {
+            fChangedObjects.addAll(((IArchimateElement)eObject).getReferencingDiagramObjects());
+        }
+        
+        if(eObject instanceof IArchimateRelationship) {
+            fChangedObjects.addAll(((IArchimateRelationship)eObject).getReferencingDiagramConnections());
+        }
+    }
+    
+    /**
+     * @return true if the object is a child object of the model
+     */
+    private boolean isInModel(EObject eObject) {
+        return eObject != fModel && EcoreUtil.getRootContainer(eObject) == fModel;
+    }
+    
+    /**
+     * Check a top level folder and all of its child objects in one pass
+     */
+    private CheckResults checkFolder(IFolder folder) {
+        CheckResults results = new CheckResults();
+        
+        checkObject(folder, results);
+        
+        for(Iterator<EObject> iter = folder.eAllContents(); iter.hasNext();) {
+            checkObject(iter.next(), results);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Run all checks on one object
+     */
+    private void checkObject(EObject eObject, CheckResults results) {
+        checkHasIdentifier(eObject, results.identifiers);
+        
+        if(eObject instanceof IArchimateRelationship) {
+            checkRelationHasElements((IArchimateRelationship)eObject, results.relations);
+        }
+        
+        checkDiagramObjectReferences(eObject, results.diagrams);
+    }
+    
     public List<String> getErrorMessages() {
         return fErrorMessages;
     }
@@ -112,85 +334,104 @@ public class ModelChecker {
         
         for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
             EObject eObject = iter.next();
-            if(eObject instanceof IIdentifier && !StringUtils.isSet(((IIdentifier)eObject).getId())) {
-                String message = Messages.ModelChecker_10 + " " + ArchiLabelProvider.INSTANCE.getLabel(eObject); //$NON-NLS-1$
-                messages.add(message);
+            if(!hasIdentifier(eObject)) {
+                messages.add(createNoIdentifierMessage(eObject));
             }
         }
         
         return messages;
     }
     
+    private void checkHasIdentifier(EObject eObject, List<EObject> noIdentifiers) {
+        if(!hasIdentifier(eObject)) {
+            noIdentifiers.add(eObject);
+        }
+    }
+    
+    private boolean hasIdentifier(EObject eObject) {
+        return !(eObject instanceof IIdentifier) || StringUtils.isSet(((IIdentifier)eObject).getId());
+    }
+    
+    private static String createNoIdentifierMessage(EObject eObject) {
+        return Messages.ModelChecker_10 + " " + ArchiLabelProvider.INSTANCE.getLabel(eObject); //$NON-NLS-1$
+    }
+    
     List<String> checkRelationsHaveElements() {
         List<String> messages = new ArrayList<String>();
         
         for(Iterator<EObject> iter = fModel.getFolder(FolderType.RELATIONS).eAllContents(); iter.hasNext();) {
             EObject eObject = iter.next();
             if(eObject instanceof IArchimateRelationship) {
-                IArchimateRelationship relation = (IArchimateRelationship)eObject;
-                String name = " (" + relation.getId() + ")"; //$NON-NLS-1$ //$NON-NLS-2$
-                if(relation.getSource() == null) {
-                    String message = Messages.ModelChecker_19 + name;
-                    messages.add(message);
-                }
-                else if(relation.getSource().getArchimateModel() == null) {
-                    String message = Messages.ModelChecker_20 + name;
-                    messages.add(message);
-                }
-                if(relation.getTarget() == null) {
-                    String message = Messages.ModelChecker_21 + name;
-                    messages.add(message);
-                }
-                else if(relation.getTarget().getArchimateModel() == null) {
-                    String message = Messages.ModelChecker_22 + name;
-                    messages.add(message);
-                }
+                checkRelationHasElements((IArchimateRelationship)eObject, messages);
             }
         }
         
         return messages;
     }
     
+    private void checkRelationHasElements(IArchimateRelationship relation, List<String> messages) {
+        String name = " (" + relation.getId() + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+        if(relation.getSource() == null) {
+            String message = Messages.ModelChecker_19 + name;
+            messages.add(message);
+        }
+        else if(relation.getSource().getArchimateModel() == null) {
+            String message = Messages.ModelChecker_20 + name;
+            messages.add(message);
+        }
+        if(relation.getTarget() == null) {
+            String message = Messages.ModelChecker_21 + name;
+            messages.add(message);
+        }
+        else if(relation.getTarget().getArchimateModel() == null) {
+            String message = Messages.ModelChecker_22 + name;
+            messages.add(message);
+        }
+    }
+    
     List<String> checkDiagramObjectsReferences() {
         List<String> messages = new ArrayList<String>();
         
         for(Iterator<EObject> iter = fModel.getFolder(FolderType.DIAGRAMS).eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            if(eObject instanceof IDiagramModelArchimateObject) {
-                IDiagramModelArchimateObject dmo = (IDiagramModelArchimateObject)eObject;
-                String name = dmo.getDiagramModel() == null ? Messages.ModelChecker_11 : " '" + dmo.getDiagramModel().getName() + "' (" + dmo.getId() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-                
-                IArchimateElement element = dmo.getArchimateElement();
-                if(element == null) {
-                    messages.add(Messages.ModelChecker_12 + name);
-                }
-                else if(element.getArchimateModel() == null) {
-                    messages.add(Messages.ModelChecker_13 + name);
-                }
+            checkDiagramObjectReferences(iter.next(), messages);
+        }
+        
+        return messages;
+    }
+    
+    private void checkDiagramObjectReferences(EObject eObject, List<String> messages) {
+        if(eObject instanceof IDiagramModelArchimateObject) {
+            IDiagramModelArchimateObject dmo = (IDiagramModelArchimateObject)eObject;
+            String name = dmo.getDiagramModel() == null ? Messages.ModelChecker_11 : " '" + dmo.getDiagramModel().getName() + "' (" + dmo.getId() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            
+            IArchimateElement element = dmo.getArchimateElement();
+            if(element == null) {
+                messages.add(Messages.ModelChecker_12 + name);
+            }
+            else if(element.getArchimateModel() == null) {
+                messages.add(Messages.ModelChecker_13 + name);
             }
-            if(eObject instanceof IDiagramModelArchimateConnection) {
-                IDiagramModelArchimateConnection conn = (IDiagramModelArchimateConnection)eObject;
-                String name = conn.getDiagramModel() == null ? Messages.ModelChecker_14 : " '" + conn.getDiagramModel().getName() + "' (" + conn.getId() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-                
-                IArchimateRelationship relation = conn.getArchimateRelationship();
-                if(relation == null) {
-                    messages.add(Messages.ModelChecker_15 + name);
+        }
+        if(eObject instanceof IDiagramModelArchimateConnection) {
+            IDiagramModelArchimateConnection conn = (IDiagramModelArchimateConnection)eObject;
+            String name = conn.getDiagramModel() == null ? Messages.ModelChecker_14 : " '" + conn.getDiagramModel().getName() + "' (" + conn.getId() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            
+            IArchimateRelationship relation = conn.getArchimateRelationship();
+            if(relation == null) {
+                messages.add(Messages.ModelChecker_15 + name);
+            }
+            else {
+                if(relation.getArchimateModel() == null) {
+                    messages.add(Messages.ModelChecker_16 + name);
                 }
-                else {
-                    if(relation.getArchimateModel() == null) {
-                        messages.add(Messages.ModelChecker_16 + name);
-                    }
-                    if(relation.getSource() != null && relation.getSource().getArchimateModel() == null) {
-                        messages.add(Messages.ModelChecker_17 + name);
-                    }
-                    if(relation.getTarget() != null && relation.getTarget().getArchimateModel() == null) {
-                        messages.add(Messages.ModelChecker_18 + name);
-                    }
+                if(relation.getSource() != null && relation.getSource().getArchimateModel() == null) {
+                    messages.add(Messages.ModelChecker_17 + name);
+                }
+                if(relation.getTarget() != null && relation.getTarget().getArchimateModel() == null) {
+                    messages.add(Messages.ModelChecker_18 + name);
                 }
             }
         }
-        
-        return messages;
     }
     
     void logMessage(String message) {
@@ -40,21 +40,33 @@ public class EObjectNonNotifyingCompoundCommand extends CompoundCommand {
     @Override
     public void execute() {
         eObject.eNotify(msgStart);
-        super.execute();
-        eObject.eNotify(msgEnd);
+        try {
+            super.execute();
+        }
+        finally {
+            eObject.eNotify(msgEnd);
+        }
     }
 
     @Override
     public void undo() {
         eObject.eNotify(msgStart);
-        super.undo();
-        eObject.eNotify(msgEnd);
+        try {
+            super.undo();
+        }
+        finally {
+            eObject.eNotify(msgEnd);
+        }
     }
 
     @Override
     public void redo() {
         eObject.eNotify(msgStart);
-        super.redo();
-        eObject.eNotify(msgEnd);
+        try {
+            super.redo();
+        }
+        finally {
+            eObject.eNotify(msgEnd);
+        }
     }
 }
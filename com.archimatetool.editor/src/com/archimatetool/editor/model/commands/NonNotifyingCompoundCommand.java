@@ -13,11 +13,23 @@ import com.archimatetool.editor.model.IEditorModelManager;
 
 /**
  * Compound Command that will set a property to listeners to ignore notifications.
- * Used where many commands might cause excessive amounts of responses in clients listening to model changes. 
+ * Used where many commands might cause excessive amounts of responses in clients listening to model changes.
+ * 
+ * Listeners buffer the notifications between PROPERTY_ECORE_EVENTS_START and PROPERTY_ECORE_EVENTS_END and process them as one batch.
+ * If this command is nested in another NonNotifyingCompoundCommand only the outermost command fires these properties
+ * so that the whole batch is delivered once.
+ * 
+ * Listeners that are ECore adapters, such as diagram edit parts and property sections, buffer their notifications
+ * in a NotificationBatcher. These are delivered coalesced when the outermost command has finished, before PROPERTY_ECORE_EVENTS_END is fired.
  * 
  * @author Phillip Beauvoir
  */
 public class NonNotifyingCompoundCommand extends CompoundCommand {
+    
+    /**
+     * Depth of nested NonNotifyingCompoundCommands being executed, undone or redone. Commands are run on the UI thread.
+     */
+    private static int batchDepth;
 
     public NonNotifyingCompoundCommand() {
     }
@@ -26,36 +38,65 @@ public class NonNotifyingCompoundCommand extends CompoundCommand {
         super(label);
     }
     
+    /**
+     * @return true if a NonNotifyingCompoundCommand is currently being executed, undone or redone
+     */
+    static boolean isBatching() {
+        return batchDepth > 0;
+    }
+    
     @Override
     public void execute() {
-        IEditorModelManager.INSTANCE.firePropertyChange(this,
-                IEditorModelManager.PROPERTY_ECORE_EVENTS_START, false, true);
-        
-        super.execute();
+        startBatch();
         
-        IEditorModelManager.INSTANCE.firePropertyChange(this,
-                IEditorModelManager.PROPERTY_ECORE_EVENTS_END, false, true);
+        try {
+            super.execute();
+        }
+        finally {
+            endBatch();
+        }
     }
     
     @Override
     public void undo() {
-        IEditorModelManager.INSTANCE.firePropertyChange(this,
-                IEditorModelManager.PROPERTY_ECORE_EVENTS_START, false, true);
+        startBatch();
         
-        super.undo();
-        
-        IEditorModelManager.INSTANCE.firePropertyChange(this,
-                IEditorModelManager.PROPERTY_ECORE_EVENTS_END, false, true);
+        try {
+            super.undo();
+        }
+        finally {
+            endBatch();
+        }
     }
     
     @Override
     public void redo() { // redo() as called by CompoundCommand is *not* the same as execute()!
-        IEditorModelManager.INSTANCE.firePropertyChange(this,
-                IEditorModelManager.PROPERTY_ECORE_EVENTS_START, false, true);
-        
-        super.redo();
+        startBatch();
         
-        IEditorModelManager.INSTANCE.firePropertyChange(this,
-                IEditorModelManager.PROPERTY_ECORE_EVENTS_END, false, true);
+        try {
+            super.redo();
+        }
+        finally {
+            endBatch();
+        }
+    }
+    
+    private void startBatch() {
+        if(batchDepth++ == 0) {
+            IEditorModelManager.INSTANCE.firePropertyChange(this,
+                    IEditorModelManager.PROPERTY_ECORE_EVENTS_START, false, true);
+        }
+    }
+    
+    private void endBatch() {
+        if(--batchDepth == 0) {
+            try {
+                NotificationBatcher.flushAll();
+            }
+            finally {
+                IEditorModelManager.INSTANCE.firePropertyChange(this,
+                        IEditorModelManager.PROPERTY_ECORE_EVENTS_END, false, true);
+            }
+        }
     }
 }
@@ -0,0 +1,140 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.commands;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.eclipse.emf.common.notify.Notification;
+
+
+
+/**
+ * Buffers the ECore notifications received by a listener while a NonNotifyingCompoundCommand is executed, undone or redone
+ * and delivers them to the listener as one coalesced change set when the outermost command has finished.
+ * Notifications received outside of a batch are delivered straight away.
+ *
+ * Notifications of the same kind from the same notifier and feature are coalesced into the last one received.
+ * So adding or removing many objects in the same list is delivered as one list change notification,
+ * and setting the same feature many times is delivered as one SET notification.
+ * The listener should treat ADD, REMOVE and MOVE notifications of a feature in the same way and read the current list.
+ *
+ * This has to be used on the UI thread, where commands are run.
+ *
+ * @author Phillip Beauvoir
+ */
+public class NotificationBatcher {
+
+    /**
+     * Batchers with buffered notifications to be delivered when the batch ends
+     */
+    private static Set<NotificationBatcher> pendingBatchers = new LinkedHashSet<>();
+
+    private Consumer<Notification> fListener;
+
+    /**
+     * Buffered notifications keyed by notifier, feature and kind, in the order that they were last received
+     */
+    private Map<List<Object>, Notification> fBuffer;
+
+    /**
+     * @param listener The listener that notifications are delivered to
+     */
+    public NotificationBatcher(Consumer<Notification> listener) {
+        fListener = listener;
+    }
+
+    /**
+     * Deliver a notification to the listener, or buffer it if a batch is in progress
+     */
+    public void notifyChanged(Notification msg) {
+        // Adapters are removed straight away so this is not buffered
+        if(!NonNotifyingCompoundCommand.isBatching() || msg.getEventType() == Notification.REMOVING_ADAPTER) {
+            fListener.accept(msg);
+            return;
+        }
+
+        if(fBuffer == null) {
+            fBuffer = new LinkedHashMap<>();
+            pendingBatchers.add(this);
+        }
+
+        List<Object> key = Arrays.asList(msg.getNotifier(), msg.getFeature(), getKind(msg.getEventType()));
+
+        // Remove it first so that it moves to the end
+        fBuffer.remove(key);
+        fBuffer.put(key, msg);
+    }
+
+    /**
+     * Discard any buffered notifications. Call this when the listener stops listening.
+     */
+    public void clear() {
+        if(fBuffer != null) {
+            fBuffer = null;
+            pendingBatchers.remove(this);
+        }
+    }
+
+    /**
+     * @return true if there are notifications waiting to be delivered at the end of the batch
+     */
+    boolean hasBufferedNotifications() {
+        return fBuffer != null;
+    }
+
+    private void flush() {
+        // Another listener might have cleared this one when it was delivered its notifications
+        if(fBuffer == null) {
+            return;
+        }
+
+        Map<List<Object>, Notification> buffer = fBuffer;
+        fBuffer = null;
+
+        for(Notification msg : buffer.values()) {
+            fListener.accept(msg);
+        }
+    }
+
+    /**
+     * Deliver the buffered notifications of all listeners. Called when the outermost NonNotifyingCompoundCommand has finished.
+     */
+    static void flushAll() {
+        Set<NotificationBatcher> batchers = pendingBatchers;
+        pendingBatchers = new LinkedHashSet<>();
+
+        for(NotificationBatcher batcher : batchers) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * @return The kind of change. List changes are one kind and value changes are another.
+     */
+    private static int getKind(int eventType) {
+        switch(eventType) {
+            case Notification.ADD:
+            case Notification.ADD_MANY:
+            case Notification.REMOVE:
+            case Notification.REMOVE_MANY:
+            case Notification.MOVE:
+                return Notification.ADD;
+
+            case Notification.SET:
+            case Notification.UNSET:
+                return Notification.SET;
+
+            default:
+                return eventType;
+        }
+    }
+}
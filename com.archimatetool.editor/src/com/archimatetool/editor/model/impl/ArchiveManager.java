@@ -10,12 +10,26 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -26,14 +40,18 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.widgets.Display;
 
+import com.archimatetool.editor.Logger;
 import com.archimatetool.editor.model.IArchiveManager;
-import com.archimatetool.editor.model.IEditorModelManager;
+import com.archimatetool.editor.preferences.IPreferenceConstants;
+import com.archimatetool.editor.preferences.Preferences;
 import com.archimatetool.editor.utils.FileUtils;
-import com.archimatetool.editor.utils.ZipUtils;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IDiagramModelImageProvider;
@@ -53,6 +71,23 @@ public class ArchiveManager implements IArchiveManager {
      */
     static ByteArrayStorage BYTE_ARRAY_STORAGE = new ByteArrayStorage();
     
+    /**
+     * Decoded image data for images in use globally in the app, up to a memory budget
+     */
+    static ImageDataCache IMAGE_DATA_CACHE = new ImageDataCache(Preferences.getImageCacheSize());
+    
+    static {
+        // Resize the image data cache when its size is changed in Preferences
+        Preferences.STORE.addPropertyChangeListener(new IPropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent event) {
+                if(IPreferenceConstants.IMAGE_CACHE_SIZE.equals(event.getProperty())) {
+                    IMAGE_DATA_CACHE.setMaxSize(Preferences.getImageCacheSize());
+                }
+            }
+        });
+    }
+    
     /**
      * The ArchiMate model
      */
@@ -64,9 +99,9 @@ public class ArchiveManager implements IArchiveManager {
     private boolean fImagesLoaded = false;
     
     /**
-     * Paths of images loaded
+     * Paths of images loaded. Each path holds a reference to its entry in BYTE_ARRAY_STORAGE
      */
-    private List<String> fLoadedImagePaths = new ArrayList<String>();
+    private Set<String> fLoadedImagePaths = new LinkedHashSet<String>();
     
     /**
      * Adapter monitors added image components added by user (copy & paste, DND, image set, etc)
@@ -81,19 +116,13 @@ public class ArchiveManager implements IArchiveManager {
             if(msg.getEventType() == Notification.ADD) {
                 if(msg.getNewValue() instanceof IDiagramModelImageProvider) {
                     IDiagramModelImageProvider imageProvider = (IDiagramModelImageProvider)msg.getNewValue();
-                    String imagePath = imageProvider.getImagePath();
-                    if(imagePath != null && !fLoadedImagePaths.contains(imagePath)) {
-                        fLoadedImagePaths.add(imagePath);
-                    }
+                    addLoadedImagePath(imageProvider.getImagePath());
                 }
             }
             // Image path set
             else if(msg.getEventType() == Notification.SET) {
                 if(msg.getFeature() == IArchimatePackage.Literals.DIAGRAM_MODEL_IMAGE_PROVIDER__IMAGE_PATH) {
-                    String imagePath = (String)msg.getNewValue();
-                    if(imagePath != null && !fLoadedImagePaths.contains(imagePath)) {
-                        fLoadedImagePaths.add(imagePath);
-                    }
+                    addLoadedImagePath((String)msg.getNewValue());
                 }
             }
         }
@@ -145,28 +174,35 @@ public class ArchiveManager implements IArchiveManager {
     
     @Override
     public Image createImage(String path) throws Exception {
-        if(BYTE_ARRAY_STORAGE.hasEntry(path)) {
-            return new Image(Display.getCurrent(), BYTE_ARRAY_STORAGE.getInputStream(path));
+        ImageData imageData = IMAGE_DATA_CACHE.get(path);
+        
+        // Not cached so read and decode it. If the image was lazily loaded this will read it from the archive file
+        if(imageData == null && BYTE_ARRAY_STORAGE.hasEntry(path)) {
+            InputStream in = BYTE_ARRAY_STORAGE.getInputStream(path);
+            if(in != null) {
+                imageData = new ImageData(in);
+                IMAGE_DATA_CACHE.put(path, imageData);
+            }
         }
         
-        return null;
+        return imageData != null ? new Image(Display.getCurrent(), imageData) : null;
     }
     
     @Override
     public List<String> getImagePaths() {
-        List<String> list = new ArrayList<String>();
+        Set<String> paths = new LinkedHashSet<String>();
         
         for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
             EObject element = iter.next();
             if(element instanceof IDiagramModelImageProvider) {
                 String imagePath = ((IDiagramModelImageProvider)element).getImagePath();
-                if(imagePath != null && !list.contains(imagePath)) {
-                    list.add(imagePath);
+                if(imagePath != null) {
+                    paths.add(imagePath);
                 }
             }
         }
         
-        return list;
+        return new ArrayList<String>(paths);
     }
     
     @Override
@@ -190,30 +226,44 @@ public class ArchiveManager implements IArchiveManager {
             return false;
         }
         
-        ZipFile zipFile = new ZipFile(file);
+        // If lazy loading, only the zip file's directory is read now and each image is read
+        // from the zip file when it is first needed
+        boolean lazyLoad = Preferences.doLazyLoadImages();
         
-        for(Enumeration<? extends ZipEntry> enm = zipFile.entries(); enm.hasMoreElements();) {
-            ZipEntry zipEntry = enm.nextElement();
-            String entryName = zipEntry.getName();
-            if(entryName.startsWith("images/")) { //$NON-NLS-1$
-                // Add to ByteArrayStorage
-                if(!BYTE_ARRAY_STORAGE.hasEntry(entryName)) {
-                    InputStream in = zipFile.getInputStream(zipEntry);
-                    BYTE_ARRAY_STORAGE.addStreamEntry(entryName, in);
-                }
-                
-                // Add to list
-                if(!fLoadedImagePaths.contains(entryName)) {
-                    fLoadedImagePaths.add(entryName);
+        try(ZipFile zipFile = new ZipFile(file)) {
+            for(Enumeration<? extends ZipEntry> enm = zipFile.entries(); enm.hasMoreElements();) {
+                ZipEntry zipEntry = enm.nextElement();
+                String entryName = zipEntry.getName();
+                if(entryName.startsWith("images/")) { //$NON-NLS-1$
+                    // Add to ByteArrayStorage
+                    if(!BYTE_ARRAY_STORAGE.hasEntry(entryName)) {
+                        if(lazyLoad) {
+                            BYTE_ARRAY_STORAGE.addLazyEntry(file, zipEntry);
+                        }
+                        else {
+                            InputStream in = zipFile.getInputStream(zipEntry);
+                            BYTE_ARRAY_STORAGE.addStreamEntry(entryName, in);
+                        }
+                    }
+                    
+                    // Add to list
+                    addLoadedImagePath(entryName);
                 }
             }
         }
         
-        zipFile.close();
-        
         return true;
     }
     
+    /**
+     * Add an image path to the loaded image paths and add a reference to it in BYTE_ARRAY_STORAGE
+     */
+    private void addLoadedImagePath(String imagePath) {
+        if(imagePath != null && fLoadedImagePaths.add(imagePath)) {
+            BYTE_ARRAY_STORAGE.addReference(imagePath);
+        }
+    }
+    
     @Override
     public boolean hasImages() {
         for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
@@ -253,67 +303,115 @@ public class ArchiveManager implements IArchiveManager {
     
     @Override
     public void saveModel() throws IOException {
+        saveModel(Preferences.doSaveModelSnapshot());
+    }
+    
+    /**
+     * Save the model
+     * @param saveSnapshot If true the model is saved in archive format with a binary snapshot for faster loading
+     */
+    void saveModel(boolean saveSnapshot) throws IOException {
         File file = fModel.getFile();
         
         if(file == null) {
             return;
         }
         
-        if(hasImages()) {
-            saveModelToArchiveFile(file);
+        // Any images not read yet from this file have to be read before it is replaced
+        BYTE_ARRAY_STORAGE.readLazyEntries(file);
+        
+        List<String> imagePaths = getImagePaths();
+        
+        // Save to a temp file in the same folder and then move it over the model file
+        // so that the model file is never left half written if saving fails.
+        // If the model file is a symbolic link the file that it links to is replaced.
+        Path target = file.exists() ? file.toPath().toRealPath() : file.toPath();
+        File tmpFile = File.createTempFile("~" + file.getName(), ".tmp", target.toAbsolutePath().getParent().toFile()); //$NON-NLS-1$ //$NON-NLS-2$
+        
+        try {
+            if(imagePaths.isEmpty() && !saveSnapshot) {
+                saveModelToXMLFile(file, tmpFile);
+            }
+            else {
+                saveModelToArchiveFile(file, tmpFile, imagePaths, saveSnapshot);
+            }
+            
+            if(Files.exists(target)) {
+                // Another hard link to the model file would be left with the old contents if the file was replaced, so write over it
+                if(hasOtherLinks(target)) {
+                    try(OutputStream out = Files.newOutputStream(target)) {
+                        Files.copy(tmpFile.toPath(), out);
+                    }
+                    return;
+                }
+                
+                copyFileAttributes(target, tmpFile.toPath());
+            }
+            
+            moveFile(tmpFile.toPath(), target);
         }
-        else {
-            saveModelToXMLFile(file);
+        finally {
+            tmpFile.delete();
         }
     }
     
     /**
      * Save the model to XML File format
+     * @param file The model file
+     * @param outFile The file to write to
      */
-    private void saveModelToXMLFile(File file) throws IOException {
-        // For safety, save to temp file first and then copy across
-        File tmpFile = File.createTempFile("archi-", null); //$NON-NLS-1$
-        tmpFile.deleteOnExit();
-        
-        try {
-            saveResource(tmpFile);
-            FileUtils.copyFile(tmpFile, file, false);
-        }
-        finally {
-            tmpFile.delete();
+    private void saveModelToXMLFile(File file, File outFile) throws IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(outFile))) {
+            saveResource(file, out);
         }
     }
     
     /**
      * Save the model to Archive File format
+     * @param file The model file
+     * @param outFile The file to write to
+     * @param imagePaths The paths of the images used in the model
+     * @param saveSnapshot If true save a binary snapshot of the model as well
      */
-    private void saveModelToArchiveFile(File file) throws IOException {
-        // Temp file for xml model file
-        File tmpFile = File.createTempFile("archi-", null); //$NON-NLS-1$
-        tmpFile.deleteOnExit();
-        saveResource(tmpFile);
-        
-        // Create Zip File output stream to model's file
-        BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file));
-        ZipOutputStream zOut = new ZipOutputStream(out);
-        
-        try {
-            // Add the model xml file
-            ZipUtils.addFileToZip(tmpFile, "model.xml", zOut); //$NON-NLS-1$
+    private void saveModelToArchiveFile(File file, File outFile, List<String> imagePaths, boolean saveSnapshot) throws IOException {
+        try(ZipOutputStream zOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)))) {
+            if(Preferences.doSaveArchiveStoreOnly()) {
+                zOut.setLevel(Deflater.NO_COMPRESSION);
+            }
+            
+            // Add the model xml file, streamed straight into the zip file
+            ZipEntry modelEntry = new ZipEntry(ModelSnapshot.MODEL_ENTRY);
+            zOut.putNextEntry(modelEntry);
+            saveResource(file, new FilterOutputStream(zOut) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+                
+                // Don't close the zip stream
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            });
+            zOut.closeEntry();
+            
+            // Add the binary snapshot
+            if(saveSnapshot) {
+                ModelSnapshot.save(fModel.eResource(), zOut, modelEntry);
+            }
             
             // Add any images
-            saveImages(zOut);
-        }
-        finally {
-            tmpFile.delete();
-            zOut.close();
+            saveImages(zOut, imagePaths);
         }
     }
     
     /**
-     * Save the model to Resource
+     * Save the model's Resource to an output stream
+     * @param file The model file
+     * @param out The stream to write to
      */
-    private void saveResource(File file) throws IOException {
+    private void saveResource(File file, OutputStream out) throws IOException {
         Resource resource = fModel.eResource();
         
         // No parent Resource set, so create a new one
@@ -326,37 +424,115 @@ public class ArchiveManager implements IArchiveManager {
             resource.setURI(URI.createFileURI(file.getAbsolutePath()));
         }
         
+        Map<Object, Object> options = resource instanceof XMLResource ? ((XMLResource)resource).getDefaultSaveOptions() : null;
+        
         // Catch *all* exceptions in case of XML errors
         try {
-            resource.save(null);
+            resource.save(out, options);
         }
         catch(Exception ex) {
             throw new IOException(ex);
         }
     }
     
-    private void saveImages(ZipOutputStream zOut) throws IOException {
-        List<String> added = new ArrayList<String>();
+    /**
+     * Copy the permissions, owner and group, or access control list, of the model file to the temp file
+     * so that they are kept when the temp file replaces the model file. The temp file is created with permissions for the user only.
+     */
+    private void copyFileAttributes(Path source, Path target) throws IOException {
+        PosixFileAttributeView posixView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        if(posixView != null) {
+            PosixFileAttributes attributes = posixView.readAttributes();
+            PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+            
+            targetView.setPermissions(attributes.permissions());
+            
+            // Only root can change the owner and the group can only be changed to one that the user is in
+            try {
+                if(!attributes.owner().equals(Files.getOwner(target))) {
+                    targetView.setOwner(attributes.owner());
+                }
+                if(!attributes.group().equals(targetView.readAttributes().group())) {
+                    targetView.setGroup(attributes.group());
+                }
+            }
+            catch(IOException ex) {
+                Logger.logError("Could not set the owner of the model file", ex); //$NON-NLS-1$
+            }
+            
+            return;
+        }
         
-        for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            if(eObject instanceof IDiagramModelImageProvider) {
-                IDiagramModelImageProvider imageProvider = (IDiagramModelImageProvider)eObject;
-                String imagePath = imageProvider.getImagePath();
-                if(imagePath != null && !added.contains(imagePath)) {
-                    byte[] bytes = BYTE_ARRAY_STORAGE.getEntry(imagePath);
-                    if(bytes != null) {
-                        ZipEntry zipEntry = new ZipEntry(imagePath);
-                        zOut.putNextEntry(zipEntry);
-                        zOut.write(bytes);
-                        zOut.closeEntry();
-                        added.add(imagePath);
-                    }
+        AclFileAttributeView aclView = Files.getFileAttributeView(source, AclFileAttributeView.class);
+        if(aclView != null) {
+            Files.getFileAttributeView(target, AclFileAttributeView.class).setAcl(aclView.getAcl());
+        }
+    }
+    
+    /**
+     * @return true if the file has more than one hard link. This is only known on Unix file systems.
+     */
+    private boolean hasOtherLinks(Path path) {
+        try {
+            Object nlink = Files.getAttribute(path, "unix:nlink"); //$NON-NLS-1$
+            return nlink instanceof Integer && (Integer)nlink > 1;
+        }
+        catch(UnsupportedOperationException | IllegalArgumentException | IOException ex) {
+            return false;
+        }
+    }
+    
+    /**
+     * Move the saved temp file to the model file, atomically if the file system supports it
+     */
+    private void moveFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private void saveImages(ZipOutputStream zOut, List<String> imagePaths) throws IOException {
+        for(String imagePath : imagePaths) {
+            byte[] bytes = BYTE_ARRAY_STORAGE.getEntry(imagePath);
+            if(bytes != null) {
+                ZipEntry zipEntry = new ZipEntry(imagePath);
+                
+                // Already compressed images are copied as they are rather than compressed again
+                if(isCompressedImage(bytes)) {
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(bytes.length);
+                    zipEntry.setCompressedSize(bytes.length);
+                    zipEntry.setCrc(crc.getValue());
                 }
+                
+                zOut.putNextEntry(zipEntry);
+                zOut.write(bytes);
+                zOut.closeEntry();
             }
         }
     }
     
+    /**
+     * @return true if the image bytes are in a compressed format (PNG, JPEG or GIF)
+     */
+    static boolean isCompressedImage(byte[] bytes) {
+        if(bytes.length >= 4 && (bytes[0] & 0xFF) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G') {
+            return true;
+        }
+        if(bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xD8) {
+            return true;
+        }
+        if(bytes.length >= 4 && bytes[0] == 'G' && bytes[1] == 'I' && bytes[2] == 'F' && bytes[3] == '8') {
+            return true;
+        }
+        return false;
+    }
+    
     private String createArchiveImagePathname(File file) {
         String ext = FileUtils.getFileExtension(file);
         
@@ -383,27 +559,13 @@ public class ArchiveManager implements IArchiveManager {
     }
     
     /**
-     * Unload any images not in use in other models
+     * Unload any images not in use in other models.
+     * Other models hold their own references to the images so only those with no more references are removed.
      */
     private void unloadUnusedImages() {
-        // Gather all image paths that are in use in other models
-        List<String> allPathsInUse = new ArrayList<String>();
-        
-        for(IArchimateModel model : IEditorModelManager.INSTANCE.getModels()) {
-            if(model != fModel) { // don't bother with this model as we no longer use any images
-                ArchiveManager archiveManager = (ArchiveManager)model.getAdapter(IArchiveManager.class);
-                for(String imagePath : archiveManager.fLoadedImagePaths) {
-                    if(!allPathsInUse.contains(imagePath)) {
-                        allPathsInUse.add(imagePath);
-                    }
-                }
-            }
-        }
-        
-        // Release all unused image data and cached images that are not in image paths
         for(String imagePath : fLoadedImagePaths) {
-            if(!allPathsInUse.contains(imagePath)) {
-                BYTE_ARRAY_STORAGE.removeEntry(imagePath);
+            if(BYTE_ARRAY_STORAGE.releaseReference(imagePath)) {
+                IMAGE_DATA_CACHE.remove(imagePath);
             }
         }
     }
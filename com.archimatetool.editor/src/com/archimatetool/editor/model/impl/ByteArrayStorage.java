@@ -11,23 +11,97 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.archimatetool.editor.Logger;
 
 /**
  * Byte Array Storage Unit
  * 
+ * Entries are keyed by entry name. Byte content is also indexed by a digest of the bytes so that
+ * duplicate content can be found with a single look-up rather than comparing against every stored entry.
+ * 
+ * The storage is shared by all open models so each entry also has a reference count.
+ * When the last reference to an entry is released the entry is removed.
+ * 
+ * Entries can also be added lazily from a zip file. Only the zip file's directory is read at first and
+ * an entry's bytes are read from the zip file the first time they are asked for. The zip file is only
+ * opened while an entry is read so that the file is not kept open, and locked, while the model is open.
+ * 
+ * The storage is accessed from worker threads as well as the UI thread so all access is synchronized.
+ * 
  * @author Phillip Beauvoir
  */
 public class ByteArrayStorage {
     
+    private static final String DIGEST_ALGORITHM = "SHA-256"; //$NON-NLS-1$
+    
     private Map<String, byte[]> fdataTable = new HashMap<String, byte[]>();
     
-    InputStream getInputStream(String entryName) {
+    /**
+     * Digest of bytes -> names of the entries with those bytes, the first one being the one that is looked up
+     */
+    private Map<String, Set<String>> fDigestTable = new HashMap<String, Set<String>>();
+    
+    /**
+     * Entry name -> digest of bytes
+     */
+    private Map<String, String> fEntryDigestTable = new HashMap<String, String>();
+    
+    /**
+     * Entry name -> number of references
+     */
+    private Map<String, Integer> fReferenceCounts = new HashMap<String, Integer>();
+    
+    /**
+     * Entry name -> entry in a zip file that has not been read yet
+     */
+    private Map<String, LazyEntry> fLazyTable = new HashMap<String, LazyEntry>();
+    
+    /**
+     * Size and CRC of a lazy entry -> entry names, used to find duplicate content in entries not read yet
+     */
+    private Map<String, List<String>> fLazyContentTable = new HashMap<String, List<String>>();
+    
+    /**
+     * An entry in a zip file that has not been read yet.
+     * Only the zip file and the entry's size and CRC from the zip directory are kept.
+     */
+    private static class LazyEntry {
+        private File file;
+        private long size;
+        private long crc;
+        
+        LazyEntry(File file, ZipEntry zipEntry) {
+            this.file = file;
+            size = zipEntry.getSize();
+            crc = zipEntry.getCrc();
+        }
+        
+        String getContentKey() {
+            return getContentKey(size, crc);
+        }
+        
+        static String getContentKey(long size, long crc) {
+            return size + ":" + crc; //$NON-NLS-1$
+        }
+    }
+    
+    synchronized InputStream getInputStream(String entryName) {
         if(entryName != null) {
-            byte[] bytes = fdataTable.get(entryName);
+            byte[] bytes = getEntry(entryName);
             if(bytes != null) {
                 return new ByteArrayInputStream(bytes);
             }
@@ -35,69 +109,283 @@ public class ByteArrayStorage {
         return null;
     }
 
-    String getKey(byte[] bytes) {
-        for(Entry<String, byte[]> entry : fdataTable.entrySet()) {
-            byte[] entryBytes = entry.getValue();
-            if(isEqual(bytes, entryBytes)) {
-                return entry.getKey();
+    synchronized String getKey(byte[] bytes) {
+        if(bytes == null) {
+            return null;
+        }
+        
+        String key = getDigestKey(getDigest(bytes));
+        
+        // Check the bytes really are the same
+        if(key != null && Arrays.equals(bytes, fdataTable.get(key))) {
+            return key;
+        }
+        
+        // Not found, but it might be in an entry that has not been read yet
+        if(!fLazyTable.isEmpty()) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            List<String> candidates = fLazyContentTable.get(LazyEntry.getContentKey(bytes.length, crc.getValue()));
+            if(candidates != null) {
+                for(String candidate : new ArrayList<String>(candidates)) {
+                    if(Arrays.equals(bytes, getEntry(candidate))) {
+                        return candidate;
+                    }
+                }
             }
         }
         
         return null;
     }
     
-    long getEntrySize(String entryName) {
+    synchronized long getEntrySize(String entryName) {
         if(entryName != null) {
             byte[] bytes = fdataTable.get(entryName);
             if(bytes != null) {
                 return bytes.length;
             }
+            LazyEntry lazyEntry = fLazyTable.get(entryName);
+            if(lazyEntry != null) {
+                return lazyEntry.size;
+            }
         }
         return -1;
     }
     
-    Set<Entry<String, byte[]>> getEntrySet() {
-        return fdataTable.entrySet();
+    /**
+     * @return A copy of the entries that have been read
+     */
+    synchronized Set<Entry<String, byte[]>> getEntrySet() {
+        return new HashMap<String, byte[]>(fdataTable).entrySet();
     }
 
-    boolean hasEntries() {
-        return !fdataTable.isEmpty();
+    synchronized boolean hasEntries() {
+        return !fdataTable.isEmpty() || !fLazyTable.isEmpty();
     }
     
-    boolean hasEntry(String entryName) {
-        return fdataTable.containsKey(entryName);
+    synchronized boolean hasEntry(String entryName) {
+        return fdataTable.containsKey(entryName) || fLazyTable.containsKey(entryName);
     }
     
-    void removeEntry(String entryName) {
+    synchronized void removeEntry(String entryName) {
         fdataTable.remove(entryName);
+        fReferenceCounts.remove(entryName);
+        removeLazyEntry(entryName);
+        
+        removeDigest(entryName);
+    }
+    
+    /**
+     * @return The name of the first entry with the digest, or null
+     */
+    private String getDigestKey(String digest) {
+        Set<String> names = fDigestTable.get(digest);
+        return names == null ? null : names.iterator().next();
+    }
+    
+    /**
+     * Remove an entry from the digest tables. If other entries have the same bytes the next one becomes the digest's key.
+     */
+    private void removeDigest(String entryName) {
+        String digest = fEntryDigestTable.remove(entryName);
+        
+        if(digest != null) {
+            Set<String> names = fDigestTable.get(digest);
+            if(names != null) {
+                names.remove(entryName);
+                if(names.isEmpty()) {
+                    fDigestTable.remove(digest);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Add a reference to an entry
+     * @param entryName The entry name
+     */
+    synchronized void addReference(String entryName) {
+        if(entryName != null) {
+            fReferenceCounts.merge(entryName, 1, Integer::sum);
+        }
+    }
+    
+    /**
+     * Release a reference to an entry. If there are no more references the entry is removed.
+     * @param entryName The entry name
+     * @return true if the entry was removed
+     */
+    synchronized boolean releaseReference(String entryName) {
+        Integer count = fReferenceCounts.get(entryName);
+        
+        if(count == null || count <= 1) {
+            removeEntry(entryName);
+            return true;
+        }
+        
+        fReferenceCounts.put(entryName, count - 1);
+        return false;
+    }
+    
+    /**
+     * @param entryName The entry name
+     * @return The number of references to an entry
+     */
+    synchronized int getReferenceCount(String entryName) {
+        Integer count = fReferenceCounts.get(entryName);
+        return count == null ? 0 : count;
+    }
+    
+    synchronized byte[] getEntry(String entryName) {
+        byte[] bytes = fdataTable.get(entryName);
+        
+        // Not read yet
+        if(bytes == null && fLazyTable.containsKey(entryName)) {
+            bytes = readLazyEntry(entryName);
+        }
+        
+        return bytes;
+    }
+    
+    /**
+     * Add an entry that will be read from a zip file when it is first needed.
+     * If an entry of that name already exists nothing is added.
+     * @param file The zip file containing the entry
+     * @param zipEntry The entry in the zip file's directory. The entry name is the zip entry's name.
+     */
+    synchronized void addLazyEntry(File file, ZipEntry zipEntry) {
+        String entryName = zipEntry.getName();
+        
+        if(hasEntry(entryName)) {
+            return;
+        }
+        
+        LazyEntry lazyEntry = new LazyEntry(file.getAbsoluteFile(), zipEntry);
+        fLazyTable.put(entryName, lazyEntry);
+        fLazyContentTable.computeIfAbsent(lazyEntry.getContentKey(), k -> new ArrayList<String>()).add(entryName);
+    }
+    
+    /**
+     * @return true if the entry is waiting to be read from a zip file
+     */
+    synchronized boolean isLazyEntry(String entryName) {
+        return fLazyTable.containsKey(entryName);
     }
     
-    byte[] getEntry(String entryName) {
+    /**
+     * Read all entries that are waiting to be read from the given zip file.
+     * This has to be done before the file is over-written.
+     * @param file The zip file
+     */
+    synchronized void readLazyEntries(File file) {
+        if(file == null || fLazyTable.isEmpty()) {
+            return;
+        }
+        
+        file = file.getAbsoluteFile();
+        
+        List<String> entryNames = new ArrayList<String>();
+        for(Entry<String, LazyEntry> entry : fLazyTable.entrySet()) {
+            if(file.equals(entry.getValue().file)) {
+                entryNames.add(entry.getKey());
+            }
+        }
+        
+        if(entryNames.isEmpty()) {
+            return;
+        }
+        
+        // Open the zip file once for all of the entries
+        try(ZipFile zipFile = new ZipFile(file)) {
+            for(String entryName : entryNames) {
+                readLazyEntry(zipFile, entryName);
+            }
+        }
+        catch(IOException ex) {
+            Logger.logError("Could not read zip file: " + file, ex); //$NON-NLS-1$
+            for(String entryName : entryNames) {
+                removeLazyEntry(entryName);
+            }
+        }
+    }
+    
+    private byte[] readLazyEntry(String entryName) {
+        File file = fLazyTable.get(entryName).file;
+        
+        try(ZipFile zipFile = new ZipFile(file)) {
+            readLazyEntry(zipFile, entryName);
+        }
+        catch(IOException ex) {
+            Logger.logError("Could not read entry: " + entryName, ex); //$NON-NLS-1$
+            removeLazyEntry(entryName);
+        }
+        
         return fdataTable.get(entryName);
     }
     
-    void addFileContentEntry(String entryName, File file) throws IOException {
+    /**
+     * Read a lazy entry from an open zip file. If the zip file has been changed since its directory
+     * was read and the entry is not the same the entry is not added.
+     */
+    private void readLazyEntry(ZipFile zipFile, String entryName) throws IOException {
+        LazyEntry lazyEntry = removeLazyEntry(entryName);
+        
+        ZipEntry zipEntry = zipFile.getEntry(entryName);
+        if(zipEntry == null || zipEntry.getSize() != lazyEntry.size || zipEntry.getCrc() != lazyEntry.crc) {
+            Logger.logError("Entry has changed in zip file: " + entryName); //$NON-NLS-1$
+            return;
+        }
+        
+        addStreamEntry(entryName, zipFile.getInputStream(zipEntry));
+    }
+    
+    private LazyEntry removeLazyEntry(String entryName) {
+        LazyEntry lazyEntry = fLazyTable.remove(entryName);
+        
+        if(lazyEntry != null) {
+            String contentKey = lazyEntry.getContentKey();
+            List<String> names = fLazyContentTable.get(contentKey);
+            if(names != null) {
+                names.remove(entryName);
+                if(names.isEmpty()) {
+                    fLazyContentTable.remove(contentKey);
+                }
+            }
+        }
+        
+        return lazyEntry;
+    }
+    
+    synchronized void addFileContentEntry(String entryName, File file) throws IOException {
         addStreamEntry(entryName, new FileInputStream(file));
     }
     
-    void addStreamEntry(String entryName, InputStream in) throws IOException {
+    synchronized void addStreamEntry(String entryName, InputStream in) throws IOException {
         byte[] bytes = getBytesFromStream(in);
         addByteContentEntry(entryName, bytes);
     }
 
-    void addByteContentEntry(String entryName, byte[] bytes) {
+    synchronized void addByteContentEntry(String entryName, byte[] bytes) {
         // Check if we have these bytes already. If we do then re-reference them
         // We might be adding the same set of bytes but from a different file
-        String key = getKey(bytes);
+        String digest = getDigest(bytes);
+        
+        // The entry might be replaced with different bytes
+        removeDigest(entryName);
+        
+        String key = getDigestKey(digest);
         
         // Yes we have them, so re-use the bytes
-        if(key != null) {
+        if(key != null && Arrays.equals(bytes, fdataTable.get(key))) {
             fdataTable.put(entryName, getEntry(key));
         }
         // No, so add the bytes
         else {
             fdataTable.put(entryName, bytes);
         }
+        
+        fDigestTable.computeIfAbsent(digest, k -> new LinkedHashSet<String>()).add(entryName);
+        fEntryDigestTable.put(entryName, digest);
     }
     
     byte[] getBytesFromFile(File file) throws IOException {
@@ -109,24 +397,26 @@ public class ByteArrayStorage {
         return null;
     }
     
-    private boolean isEqual(byte[] b1, byte[] b2) {
-        if(b1 == null || b2 == null) {
-            return false;
+    /**
+     * @return A digest of the bytes as a hex string
+     */
+    String getDigest(byte[] bytes) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch(NoSuchAlgorithmException ex) {
+            // All Java platforms support SHA-256
+            throw new RuntimeException(ex);
         }
         
-        if(b1.length == b2.length) {
-            int i = 0;
-            int j = 0;
-            int n = b1.length;
-            while(n-- != 0) {
-                if(b1[i++] != b2[j++]) {
-                    return false;
-                }
-            }
-            return true;
+        StringBuilder sb = new StringBuilder();
+        for(byte b : md.digest(bytes)) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
         }
         
-        return false;
+        return sb.toString();
     }
     
     /**
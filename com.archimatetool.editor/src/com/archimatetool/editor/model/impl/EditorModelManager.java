@@ -11,7 +11,15 @@ import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.URI;
@@ -82,6 +90,27 @@ implements IEditorModelManager {
      */
     private List<IArchimateModel> fModels;
     
+    /**
+     * Models in the backing file that are being read in the background when the application starts, in the order they were saved.
+     * Only accessed on the UI thread.
+     */
+    private Map<File, Future<LoadedResource>> fLoadingModels = new LinkedHashMap<File, Future<LoadedResource>>();
+    
+    /**
+     * A model's Resource that has been read from file but not registered yet
+     */
+    private static class LoadedResource {
+        Resource resource;
+        ModelCompatibility modelCompatibility;
+        IOException exception;
+        
+        LoadedResource(Resource resource, ModelCompatibility modelCompatibility, IOException exception) {
+            this.resource = resource;
+            this.modelCompatibility = modelCompatibility;
+            this.exception = exception;
+        }
+    }
+    
     /**
      * Backing File
      */
@@ -143,6 +172,12 @@ implements IEditorModelManager {
         return fModels;
     }
 
+    @Override
+    public List<File> getLoadingModelFiles() {
+        getModels(); // Make sure the state has been loaded
+        return new ArrayList<File>(fLoadingModels.keySet());
+    }
+
     @Override
     public IArchimateModel createNewModel() {
         IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
@@ -243,6 +278,19 @@ implements IEditorModelManager {
             return model;
         }
         
+        // If it is being loaded in the background wait for it, and the ones before it so that the models stay in order
+        if(fLoadingModels.containsKey(file)) {
+            return finishLoadingModelsUpTo(file);
+        }
+        
+        return registerLoadedModel(file, readModel(file));
+    }
+    
+    /**
+     * Read a model's Resource from file.
+     * This doesn't touch the UI or the open models so it can be called from a background thread.
+     */
+    private LoadedResource readModel(File file) {
         // Ascertain if this is an archive file
         boolean useArchiveFormat = IArchiveManager.FACTORY.isArchiveFile(file);
         
@@ -254,11 +302,27 @@ implements IEditorModelManager {
         // Check model compatibility
         ModelCompatibility modelCompatibility = new ModelCompatibility(resource);
         
-        // Load the model file
+        // Load the model from its binary snapshot if it has a valid one, else load the model file
         try {
-            resource.load(null);
+            if(!(useArchiveFormat && ModelSnapshot.load(file, resource))) {
+                resource.load(null);
+            }
         }
         catch(IOException ex) {
+            return new LoadedResource(resource, modelCompatibility, ex);
+        }
+        
+        return new LoadedResource(resource, modelCompatibility, null);
+    }
+    
+    /**
+     * Check and register a model that has been read from file. This has to be called on the UI thread.
+     */
+    private IArchimateModel registerLoadedModel(File file, LoadedResource loadedResource) {
+        Resource resource = loadedResource.resource;
+        ModelCompatibility modelCompatibility = loadedResource.modelCompatibility;
+        
+        if(loadedResource.exception != null) {
             // Error occured loading model. 
             try {
                 modelCompatibility.checkErrors();
@@ -277,7 +341,7 @@ implements IEditorModelManager {
             }
         }
         
-        model = (IArchimateModel)resource.getContents().get(0);
+        IArchimateModel model = (IArchimateModel)resource.getContents().get(0);
 
         // Once loaded - check for later model version
         if(PlatformUI.isWorkbenchRunning()) {
@@ -410,9 +474,12 @@ implements IEditorModelManager {
 
     @Override
     public boolean saveModel(IArchimateModel model) throws IOException {
-        // Check integrity
-        ModelChecker checker = new ModelChecker(model);
-        if(!checker.checkAll()) {
+        // Check integrity of the objects that have changed since the last save, or of the whole model if not yet checked
+        ModelChecker checker = (ModelChecker)model.getAdapter(ModelChecker.class);
+        if(checker == null) {
+            checker = new ModelChecker(model);
+        }
+        if(!checker.checkChanges()) {
             if(PlatformUI.isWorkbenchRunning()) {
                 checker.showErrorDialog(PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell());
             }
@@ -451,6 +518,9 @@ implements IEditorModelManager {
         // Set all diagram models to be marked as "saved" - this is for the editor view persistence
         markDiagramModelsAsSaved(model);
         
+        // Only objects changed from now on need to be checked on the next save
+        checker.clearChanges();
+        
         firePropertyChange(this, PROPERTY_MODEL_SAVED, null, model);
         
         return true;
@@ -549,7 +619,12 @@ implements IEditorModelManager {
     
     private void createNewECoreAdapter(IArchimateModel model) {
         if(model.getAdapter(ECoreAdapter.class) == null) {
-            model.eAdapters().add(new ECoreAdapter());
+            // Model Checker that keeps track of changed objects to check when saving
+            if(model.getAdapter(ModelChecker.class) == null) {
+                model.setAdapter(ModelChecker.class, new ModelChecker(model));
+            }
+            
+            model.eAdapters().add(new ECoreAdapter((ModelChecker)model.getAdapter(ModelChecker.class)));
         }
     }
     
@@ -634,19 +709,31 @@ implements IEditorModelManager {
         Document doc = new Document();
         Element rootElement = new Element("models"); //$NON-NLS-1$
         doc.setRootElement(rootElement);
+        
+        List<File> files = new ArrayList<File>();
         for(IArchimateModel model : getModels()) {
             File file = model.getFile(); // has been saved
             if(file != null) {
-                Element modelElement = new Element("model"); //$NON-NLS-1$
-                modelElement.setAttribute("file", file.getAbsolutePath()); //$NON-NLS-1$
-                rootElement.addContent(modelElement);
+                files.add(file);
             }
         }
+        
+        // Models that have not finished loading yet
+        files.addAll(fLoadingModels.keySet());
+        
+        for(File file : files) {
+            Element modelElement = new Element("model"); //$NON-NLS-1$
+            modelElement.setAttribute("file", file.getAbsolutePath()); //$NON-NLS-1$
+            rootElement.addContent(modelElement);
+        }
+        
         JDOMUtils.write2XMLFile(doc, backingFile);
     }
     
     private void loadState() throws IOException, JDOMException {
         if(backingFile.exists()) {
+            List<File> files = new ArrayList<File>();
+            
             Document doc = JDOMUtils.readXMLFile(backingFile);
             if(doc.hasRootElement()) {
                 Element rootElement = doc.getRootElement();
@@ -654,13 +741,114 @@ implements IEditorModelManager {
                     Element modelElement = (Element)e;
                     String filePath = modelElement.getAttributeValue("file"); //$NON-NLS-1$
                     if(filePath != null) {
-                        loadModel(new File(filePath));
+                        File file = new File(filePath);
+                        if(file.exists() && !files.contains(file)) {
+                            files.add(file);
+                        }
                     }
                 }
             }
+            
+            // Read the models on background threads and register them on the UI thread as each one is read
+            Display display = Display.getCurrent();
+            if(PlatformUI.isWorkbenchRunning() && display != null) {
+                readModelsInBackground(files, display);
+            }
+            else {
+                for(File file : files) {
+                    loadModel(file);
+                }
+            }
         }
     }
     
+    /**
+     * Read the models' Resources concurrently on background threads.
+     * When a model has been read it is registered on the UI thread, in the same order as the saved models
+     * so a model is not registered until the models before it have been registered.
+     * Until then the model's file is in the list of loading model files so that the model tree can show a placeholder for it.
+     */
+    private void readModelsInBackground(List<File> files, Display display) {
+        if(files.isEmpty()) {
+            return;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        
+        for(File file : files) {
+            CompletableFuture<LoadedResource> future = CompletableFuture.supplyAsync(() -> readModel(file), executor);
+            fLoadingModels.put(file, future);
+            
+            // The future has its result now so getting it on the UI thread doesn't block
+            future.whenComplete((result, ex) -> {
+                if(!display.isDisposed()) {
+                    display.asyncExec(this::finishReadModels);
+                }
+            });
+        }
+        
+        executor.shutdown();
+    }
+    
+    /**
+     * Register the models that have been read in the background, in order, up to the first one that has not been read yet.
+     * This has to be called on the UI thread.
+     */
+    private void finishReadModels() {
+        while(!fLoadingModels.isEmpty()) {
+            Entry<File, Future<LoadedResource>> first = fLoadingModels.entrySet().iterator().next();
+            if(!first.getValue().isDone()) {
+                return;
+            }
+            finishLoadingModel(first.getKey());
+        }
+    }
+    
+    /**
+     * Wait for the models being read in the background up to and including file and register them in order.
+     * This has to be called on the UI thread.
+     * @return The model of file or null if it could not be loaded
+     */
+    private IArchimateModel finishLoadingModelsUpTo(File file) {
+        while(!fLoadingModels.isEmpty()) {
+            File first = fLoadingModels.keySet().iterator().next();
+            IArchimateModel model = finishLoadingModel(first);
+            if(first.equals(file)) {
+                return model;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Wait for a model being read in the background and register it. This has to be called on the UI thread.
+     * @return The model or null if it could not be loaded or has already been registered
+     */
+    private IArchimateModel finishLoadingModel(File file) {
+        Future<LoadedResource> future = fLoadingModels.remove(file);
+        if(future == null) {
+            return null;
+        }
+        
+        IArchimateModel model = null;
+        
+        try {
+            model = registerLoadedModel(file, future.get());
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException ex) {
+            Logger.logError("Could not load model: " + file, ex.getCause()); //$NON-NLS-1$
+        }
+        
+        // The model tree can replace the placeholder
+        firePropertyChange(this, PROPERTY_MODEL_LOADING_FINISHED, file, model);
+        
+        return model;
+    }
+    
     //========================== Model Listener events  ==========================
 
     public void addPropertyChangeListener(PropertyChangeListener listener) {
@@ -682,9 +870,19 @@ implements IEditorModelManager {
      * Forwards on messages so that listeners don't have to adapt to ECore objects
      */
     private class ECoreAdapter extends EContentAdapter {
+        private ModelChecker fModelChecker;
+        
+        ECoreAdapter(ModelChecker modelChecker) {
+            fModelChecker = modelChecker;
+        }
+        
         @Override
         public void notifyChanged(Notification msg) {
             super.notifyChanged(msg);
+            
+            // Keep track of changed objects to check when saving
+            fModelChecker.notifyChanged(msg);
+            
             // Forward on to listeners...
             firePropertyChange(this, PROPERTY_ECORE_EVENT, null, msg);
         }
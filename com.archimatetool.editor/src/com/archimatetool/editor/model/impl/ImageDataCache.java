@@ -0,0 +1,112 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.swt.graphics.ImageData;
+
+/**
+ * Least recently used cache of decoded ImageData keyed by image path and bounded by a memory budget.
+ *
+ * ImageData is cached rather than Image because an Image returned by IArchiveManager#createImage()
+ * is owned, and disposed, by the caller. Creating an Image from cached ImageData avoids decoding the image bytes again.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ImageDataCache {
+
+    private Map<String, ImageData> fCache = new LinkedHashMap<String, ImageData>(16, 0.75f, true);
+
+    private long fMaxSize;
+    private long fSize;
+
+    /**
+     * @param maxSize The maximum size in bytes of decoded image data to keep
+     */
+    public ImageDataCache(long maxSize) {
+        fMaxSize = maxSize;
+    }
+
+    synchronized ImageData get(String path) {
+        return path == null ? null : fCache.get(path);
+    }
+
+    synchronized void put(String path, ImageData imageData) {
+        if(path == null || imageData == null) {
+            return;
+        }
+
+        remove(path);
+
+        long size = getSize(imageData);
+
+        // Too big to cache
+        if(size > fMaxSize) {
+            return;
+        }
+
+        fCache.put(path, imageData);
+        fSize += size;
+
+        trim();
+    }
+
+    synchronized void remove(String path) {
+        ImageData imageData = fCache.remove(path);
+        if(imageData != null) {
+            fSize -= getSize(imageData);
+        }
+    }
+
+    synchronized void clear() {
+        fCache.clear();
+        fSize = 0;
+    }
+
+    /**
+     * Set the maximum size of the cache, removing least recently used entries if needed
+     * @param maxSize The maximum size in bytes of decoded image data to keep
+     */
+    synchronized void setMaxSize(long maxSize) {
+        fMaxSize = maxSize;
+        trim();
+    }
+
+    synchronized long getSize() {
+        return fSize;
+    }
+
+    /**
+     * Remove the least recently used entries until we are within budget
+     */
+    private void trim() {
+        for(Iterator<Entry<String, ImageData>> iter = fCache.entrySet().iterator(); fSize > fMaxSize && iter.hasNext();) {
+            fSize -= getSize(iter.next().getValue());
+            iter.remove();
+        }
+    }
+
+    /**
+     * @return The approximate memory size of the image data
+     */
+    static long getSize(ImageData imageData) {
+        long size = imageData.data != null ? imageData.data.length : 0;
+
+        if(imageData.alphaData != null) {
+            size += imageData.alphaData.length;
+        }
+
+        if(imageData.maskData != null) {
+            size += imageData.maskData.length;
+        }
+
+        return size;
+    }
+}
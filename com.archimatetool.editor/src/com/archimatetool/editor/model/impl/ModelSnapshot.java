@@ -0,0 +1,125 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+
+import com.archimatetool.editor.Logger;
+import com.archimatetool.editor.model.IArchiveManager;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.ModelVersion;
+import com.archimatetool.model.util.ArchimateResource;
+
+
+/**
+ * Binary snapshot of a model saved in an archive model file next to model.xml.
+ *
+ * Loading a model from the EMF binary snapshot is much faster than parsing model.xml, but model.xml remains the source of truth.
+ * The snapshot is only used if it was saved from the same model.xml, checked against the CRC and size of the model.xml zip entry,
+ * and with the same model version. Otherwise the model is loaded from model.xml as usual.
+ *
+ * @author Phillip Beauvoir
+ */
+final class ModelSnapshot {
+
+    static final String MODEL_ENTRY = "model.xml"; //$NON-NLS-1$
+    static final String SNAPSHOT_ENTRY = "model.bin"; //$NON-NLS-1$
+
+    /**
+     * Increment this if the snapshot header or encoding changes
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private ModelSnapshot() {
+    }
+
+    /**
+     * Save a snapshot of the resource's contents as a new entry in the zip stream
+     * @param resource The resource that was saved to the model.xml entry
+     * @param zOut The zip stream
+     * @param modelEntry The closed model.xml entry. Its CRC and size are used to match the snapshot to model.xml
+     */
+    static void save(Resource resource, ZipOutputStream zOut, ZipEntry modelEntry) throws IOException {
+        zOut.putNextEntry(new ZipEntry(SNAPSHOT_ENTRY));
+
+        // Don't close these streams as that would close the zip stream
+        BufferedOutputStream out = new BufferedOutputStream(zOut);
+
+        DataOutputStream dOut = new DataOutputStream(out);
+        dOut.writeInt(FORMAT_VERSION);
+        dOut.writeUTF(ModelVersion.VERSION);
+        dOut.writeLong(modelEntry.getCrc());
+        dOut.writeLong(modelEntry.getSize());
+        dOut.flush();
+
+        BinaryResourceImpl.EObjectOutputStream eOut = new BinaryResourceImpl.EObjectOutputStream(out, null);
+        eOut.saveResource(resource);
+        eOut.flush();
+
+        zOut.closeEntry();
+    }
+
+    /**
+     * Load the model into the resource from the snapshot in an archive model file if there is one and it matches model.xml
+     * @param file The archive model file
+     * @param resource The resource to load into
+     * @return true if the model was loaded from the snapshot, false if the model has to be loaded from model.xml
+     */
+    static boolean load(File file, Resource resource) {
+        // Not an archive file so there is no snapshot
+        if(!IArchiveManager.FACTORY.isArchiveFile(file)) {
+            return false;
+        }
+        
+        try(ZipFile zipFile = new ZipFile(file)) {
+            ZipEntry modelEntry = zipFile.getEntry(MODEL_ENTRY);
+            ZipEntry snapshotEntry = zipFile.getEntry(SNAPSHOT_ENTRY);
+            if(modelEntry == null || snapshotEntry == null) {
+                return false;
+            }
+
+            try(InputStream in = new BufferedInputStream(zipFile.getInputStream(snapshotEntry))) {
+                DataInputStream dIn = new DataInputStream(in);
+
+                if(dIn.readInt() != FORMAT_VERSION
+                        || !ModelVersion.VERSION.equals(dIn.readUTF())
+                        || dIn.readLong() != modelEntry.getCrc()
+                        || dIn.readLong() != modelEntry.getSize()) {
+                    return false;
+                }
+
+                // Load through the resource so that it is marked as loaded and does the same post-load steps as for model.xml
+                resource.load(in, Collections.singletonMap(ArchimateResource.OPTION_BINARY, Boolean.TRUE));
+            }
+        }
+        catch(Exception ex) {
+            // Not fatal as the model can be loaded from model.xml
+            Logger.logError("Could not load model snapshot", ex); //$NON-NLS-1$
+            resource.unload();
+            return false;
+        }
+
+        if(resource.getContents().isEmpty() || !(resource.getContents().get(0) instanceof IArchimateModel)) {
+            resource.unload();
+            return false;
+        }
+
+        return true;
+    }
+}
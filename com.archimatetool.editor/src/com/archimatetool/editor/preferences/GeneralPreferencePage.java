@@ -52,8 +52,12 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
     
     private Button fOpenDiagramsOnLoadButton;
     private Button fBackupOnSaveButton;
+    private Button fSaveArchiveStoreOnlyButton;
+    private Button fSaveModelSnapshotButton;
+    private Button fLazyLoadImagesButton;
     
     private Spinner fMRUSizeSpinner;
+    private Spinner fImageCacheSizeSpinner;
     private Button fAnimateVisualiserNodesButton;
     
     private ComboViewer fThemeComboViewer;
@@ -99,6 +103,27 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         gd.horizontalSpan = 2;
         fBackupOnSaveButton.setLayoutData(gd);
         
+        // Don't compress archive files
+        fSaveArchiveStoreOnlyButton = new Button(fileGroup, SWT.CHECK);
+        fSaveArchiveStoreOnlyButton.setText(Messages.GeneralPreferencePage_12);
+        gd = new GridData(GridData.FILL_HORIZONTAL);
+        gd.horizontalSpan = 2;
+        fSaveArchiveStoreOnlyButton.setLayoutData(gd);
+        
+        // Save a binary snapshot
+        fSaveModelSnapshotButton = new Button(fileGroup, SWT.CHECK);
+        fSaveModelSnapshotButton.setText(Messages.GeneralPreferencePage_13);
+        gd = new GridData(GridData.FILL_HORIZONTAL);
+        gd.horizontalSpan = 2;
+        fSaveModelSnapshotButton.setLayoutData(gd);
+        
+        // Read images when they are first needed
+        fLazyLoadImagesButton = new Button(fileGroup, SWT.CHECK);
+        fLazyLoadImagesButton.setText(Messages.GeneralPreferencePage_14);
+        gd = new GridData(GridData.FILL_HORIZONTAL);
+        gd.horizontalSpan = 2;
+        fLazyLoadImagesButton.setLayoutData(gd);
+        
         // Size of recently opened file list
         Label label = new Label(fileGroup, SWT.NULL);
         label.setText(Messages.GeneralPreferencePage_2);
@@ -107,6 +132,14 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         fMRUSizeSpinner.setMinimum(3);
         fMRUSizeSpinner.setMaximum(15);
         
+        // Size of the decoded image cache
+        label = new Label(fileGroup, SWT.NULL);
+        label.setText(Messages.GeneralPreferencePage_15);
+        
+        fImageCacheSizeSpinner = new Spinner(fileGroup, SWT.BORDER);
+        fImageCacheSizeSpinner.setMinimum(0);
+        fImageCacheSizeSpinner.setMaximum(1024);
+        
         // Appearance
         Group appearanceGroup = new Group(client, SWT.NULL);
         appearanceGroup.setText(Messages.GeneralPreferencePage_3);
@@ -197,6 +230,9 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
     private void setValues() {
         setSpinnerValues();
         fBackupOnSaveButton.setSelection(getPreferenceStore().getBoolean(BACKUP_ON_SAVE));
+        fSaveArchiveStoreOnlyButton.setSelection(getPreferenceStore().getBoolean(SAVE_ARCHIVE_STORE_ONLY));
+        fSaveModelSnapshotButton.setSelection(getPreferenceStore().getBoolean(SAVE_MODEL_SNAPSHOT));
+        fLazyLoadImagesButton.setSelection(getPreferenceStore().getBoolean(LAZY_LOAD_IMAGES));
         fOpenDiagramsOnLoadButton.setSelection(getPreferenceStore().getBoolean(OPEN_DIAGRAMS_ON_LOAD));
         fAnimateVisualiserNodesButton.setSelection(getPreferenceStore().getBoolean(ANIMATE_VISUALISER_NODES));
         fShowStatusLineButton.setSelection(getPreferenceStore().getBoolean(SHOW_STATUS_LINE));
@@ -213,13 +249,18 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
     
     private void setSpinnerValues() {
         fMRUSizeSpinner.setSelection(getPreferenceStore().getInt(MRU_MAX));
+        fImageCacheSizeSpinner.setSelection(getPreferenceStore().getInt(IMAGE_CACHE_SIZE));
     }
     
     @Override
     public boolean performOk() {
         getPreferenceStore().setValue(BACKUP_ON_SAVE, fBackupOnSaveButton.getSelection());
+        getPreferenceStore().setValue(SAVE_ARCHIVE_STORE_ONLY, fSaveArchiveStoreOnlyButton.getSelection());
+        getPreferenceStore().setValue(SAVE_MODEL_SNAPSHOT, fSaveModelSnapshotButton.getSelection());
+        getPreferenceStore().setValue(LAZY_LOAD_IMAGES, fLazyLoadImagesButton.getSelection());
         getPreferenceStore().setValue(OPEN_DIAGRAMS_ON_LOAD, fOpenDiagramsOnLoadButton.getSelection());
         getPreferenceStore().setValue(MRU_MAX, fMRUSizeSpinner.getSelection());
+        getPreferenceStore().setValue(IMAGE_CACHE_SIZE, fImageCacheSizeSpinner.getSelection());
         getPreferenceStore().setValue(ANIMATE_VISUALISER_NODES, fAnimateVisualiserNodesButton.getSelection());
         getPreferenceStore().setValue(SHOW_STATUS_LINE, fShowStatusLineButton.getSelection());
         getPreferenceStore().setValue(HIGHLIGHT_UNUSED_ELEMENTS_IN_MODEL_TREE, fShowUnusedElementsInModelTreeButton.getSelection());
@@ -236,8 +277,12 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
     @Override
     protected void performDefaults() {
         fBackupOnSaveButton.setSelection(getPreferenceStore().getDefaultBoolean(BACKUP_ON_SAVE));
+        fSaveArchiveStoreOnlyButton.setSelection(getPreferenceStore().getDefaultBoolean(SAVE_ARCHIVE_STORE_ONLY));
+        fSaveModelSnapshotButton.setSelection(getPreferenceStore().getDefaultBoolean(SAVE_MODEL_SNAPSHOT));
+        fLazyLoadImagesButton.setSelection(getPreferenceStore().getDefaultBoolean(LAZY_LOAD_IMAGES));
         fOpenDiagramsOnLoadButton.setSelection(getPreferenceStore().getDefaultBoolean(OPEN_DIAGRAMS_ON_LOAD));
         fMRUSizeSpinner.setSelection(getPreferenceStore().getDefaultInt(MRU_MAX));
+        fImageCacheSizeSpinner.setSelection(getPreferenceStore().getDefaultInt(IMAGE_CACHE_SIZE));
         fAnimateVisualiserNodesButton.setSelection(getPreferenceStore().getDefaultBoolean(ANIMATE_VISUALISER_NODES));
         fShowStatusLineButton.setSelection(getPreferenceStore().getDefaultBoolean(SHOW_STATUS_LINE));
         fShowUnusedElementsInModelTreeButton.setSelection(getPreferenceStore().getDefaultBoolean(HIGHLIGHT_UNUSED_ELEMENTS_IN_MODEL_TREE));
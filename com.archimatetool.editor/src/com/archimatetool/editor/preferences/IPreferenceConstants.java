@@ -89,4 +89,10 @@ public interface IPreferenceConstants {
     String HIGHLIGHT_UNUSED_ELEMENTS_IN_MODEL_TREE = "highlightUnusedElementsInModelTree"; //$NON-NLS-1$
     
     String DIAGRAM_PASTE_SPECIAL_BEHAVIOR = "pasteSpecialBehavior"; //$NON-NLS-1$
+    
+    String LAZY_LOAD_IMAGES = "lazyLoadImages"; //$NON-NLS-1$
+    String IMAGE_CACHE_SIZE = "imageCacheSize"; //$NON-NLS-1$
+    
+    String SAVE_ARCHIVE_STORE_ONLY = "saveArchiveStoreOnly"; //$NON-NLS-1$
+    String SAVE_MODEL_SNAPSHOT = "saveModelSnapshot"; //$NON-NLS-1$
 }
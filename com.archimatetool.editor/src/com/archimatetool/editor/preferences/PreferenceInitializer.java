@@ -98,5 +98,12 @@ implements IPreferenceConstants {
         store.setDefault(HIGHLIGHT_UNUSED_ELEMENTS_IN_MODEL_TREE, true);
         
         store.setDefault(DIAGRAM_PASTE_SPECIAL_BEHAVIOR, 0);
+        
+        // Read images from archive files when first needed, and size in MB of decoded images to keep in memory
+        store.setDefault(LAZY_LOAD_IMAGES, true);
+        store.setDefault(IMAGE_CACHE_SIZE, 64);
+        
+        store.setDefault(SAVE_ARCHIVE_STORE_ONLY, false);
+        store.setDefault(SAVE_MODEL_SNAPSHOT, false);
     }
 }
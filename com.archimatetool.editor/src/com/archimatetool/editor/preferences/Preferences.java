@@ -79,4 +79,23 @@ public class Preferences implements IPreferenceConstants {
     public static boolean doShowViewTooltips() {
         return STORE.getBoolean(VIEW_TOOLTIPS);
     }
+    
+    public static boolean doLazyLoadImages() {
+        return STORE.getBoolean(LAZY_LOAD_IMAGES);
+    }
+    
+    public static boolean doSaveArchiveStoreOnly() {
+        return STORE.getBoolean(SAVE_ARCHIVE_STORE_ONLY);
+    }
+    
+    public static boolean doSaveModelSnapshot() {
+        return STORE.getBoolean(SAVE_MODEL_SNAPSHOT);
+    }
+    
+    /**
+     * @return The size in bytes of decoded images to keep in memory
+     */
+    public static long getImageCacheSize() {
+        return STORE.getInt(IMAGE_CACHE_SIZE) * 1024L * 1024L;
+    }
 }
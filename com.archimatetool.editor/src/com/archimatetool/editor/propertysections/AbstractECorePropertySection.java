@@ -22,6 +22,7 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
 
 import com.archimatetool.editor.model.commands.EObjectFeatureCommand;
+import com.archimatetool.editor.model.commands.NotificationBatcher;
 import com.archimatetool.editor.ui.components.StyledTextControl;
 import com.archimatetool.model.IAdapter;
 import com.archimatetool.model.IArchimateModel;
@@ -48,6 +49,11 @@ public abstract class AbstractECorePropertySection extends AbstractArchiProperty
      */
     private List<EObject> fObjects;
     
+    /**
+     * Notifications during a NonNotifyingCompoundCommand are delivered coalesced at the end of it
+     */
+    private NotificationBatcher fBatcher = new NotificationBatcher(this::notifyChanged);
+    
     /**
      * Adapter to listen to model element changes
      * Use a EContentAdapter to listen to child changes
@@ -56,7 +62,7 @@ public abstract class AbstractECorePropertySection extends AbstractArchiProperty
         @Override
         public void notifyChanged(Notification msg) {
             super.notifyChanged(msg);
-            AbstractECorePropertySection.this.notifyChanged(msg);
+            fBatcher.notifyChanged(msg);
         }
     };
     
@@ -192,6 +198,8 @@ public abstract class AbstractECorePropertySection extends AbstractArchiProperty
         if(object != null) {
             object.eAdapters().remove(eAdapter);
         }
+        
+        fBatcher.clear();
     }
     
     /**
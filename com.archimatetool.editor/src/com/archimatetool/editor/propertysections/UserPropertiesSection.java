@@ -9,8 +9,8 @@ import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 
 import org.eclipse.draw2d.ColorConstants;
@@ -18,7 +18,6 @@ import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.EList;
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.gef.commands.Command;
 import org.eclipse.gef.commands.CompoundCommand;
 import org.eclipse.jface.action.Action;
@@ -97,6 +96,7 @@ import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IDiagramModelComponent;
 import com.archimatetool.model.IProperties;
 import com.archimatetool.model.IProperty;
+import com.archimatetool.model.util.ArchimateModelUtils;
 
 
 
@@ -454,21 +454,9 @@ public class UserPropertiesSection extends AbstractECorePropertySection {
      * @return All unique Property Keys for an entire model (sorted)
      */
     private String[] getAllUniquePropertyKeysForModel() {
-        IArchimateModel model = getArchimateModel();
+        Set<String> keys = ArchimateModelUtils.getAllPropertyKeys(getArchimateModel());
 
-        List<String> list = new ArrayList<String>();
-
-        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject element = iter.next();
-            if(element instanceof IProperty) {
-                String key = ((IProperty)element).getKey();
-                if(StringUtils.isSetAfterTrim(key) && !list.contains(key)) {
-                    list.add(key);
-                }
-            }
-        }
-
-        String[] items = list.toArray(new String[list.size()]);
+        String[] items = keys.toArray(new String[keys.size()]);
         Arrays.sort(items, new Comparator<String>() {
             @Override
             public int compare(String s1, String s2) {
@@ -216,7 +216,14 @@ implements IContextProvider, PropertyChangeListener, ITabbedPropertySheetPageCon
         }
         // End: Refresh Viewer with buffered notifications
         else if(propertyName == IEditorModelManager.PROPERTY_ECORE_EVENTS_END) {
-            doRefreshFromNotifications(fNotificationBuffer);
+            // Stop buffering now rather than when the refresh is done, as that might be later and a new batch may have started
+            List<Notification> notifications = fNotificationBuffer;
+            fAddingToBuffer = false;
+            fNotificationBuffer = null;
+            
+            if(notifications != null) {
+                doRefreshFromNotifications(notifications);
+            }
         }
         // ECore model event
         else if(propertyName == IEditorModelManager.PROPERTY_ECORE_EVENT) {
@@ -224,13 +231,21 @@ implements IContextProvider, PropertyChangeListener, ITabbedPropertySheetPageCon
             if(!fAddingToBuffer) {
                 eCoreChanged((Notification)newValue);
             }
-            // Else add to buffer
-            else {
+            // Else add to buffer if it's a type we are interested in
+            else if(isBufferedNotification((Notification)newValue)) {
                 fNotificationBuffer.add((Notification)newValue);
             }
         }
     }
     
+    /**
+     * @return true if msg is a type of notification that can affect the view and so is added to the notifications buffer
+     */
+    protected boolean isBufferedNotification(Notification msg) {
+        int type = msg.getEventType();
+        return type == Notification.ADD || type == Notification.REMOVE || type == Notification.SET;
+    }
+    
     /**
      * React to ECore Model Changes to refresh the view
      */
@@ -266,8 +281,6 @@ implements IContextProvider, PropertyChangeListener, ITabbedPropertySheetPageCon
      * Overriders should call super after doing their thing
      */
     protected void doRefreshFromNotifications(List<Notification> notifications) {
-        fAddingToBuffer = false;
-        fNotificationBuffer = null;
     }
     
     /**
@@ -7,10 +7,12 @@ package com.archimatetool.editor.views.tree;
 
 import java.beans.PropertyChangeEvent;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.help.HelpSystem;
 import org.eclipse.help.IContext;
 import org.eclipse.jface.action.Action;
@@ -573,6 +575,16 @@ implements ITreeModelView, IUIRequestListener {
             getViewer().refresh();
         }
         
+        // Model loaded in the background, so replace its placeholder
+        else if(propertyName == IEditorModelManager.PROPERTY_MODEL_LOADING_FINISHED) {
+            getViewer().refresh();
+            
+            IArchimateModel model = (IArchimateModel)evt.getNewValue();
+            if(model != null) {
+                TreeStateHelper.INSTANCE.restoreExpandedTreeElements(model);
+            }
+        }
+        
         // Model dirty state, so update Actions and modified state of source (asterisk on model node)
         else if(propertyName == IEditorModelManager.COMMAND_STACK_CHANGED) {
             updateActions();
@@ -666,25 +678,26 @@ implements ITreeModelView, IUIRequestListener {
             return;
         }
         
-        List<Object> refreshElements = new ArrayList<Object>();
-        List<Object> updateElements = new ArrayList<Object>();
+        // Coalesce the notifications into one set of parent nodes to refresh and one set of element nodes to update.
+        // Sets are used as a large batch can have many thousands of notifications for the same few parents.
+        Set<Object> refreshElements = new LinkedHashSet<Object>();
+        Set<Object> updateElements = new LinkedHashSet<Object>();
             
         for(Notification msg : notifications) {
             // Get parent nodes to refresh
             Object parent = getParentToRefreshFromNotification(msg);
-            if(parent != null && !refreshElements.contains(parent)) {
+            if(parent != null) {
                 refreshElements.add(parent);
             }
             
             // Get elements to update
-            List<Object> elements = getElementsToUpdateFromNotification(msg);
-            for(Object object : elements) {
-                if(!updateElements.contains(object)) {
-                    updateElements.add(object);
-                }
-            }
+            updateElements.addAll(getElementsToUpdateFromNotification(msg));
         }
         
+        // Refreshing a parent node also updates the labels of its child nodes, so don't refresh or update these again
+        refreshElements.removeIf(object -> hasAncestorIn(object, refreshElements));
+        updateElements.removeIf(object -> hasAncestorIn(object, refreshElements));
+        
         try {
             getViewer().getControl().setRedraw(false);
 
@@ -692,8 +705,8 @@ implements ITreeModelView, IUIRequestListener {
                 getViewer().refresh(object);
             }
 
-            for(Object object : updateElements) {
-                getViewer().update(object, null);
+            if(!updateElements.isEmpty()) {
+                getViewer().update(updateElements.toArray(), null);
             }
         }
         finally {
@@ -701,6 +714,21 @@ implements ITreeModelView, IUIRequestListener {
         }
     }
 
+    /**
+     * @return true if one of the containers of object is in elements
+     */
+    private boolean hasAncestorIn(Object object, Set<Object> elements) {
+        if(object instanceof EObject) {
+            for(EObject parent = ((EObject)object).eContainer(); parent != null; parent = parent.eContainer()) {
+                if(elements.contains(parent)) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+
     // =================================================================================
     //                       Contextual Help support
     // =================================================================================
@@ -5,6 +5,7 @@
  */
 package com.archimatetool.editor.views.tree;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,6 +25,7 @@ import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerCell;
 import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
@@ -47,6 +49,7 @@ import com.archimatetool.editor.views.tree.search.SearchFilter;
 import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IFolder;
 import com.archimatetool.model.INameable;
@@ -260,7 +263,11 @@ public class TreeModelViewer extends TreeViewer {
 
         public Object[] getChildren(Object parentElement) {
             if(parentElement instanceof IEditorModelManager) {
-            	return ((IEditorModelManager)parentElement).getModels().toArray();
+                // Models, and placeholders for the files of models that are still loading
+                List<Object> list = new ArrayList<Object>();
+                list.addAll(((IEditorModelManager)parentElement).getModels());
+                list.addAll(((IEditorModelManager)parentElement).getLoadingModelFiles());
+                return list.toArray();
             }
             
             if(parentElement instanceof IArchimateModel) {
@@ -319,6 +326,11 @@ public class TreeModelViewer extends TreeViewer {
         }
         
         String getText(Object element) {
+            // Placeholder for a model that is loading
+            if(element instanceof File) {
+                return NLS.bind(Messages.TreeModelViewer_0, ((File)element).getName());
+            }
+            
             String name = ArchiLabelProvider.INSTANCE.getLabel(element);
             
             // If a dirty model show asterisk
@@ -342,6 +354,9 @@ public class TreeModelViewer extends TreeViewer {
         }
         
         Image getImage(Object element) {
+            if(element instanceof File) {
+                return ArchiLabelProvider.INSTANCE.getImage(IArchimatePackage.Literals.ARCHIMATE_MODEL);
+            }
             return ArchiLabelProvider.INSTANCE.getImage(element);
         }
         
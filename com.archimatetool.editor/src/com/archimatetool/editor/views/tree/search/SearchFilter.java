@@ -6,7 +6,9 @@
 package com.archimatetool.editor.views.tree.search;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
@@ -40,7 +42,7 @@ public class SearchFilter extends ViewerFilter {
     private boolean fFilterDocumentation;
 
     private List<EClass> fObjectFilter = new ArrayList<EClass>();
-    private List<String> fPropertiesFilter = new ArrayList<String>();
+    private Set<String> fPropertiesFilter = new HashSet<String>();
 
     private boolean fShowAllFolders = false;
 
@@ -157,10 +159,11 @@ public class SearchFilter extends ViewerFilter {
 
         // Properties Key filter
         if(isFilteringPropertyKeys() && element instanceof IProperties) {
+            String searchText = hasSearchText() ? fSearchText.toLowerCase() : null;
             for(IProperty property : ((IProperties)element).getProperties()) {
                 if(fPropertiesFilter.contains(property.getKey())) {
                     propertyKeyResult = true;
-                    if(hasSearchText() && property.getValue().toLowerCase().contains(fSearchText.toLowerCase())) {
+                    if(searchText != null && property.getValue().toLowerCase().contains(searchText)) {
                         textSearchResult = true;
                     }
                 }
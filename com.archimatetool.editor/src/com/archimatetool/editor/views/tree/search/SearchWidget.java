@@ -6,11 +6,11 @@
 package com.archimatetool.editor.views.tree.search;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.emf.ecore.EClass;
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.MenuManager;
@@ -33,9 +33,7 @@ import com.archimatetool.editor.ui.ArchiLabelProvider;
 import com.archimatetool.editor.ui.IArchiImages;
 import com.archimatetool.editor.ui.components.CellEditorGlobalActionHandler;
 import com.archimatetool.editor.utils.PlatformUtils;
-import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.IArchimateModel;
-import com.archimatetool.model.IProperty;
 import com.archimatetool.model.util.ArchimateModelUtils;
 
 
@@ -302,13 +300,13 @@ public class SearchWidget extends Composite {
 
 	private void populatePropertiesMenu(MenuManager propertiesMenu) {
 	    // Models that are loaded are the ones in the Models Tree
-	    List<String> list = new ArrayList<String>();
+	    Set<String> keys = new LinkedHashSet<String>();
 
 	    for(IArchimateModel model : IEditorModelManager.INSTANCE.getModels()) {
-	        getAllUniquePropertyKeysForModel(model, list);
+	        keys.addAll(ArchimateModelUtils.getAllPropertyKeys(model));
 	    }
 
-	    for(final String key : list) {
+	    for(final String key : keys) {
 	        IAction action = new Action(key, IAction.AS_CHECK_BOX) {
 	            @Override
 	            public void run() {
@@ -326,16 +324,4 @@ public class SearchWidget extends Composite {
 
 	    propertiesMenu.update(true);
 	}
-
-    private void getAllUniquePropertyKeysForModel(IArchimateModel model, List<String> list) {
-        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject element = iter.next();
-            if(element instanceof IProperty) {
-            	String key = ((IProperty)element).getKey();
-            	if(StringUtils.isSetAfterTrim(key) && !list.contains(key)) {
-            		list.add(key);
-            	}
-            }
-        }
-    }
 }
@@ -0,0 +1,320 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg.commandline;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.eclipse.osgi.util.NLS;
+
+import com.archimatetool.commandline.AbstractCommandLineProvider;
+import com.archimatetool.commandline.CommandLineState;
+import com.archimatetool.editor.diagram.ImageExportProviderManager;
+import com.archimatetool.editor.diagram.ImageExportProviderManager.ImageExportProviderInfo;
+import com.archimatetool.editor.ui.ImageFactory;
+import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.export.svg.ExportSVGPlugin;
+import com.archimatetool.export.svg.ViewsExporter;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.reports.html.ReportManifest;
+
+/**
+ * Command Line interface for exporting the Views of a model to image files
+ *
+ * Typical usage - (should be all on one line):
+ *
+ * Archi -consoleLog -nosplash -application com.archimatetool.commandline.app
+   --loadModel "/pathToModel/model.archimate"
+   --views.export "/pathToOutputFolder"
+   --views.format "png"
+ *
+ * Each View is exported to a file named with the View's id.
+ * The fingerprints of the exported Views are saved in the output folder so that Views that have not changed
+ * since the last export to the same folder, format and scale are not exported again,
+ * and so that the files of Views that have been deleted from the model are deleted.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ExportViewsProvider extends AbstractCommandLineProvider {
+
+    static final String PREFIX = Messages.ExportViewsProvider_0;
+
+    static final String OPTION_EXPORT_VIEWS = "views.export"; //$NON-NLS-1$
+    static final String OPTION_FORMAT = "views.format"; //$NON-NLS-1$
+    static final String OPTION_SCALE = "views.scale"; //$NON-NLS-1$
+    static final String OPTION_FILTER = "views.filter"; //$NON-NLS-1$
+    static final String OPTION_THREADS = "views.threads"; //$NON-NLS-1$
+    static final String OPTION_NO_EMBED_FONTS = "views.noEmbedFonts"; //$NON-NLS-1$
+
+    static final String MANIFEST_FILE = "views.manifest"; //$NON-NLS-1$
+    static final String MANIFEST_VIEW_KEY = "view:"; //$NON-NLS-1$
+
+    static final int MIN_SCALE = 25;
+    static final int MAX_SCALE = 500;
+
+    public ExportViewsProvider() {
+    }
+
+
+    @Override
+    public void run(CommandLine commandLine) throws Exception {
+        if(!hasCorrectOptions(commandLine)) {
+            return;
+        }
+
+        IArchimateModel model = CommandLineState.getModel();
+        if(model == null) {
+            throw new IOException(Messages.ExportViewsProvider_1);
+        }
+
+        // Folder
+        String value = commandLine.getOptionValue(OPTION_EXPORT_VIEWS);
+        if(!StringUtils.isSet(value)) {
+            logError(Messages.ExportViewsProvider_2);
+            return;
+        }
+
+        File folderOutput = new File(value);
+        folderOutput.mkdirs();
+        if(!folderOutput.exists()) {
+            logError(NLS.bind(Messages.ExportViewsProvider_3, value));
+            return;
+        }
+
+        // Format, from the extension of an Image Export Provider
+        value = commandLine.getOptionValue(OPTION_FORMAT, "png"); //$NON-NLS-1$
+        ViewsExporter.Format format = getFormat(value);
+        if(format == null) {
+            logError(NLS.bind(Messages.ExportViewsProvider_4, value, getSupportedExtensions()));
+            return;
+        }
+
+        // Scale
+        int scale = 100;
+        value = commandLine.getOptionValue(OPTION_SCALE);
+        if(StringUtils.isSet(value)) {
+            try {
+                scale = Integer.parseInt(value);
+            }
+            catch(NumberFormatException ex) {
+                scale = 0;
+            }
+            if(scale < MIN_SCALE || scale > MAX_SCALE) {
+                logError(NLS.bind(Messages.ExportViewsProvider_5, new Object[] { value, MIN_SCALE, MAX_SCALE }));
+                return;
+            }
+        }
+
+        // Filter
+        Pattern filter = null;
+        value = commandLine.getOptionValue(OPTION_FILTER);
+        if(StringUtils.isSet(value)) {
+            try {
+                filter = Pattern.compile(value);
+            }
+            catch(PatternSyntaxException ex) {
+                logError(NLS.bind(Messages.ExportViewsProvider_6, value, ex.getDescription()));
+                return;
+            }
+        }
+
+        // Threads
+        int threads = 0;
+        value = commandLine.getOptionValue(OPTION_THREADS);
+        if(StringUtils.isSet(value)) {
+            try {
+                threads = Integer.parseInt(value);
+            }
+            catch(NumberFormatException ex) {
+                threads = 0;
+            }
+            if(threads < 1) {
+                logError(NLS.bind(Messages.ExportViewsProvider_7, value));
+                return;
+            }
+        }
+
+        boolean embedFonts = !commandLine.hasOption(OPTION_NO_EMBED_FONTS);
+
+        ViewsExporter exporter = new ViewsExporter(format, threads);
+        exporter.setScale((double)scale / 100);
+        exporter.setEmbedFonts(embedFonts);
+
+        // Fingerprints of the Views exported last time with the same format and scale
+        ReportManifest manifest = new ReportManifest(new File(folderOutput, MANIFEST_FILE), getManifestFormat(format, scale, embedFonts));
+        manifest.load();
+
+        // Views exported last time that are no longer in the model
+        Set<String> deletedKeys = manifest.getLoadedKeys();
+
+        List<IDiagramModel> diagramModels = new ArrayList<>();
+        int unchanged = 0;
+
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            String key = MANIFEST_VIEW_KEY + dm.getId();
+            deletedKeys.remove(key);
+
+            // Keep the fingerprint of a View that is not exported this time so that it's not exported again next time if it's not changed
+            if(!isIncluded(dm, filter)) {
+                manifest.retain(key);
+                continue;
+            }
+
+            boolean changed = manifest.update(key, ReportManifest.getFingerprint(dm));
+            if(!changed && exporter.getFile(dm, folderOutput).exists()) {
+                unchanged++;
+                continue;
+            }
+
+            diagramModels.add(dm);
+        }
+
+        logMessage(NLS.bind(Messages.ExportViewsProvider_8, new Object[] { diagramModels.size(), model.getName(), folderOutput.getPath(), unchanged }));
+
+        exporter.export(diagramModels, folderOutput);
+
+        // Delete the files of deleted Views. Their fingerprints are not saved again.
+        int deleted = deleteFiles(exporter, deletedKeys, folderOutput);
+        if(deleted > 0) {
+            logMessage(NLS.bind(Messages.ExportViewsProvider_21, deleted));
+        }
+
+        // Only save the fingerprints when all of the Views have been exported
+        manifest.save();
+
+        logMessage(Messages.ExportViewsProvider_9);
+    }
+
+    /**
+     * @return true if there is no filter, or the View's name or id contains a match for the filter.
+     *         Use ^ and $ in the filter to match the whole name or id.
+     */
+    static boolean isIncluded(IDiagramModel dm, Pattern filter) {
+        return filter == null || filter.matcher(StringUtils.safeString(dm.getName())).find() || filter.matcher(dm.getId()).find();
+    }
+
+    /**
+     * Delete the exported files of the Views with the given manifest keys
+     * @return The number of files deleted
+     */
+    private int deleteFiles(ViewsExporter exporter, Set<String> keys, File folder) {
+        int count = 0;
+
+        for(String key : keys) {
+            if(key.startsWith(MANIFEST_VIEW_KEY)) {
+                File file = exporter.getFile(key.substring(MANIFEST_VIEW_KEY.length()), folder);
+                // Only delete files in the folder in case the manifest has been edited
+                if(folder.equals(file.getParentFile()) && file.delete()) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The format of the Image Export Provider that has the given file extension, or null if there isn't one or it's not one of the ViewsExporter formats
+     */
+    private ViewsExporter.Format getFormat(String extension) {
+        for(ImageExportProviderInfo info : ImageExportProviderManager.getImageExportProviders()) {
+            if(info.getExtensions().contains(extension.toLowerCase())) {
+                return ViewsExporter.Format.fromProviderID(info.getID());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The file extensions of the Image Export Providers that are ViewsExporter formats
+     */
+    private String getSupportedExtensions() {
+        List<String> extensions = new ArrayList<>();
+
+        for(ImageExportProviderInfo info : ImageExportProviderManager.getImageExportProviders()) {
+            if(ViewsExporter.Format.fromProviderID(info.getID()) != null) {
+                extensions.addAll(info.getExtensions());
+            }
+        }
+
+        return String.join(", ", extensions); //$NON-NLS-1$
+    }
+
+    /**
+     * @return A string identifying the exported files so that all Views are exported again if it changes
+     */
+    private String getManifestFormat(ViewsExporter.Format format, int scale, boolean embedFonts) {
+        return ExportSVGPlugin.getDefault().getBundle().getVersion() + "@" + format.getExtension() + "@" + scale + "@" + ImageFactory.getDeviceZoom() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + "@" + embedFonts; //$NON-NLS-1$
+    }
+
+    @Override
+    protected String getLogPrefix() {
+        return PREFIX;
+    }
+
+    @Override
+    public Options getOptions() {
+        Options options = new Options();
+
+        Option option = Option.builder()
+                .longOpt(OPTION_EXPORT_VIEWS)
+                .hasArg().argName(Messages.ExportViewsProvider_10)
+                .desc(Messages.ExportViewsProvider_11)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_FORMAT)
+                .hasArg().argName(Messages.ExportViewsProvider_12)
+                .desc(Messages.ExportViewsProvider_13)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_SCALE)
+                .hasArg().argName(Messages.ExportViewsProvider_14)
+                .desc(NLS.bind(Messages.ExportViewsProvider_15, MIN_SCALE, MAX_SCALE))
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_FILTER)
+                .hasArg().argName(Messages.ExportViewsProvider_16)
+                .desc(Messages.ExportViewsProvider_17)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_THREADS)
+                .hasArg().argName(Messages.ExportViewsProvider_18)
+                .desc(Messages.ExportViewsProvider_19)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_NO_EMBED_FONTS)
+                .desc(Messages.ExportViewsProvider_20)
+                .build();
+        options.addOption(option);
+
+        return options;
+    }
+
+    private boolean hasCorrectOptions(CommandLine commandLine) {
+        return commandLine.hasOption(OPTION_EXPORT_VIEWS);
+    }
+}
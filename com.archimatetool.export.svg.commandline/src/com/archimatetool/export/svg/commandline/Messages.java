@@ -0,0 +1,59 @@
+package com.archimatetool.export.svg.commandline;
+
+import org.eclipse.osgi.util.NLS;
+
+public class Messages extends NLS {
+
+    private static final String BUNDLE_NAME = "com.archimatetool.export.svg.commandline.messages"; //$NON-NLS-1$
+
+    public static String ExportViewsProvider_0;
+
+    public static String ExportViewsProvider_1;
+
+    public static String ExportViewsProvider_2;
+
+    public static String ExportViewsProvider_3;
+
+    public static String ExportViewsProvider_4;
+
+    public static String ExportViewsProvider_5;
+
+    public static String ExportViewsProvider_6;
+
+    public static String ExportViewsProvider_7;
+
+    public static String ExportViewsProvider_8;
+
+    public static String ExportViewsProvider_9;
+
+    public static String ExportViewsProvider_10;
+
+    public static String ExportViewsProvider_11;
+
+    public static String ExportViewsProvider_12;
+
+    public static String ExportViewsProvider_13;
+
+    public static String ExportViewsProvider_14;
+
+    public static String ExportViewsProvider_15;
+
+    public static String ExportViewsProvider_16;
+
+    public static String ExportViewsProvider_17;
+
+    public static String ExportViewsProvider_18;
+
+    public static String ExportViewsProvider_19;
+
+    public static String ExportViewsProvider_20;
+
+    public static String ExportViewsProvider_21;
+    static {
+        // initialize resource bundle
+        NLS.initializeMessages(BUNDLE_NAME, Messages.class);
+    }
+
+    private Messages() {
+    }
+}
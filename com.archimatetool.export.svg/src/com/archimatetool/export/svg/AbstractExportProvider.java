@@ -9,6 +9,7 @@ import java.awt.Graphics2D;
 
 import org.apache.batik.dom.GenericDOMImplementation;
 import org.apache.batik.svggen.SVGGeneratorContext;
+import org.apache.batik.svggen.SVGGraphics2D;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.w3c.dom.DOMImplementation;
@@ -67,6 +68,35 @@ public abstract class AbstractExportProvider implements IImageExportProvider {
         return ctx;
     }
     
+    /**
+     * Paint the figure onto a new Batik SVGGraphics2D instance for the document
+     * @param figure The figure to paint
+     * @param document The DOM Document
+     * @param embedFonts If true will embed fonts
+     * @param viewPort The Viewport of the figure to print
+     * @return The SVGGraphics2D instance that the figure was painted onto
+     */
+    protected SVGGraphics2D paintFigure(IFigure figure, Document document, boolean embedFonts, Rectangle viewPort) {
+        // Create a context for customisation
+        SVGGeneratorContext ctx = createContext(document, embedFonts);
+        
+        // Create a Batik SVGGraphics2D instance
+        SVGGraphics2D svgGenerator = new SVGGraphics2D(ctx, false);
+        
+        // Create a Graphiti wrapper adapter
+        GraphicsToGraphics2DAdaptor graphicsAdaptor = createGraphicsToGraphics2DAdaptor(svgGenerator, viewPort);
+        
+        // Paint the figure onto the graphics instance
+        try {
+            figure.paint(graphicsAdaptor);
+        }
+        finally {
+            graphicsAdaptor.dispose();
+        }
+        
+        return svgGenerator;
+    }
+    
     /**
      * Create the Graphiti Graphics2D adapter with its Viewport
      * @param graphics2d The Batick AWT Graphics2D to wrap
@@ -5,15 +5,15 @@
  */
 package com.archimatetool.export.svg;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 
-import org.apache.batik.svggen.SVGGeneratorContext;
+import org.apache.batik.dom.svg.SVGDOMImplementation;
 import org.apache.batik.svggen.SVGGraphics2D;
 import org.apache.batik.transcoder.SVGAbstractTranscoder;
+import org.apache.batik.transcoder.TranscoderException;
 import org.apache.batik.transcoder.TranscoderInput;
 import org.apache.batik.transcoder.TranscoderOutput;
 import org.apache.fop.svg.PDFTranscoder;
@@ -23,8 +23,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-import com.archimatetool.export.svg.graphiti.GraphicsToGraphics2DAdaptor;
-
 
 
 /**
@@ -40,57 +38,57 @@ public class PDFExportProvider extends AbstractExportProvider {
     
     @Override
     public void export(String providerID, File file) throws Exception {
-        // Create a DOM Document
-        Document document = createDocument();
-        
-        // Create a context for customisation
-        SVGGeneratorContext ctx = createContext(document, false); // Don't embed fonts, otherwise ther are artifacts in text
-        
-        // Create a Batik SVGGraphics2D instance
-        SVGGraphics2D svgGenerator = new SVGGraphics2D(ctx, false);
-        
         // Get the outer bounds of the figure
         Rectangle bounds = getViewportBounds(fFigure);
-
-        // Create a Graphiti wrapper adapter
-        GraphicsToGraphics2DAdaptor graphicsAdaptor = createGraphicsToGraphics2DAdaptor(svgGenerator, bounds);
         
-        // Paint the figure onto the graphics instance
-        fFigure.paint(graphicsAdaptor);
-        
-        // Get the Element root from the SVGGraphics2D instance
-        Element root = svgGenerator.getRoot();
-        
-        // And set some attributes on the root element
-        setViewBoxAttribute(root, 0, 0, bounds.width, bounds.height);
+        // Paint the figure to an SVG Document
+        Document document = createSVGDocument(fFigure, bounds);
         
-        // Save the root element to temp file
-        File tmp = File.createTempFile("svg", null); //$NON-NLS-1$
-        tmp.deleteOnExit();
-        Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"); //$NON-NLS-1$
-        svgGenerator.stream(root, out);
+        // Transcode the SVG Document to PDF
+        try(OutputStream outStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            transcode(document, bounds, outStream);
+        }
+    }
+    
+    /**
+     * Paint the figure to a new SVG Document that can be passed to the PDF Transcoder.
+     * This has to be called on the Display thread.
+     * @param figure The figure to paint
+     * @param bounds The outer bounds of the figure
+     * @return The SVG Document
+     */
+    Document createSVGDocument(IFigure figure, Rectangle bounds) {
+        // Create an SVG DOM Document so that the transcoder uses it as it is rather than having to copy it or to parse it from a file
+        Document document = SVGDOMImplementation.getDOMImplementation().createDocument(SVGDOMImplementation.SVG_NAMESPACE_URI, "svg", null); //$NON-NLS-1$
         
-        // Close
-        graphicsAdaptor.dispose();
-        out.close();
+        // Paint the figure. Don't embed fonts, otherwise there are artifacts in text
+        SVGGraphics2D svgGenerator = paintFigure(figure, document, false, bounds);
         
-        // PDF Transcoder
-        TranscoderInput inputSVG = new TranscoderInput(tmp.toURI().toURL().toString());
+        // Add the painted content to the document's root element
+        Element root = document.getDocumentElement();
+        svgGenerator.getRoot(root);
         
-        OutputStream outStream = new FileOutputStream(file);
-        TranscoderOutput outputPDF = new TranscoderOutput(outStream);   
+        // And set some attributes on the root element
+        setViewBoxAttribute(root, 0, 0, bounds.width, bounds.height);
         
+        return document;
+    }
+    
+    /**
+     * Transcode an SVG Document to PDF.
+     * This doesn't use the Display and so can be called on any thread.
+     * @param document The SVG Document created by createSVGDocument()
+     * @param bounds The outer bounds of the figure
+     * @param outStream The stream to write the PDF to
+     * @throws TranscoderException
+     */
+    void transcode(Document document, Rectangle bounds, OutputStream outStream) throws TranscoderException {
         PDFTranscoder transcoder = new PDFTranscoder();
         
         transcoder.addTranscodingHint(SVGAbstractTranscoder.KEY_WIDTH, (float)bounds.width);
         transcoder.addTranscodingHint(SVGAbstractTranscoder.KEY_HEIGHT, (float)bounds.height);
         
-        transcoder.transcode(inputSVG, outputPDF);
-        
-        outStream.flush();
-        outStream.close();
-        
-        tmp.delete();
+        transcoder.transcode(new TranscoderInput(document), new TranscoderOutput(outStream));
     }
 
     @Override
@@ -10,7 +10,6 @@ import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 
-import org.apache.batik.svggen.SVGGeneratorContext;
 import org.apache.batik.svggen.SVGGraphics2D;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Rectangle;
@@ -27,8 +26,6 @@ import org.eclipse.swt.widgets.Spinner;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-import com.archimatetool.export.svg.graphiti.GraphicsToGraphics2DAdaptor;
-
 
 
 /**
@@ -51,20 +48,11 @@ public class SVGExportProvider extends AbstractExportProvider implements IPrefer
         // Create a DOM Document
         Document document = createDocument();
         
-        // Create a context for customisation
-        SVGGeneratorContext ctx = createContext(document, fEmbedFontsButton.getSelection());
-        
-        // Create a Batik SVGGraphics2D instance
-        SVGGraphics2D svgGenerator = new SVGGraphics2D(ctx, false);
-        
         // Get the outer bounds of the figure
         Rectangle bounds = getViewportBounds(fFigure);
-
-        // Create a Graphiti wrapper adapter
-        GraphicsToGraphics2DAdaptor graphicsAdaptor = createGraphicsToGraphics2DAdaptor(svgGenerator, bounds);
         
-        // Paint the figure onto the graphics instance
-        fFigure.paint(graphicsAdaptor);
+        // Paint the figure onto a Batik SVGGraphics2D instance
+        SVGGraphics2D svgGenerator = paintFigure(fFigure, document, fEmbedFontsButton.getSelection(), bounds);
         
         // Get the Element root from the SVGGraphics2D instance
         Element root = svgGenerator.getRoot();
@@ -75,12 +63,9 @@ public class SVGExportProvider extends AbstractExportProvider implements IPrefer
         }
         
         // Save the root element
-        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8"); //$NON-NLS-1$
-        svgGenerator.stream(root, out);
-        
-        // Close
-        graphicsAdaptor.dispose();
-        out.close();
+        try(Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) { //$NON-NLS-1$
+            svgGenerator.stream(root, out);
+        }
         
         // Save Preferences
         savePreferences();
@@ -0,0 +1,340 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.batik.svggen.SVGGraphics2D;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.archimatetool.editor.diagram.ImageExportProvider;
+import com.archimatetool.editor.diagram.util.DiagramImageRenderer;
+import com.archimatetool.editor.diagram.util.DiagramUtils;
+import com.archimatetool.editor.diagram.util.TiledImageWriter;
+import com.archimatetool.editor.ui.ImageFactory;
+import com.archimatetool.model.IDiagramModel;
+
+
+
+/**
+ * Exports a batch of Views to SVG, PDF, PNG, BMP or JPEG files.
+ *
+ * Each View's figures are painted on the calling thread, which has to be the Display thread,
+ * using one DiagramImageRenderer for all of the Views.
+ * Writing the SVG Document to file, transcoding it to PDF, or encoding the image, doesn't need the Display and is done by a pool of worker threads
+ * so that it overlaps with painting the next View.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ViewsExporter {
+
+    /**
+     * The export formats
+     */
+    public enum Format {
+        SVG("svg", SVGExportProvider.SVG_IMAGE_EXPORT_PROVIDER), //$NON-NLS-1$
+        PDF("pdf", PDFExportProvider.PDF_IMAGE_EXPORT_PROVIDER), //$NON-NLS-1$
+        PNG("png", ImageExportProvider.PNG_IMAGE_EXPORT_PROVIDER), //$NON-NLS-1$
+        BMP("bmp", ImageExportProvider.BMP_IMAGE_EXPORT_PROVIDER), //$NON-NLS-1$
+        JPEG("jpg", ImageExportProvider.JPEG_IMAGE_EXPORT_PROVIDER); //$NON-NLS-1$
+
+        private String extension;
+        private String providerID;
+
+        Format(String extension, String providerID) {
+            this.extension = extension;
+            this.providerID = providerID;
+        }
+
+        /**
+         * @return The file extension for this format, without a dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @return The id of the IImageExportProvider that exports this format in the "Export View As Image" dialog
+         */
+        public String getProviderID() {
+            return providerID;
+        }
+
+        /**
+         * @param providerID The id of an IImageExportProvider
+         * @return The format exported by the IImageExportProvider, or null if it is not one of these formats
+         */
+        public static Format fromProviderID(String providerID) {
+            for(Format format : values()) {
+                if(format.providerID.equals(providerID)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Maximum number of painted Views waiting to be written, so that we don't hold too many SVG Documents or images in memory
+     */
+    private static final int MAX_PENDING = 8;
+
+    /**
+     * Margin around images
+     */
+    private static final int MARGIN = 10;
+
+    private Format fFormat;
+    private int fThreads;
+    private boolean fEmbedFonts;
+    private double fScale = 1;
+
+    /**
+     * @param format The export format
+     * @param threads The number of worker threads writing files. If less than 1 the number of available processors is used.
+     */
+    public ViewsExporter(Format format, int threads) {
+        fFormat = format;
+        fThreads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /**
+     * @param embedFonts If true fonts are embedded in SVG files. This is not used for PDF as it causes artifacts in text.
+     */
+    public void setEmbedFonts(boolean embedFonts) {
+        fEmbedFonts = embedFonts;
+    }
+
+    /**
+     * @param scale The scale to export at. 1 is full size. SVG and PDF files are scaled by setting their page size.
+     */
+    public void setScale(double scale) {
+        fScale = scale;
+    }
+
+    /**
+     * @return The export format
+     */
+    public Format getFormat() {
+        return fFormat;
+    }
+
+    /**
+     * @param dm The diagram model
+     * @param folder The folder that files are exported to
+     * @return The file that the diagram model is exported to. This is the diagram model's id and the format's extension.
+     */
+    public File getFile(IDiagramModel dm, File folder) {
+        return getFile(dm.getId(), folder);
+    }
+
+    /**
+     * @param id The id of a diagram model
+     * @param folder The folder that files are exported to
+     * @return The file that the diagram model with the id is exported to
+     */
+    public File getFile(String id, File folder) {
+        return new File(folder, id + "." + fFormat.getExtension()); //$NON-NLS-1$
+    }
+
+    /**
+     * Export diagram models to files in a folder. This has to be called on the Display thread.
+     * @param diagramModels The diagram models to export
+     * @param folder The folder to export to. This will be created if it does not exist.
+     * @return The exported files in the same order as the diagram models
+     * @throws IOException if a file could not be written
+     */
+    public List<File> export(Collection<? extends IDiagramModel> diagramModels, File folder) throws IOException {
+        folder.mkdirs();
+
+        List<File> files = new ArrayList<>();
+
+        // Files waiting to be written, limited so that we don't hold too many SVG Documents or images in memory
+        Deque<Future<?>> pending = new ArrayDeque<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(fThreads);
+
+        // Re-use one renderer for all of the diagrams
+        DiagramImageRenderer renderer = new DiagramImageRenderer();
+
+        // This provides the methods to paint the figures and to transcode them to PDF
+        PDFExportProvider provider = new PDFExportProvider();
+
+        try {
+            for(IDiagramModel dm : diagramModels) {
+                File file = getFile(dm, folder);
+                files.add(file);
+
+                switch(fFormat) {
+                    case SVG:
+                        pending.add(exportSVG(renderer, provider, executor, dm, file));
+                        break;
+
+                    case PDF:
+                        pending.add(exportPDF(renderer, provider, executor, dm, file));
+                        break;
+
+                    default:
+                        pending.add(exportImage(renderer, executor, dm, file));
+                        break;
+                }
+
+                while(pending.size() > MAX_PENDING) {
+                    waitFor(pending.removeFirst());
+                }
+            }
+
+            // Wait for all files to be written
+            while(!pending.isEmpty()) {
+                waitFor(pending.removeFirst());
+            }
+        }
+        finally {
+            renderer.dispose();
+            executor.shutdownNow();
+        }
+
+        return files;
+    }
+
+    private Future<?> exportSVG(DiagramImageRenderer renderer, PDFExportProvider provider, ExecutorService executor, IDiagramModel dm, File file) {
+        Document document = provider.createDocument();
+        Rectangle[] bounds = new Rectangle[1];
+
+        SVGGraphics2D svgGenerator = renderer.renderFigure(dm, figure -> {
+            bounds[0] = provider.getViewportBounds(figure);
+            return provider.paintFigure(figure, document, fEmbedFonts, bounds[0]);
+        });
+
+        return executor.submit(() -> {
+            Element root = svgGenerator.getRoot();
+
+            // Scale the SVG's size and keep the drawing's coordinates
+            if(fScale != 1) {
+                provider.setViewBoxAttribute(root, 0, 0, bounds[0].width, bounds[0].height);
+                root.setAttributeNS(null, "width", String.valueOf(Math.round(bounds[0].width * fScale))); //$NON-NLS-1$
+                root.setAttributeNS(null, "height", String.valueOf(Math.round(bounds[0].height * fScale))); //$NON-NLS-1$
+            }
+
+            try(Writer out = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(file)), "UTF-8")) { //$NON-NLS-1$
+                svgGenerator.stream(root, out);
+            }
+
+            return null;
+        });
+    }
+
+    private Future<?> exportPDF(DiagramImageRenderer renderer, PDFExportProvider provider, ExecutorService executor, IDiagramModel dm, File file) {
+        Rectangle[] bounds = new Rectangle[1];
+
+        Document document = renderer.renderFigure(dm, figure -> {
+            bounds[0] = provider.getViewportBounds(figure);
+            return provider.createSVGDocument(figure, bounds[0]);
+        });
+
+        // The page size. The transcoder scales the drawing to fit it.
+        Rectangle pageBounds = bounds[0].getCopy().scale(fScale);
+
+        return executor.submit(() -> {
+            try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                provider.transcode(document, pageBounds, out);
+            }
+            return null;
+        });
+    }
+
+    private Future<?> exportImage(DiagramImageRenderer renderer, ExecutorService executor, IDiagramModel dm, File file) throws IOException {
+        int imageFormat = fFormat == Format.BMP ? SWT.IMAGE_BMP : fFormat == Format.JPEG ? SWT.IMAGE_JPEG : SWT.IMAGE_PNG;
+
+        ImageData imageData;
+
+        try {
+            imageData = renderer.renderFigure(dm, figure -> {
+                // Large PNG or BMP image is written a tile at a time here as the figure is needed to paint each tile
+                if(fFormat != Format.JPEG) {
+                    TiledImageWriter writer = new TiledImageWriter(figure, fScale, MARGIN);
+                    if((long)writer.getWidth() * writer.getHeight() > ImageExportProvider.MAX_UNTILED_PIXELS) {
+                        try {
+                            writer.write(file, imageFormat);
+                        }
+                        catch(IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        return null;
+                    }
+                }
+
+                Image image = DiagramUtils.createImage(figure, fScale, MARGIN);
+                try {
+                    return image.getImageData(ImageFactory.getDeviceZoom());
+                }
+                finally {
+                    image.dispose();
+                }
+            });
+        }
+        catch(UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        if(imageData == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return executor.submit(() -> {
+            ImageLoader loader = new ImageLoader();
+            loader.data = new ImageData[] { imageData };
+            loader.save(file.getPath(), imageFormat);
+        });
+    }
+
+    /**
+     * Wait for a file to be written and re-throw any exception from writing it
+     */
+    private void waitFor(Future<?> future) throws IOException {
+        try {
+            future.get();
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        catch(ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -199,6 +199,11 @@ public class GraphicsToGraphics2DAdaptor extends Graphics {
 
     private Rectangle relativeClipRegion;
 
+    /**
+     * Images that have been converted for this Graphics
+     */
+    private final ImageConverter.Cache imageCache = new ImageConverter.Cache();
+
     private org.eclipse.swt.graphics.Rectangle viewBox;
     private Image image;
 
@@ -389,6 +394,8 @@ public class GraphicsToGraphics2DAdaptor extends Graphics {
         }
 
         states.clear();
+
+        imageCache.clear();
     }
 
     /**
@@ -510,7 +517,7 @@ public class GraphicsToGraphics2DAdaptor extends Graphics {
         ypos += transY;
 
         // Convert the SWT Image into an AWT BufferedImage
-        BufferedImage toDraw = ImageConverter.convert(srcImage);
+        BufferedImage toDraw = imageCache.convert(srcImage);
 
         checkState();
         getGraphics2D().drawImage(toDraw, new AffineTransform(1f, 0f, 0f, 1f, xpos, ypos), null);
@@ -529,7 +536,7 @@ public class GraphicsToGraphics2DAdaptor extends Graphics {
         x2 += transX;
         y2 += transY;
 
-        BufferedImage toDraw = ImageConverter.convert(srcImage);
+        BufferedImage toDraw = imageCache.convert(srcImage);
         checkState();
         getGraphics2D().drawImage(toDraw, x2, y2, w2, h2, null);
     }
@@ -16,6 +16,8 @@ package com.archimatetool.export.svg.graphiti;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
@@ -108,6 +110,39 @@ public class ImageConverter {
         return convertFromImageData(srcImage.getImageData(ImageFactory.getDeviceZoom()));
     }
 
+    /**
+     * Cache of converted images for one export, as the same <code>Image</code>
+     * such as an element's icon is often drawn many times in a diagram.
+     * Images are cached by identity. Not thread safe.
+     */
+    public static class Cache {
+
+        private Map<Image, BufferedImage> images = new IdentityHashMap<Image, BufferedImage>();
+
+        /**
+         * @param srcImage
+         *            the {@link org.eclipse.swt.graphics.Image} to be converted to
+         *            a <code>BufferedImage</code>
+         * @return the <code>BufferedImage</code> converted from srcImage the first
+         *         time that it was drawn
+         */
+        public BufferedImage convert(Image srcImage) {
+            BufferedImage image = images.get(srcImage);
+            if (image == null) {
+                image = ImageConverter.convert(srcImage);
+                images.put(srcImage, image);
+            }
+            return image;
+        }
+
+        /**
+         * Clear the cache
+         */
+        public void clear() {
+            images.clear();
+        }
+    }
+
     /**
      * Converts an swt based image data into an AWT <code>BufferedImage</code>.
      * This will always return a <code>BufferedImage</code> that is of type
@@ -136,29 +171,30 @@ public class ImageConverter {
         // Convert that to a Buffered Image.
         BufferedImage image = new BufferedImage(imageData.width, imageData.height, BufferedImage.TYPE_INT_ARGB);
 
-        WritableRaster alphaRaster = image.getAlphaRaster();
+        // loop over the imagedata and set each row of pixels in the BufferedImage
+        // to the appropriate colors and alpha values.
+        int[] pixels = new int[width];
+        int[] argb = new int[width];
 
-        // loop over the imagedata and set each pixel in the BufferedImage to
-        // the appropriate color.
         for (int y = 0; y < height; y++) {
+            imageData.getPixels(0, y, width, pixels, 0);
+
             for (int x = 0; x < width; x++) {
-                RGB color = imageData.palette.getRGB(imageData.getPixel(x, y));
-                image.setRGB(x, y, new java.awt.Color(color.red, color.green, color.blue).getRGB());
-
-                // check for alpha channel
-                if (alphaRaster != null) {
-                    if (imageData.alphaData != null) {
-                        alpha[0] = imageData.getAlpha(x, y);
-                        alphaRaster.setPixel(x, y, alpha);
-                    } else {
-                        // check for transparency mask
-                        if (maskData != null) {
-                            alpha[0] = maskData.getPixel(x, y) == 0 ? 0 : 255;
-                            alphaRaster.setPixel(x, y, alpha);
-                        }
-                    }
+                RGB color = imageData.palette.getRGB(pixels[x]);
+
+                // check for alpha channel or transparency mask
+                if (imageData.alphaData != null) {
+                    alpha[0] = imageData.getAlpha(x, y);
+                } else if (maskData != null) {
+                    alpha[0] = maskData.getPixel(x, y) == 0 ? 0 : 255;
+                } else {
+                    alpha[0] = 255;
                 }
+
+                argb[x] = (alpha[0] << 24) | (color.red << 16) | (color.green << 8) | color.blue;
             }
+
+            image.setRGB(0, y, width, 1, argb, 0, width);
         }
 
         return image;
@@ -24,4 +24,6 @@ public interface IPreferenceConstants {
     String PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS = "checkDuplicateElements"; //$NON-NLS-1$
     String PREFS_HAMMER_CHECK_JUNCTIONS = "checkJunctions"; //$NON-NLS-1$
     
+    String PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES = "duplicateElementsNormaliseNames"; //$NON-NLS-1$
+    
 }
@@ -32,5 +32,7 @@ implements IPreferenceConstants {
 		store.setDefault(PREFS_HAMMER_CHECK_VIEWPOINT, true);
         store.setDefault(PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS, true);
         store.setDefault(PREFS_HAMMER_CHECK_JUNCTIONS, true);
+        
+        store.setDefault(PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES, false);
     }
 }
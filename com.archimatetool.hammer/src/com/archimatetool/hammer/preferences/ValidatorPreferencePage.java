@@ -34,6 +34,8 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
     
     private Button[] fDoCheckButtons;
     
+    private Button fNormaliseDuplicateNamesButton;
+    
     String[] fCheckers = {
             PREFS_HAMMER_CHECK_EMPTY_VIEWS, Messages.ValidatorPreferencePage_0,
             PREFS_HAMMER_CHECK_INVALID_RELATIONS, Messages.ValidatorPreferencePage_1,
@@ -74,6 +76,10 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
             fDoCheckButtons[i].setLayoutData(gd);
         }
         
+        fNormaliseDuplicateNamesButton = new Button(client, SWT.CHECK);
+        fNormaliseDuplicateNamesButton.setText(Messages.ValidatorPreferencePage_9);
+        fNormaliseDuplicateNamesButton.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+        
         setValues();
         
         return client;
@@ -83,6 +89,8 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         for(int i = 0; i < fCheckers.length / 2; i++) {
             fDoCheckButtons[i].setSelection(getPreferenceStore().getBoolean(fCheckers[i * 2]));
         }
+        
+        fNormaliseDuplicateNamesButton.setSelection(getPreferenceStore().getBoolean(PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES));
     }
     
     @Override
@@ -90,6 +98,7 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         for(int i = 0; i < fCheckers.length / 2; i++) {
             getPreferenceStore().setValue(fCheckers[i * 2], fDoCheckButtons[i].getSelection());
         }
+        getPreferenceStore().setValue(PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES, fNormaliseDuplicateNamesButton.getSelection());
         return true;
     }
     
@@ -98,6 +107,7 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         for(int i = 0; i < fCheckers.length / 2; i++) {
             fDoCheckButtons[i].setSelection(getPreferenceStore().getDefaultBoolean(fCheckers[i * 2]));
         }
+        fNormaliseDuplicateNamesButton.setSelection(getPreferenceStore().getDefaultBoolean(PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES));
         super.performDefaults();
     }
     
@@ -0,0 +1,462 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import com.archimatetool.editor.model.DiagramModelUtils;
+import com.archimatetool.hammer.ArchiHammerPlugin;
+import com.archimatetool.hammer.preferences.IPreferenceConstants;
+import com.archimatetool.hammer.validation.checkers.DuplicateElementChecker;
+import com.archimatetool.hammer.validation.checkers.EmptyViewsChecker;
+import com.archimatetool.hammer.validation.checkers.IChecker;
+import com.archimatetool.hammer.validation.checkers.InvalidRelationsChecker;
+import com.archimatetool.hammer.validation.checkers.JunctionsChecker;
+import com.archimatetool.hammer.validation.checkers.NestedElementsChecker;
+import com.archimatetool.hammer.validation.checkers.UnusedElementsChecker;
+import com.archimatetool.hammer.validation.checkers.UnusedRelationsChecker;
+import com.archimatetool.hammer.validation.checkers.ViewpointChecker;
+import com.archimatetool.hammer.validation.issues.AdviceType;
+import com.archimatetool.hammer.validation.issues.ErrorType;
+import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.WarningType;
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateModelObject;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelArchimateComponent;
+
+
+/**
+ * Validator that keeps its issues up to date as the model changes.
+ *
+ * The model is validated in full once. After that model notifications are passed to {@link #notifyChanged(Notification)}
+ * which marks the affected elements, relations and views as dirty. {@link #update()} then re-runs only the checkers
+ * for the dirty objects and patches the issues of those objects, leaving the others as they are.
+ *
+ * The issues of each checker are stored by the object that the checker was run on, which is an element, relation or view.
+ * The duplicate elements checker compares all elements with each other so it is re-run in full if any element is dirty.
+ *
+ * This should be used on the UI thread.
+ *
+ * @author Phillip Beauvoir
+ */
+public class IncrementalValidator {
+
+    /**
+     * The checkers in the same order as Validator and the type of object each one is run on
+     */
+    enum CheckerType {
+        INVALID_RELATIONS(IPreferenceConstants.PREFS_HAMMER_CHECK_INVALID_RELATIONS, Scope.RELATIONS),
+        UNUSED_ELEMENTS(IPreferenceConstants.PREFS_HAMMER_CHECK_UNUSED_ELEMENTS, Scope.ELEMENTS),
+        UNUSED_RELATIONS(IPreferenceConstants.PREFS_HAMMER_CHECK_UNUSED_RELATIONS, Scope.RELATIONS),
+        EMPTY_VIEWS(IPreferenceConstants.PREFS_HAMMER_CHECK_EMPTY_VIEWS, Scope.VIEWS),
+        VIEWPOINT(IPreferenceConstants.PREFS_HAMMER_CHECK_VIEWPOINT, Scope.VIEWS),
+        NESTING(IPreferenceConstants.PREFS_HAMMER_CHECK_NESTING, Scope.VIEWS),
+        DUPLICATE_ELEMENTS(IPreferenceConstants.PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS, Scope.ALL_ELEMENTS),
+        JUNCTIONS(IPreferenceConstants.PREFS_HAMMER_CHECK_JUNCTIONS, Scope.ELEMENTS);
+
+        final String preferenceKey;
+        final Scope scope;
+
+        CheckerType(String preferenceKey, Scope scope) {
+            this.preferenceKey = preferenceKey;
+            this.scope = scope;
+        }
+    }
+
+    enum Scope {
+        ELEMENTS, RELATIONS, VIEWS, ALL_ELEMENTS
+    }
+
+    private IArchimateModel fModel;
+
+    private boolean fNormaliseDuplicateNames;
+
+    // Enabled checker -> (object checked -> issues). For ALL_ELEMENTS checkers the object checked is the model.
+    private Map<CheckerType, Map<EObject, List<IIssue>>> fIssues = new LinkedHashMap<CheckerType, Map<EObject, List<IIssue>>>();
+
+    private Set<IArchimateElement> fDirtyElements = new LinkedHashSet<IArchimateElement>();
+    private Set<IArchimateRelationship> fDirtyRelations = new LinkedHashSet<IArchimateRelationship>();
+    private Set<IArchimateDiagramModel> fDirtyViews = new LinkedHashSet<IArchimateDiagramModel>();
+
+    public IncrementalValidator(IArchimateModel model) {
+        fModel = model;
+    }
+
+    public IArchimateModel getModel() {
+        return fModel;
+    }
+
+    /**
+     * Validate the whole model using the checkers that are currently enabled in preferences
+     * @return The list of Issue Categories and Issues
+     */
+    public List<Object> validate() {
+        if(fModel == null) {
+            return null;
+        }
+
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        List<IArchimateRelationship> relations = new ArrayList<IArchimateRelationship>();
+        List<IArchimateDiagramModel> views = new ArrayList<IArchimateDiagramModel>();
+
+        for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+
+            if(eObject instanceof IArchimateRelationship) {
+                relations.add((IArchimateRelationship)eObject);
+            }
+            else if(eObject instanceof IArchimateElement) {
+                elements.add((IArchimateElement)eObject);
+            }
+            else if(eObject instanceof IArchimateDiagramModel) {
+                views.add((IArchimateDiagramModel)eObject);
+            }
+        }
+
+        IPreferenceStore store = ArchiHammerPlugin.INSTANCE.getPreferenceStore();
+        fNormaliseDuplicateNames = store.getBoolean(IPreferenceConstants.PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES);
+
+        fIssues.clear();
+        clearDirty();
+
+        for(CheckerType type : CheckerType.values()) {
+            if(store.getBoolean(type.preferenceKey)) {
+                Map<EObject, List<IIssue>> issues = new LinkedHashMap<EObject, List<IIssue>>();
+                fIssues.put(type, issues);
+
+                switch(type.scope) {
+                    case ELEMENTS:
+                        check(type, issues, elements);
+                        break;
+
+                    case RELATIONS:
+                        check(type, issues, relations);
+                        break;
+
+                    case VIEWS:
+                        check(type, issues, views);
+                        break;
+
+                    case ALL_ELEMENTS:
+                        putIssues(issues, fModel, createChecker(type, elements).getIssues());
+                        break;
+                }
+            }
+        }
+
+        return getResult();
+    }
+
+    /**
+     * Mark the objects affected by a model notification as dirty.
+     * Notifications from other models are ignored. Notifications from objects that are not in any model,
+     * such as a relation that has just been deleted, are used as they may affect objects in this model.
+     */
+    public void notifyChanged(Notification msg) {
+        if(!(msg.getNotifier() instanceof EObject) || fIssues.isEmpty()) {
+            return;
+        }
+
+        EObject notifier = (EObject)msg.getNotifier();
+        EObject root = EcoreUtil.getRootContainer(notifier);
+        if(root instanceof IArchimateModel && root != fModel) {
+            return;
+        }
+
+        // The object that has changed
+        markOwner(notifier);
+
+        // Objects added or removed, or set as a reference such as the source or target of a relation
+        markValue(msg.getOldValue());
+        markValue(msg.getNewValue());
+    }
+
+    /**
+     * @return true if there are dirty objects waiting for {@link #update()}
+     */
+    public boolean isDirty() {
+        return !fDirtyElements.isEmpty() || !fDirtyRelations.isEmpty() || !fDirtyViews.isEmpty();
+    }
+
+    /**
+     * Re-run the checkers for the dirty objects only and patch their issues
+     * @return The list of Issue Categories and Issues
+     */
+    public List<Object> update() {
+        for(Entry<CheckerType, Map<EObject, List<IIssue>>> entry : fIssues.entrySet()) {
+            CheckerType type = entry.getKey();
+            Map<EObject, List<IIssue>> issues = entry.getValue();
+
+            switch(type.scope) {
+                case ELEMENTS:
+                    recheck(type, issues, fDirtyElements);
+                    break;
+
+                case RELATIONS:
+                    recheck(type, issues, fDirtyRelations);
+                    break;
+
+                case VIEWS:
+                    recheck(type, issues, fDirtyViews);
+                    break;
+
+                case ALL_ELEMENTS:
+                    if(!fDirtyElements.isEmpty()) {
+                        putIssues(issues, fModel, createChecker(type, getAllElements()).getIssues());
+                    }
+                    break;
+            }
+        }
+
+        clearDirty();
+
+        return getResult();
+    }
+
+    /**
+     * @return The list of Issue Categories and Issues from the current issues
+     */
+    public List<Object> getResult() {
+        List<ErrorType> errorList = new ArrayList<ErrorType>();
+        List<WarningType> warningList = new ArrayList<WarningType>();
+        List<AdviceType> adviceList = new ArrayList<AdviceType>();
+
+        for(Map<EObject, List<IIssue>> issues : fIssues.values()) {
+            for(List<IIssue> list : issues.values()) {
+                for(IIssue issue : list) {
+                    if(issue instanceof ErrorType) {
+                        errorList.add((ErrorType)issue);
+                    }
+                    if(issue instanceof WarningType) {
+                        warningList.add((WarningType)issue);
+                    }
+                    if(issue instanceof AdviceType) {
+                        adviceList.add((AdviceType)issue);
+                    }
+                }
+            }
+        }
+
+        return Validator.createCategories(errorList, warningList, adviceList);
+    }
+
+    // ---------------------------------- Checking ----------------------------------
+
+    /**
+     * Run a checker on each object in turn so that its issues can be stored by object
+     */
+    private void check(CheckerType type, Map<EObject, List<IIssue>> issues, Collection<? extends EObject> objects) {
+        for(EObject eObject : objects) {
+            putIssues(issues, eObject, createChecker(type, Collections.singletonList(eObject)).getIssues());
+        }
+    }
+
+    /**
+     * Re-run a checker on dirty objects. Objects that are no longer in the model just have their issues removed.
+     */
+    private void recheck(CheckerType type, Map<EObject, List<IIssue>> issues, Collection<? extends EObject> dirtyObjects) {
+        for(EObject eObject : dirtyObjects) {
+            if(isInModel(eObject)) {
+                putIssues(issues, eObject, createChecker(type, Collections.singletonList(eObject)).getIssues());
+            }
+            else {
+                issues.remove(eObject);
+            }
+        }
+    }
+
+    /**
+     * Store the issues for an object. An object that is already stored keeps its position.
+     */
+    private void putIssues(Map<EObject, List<IIssue>> issues, EObject eObject, List<IIssue> newIssues) {
+        if(newIssues.isEmpty()) {
+            issues.remove(eObject);
+        }
+        else {
+            issues.put(eObject, newIssues);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private IChecker createChecker(CheckerType type, List<? extends EObject> objects) {
+        switch(type) {
+            case INVALID_RELATIONS:
+                return new InvalidRelationsChecker((List<IArchimateRelationship>)objects);
+
+            case UNUSED_ELEMENTS:
+                return new UnusedElementsChecker((List<IArchimateElement>)objects);
+
+            case UNUSED_RELATIONS:
+                return new UnusedRelationsChecker((List<IArchimateRelationship>)objects);
+
+            case EMPTY_VIEWS:
+                return new EmptyViewsChecker((List<IArchimateDiagramModel>)objects);
+
+            case VIEWPOINT:
+                return new ViewpointChecker((List<IArchimateDiagramModel>)objects);
+
+            case NESTING:
+                return new NestedElementsChecker((List<IArchimateDiagramModel>)objects);
+
+            case DUPLICATE_ELEMENTS:
+                return new DuplicateElementChecker((List<IArchimateElement>)objects, fNormaliseDuplicateNames);
+
+            case JUNCTIONS:
+                return new JunctionsChecker((List<IArchimateElement>)objects);
+
+            default:
+                throw new IllegalArgumentException("Unknown checker " + type); //$NON-NLS-1$
+        }
+    }
+
+    private List<IArchimateElement> getAllElements() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+
+        for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IArchimateElement) {
+                elements.add((IArchimateElement)eObject);
+            }
+        }
+
+        return elements;
+    }
+
+    private boolean isInModel(EObject eObject) {
+        return eObject instanceof IArchimateModelObject && ((IArchimateModelObject)eObject).getArchimateModel() == fModel;
+    }
+
+    private void clearDirty() {
+        fDirtyElements.clear();
+        fDirtyRelations.clear();
+        fDirtyViews.clear();
+    }
+
+    // ---------------------------------- Dirty tracking ----------------------------------
+
+    /**
+     * Mark the element, relation or view that owns a changed object
+     */
+    private void markOwner(EObject eObject) {
+        for(; eObject != null; eObject = eObject.eContainer()) {
+            if(mark(eObject)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Mark an added, removed or referenced object and, if it is a container such as a folder or a view, all of its child objects
+     */
+    private void markValue(Object value) {
+        if(value instanceof Collection) {
+            for(Object o : (Collection<?>)value) {
+                markValue(o);
+            }
+        }
+        else if(value instanceof EObject) {
+            EObject eObject = (EObject)value;
+            mark(eObject);
+            for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+                mark(iter.next());
+            }
+        }
+    }
+
+    /**
+     * Mark an object as dirty if it is one that is checked, or is a diagram component that references one
+     * @return true if the object was marked
+     */
+    private boolean mark(EObject eObject) {
+        if(eObject instanceof IArchimateElement) {
+            markElement((IArchimateElement)eObject);
+            return true;
+        }
+
+        if(eObject instanceof IArchimateRelationship) {
+            markRelation((IArchimateRelationship)eObject);
+            return true;
+        }
+
+        if(eObject instanceof IArchimateDiagramModel) {
+            fDirtyViews.add((IArchimateDiagramModel)eObject);
+            return true;
+        }
+
+        // A diagram component that was added or removed changes whether its concept is used
+        if(eObject instanceof IDiagramModelArchimateComponent) {
+            IDiagramModelArchimateComponent component = (IDiagramModelArchimateComponent)eObject;
+
+            IArchimateConcept concept = component.getArchimateConcept();
+            if(concept instanceof IArchimateElement) {
+                markElement((IArchimateElement)concept);
+            }
+            else if(concept instanceof IArchimateRelationship) {
+                fDirtyRelations.add((IArchimateRelationship)concept);
+            }
+
+            IDiagramModel dm = component.getDiagramModel();
+            if(dm instanceof IArchimateDiagramModel) {
+                fDirtyViews.add((IArchimateDiagramModel)dm);
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Mark an element and the views that show it, as issues in views use the element's name
+     */
+    private void markElement(IArchimateElement element) {
+        if(fDirtyElements.add(element)) {
+            for(IDiagramModel dm : DiagramModelUtils.findReferencedDiagramsForArchimateConcept(element)) {
+                if(dm instanceof IArchimateDiagramModel) {
+                    fDirtyViews.add((IArchimateDiagramModel)dm);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark a relation and the elements that it connects, as junctions and nested elements in views depend on relations
+     */
+    private void markRelation(IArchimateRelationship relation) {
+        if(fDirtyRelations.add(relation)) {
+            markEnd(relation.getSource());
+            markEnd(relation.getTarget());
+        }
+    }
+
+    private void markEnd(IArchimateConcept concept) {
+        if(concept instanceof IArchimateElement) {
+            markElement((IArchimateElement)concept);
+        }
+        else if(concept instanceof IArchimateRelationship) {
+            fDirtyRelations.add((IArchimateRelationship)concept);
+        }
+    }
+}
@@ -6,9 +6,21 @@
 package com.archimatetool.hammer.validation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.jface.preference.IPreferenceStore;
 
@@ -32,6 +44,7 @@ import com.archimatetool.hammer.validation.issues.IIssueCategory;
 import com.archimatetool.hammer.validation.issues.OKType;
 import com.archimatetool.hammer.validation.issues.WarningType;
 import com.archimatetool.hammer.validation.issues.WarningsCategory;
+import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateDiagramModel;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateModel;
@@ -41,6 +54,11 @@ import com.archimatetool.model.IArchimateRelationship;
 /**
  * Validator
  * 
+ * The checkers are independent read-only passes over the model so they are run in parallel on a pool of worker threads.
+ * They share the same unmodifiable lists of elements, relations and views, which are collected on the calling thread.
+ * Any lists that the model creates lazily are also created on the calling thread before the checkers are run
+ * so that the checkers only read the model. The model should not be changed while validating.
+ * 
  * @author Phillip Beauvoir
  */
 public class Validator {
@@ -54,6 +72,9 @@ public class Validator {
     private List<ErrorType> fErrorList;
     private List<WarningType> fWarningList;
     private List<AdviceType> fAdviceList;
+    
+    // Checker name -> time taken in milliseconds
+    private Map<String, Long> fTimings = new LinkedHashMap<String, Long>();
 
     
     public Validator(IArchimateModel model) {
@@ -64,94 +85,133 @@ public class Validator {
      * @return The list of Issue Categories and Issues
      */
     public List<Object> validate() {
+        return validate(null);
+    }
+    
+    /**
+     * @param monitor Progress monitor, may be null
+     * @return The list of Issue Categories and Issues
+     * @throws OperationCanceledException if the monitor is cancelled
+     */
+    public List<Object> validate(IProgressMonitor monitor) {
         if(fModel == null) {
             return null;
         }
         
         // Collect interesting objects
-        fElements = new ArrayList<IArchimateElement>();
-        fRelations = new ArrayList<IArchimateRelationship>();
-        fViews = new ArrayList<IArchimateDiagramModel>();
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        List<IArchimateRelationship> relations = new ArrayList<IArchimateRelationship>();
+        List<IArchimateDiagramModel> views = new ArrayList<IArchimateDiagramModel>();
         
+        // This also creates the containment lists of all objects
         for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
             EObject eObject = iter.next();
             
             if(eObject instanceof IArchimateRelationship) {
-                fRelations.add((IArchimateRelationship)eObject);
+                relations.add((IArchimateRelationship)eObject);
+                createRelationshipLists((IArchimateRelationship)eObject);
             }
             else if(eObject instanceof IArchimateElement) {
-                fElements.add((IArchimateElement)eObject);
+                elements.add((IArchimateElement)eObject);
+                createRelationshipLists((IArchimateElement)eObject);
             }
             else if(eObject instanceof IArchimateDiagramModel) {
-                fViews.add((IArchimateDiagramModel)eObject);
+                views.add((IArchimateDiagramModel)eObject);
             }
         }
         
-        // Analyse
-        List<Object> result = new ArrayList<Object>();
+        fElements = Collections.unmodifiableList(elements);
+        fRelations = Collections.unmodifiableList(relations);
+        fViews = Collections.unmodifiableList(views);
         
+        // Analyse
         fErrorList = new ArrayList<ErrorType>();
         fWarningList = new ArrayList<WarningType>();
         fAdviceList = new ArrayList<AdviceType>();
         
+        fTimings.clear();
+        
         // ------------------ Checkers -----------------------------
         
+        List<IChecker> checkers = new ArrayList<IChecker>();
+        
         IPreferenceStore store = ArchiHammerPlugin.INSTANCE.getPreferenceStore();
         
         // Invalid Relations
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_INVALID_RELATIONS)) {
-            collectIssues(new InvalidRelationsChecker(getArchimateRelationships()));
+            checkers.add(new InvalidRelationsChecker(getArchimateRelationships()));
         }
         
         // Unused Elements
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_UNUSED_ELEMENTS)) {
-            collectIssues(new UnusedElementsChecker(getArchimateElements()));
+            checkers.add(new UnusedElementsChecker(getArchimateElements()));
         }
         
         // Unused Relations
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_UNUSED_RELATIONS)) {
-            collectIssues(new UnusedRelationsChecker(getArchimateRelationships()));
+            checkers.add(new UnusedRelationsChecker(getArchimateRelationships()));
         }
         
         // Empty Views
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_EMPTY_VIEWS)) {
-            collectIssues(new EmptyViewsChecker(getArchimateViews()));
+            checkers.add(new EmptyViewsChecker(getArchimateViews()));
         }
         
         // Components in wrong Viewpoints
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_VIEWPOINT)) {
-            collectIssues(new ViewpointChecker(getArchimateViews()));
+            checkers.add(new ViewpointChecker(getArchimateViews()));
         }
         
         // Nested elements
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_NESTING)) {
-            collectIssues(new NestedElementsChecker(getArchimateViews()));
+            checkers.add(new NestedElementsChecker(getArchimateViews()));
         }
 
         // Possible Duplicates
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS)) {
-            collectIssues(new DuplicateElementChecker(getArchimateElements()));
+            checkers.add(new DuplicateElementChecker(getArchimateElements(),
+                    store.getBoolean(IPreferenceConstants.PREFS_HAMMER_DUPLICATE_ELEMENTS_NORMALISE_NAMES)));
         }
         
         // Junctions
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_JUNCTIONS)) {
-            collectIssues(new JunctionsChecker(getArchimateElements()));
+            checkers.add(new JunctionsChecker(getArchimateElements()));
         }
+        
+        runCheckers(checkers, monitor);
 
         // ----------------------------------------------------------
 
-        if(!fErrorList.isEmpty()) {
-            IIssueCategory category = new ErrorsCategory(fErrorList);
+        return createCategories(fErrorList, fWarningList, fAdviceList);
+    }
+    
+    /**
+     * The source and target relationship lists of a concept are created when they are first asked for,
+     * so create them here rather than in the checkers' threads
+     */
+    private void createRelationshipLists(IArchimateConcept concept) {
+        concept.getSourceRelationships();
+        concept.getTargetRelationships();
+    }
+    
+    /**
+     * @return The list of Issue Categories for the given issues, or an OKType if there are no issues
+     */
+    static List<Object> createCategories(List<ErrorType> errorList, List<WarningType> warningList, List<AdviceType> adviceList) {
+        List<Object> result = new ArrayList<Object>();
+        
+        if(!errorList.isEmpty()) {
+            IIssueCategory category = new ErrorsCategory(errorList);
             result.add(category);
         }
 
-        if(!fWarningList.isEmpty()) {
-            IIssueCategory category = new WarningsCategory(fWarningList);
+        if(!warningList.isEmpty()) {
+            IIssueCategory category = new WarningsCategory(warningList);
             result.add(category);
         }
         
-        if(!fAdviceList.isEmpty()) {
-            IIssueCategory category = new AdviceCategory(fAdviceList);
+        if(!adviceList.isEmpty()) {
+            IIssueCategory category = new AdviceCategory(adviceList);
             result.add(category);
         }
 
@@ -162,8 +222,87 @@ public class Validator {
         return result;
     }
     
-    void collectIssues(IChecker checker) {
-        for(IIssue issue : checker.getIssues()) {
+    /**
+     * Run the checkers in parallel and collect their issues in the order of the checkers.
+     * The monitor is checked for cancellation while waiting for each checker.
+     */
+    private void runCheckers(List<IChecker> checkers, IProgressMonitor monitor) {
+        if(checkers.isEmpty()) {
+            return;
+        }
+        
+        SubMonitor subMonitor = SubMonitor.convert(monitor, checkers.size());
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(checkers.size(), Runtime.getRuntime().availableProcessors()));
+        
+        try {
+            List<Future<TimedIssues>> futures = new ArrayList<Future<TimedIssues>>();
+            
+            for(IChecker checker : checkers) {
+                futures.add(executor.submit(() -> {
+                    long start = System.currentTimeMillis();
+                    List<IIssue> issues = checker.getIssues();
+                    return new TimedIssues(issues, System.currentTimeMillis() - start);
+                }));
+            }
+            
+            for(int i = 0; i < futures.size(); i++) {
+                TimedIssues result = waitFor(futures.get(i), subMonitor);
+                collectIssues(result.issues);
+                fTimings.put(checkers.get(i).getClass().getSimpleName(), result.time);
+                subMonitor.worked(1);
+            }
+        }
+        finally {
+            // If cancelled or a checker failed the other checkers are not waited for
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Wait for a checker to complete, checking the monitor for cancellation
+     */
+    private TimedIssues waitFor(Future<TimedIssues> future, IProgressMonitor monitor) {
+        while(true) {
+            if(monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+            
+            try {
+                return future.get(100, TimeUnit.MILLISECONDS);
+            }
+            catch(TimeoutException ex) {
+                // Check cancellation again
+            }
+            catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            }
+            catch(ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if(cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                }
+                if(cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+    
+    private static class TimedIssues {
+        List<IIssue> issues;
+        long time;
+        
+        TimedIssues(List<IIssue> issues, long time) {
+            this.issues = issues;
+            this.time = time;
+        }
+    }
+    
+    void collectIssues(List<IIssue> issues) {
+        for(IIssue issue : issues) {
             if(issue instanceof ErrorType) {
                 fErrorList.add((ErrorType)issue);
             }
@@ -180,15 +319,31 @@ public class Validator {
         return fModel;
     }
     
+    /**
+     * @return The elements collected by the last validation. This list is shared and cannot be modified.
+     */
     public List<IArchimateElement> getArchimateElements() {
-        return new ArrayList<IArchimateElement>(fElements); // copy
+        return fElements;
     }
     
+    /**
+     * @return The relations collected by the last validation. This list is shared and cannot be modified.
+     */
     public List<IArchimateRelationship> getArchimateRelationships() {
-        return new ArrayList<IArchimateRelationship>(fRelations); // copy
+        return fRelations;
     }
     
+    /**
+     * @return The views collected by the last validation. This list is shared and cannot be modified.
+     */
     public List<IArchimateDiagramModel> getArchimateViews() {
-        return new ArrayList<IArchimateDiagramModel>(fViews); // copy
+        return fViews;
+    }
+    
+    /**
+     * @return The time in milliseconds taken by each checker in the last validation, keyed by checker class name
+     */
+    public Map<String, Long> getTimings() {
+        return Collections.unmodifiableMap(fTimings);
     }
 }
@@ -6,9 +6,12 @@
 package com.archimatetool.hammer.validation.checkers;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.eclipse.osgi.util.NLS;
 
@@ -22,6 +25,9 @@ import com.archimatetool.model.IArchimateElement;
 /**
  * Checks for possible duplicates of elements of the same type
  * 
+ * Elements are put into buckets keyed by type and name in one pass so that this scales to large models.
+ * If names are normalised then names that differ only by case or white space are also considered duplicates.
+ * 
  * @author Phillip Beauvoir
  */
 public class DuplicateElementChecker implements IChecker {
@@ -30,10 +36,24 @@ public class DuplicateElementChecker implements IChecker {
     final String DESCRIPTION = Messages.DuplicateElementChecker_1;
     final String EXPLANATION = Messages.DuplicateElementChecker_2;
     
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+"); //$NON-NLS-1$
+    
     private List<IArchimateElement> fArchimateElements;
     
+    private boolean fNormaliseNames;
+    
     public DuplicateElementChecker(List<IArchimateElement> archimateElements) {
+        this(archimateElements, false);
+    }
+    
+    /**
+     * @param archimateElements The elements to check
+     * @param normaliseNames If true names are compared ignoring case, leading and trailing white space
+     *                       and with runs of white space treated as a single space
+     */
+    public DuplicateElementChecker(List<IArchimateElement> archimateElements, boolean normaliseNames) {
         fArchimateElements = archimateElements;
+        fNormaliseNames = normaliseNames;
     }
 
     public List<IIssue> getIssues() {
@@ -43,16 +63,20 @@ public class DuplicateElementChecker implements IChecker {
     List<IIssue> findDuplicateNamesElements() {
         List<IIssue> issues = new ArrayList<IIssue>();
         
-        Set<IArchimateElement> dupes = new LinkedHashSet<IArchimateElement>();
+        // Bucket the elements by type and name. The buckets are kept in the order of the first element of each bucket.
+        Map<List<Object>, List<IArchimateElement>> buckets = new LinkedHashMap<List<Object>, List<IArchimateElement>>();
+        
+        for(IArchimateElement element : fArchimateElements) {
+            buckets.computeIfAbsent(getKey(element), k -> new ArrayList<IArchimateElement>()).add(element);
+        }
+        
+        // Each bucket with more than one element is a set of duplicates.
+        // Report them in order of the first element of each bucket and then in the order of the elements in the bucket.
+        List<IArchimateElement> dupes = new ArrayList<IArchimateElement>();
         
-        for(int i = 0; i < fArchimateElements.size(); i++) {
-            for(int j = i + 1; j < fArchimateElements.size(); j++) {
-                IArchimateElement element1 = fArchimateElements.get(i);
-                IArchimateElement element2 = fArchimateElements.get(j);
-                if(isDuplicate(element1, element2)) {
-                    dupes.add(element1);
-                    dupes.add(element2);
-                }
+        for(List<IArchimateElement> bucket : buckets.values()) {
+            if(bucket.size() > 1) {
+                dupes.addAll(bucket);
             }
         }
         
@@ -67,10 +91,20 @@ public class DuplicateElementChecker implements IChecker {
         return issues;
     }
     
-    private boolean isDuplicate(IArchimateElement element1, IArchimateElement element2) {
-        String name1 = StringUtils.safeString(element1.getName());
-        String name2 = StringUtils.safeString(element2.getName());
+    /**
+     * @return The key of the bucket for an element. Elements with equal keys are duplicates.
+     */
+    private List<Object> getKey(IArchimateElement element) {
+        return Arrays.asList(element.eClass(), getName(element));
+    }
+    
+    String getName(IArchimateElement element) {
+        String name = StringUtils.safeString(element.getName());
+        
+        if(fNormaliseNames) {
+            name = WHITESPACE_PATTERN.matcher(name.trim()).replaceAll(" ").toLowerCase(Locale.ROOT); //$NON-NLS-1$
+        }
         
-        return name1.equals(name2) && (element1.eClass() == element2.eClass());
+        return name;
     }
 }
@@ -7,9 +7,15 @@ package com.archimatetool.hammer.view;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map.Entry;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.help.HelpSystem;
 import org.eclipse.help.IContext;
 import org.eclipse.help.IContextProvider;
@@ -20,7 +26,9 @@ import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.layout.TreeColumnLayout;
+import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.preference.PreferenceDialog;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.viewers.DoubleClickEvent;
@@ -30,6 +38,7 @@ import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.layout.GridData;
@@ -58,6 +67,7 @@ import com.archimatetool.editor.ui.services.ViewManager;
 import com.archimatetool.editor.utils.PlatformUtils;
 import com.archimatetool.editor.views.tree.ITreeModelView;
 import com.archimatetool.hammer.IHammerImages;
+import com.archimatetool.hammer.validation.IncrementalValidator;
 import com.archimatetool.hammer.validation.Validator;
 import com.archimatetool.hammer.validation.issues.IIssue;
 import com.archimatetool.help.hints.IHintsView;
@@ -81,9 +91,13 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
     private IAction fActionExplain;
     private IAction fActionSelectObjects;
     private IAction fActionShowPreferences;
+    private IAction fActionLiveValidate;
     
     private IArchimateModel fModel;
     
+    // If not null we are in live mode and the issues are updated as this validator's model changes
+    private IncrementalValidator fLiveValidator;
+    
     public ValidatorView() {
     }
 
@@ -193,6 +207,23 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
             }
         };
         
+        fActionLiveValidate = new Action(Messages.ValidatorView_8, IAction.AS_CHECK_BOX) {
+            @Override
+            public void run() {
+                if(isChecked()) {
+                    validateModel();
+                }
+                else {
+                    fLiveValidator = null;
+                }
+            }
+            
+            @Override
+            public String getToolTipText() {
+                return getText();
+            }
+        };
+        
         fActionShowPreferences = new Action(Messages.ValidatorView_4) {
             @Override
             public void run() {
@@ -226,6 +257,8 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
         manager.add(fActionExplain);
         
         final IMenuManager menuManager = bars.getMenuManager();
+        menuManager.add(fActionLiveValidate);
+        menuManager.add(new Separator());
         menuManager.add(fActionShowPreferences); 
     }
     
@@ -339,21 +372,106 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
     }
     
     public void validateModel() {
+        updateStatusBar(null, 0);
+        
+        if(fModel == null) {
+            fLiveValidator = null;
+            fViewer.setInput(null);
+            return;
+        }
+        
+        // Live mode
+        if(fActionLiveValidate.isChecked()) {
+            validateModelLive();
+            return;
+        }
+        
+        Validator validator = new Validator(fModel);
+        List<Object> result = new ArrayList<Object>();
+        
+        // Validate in a background thread with a progress monitor so that it can be cancelled
+        ProgressMonitorDialog dialog = new ProgressMonitorDialog(getSite().getShell());
+        
+        long start = System.currentTimeMillis();
+        
+        try {
+            dialog.run(true, true, new IRunnableWithProgress() {
+                @Override
+                public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+                    SubMonitor subMonitor = SubMonitor.convert(monitor, Messages.ValidatorView_5, 1);
+                    try {
+                        result.addAll(validator.validate(subMonitor.split(1)));
+                    }
+                    catch(OperationCanceledException ex) {
+                        throw new InterruptedException();
+                    }
+                    finally {
+                        monitor.done();
+                    }
+                }
+            });
+        }
+        catch(InterruptedException ex) {
+            // Cancelled so keep the previous results
+            return;
+        }
+        catch(InvocationTargetException ex) {
+            ex.printStackTrace();
+            return;
+        }
+        
+        long time = System.currentTimeMillis() - start;
+        
+        fViewer.setInput(result);
+        fViewer.expandAll();
+        
+        updateStatusBar(validator, time);
+    }
+    
+    /**
+     * Validate the whole model once and from then on only update the issues of objects that change
+     */
+    private void validateModelLive() {
         BusyIndicator.showWhile(null, new Runnable() {
             public void run() {
-                updateStatusBar();
-                Validator validator = new Validator(fModel);
-                List<Object> result = validator.validate();
-                fViewer.setInput(result);
+                fLiveValidator = new IncrementalValidator(fModel);
+                fViewer.setInput(fLiveValidator.validate());
                 fViewer.expandAll();
             }
         });
     }
     
-    private void updateStatusBar() {
+    /**
+     * Update the issues of objects that have changed since the last live validation.
+     * Only the changed issues are updated in the tree so that its selection, scroll position and expanded state are kept.
+     */
+    private void updateLiveValidation() {
+        if(fLiveValidator != null && fLiveValidator.isDirty()) {
+            fViewer.updateInput(fLiveValidator.update());
+        }
+    }
+    
+    /**
+     * Show the model in the status bar and, if it has been validated, the time taken to validate and by each checker
+     */
+    private void updateStatusBar(Validator validator, long time) {
         if(fModel != null) {
-            getViewSite().getActionBars().getStatusLineManager().setMessage(ArchiLabelProvider.INSTANCE.getImage(fModel),
-                    ArchiLabelProvider.INSTANCE.getLabel(fModel));
+            String message = ArchiLabelProvider.INSTANCE.getLabel(fModel);
+            
+            if(validator != null && !validator.getTimings().isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                
+                for(Entry<String, Long> entry : validator.getTimings().entrySet()) {
+                    if(sb.length() > 0) {
+                        sb.append(", "); //$NON-NLS-1$
+                    }
+                    sb.append(NLS.bind(Messages.ValidatorView_7, entry.getKey(), entry.getValue()));
+                }
+                
+                message = NLS.bind(Messages.ValidatorView_6, new Object[] { message, time, sb.toString() });
+            }
+            
+            getViewSite().getActionBars().getStatusLineManager().setMessage(ArchiLabelProvider.INSTANCE.getImage(fModel), message);
         }
         else {
             getViewSite().getActionBars().getStatusLineManager().setMessage(null, ""); //$NON-NLS-1$
@@ -413,12 +531,29 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
         
         // Model Closed
         if(propertyName == IEditorModelManager.PROPERTY_MODEL_REMOVED) {
+            if(fLiveValidator != null && fLiveValidator.getModel() == newValue) {
+                fLiveValidator = null;
+            }
             if(fModel == newValue) {
                 fModel = null;
                 fViewer.setInput(null);
                 fActionValidate.setEnabled(false);
             }
         }
+        
+        // Live mode - track changed objects
+        else if(propertyName == IEditorModelManager.PROPERTY_ECORE_EVENT) {
+            if(fLiveValidator != null) {
+                fLiveValidator.notifyChanged((Notification)newValue);
+            }
+        }
+        
+        // Live mode - a command has been executed, undone or redone so update the issues
+        else if(propertyName == IEditorModelManager.COMMAND_STACK_CHANGED) {
+            if(fLiveValidator != null && evt.getSource() == fLiveValidator.getModel()) {
+                updateLiveValidation();
+            }
+        }
     }
 
     @Override
@@ -6,7 +6,11 @@
 package com.archimatetool.hammer.view;
 
 import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jface.layout.TreeColumnLayout;
 import org.eclipse.jface.viewers.ColumnWeightData;
@@ -88,6 +92,95 @@ public class ValidatorViewer extends TreeViewer {
         }
     }
     
+    /**
+     * Show a new list of Issue Categories and Issues by only removing and adding the issues that have changed
+     * so that the selection, scroll position and expanded state of the tree are kept.
+     * Issues that have not changed must be the same instances as in the current input.
+     * @param result The new list of Issue Categories and Issues
+     */
+    @SuppressWarnings("unchecked")
+    public void updateInput(List<Object> result) {
+        if(!(getInput() instanceof List<?>) || result == null) {
+            setInput(result);
+            expandAll();
+            return;
+        }
+        
+        List<Object> input = (List<Object>)getInput();
+        
+        getTree().setRedraw(false);
+        
+        try {
+            // Remove the categories that have gone
+            for(Object object : new ArrayList<Object>(input)) {
+                if(findSameClass(result, object) == null) {
+                    input.remove(object);
+                    remove(object);
+                }
+            }
+            
+            // Add new categories and update existing categories
+            for(int i = 0; i < result.size(); i++) {
+                Object newObject = result.get(i);
+                Object object = findSameClass(input, newObject);
+                
+                if(object == null) {
+                    input.add(i, newObject);
+                    insert(input, newObject, i);
+                    expandToLevel(newObject, ALL_LEVELS);
+                }
+                else if(object instanceof IIssueCategory) {
+                    updateCategory((IIssueCategory)object, ((IIssueCategory)newObject).getIssues());
+                }
+            }
+        }
+        finally {
+            getTree().setRedraw(true);
+        }
+    }
+    
+    /**
+     * Set the issues of a category, removing and inserting only the issues that have changed
+     */
+    private void updateCategory(IIssueCategory category, List<? extends IIssue> newIssues) {
+        Set<IIssue> oldSet = Collections.newSetFromMap(new IdentityHashMap<IIssue, Boolean>());
+        oldSet.addAll(category.getIssues());
+        
+        Set<IIssue> newSet = Collections.newSetFromMap(new IdentityHashMap<IIssue, Boolean>());
+        newSet.addAll(newIssues);
+        
+        List<IIssue> removed = new ArrayList<IIssue>();
+        for(IIssue issue : category.getIssues()) {
+            if(!newSet.contains(issue)) {
+                removed.add(issue);
+            }
+        }
+        
+        category.setIssues(newIssues);
+        
+        remove(removed.toArray());
+        
+        // Issues that are still there keep their order so inserting in order puts each new issue in its place
+        for(int i = 0; i < newIssues.size(); i++) {
+            IIssue issue = newIssues.get(i);
+            if(!oldSet.contains(issue)) {
+                insert(category, issue, i);
+            }
+        }
+        
+        // Update the count of issues
+        update(category, null);
+    }
+    
+    private Object findSameClass(List<?> list, Object object) {
+        for(Object o : list) {
+            if(o.getClass() == object.getClass()) {
+                return o;
+            }
+        }
+        return null;
+    }
+    
     private void setColumnSorting(TreeColumn column, int order) {
         getTree().setSortColumn(column);
         getTree().setSortDirection(order == ASCENDING ? SWT.UP : SWT.DOWN);
@@ -20,7 +20,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
 
-import com.archimatetool.editor.diagram.util.DiagramUtils;
+import com.archimatetool.editor.diagram.util.DiagramImageRenderer;
 import com.archimatetool.editor.ui.ImageFactory;
 import com.archimatetool.editor.utils.FileUtils;
 import com.archimatetool.jasperreports.data.ArchimateModelDataSource;
@@ -206,19 +206,27 @@ public class JasperReportsExporter {
      * Write the diagrams to temp files
      */
     void writeDiagrams(File tmpFolder) {
-        for(IDiagramModel dm : fModel.getDiagramModels()) {
-            Image image = DiagramUtils.createImage(dm, 1, 10);
-            String diagramName = dm.getId() + ".png"; //$NON-NLS-1$
-            try {
-                ImageLoader loader = new ImageLoader();
-                loader.data = new ImageData[] { image.getImageData(ImageFactory.getDeviceZoom()) };
-                File file = new File(tmpFolder, diagramName);
-                loader.save(file.getAbsolutePath(), SWT.IMAGE_PNG);
-            }
-            finally {
-                image.dispose();
+        // Re-use one renderer for all of the diagrams
+        DiagramImageRenderer renderer = new DiagramImageRenderer();
+        
+        try {
+            for(IDiagramModel dm : fModel.getDiagramModels()) {
+                Image image = renderer.createImage(dm, 1, 10);
+                String diagramName = dm.getId() + ".png"; //$NON-NLS-1$
+                try {
+                    ImageLoader loader = new ImageLoader();
+                    loader.data = new ImageData[] { image.getImageData(ImageFactory.getDeviceZoom()) };
+                    File file = new File(tmpFolder, diagramName);
+                    loader.save(file.getAbsolutePath(), SWT.IMAGE_PNG);
+                }
+                finally {
+                    image.dispose();
+                }
             }
         }
+        finally {
+            renderer.dispose();
+        }
     }
     
     JasperPrint createJasperPrint(IProgressMonitor monitor, File tmpFolder) throws JRException, IOException {
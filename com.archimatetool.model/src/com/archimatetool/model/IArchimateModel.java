@@ -183,4 +183,13 @@ public interface IArchimateModel extends IFolderContainer, IArchimateModelObject
      * @return The ID adapter for registering new child object IDs
      */
     IDAdapter getIDAdapter();
+    
+    /**
+     * Find an object contained in this model by its ID.
+     * This uses an index maintained by the IDAdapter and does not iterate through the model.
+     * 
+     * @param id The ID of the object
+     * @return The object in this model with the given ID (including this model), or null if not found
+     */
+    EObject getObjectByID(String id);
 } // IArchimateModel
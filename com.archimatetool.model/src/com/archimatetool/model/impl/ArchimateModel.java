@@ -216,6 +216,18 @@ public class ArchimateModel extends EObjectImpl implements IArchimateModel {
         return fIDAdapter;
     }
     
+    public EObject getObjectByID(String id) {
+        if(id == null) {
+            return null;
+        }
+        
+        if(id.equals(getId())) {
+            return this;
+        }
+        
+        return fIDAdapter.getObject(id);
+    }
+    
     /**
      * <!-- begin-user-doc -->
      * <!-- end-user-doc -->
@@ -11,6 +11,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.InternalEObject;
 
 import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IConnectable;
@@ -130,9 +131,18 @@ public class DiagramModelArchimateConnection extends DiagramModelConnection impl
             Logger.logError("setArchimateRelationship() setting null", new Throwable()); //$NON-NLS-1$
         }
         
+        IArchimateRelationship oldRelationship = fRelationship;
         fRelationship = relationship;
         
         fRelationship.getReferencingDiagramConnections().add(this);
+        
+        // Update the model's index if this is already in the model
+        if(oldRelationship != relationship) {
+            IArchimateModel model = getArchimateModel();
+            if(model != null) {
+                model.getIDAdapter().getDiagramComponentIndex().conceptChanged(this, oldRelationship);
+            }
+        }
     }
 
     /**
@@ -19,6 +19,7 @@ import org.eclipse.emf.ecore.util.InternalEList;
 
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IDiagramModelArchimateComponent;
 import com.archimatetool.model.IDiagramModelArchimateObject;
@@ -189,9 +190,18 @@ public class DiagramModelArchimateObject extends DiagramModelObject implements I
             Logger.logError("setArchimateElement() setting null", new Throwable()); //$NON-NLS-1$
         }
         
+        IArchimateElement oldElement = fArchimateElement;
         fArchimateElement = archimateElement;
         
         fArchimateElement.getReferencingDiagramObjects().add(this);
+        
+        // Update the model's index if this is already in the model
+        if(oldElement != archimateElement) {
+            IArchimateModel model = getArchimateModel();
+            if(model != null) {
+                model.getIDAdapter().getDiagramComponentIndex().conceptChanged(this, oldElement);
+            }
+        }
     }
     
     @Override
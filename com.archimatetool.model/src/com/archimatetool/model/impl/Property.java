@@ -12,6 +12,7 @@ import org.eclipse.emf.ecore.impl.EObjectImpl;
 
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IProperty;
+import com.archimatetool.model.util.StringPool;
 
 
 /**
@@ -185,12 +186,13 @@ public class Property extends EObjectImpl implements IProperty {
 
     /**
      * <!-- begin-user-doc -->
+     * The key is pooled as most models use the same few keys in many Properties
      * <!-- end-user-doc -->
-     * @generated
+     * @generated NOT
      */
     public void setKey(String newKey) {
         String oldKey = key;
-        key = newKey;
+        key = StringPool.intern(newKey);
         if (eNotificationRequired())
             eNotify(new ENotificationImpl(this, Notification.SET, IArchimatePackage.PROPERTY__KEY, oldKey, key));
     }
@@ -206,12 +208,13 @@ public class Property extends EObjectImpl implements IProperty {
 
     /**
      * <!-- begin-user-doc -->
+     * Short values are pooled as they are often repeated, such as "Draft" or "High"
      * <!-- end-user-doc -->
-     * @generated
+     * @generated NOT
      */
     public void setValue(String newValue) {
         String oldValue = value;
-        value = newValue;
+        value = StringPool.internValue(newValue);
         if (eNotificationRequired())
             eNotify(new ENotificationImpl(this, Notification.SET, IArchimatePackage.PROPERTY__VALUE, oldValue, value));
     }
@@ -8,7 +8,9 @@ package com.archimatetool.model.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
@@ -17,7 +19,7 @@ import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
-import com.archimatetool.model.IIdentifier;
+import com.archimatetool.model.IProperty;
 
 
 
@@ -148,21 +150,31 @@ public class ArchimateModelUtils {
             return null;
         }
         
-        if(id.equals(model.getId())) {
-            return model;
-        }
+        return model.getObjectByID(id);
+    }
+
+    
+    /**
+     * Get all unique Property keys in a model in one pass of the model, in model order.
+     * Keys that are null or only whitespace are not included.
+     * @param model The Archimate Model
+     * @return The set of keys
+     */
+    public static Set<String> getAllPropertyKeys(IArchimateModel model) {
+        Set<String> keys = new LinkedHashSet<String>();
         
-        // This is an expensive iteration!
         for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject element = iter.next();
-            if(element instanceof IIdentifier && id.equals(((IIdentifier)element).getId())) {
-                return element;
+            EObject eObject = iter.next();
+            if(eObject instanceof IProperty) {
+                String key = ((IProperty)eObject).getKey();
+                if(key != null && !key.trim().isEmpty()) {
+                    keys.add(key);
+                }
             }
         }
-
-        return null;
+        
+        return keys;
     }
-
     
     /**
      * @return A list of all EClass types in the Strategy layer in preferred order
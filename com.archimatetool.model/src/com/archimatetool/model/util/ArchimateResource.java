@@ -5,9 +5,23 @@
  */
 package com.archimatetool.model.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.xmi.impl.XMLResourceImpl;
 
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IMetadata;
+import com.archimatetool.model.IProperties;
+
 /**
  * <!-- begin-user-doc -->
  * The <b>Resource </b> associated with the package.
@@ -16,6 +30,13 @@ import org.eclipse.emf.ecore.xmi.impl.XMLResourceImpl;
  * @generated
  */
 public class ArchimateResource extends XMLResourceImpl {
+    /**
+     * Load option. If Boolean.TRUE the input stream is read as an EMF binary resource rather than as XML.
+     * This is used to load a binary snapshot of a model.
+     * @generated NOT
+     */
+    public static final String OPTION_BINARY = "com.archimatetool.model.binary"; //$NON-NLS-1$
+    
     /**
      * Creates an instance of the resource.
      * <!-- begin-user-doc -->
@@ -27,4 +48,69 @@ public class ArchimateResource extends XMLResourceImpl {
         super(uri);
     }
 
+    /**
+     * <!-- begin-user-doc -->
+     * Load from XML, or from an EMF binary resource if the OPTION_BINARY option is set.
+     * Once loaded register all of the model's IDs
+     * rather than for each notification when a child object is added during loading,
+     * and compact the lists of Properties, in one pass
+     * <!-- end-user-doc -->
+     * @generated NOT
+     */
+    @Override
+    public void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+        try {
+            if(options != null && Boolean.TRUE.equals(options.get(OPTION_BINARY))) {
+                new BinaryResourceImpl.EObjectInputStream(inputStream, null).loadResource(this);
+            }
+            else {
+                super.doLoad(inputStream, options);
+            }
+        }
+        finally {
+            for(EObject eObject : getContents()) {
+                IDAdapter idAdapter = eObject instanceof IArchimateModel ? ((IArchimateModel)eObject).getIDAdapter() : null;
+                
+                loaded(eObject, idAdapter);
+                
+                for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+                    loaded(iter.next(), idAdapter);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Register the ID of a loaded object, if there is an IDAdapter, and compact its lists of Properties
+     * @generated NOT
+     */
+    private void loaded(EObject eObject, IDAdapter idAdapter) {
+        if(idAdapter != null) {
+            idAdapter.registerObject(eObject);
+        }
+        
+        compactPropertiesList(eObject);
+    }
+    
+    /**
+     * Trim the lists of Properties in eObject to their size.
+     * A list grows by half its size plus four, so without this most objects would have room for more Properties than they have.
+     * Lists are only trimmed if set so that empty lists are not created.
+     * @generated NOT
+     */
+    private static void compactPropertiesList(EObject eObject) {
+        if(eObject instanceof IProperties && eObject.eIsSet(IArchimatePackage.Literals.PROPERTIES__PROPERTIES)) {
+            compactList(((IProperties)eObject).getProperties());
+        }
+        else if(eObject instanceof IMetadata && eObject.eIsSet(IArchimatePackage.Literals.METADATA__ENTRIES)) {
+            compactList(((IMetadata)eObject).getEntries());
+        }
+    }
+    
+    private static void compactList(List<?> list) {
+        if(list instanceof BasicEList) {
+            ((BasicEList<?>)list).shrink();
+        }
+    }
+
 } //ArchimateResource
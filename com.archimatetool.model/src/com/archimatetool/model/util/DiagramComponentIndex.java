@@ -0,0 +1,99 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelArchimateComponent;
+
+
+/**
+ * Index of the diagram components in a model's Views that reference each ArchiMate concept.
+ *
+ * The index is maintained by the model's IDAdapter as diagram components are added to and removed from the model,
+ * including when their View or a parent diagram object is removed, so it only contains components that are currently in a View in the model.
+ * This means that "is this concept used in a View" is a single look-up rather than a search of the model's Views.
+ *
+ * @author Phillip Beauvoir
+ */
+public class DiagramComponentIndex {
+
+    private Map<IArchimateConcept, Set<IDiagramModelArchimateComponent>> fIndex = new HashMap<>();
+
+    DiagramComponentIndex() {
+    }
+
+    /**
+     * @param concept The ArchiMate concept
+     * @return true if the concept is referenced by a diagram component in any of the model's Views
+     */
+    public boolean isReferenced(IArchimateConcept concept) {
+        return fIndex.containsKey(concept);
+    }
+
+    /**
+     * @param concept The ArchiMate concept
+     * @return The diagram components in the model's Views that reference the concept, in the order they were added.
+     *         An unmodifiable view of the index that may be empty, but never null.
+     */
+    public Collection<IDiagramModelArchimateComponent> getComponents(IArchimateConcept concept) {
+        Set<IDiagramModelArchimateComponent> components = fIndex.get(concept);
+        return components == null ? Collections.emptySet() : Collections.unmodifiableSet(components);
+    }
+
+    /**
+     * @param concept The ArchiMate concept
+     * @return A new set of the Views that the concept is referenced in. May be empty, but never null.
+     */
+    public Set<IDiagramModel> getDiagramModels(IArchimateConcept concept) {
+        Set<IDiagramModel> diagramModels = new LinkedHashSet<>();
+
+        for(IDiagramModelArchimateComponent component : getComponents(concept)) {
+            diagramModels.add(component.getDiagramModel());
+        }
+
+        return diagramModels;
+    }
+
+    /**
+     * Update the index when a diagram component that is in the model now references a different concept
+     * @param component The diagram component
+     * @param oldConcept The concept it referenced before, may be null
+     */
+    public void conceptChanged(IDiagramModelArchimateComponent component, IArchimateConcept oldConcept) {
+        remove(component, oldConcept);
+        add(component);
+    }
+
+    void add(IDiagramModelArchimateComponent component) {
+        IArchimateConcept concept = component.getArchimateConcept();
+        if(concept != null) {
+            fIndex.computeIfAbsent(concept, c -> new LinkedHashSet<>()).add(component);
+        }
+    }
+
+    void remove(IDiagramModelArchimateComponent component) {
+        remove(component, component.getArchimateConcept());
+    }
+
+    private void remove(IDiagramModelArchimateComponent component, IArchimateConcept concept) {
+        if(concept == null) {
+            return;
+        }
+
+        Set<IDiagramModelArchimateComponent> components = fIndex.get(concept);
+        if(components != null && components.remove(component) && components.isEmpty()) {
+            fIndex.remove(concept);
+        }
+    }
+}
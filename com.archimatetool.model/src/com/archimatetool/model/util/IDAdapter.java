@@ -5,13 +5,22 @@
  */
 package com.archimatetool.model.util;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EContentAdapter;
 
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IDiagramModelArchimateComponent;
 import com.archimatetool.model.IIdentifier;
 
 
@@ -27,6 +36,14 @@ import com.archimatetool.model.IIdentifier;
  * 
  * IDs are not removed from the cache if an element is deleted in case the user performs an Undo operation.
  * 
+ * When a model is being loaded by an ArchimateResource the notifications are not processed one by one.
+ * Instead the ArchimateResource calls {@link #registerIDs(EObject)} once the model has been de-serialised.
+ * 
+ * This adapter also maintains an index of ID to object for all objects currently contained in the model
+ * so that look-ups by ID do not have to iterate through the whole model.
+ * Unlike the cache of used IDs, this index is updated when objects are removed (and re-added on Undo).
+ * In the same way it maintains a {@link DiagramComponentIndex} of the diagram components that reference each ArchiMate concept.
+ * 
  * @author Phillip Beauvoir
  */
 public class IDAdapter extends EContentAdapter {
@@ -34,12 +51,27 @@ public class IDAdapter extends EContentAdapter {
     /**
      * Keep track of unique IDs. An element's ID has to be unique.
      */
-    private List<String> fUsedIDs = new ArrayList<String>();
+    private Set<String> fUsedIDs = new HashSet<String>();
+
+    /**
+     * Index of ID to object for objects currently contained in the model
+     */
+    private Map<String, EObject> fObjectIndex = new HashMap<String, EObject>();
+
+    /**
+     * Index of concept to the diagram components currently contained in the model that reference it
+     */
+    private DiagramComponentIndex fDiagramComponentIndex = new DiagramComponentIndex();
 
     @Override
     public void notifyChanged(Notification msg) {
         super.notifyChanged(msg);
 
+        // IDs will be registered in bulk when loading has finished
+        if(isLoading(msg)) {
+            return;
+        }
+
         if(msg.getEventType() == Notification.ADD) {
             if(msg.getNewValue() instanceof IIdentifier) {
                 IIdentifier element = (IIdentifier)msg.getNewValue();
@@ -54,14 +86,57 @@ public class IDAdapter extends EContentAdapter {
                 }
             }
         }
+
+        updateObjectIndex(msg);
     }
 
     public void registerID(String id) {
-        if(id != null && !fUsedIDs.contains(id)) {
-            fUsedIDs.add(id); 
+        if(id != null) {
+            fUsedIDs.add(id);
         }
     }
     
+    /**
+     * Register the IDs of, and index, the given object and all of its child objects in one pass.
+     * Any object that does not have an ID is allocated a new one.
+     * This is called once after a model has been de-serialised.
+     * 
+     * @param root The root object, usually the Archimate model
+     */
+    public void registerIDs(EObject root) {
+        if(root == null) {
+            return;
+        }
+
+        registerObject(root);
+
+        for(Iterator<EObject> iter = root.eAllContents(); iter.hasNext();) {
+            registerObject(iter.next());
+        }
+    }
+
+    /**
+     * Register the ID of, and index, one object. Any object that does not have an ID is allocated a new one.
+     */
+    void registerObject(EObject eObject) {
+        if(eObject instanceof IIdentifier) {
+            IIdentifier element = (IIdentifier)eObject;
+            String id = element.getId();
+            if(id == null) {
+                id = getNewID();
+                element.setId(id);
+            }
+            else {
+                registerID(id);
+            }
+            fObjectIndex.put(id, eObject);
+        }
+        
+        if(eObject instanceof IDiagramModelArchimateComponent) {
+            fDiagramComponentIndex.add((IDiagramModelArchimateComponent)eObject);
+        }
+    }
+
     /**
      * @return A new unique ID to be used for objects in the model
      */
@@ -70,10 +145,143 @@ public class IDAdapter extends EContentAdapter {
         do {
             id = UUID.randomUUID().toString();
         }
-        while(fUsedIDs.contains(id));
-        
-        registerID(id); 
+        while(!fUsedIDs.add(id));
         
         return id;
     }
+
+    /**
+     * @param id The ID of the object
+     * @return The object currently contained in the model with the given ID, or null if not found
+     */
+    public EObject getObject(String id) {
+        return id == null ? null : fObjectIndex.get(id);
+    }
+
+    /**
+     * @return The index of ArchiMate concepts to the diagram components in the model that reference them
+     */
+    public DiagramComponentIndex getDiagramComponentIndex() {
+        return fDiagramComponentIndex;
+    }
+
+    /**
+     * @return true if the notifier belongs to an ArchimateResource that is currently loading
+     */
+    private boolean isLoading(Notification msg) {
+        if(msg.getNotifier() instanceof EObject) {
+            Resource resource = ((EObject)msg.getNotifier()).eResource();
+            return resource instanceof ArchimateResource && ((ArchimateResource)resource).isLoading();
+        }
+        return false;
+    }
+
+    /**
+     * Update the ID index from a notification
+     */
+    @SuppressWarnings("unchecked")
+    private void updateObjectIndex(Notification msg) {
+        // Object's ID has changed
+        if(msg.getFeature() == IArchimatePackage.Literals.IDENTIFIER__ID) {
+            if(msg.getEventType() == Notification.SET || msg.getEventType() == Notification.UNSET) {
+                EObject eObject = (EObject)msg.getNotifier();
+                String oldID = msg.getOldStringValue();
+                if(oldID != null && fObjectIndex.get(oldID) == eObject) {
+                    fObjectIndex.remove(oldID);
+                }
+                String newID = msg.getNewStringValue();
+                if(newID != null) {
+                    fObjectIndex.put(newID, eObject);
+                }
+            }
+            return;
+        }
+
+        // Only interested in child objects being added to or removed from the model
+        if(!(msg.getFeature() instanceof EReference) || !((EReference)msg.getFeature()).isContainment()) {
+            return;
+        }
+
+        switch(msg.getEventType()) {
+            case Notification.ADD:
+                indexObject(msg.getNewValue());
+                break;
+
+            case Notification.ADD_MANY:
+                for(Object o : (Collection<Object>)msg.getNewValue()) {
+                    indexObject(o);
+                }
+                break;
+
+            case Notification.REMOVE:
+                unindexObject(msg.getOldValue());
+                break;
+
+            case Notification.REMOVE_MANY:
+                for(Object o : (Collection<Object>)msg.getOldValue()) {
+                    unindexObject(o);
+                }
+                break;
+
+            case Notification.SET:
+            case Notification.UNSET:
+                unindexObject(msg.getOldValue());
+                indexObject(msg.getNewValue());
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Add an object and its child objects to the index
+     */
+    private void indexObject(Object object) {
+        if(object instanceof EObject) {
+            putIndex((EObject)object);
+            for(Iterator<EObject> iter = ((EObject)object).eAllContents(); iter.hasNext();) {
+                putIndex(iter.next());
+            }
+        }
+    }
+
+    private void putIndex(EObject eObject) {
+        if(eObject instanceof IIdentifier) {
+            String id = ((IIdentifier)eObject).getId();
+            if(id != null) {
+                fObjectIndex.put(id, eObject);
+            }
+        }
+        
+        if(eObject instanceof IDiagramModelArchimateComponent) {
+            fDiagramComponentIndex.add((IDiagramModelArchimateComponent)eObject);
+        }
+    }
+
+    /**
+     * Remove an object and its child objects from the index
+     */
+    private void unindexObject(Object object) {
+        if(object instanceof EObject) {
+            removeIndex((EObject)object);
+            for(Iterator<EObject> iter = ((EObject)object).eAllContents(); iter.hasNext();) {
+                removeIndex(iter.next());
+            }
+        }
+    }
+
+    private void removeIndex(EObject eObject) {
+        if(eObject instanceof IIdentifier) {
+            String id = ((IIdentifier)eObject).getId();
+            // Only remove it if the entry is for this object
+            if(id != null && fObjectIndex.get(id) == eObject) {
+                fObjectIndex.remove(id);
+            }
+        }
+        
+        if(eObject instanceof IDiagramModelArchimateComponent) {
+            fDiagramComponentIndex.remove((IDiagramModelArchimateComponent)eObject);
+        }
+    }
 }
\ No newline at end of file
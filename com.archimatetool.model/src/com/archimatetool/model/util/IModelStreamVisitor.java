@@ -0,0 +1,94 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import java.io.IOException;
+
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelComponent;
+import com.archimatetool.model.IFolder;
+
+/**
+ * Visitor of the objects read by a ModelStreamReader, in the order that they are in the model file.
+ *
+ * The objects passed are not contained in the model or in their parent folder or view, and don't have their child objects.
+ * References to other objects are passed as IDs.
+ * Don't keep references to the objects if the model is large.
+ *
+ * @author Phillip Beauvoir
+ */
+public interface IModelStreamVisitor {
+
+    /**
+     * The model's root element was read.
+     * @param model The model with its name, id and version set. Its purpose and properties are not set yet as they come at the end of the file.
+     */
+    default void startModel(IArchimateModel model) throws IOException {
+    }
+
+    /**
+     * The end of the model file was reached.
+     * @param model The same model passed to startModel() with its purpose and properties set
+     */
+    default void endModel(IArchimateModel model) throws IOException {
+    }
+
+    /**
+     * A folder was started. Its child folders and elements follow until endFolder() is called for it.
+     * @param folder The folder with its name, id and type set. Its documentation and properties are not set yet.
+     */
+    default void startFolder(IFolder folder) throws IOException {
+    }
+
+    /**
+     * A folder was ended
+     * @param folder The same folder passed to startFolder() with its documentation and properties set
+     */
+    default void endFolder(IFolder folder) throws IOException {
+    }
+
+    /**
+     * An element was read
+     * @param element The element with its attributes, documentation and properties set
+     */
+    default void visitElement(IArchimateElement element) throws IOException {
+    }
+
+    /**
+     * A relationship was read
+     * @param relationship The relationship with its attributes, documentation and properties set, but not its source and target
+     * @param sourceID The ID of the relationship's source concept
+     * @param targetID The ID of the relationship's target concept
+     */
+    default void visitRelationship(IArchimateRelationship relationship, String sourceID, String targetID) throws IOException {
+    }
+
+    /**
+     * A View was started. Its diagram components follow until endView() is called for it.
+     * @param view The View with its attributes set. Its documentation and properties are not set yet.
+     */
+    default void startView(IDiagramModel view) throws IOException {
+    }
+
+    /**
+     * A View was ended
+     * @param view The same View passed to startView() with its documentation and properties set
+     */
+    default void endView(IDiagramModel view) throws IOException {
+    }
+
+    /**
+     * A diagram component in the current View was read.
+     * Child diagram objects are visited before their parent.
+     * @param component The diagram object or connection with its attributes, bounds, bendpoints and properties set
+     * @param conceptID The ID of the ArchiMate concept that the component references, or null if it is not an ArchiMate component
+     */
+    default void visitViewComponent(IDiagramModelComponent component, String conceptID) throws IOException {
+    }
+}
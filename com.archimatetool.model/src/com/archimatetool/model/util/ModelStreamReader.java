@@ -0,0 +1,403 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelComponent;
+import com.archimatetool.model.IFolder;
+
+
+/**
+ * Read-only streaming reader of a model file.
+ *
+ * The model file is parsed with SAX and its folders, elements, relationships and Views are passed to an IModelStreamVisitor
+ * as they are read, without building the whole model in memory. This allows very large models to be processed in
+ * constant memory where the model does not have to be edited, for example when exporting it from the command line.
+ *
+ * Each object passed to the visitor is a new object created from its XML element with its attributes, documentation,
+ * properties and other small child objects such as bounds set. Folders, concepts, Views and diagram components are not
+ * added to their parent and references to other objects are passed to the visitor as IDs.
+ * The same legacy type and attribute mappings as loading the model with an ArchimateResource are used.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ModelStreamReader {
+
+    private static final String MODEL_ENTRY = "model.xml"; //$NON-NLS-1$
+
+    private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance"; //$NON-NLS-1$
+
+    private IModelStreamVisitor fVisitor;
+
+    private ExtendedMetaData fMetaData = new ConverterExtendedMetadata();
+
+    public ModelStreamReader(IModelStreamVisitor visitor) {
+        fVisitor = visitor;
+    }
+
+    /**
+     * Read a model file. This can be an XML file or an archive file containing a "model.xml" entry.
+     * @param file The model file
+     * @throws IOException if the file could not be read or is not a model file
+     */
+    public void read(File file) throws IOException {
+        ZipFile zipFile = openArchiveFile(file);
+
+        // XML file
+        if(zipFile == null) {
+            try(InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                read(in);
+            }
+            return;
+        }
+
+        // Archive file
+        try(ZipFile zf = zipFile) {
+            ZipEntry entry = zf.getEntry(MODEL_ENTRY);
+            if(entry == null) {
+                throw new IOException("No model.xml entry in: " + file); //$NON-NLS-1$
+            }
+
+            try(InputStream in = new BufferedInputStream(zf.getInputStream(entry))) {
+                read(in);
+            }
+        }
+    }
+
+    /**
+     * Read a model from XML in an input stream. The stream is not closed.
+     * @param in The input stream
+     * @throws IOException if the stream could not be read or is not a model
+     */
+    public void read(InputStream in) throws IOException {
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+
+            // Don't allow DTD loading in case of XSS exploits, as in ArchimateResourceFactory
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); //$NON-NLS-1$
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false); //$NON-NLS-1$
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); //$NON-NLS-1$
+
+            SAXParser parser = factory.newSAXParser();
+            parser.parse(in, new Handler());
+        }
+        catch(SAXException ex) {
+            // Visitor exception
+            if(ex.getException() instanceof IOException) {
+                throw (IOException)ex.getException();
+            }
+            throw new IOException(ex);
+        }
+        catch(ParserConfigurationException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * @return The file as an opened ZipFile or null if it is not an archive file
+     */
+    private ZipFile openArchiveFile(File file) {
+        try {
+            return new ZipFile(file);
+        }
+        catch(IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * An XML element being read
+     */
+    private static class Frame {
+        // The object created from the XML element, or null if the XML element is not an object
+        EObject eObject;
+
+        // If the XML element is an attribute value such as documentation, the attribute and its text
+        EAttribute textAttribute;
+        StringBuilder text;
+
+        // Non-containment reference name -> ID(s)
+        Map<String, String> references;
+
+        String getReference(String name) {
+            return references == null ? null : references.get(name);
+        }
+    }
+
+    private class Handler extends DefaultHandler {
+        private Deque<Frame> fStack = new ArrayDeque<>();
+
+        // Namespace prefix -> namespace URI
+        private Map<String, String> fPrefixes = new HashMap<>();
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            fPrefixes.put(prefix, uri);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            Frame parent = fStack.peek();
+            Frame frame = new Frame();
+
+            // Root element
+            if(parent == null) {
+                EClassifier eClassifier = fMetaData.getType(getPackage(uri), localName);
+                if(eClassifier != IArchimatePackage.Literals.ARCHIMATE_MODEL) {
+                    throw new SAXException("Not a model file. Root element is: " + qName); //$NON-NLS-1$
+                }
+                frame.eObject = createObject((EClass)eClassifier, attributes, frame);
+            }
+            // Child element of an object
+            else if(parent.eObject != null) {
+                EStructuralFeature feature = getElementFeature(parent.eObject.eClass(), uri, localName);
+
+                if(feature instanceof EAttribute) {
+                    frame.textAttribute = (EAttribute)feature;
+                    frame.text = new StringBuilder();
+                }
+                else if(feature instanceof EReference && ((EReference)feature).isContainment()) {
+                    EClass eClass = getType(attributes, (EReference)feature);
+                    if(eClass != null) {
+                        frame.eObject = createObject(eClass, attributes, frame);
+                        if(!isVisited(frame.eObject)) {
+                            addToParent(parent.eObject, feature, frame.eObject);
+                        }
+                    }
+                }
+            }
+
+            fStack.push(frame);
+
+            try {
+                visitStart(frame);
+            }
+            catch(IOException ex) {
+                throw new SAXException(ex);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            Frame frame = fStack.pop();
+            Frame parent = fStack.peek();
+
+            if(frame.textAttribute != null) {
+                if(parent != null && parent.eObject != null) {
+                    setValue(parent.eObject, frame.textAttribute, frame.text.toString());
+                }
+                return;
+            }
+
+            try {
+                visitEnd(frame);
+            }
+            catch(IOException ex) {
+                throw new SAXException(ex);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            Frame frame = fStack.peek();
+            if(frame != null && frame.text != null) {
+                frame.text.append(ch, start, length);
+            }
+        }
+
+        /**
+         * @return The type of object from the xsi:type attribute, or if that is not set the type of the containment reference.
+         *         Null if not known or is abstract.
+         */
+        private EClass getType(Attributes attributes, EReference reference) {
+            String type = attributes.getValue(XSI_NAMESPACE, "type"); //$NON-NLS-1$
+
+            if(type != null) {
+                String prefix = ""; //$NON-NLS-1$
+                int index = type.indexOf(':');
+                if(index != -1) {
+                    prefix = type.substring(0, index);
+                    type = type.substring(index + 1);
+                }
+
+                EClassifier eClassifier = fMetaData.getType(getPackage(fPrefixes.get(prefix)), type);
+                return eClassifier instanceof EClass && !((EClass)eClassifier).isAbstract() ? (EClass)eClassifier : null;
+            }
+
+            if(reference != null) {
+                EClass eClass = reference.getEReferenceType();
+                return eClass.isAbstract() || eClass.isInterface() ? null : eClass;
+            }
+
+            return null;
+        }
+
+        /**
+         * @return The registered package for a namespace URI, or the ArchiMate package if not known or this is a legacy namespace
+         */
+        private EPackage getPackage(String nsURI) {
+            EPackage ePackage = nsURI == null ? null : EPackage.Registry.INSTANCE.getEPackage(nsURI);
+            return ePackage != null ? ePackage : IArchimatePackage.eINSTANCE;
+        }
+
+        /**
+         * @return The feature for a child XML element of an object of type eClass
+         */
+        private EStructuralFeature getElementFeature(EClass eClass, String namespace, String name) {
+            EStructuralFeature feature = fMetaData.getElement(eClass, namespace == null || namespace.isEmpty() ? null : namespace, name);
+            return feature != null ? feature : eClass.getEStructuralFeature(name);
+        }
+
+        /**
+         * @return The feature for an XML attribute of an object of type eClass
+         */
+        private EStructuralFeature getAttributeFeature(EClass eClass, String name) {
+            EStructuralFeature feature = fMetaData.getAttribute(eClass, null, name);
+            return feature != null ? feature : eClass.getEStructuralFeature(name);
+        }
+
+        /**
+         * Create a new object of type eClass with its attribute values set from the XML attributes.
+         * IDs of non-containment references are stored in the frame.
+         */
+        private EObject createObject(EClass eClass, Attributes attributes, Frame frame) {
+            EObject eObject = EcoreUtil.create(eClass);
+
+            for(int i = 0; i < attributes.getLength(); i++) {
+                if(XSI_NAMESPACE.equals(attributes.getURI(i))) {
+                    continue;
+                }
+
+                String name = attributes.getLocalName(i);
+                EStructuralFeature feature = getAttributeFeature(eClass, name);
+
+                if(feature instanceof EAttribute) {
+                    setValue(eObject, (EAttribute)feature, attributes.getValue(i));
+                }
+                else if(feature instanceof EReference && !((EReference)feature).isContainment()) {
+                    if(frame.references == null) {
+                        frame.references = new HashMap<>();
+                    }
+                    frame.references.put(feature.getName(), attributes.getValue(i));
+                }
+            }
+
+            return eObject;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void setValue(EObject eObject, EAttribute attribute, String value) {
+            if(attribute.isTransient() || attribute.isDerived() || !attribute.isChangeable()) {
+                return;
+            }
+
+            try {
+                Object object = EcoreUtil.createFromString(attribute.getEAttributeType(), value);
+                if(attribute.isMany()) {
+                    ((List<Object>)eObject.eGet(attribute)).add(object);
+                }
+                else {
+                    eObject.eSet(attribute, object);
+                }
+            }
+            catch(RuntimeException ex) {
+                // Ignore unreadable values as ArchimateResource does with unknown features
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addToParent(EObject parent, EStructuralFeature feature, EObject eObject) {
+            if(feature.isMany()) {
+                ((List<Object>)parent.eGet(feature)).add(eObject);
+            }
+            else {
+                parent.eSet(feature, eObject);
+            }
+        }
+
+        /**
+         * @return true if the object is passed to the visitor rather than added to its parent
+         */
+        private boolean isVisited(EObject eObject) {
+            return eObject instanceof IFolder || eObject instanceof IArchimateConcept
+                    || eObject instanceof IDiagramModel || eObject instanceof IDiagramModelComponent;
+        }
+
+        private void visitStart(Frame frame) throws IOException {
+            if(frame.eObject instanceof IArchimateModel) {
+                fVisitor.startModel((IArchimateModel)frame.eObject);
+            }
+            else if(frame.eObject instanceof IFolder) {
+                fVisitor.startFolder((IFolder)frame.eObject);
+            }
+            else if(frame.eObject instanceof IDiagramModel) {
+                fVisitor.startView((IDiagramModel)frame.eObject);
+            }
+        }
+
+        private void visitEnd(Frame frame) throws IOException {
+            if(frame.eObject instanceof IArchimateModel) {
+                fVisitor.endModel((IArchimateModel)frame.eObject);
+            }
+            else if(frame.eObject instanceof IFolder) {
+                fVisitor.endFolder((IFolder)frame.eObject);
+            }
+            else if(frame.eObject instanceof IArchimateElement) {
+                fVisitor.visitElement((IArchimateElement)frame.eObject);
+            }
+            else if(frame.eObject instanceof IArchimateRelationship) {
+                fVisitor.visitRelationship((IArchimateRelationship)frame.eObject, frame.getReference("source"), frame.getReference("target")); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            else if(frame.eObject instanceof IDiagramModel) {
+                fVisitor.endView((IDiagramModel)frame.eObject);
+            }
+            else if(frame.eObject instanceof IDiagramModelComponent) {
+                String conceptID = frame.getReference("archimateElement"); //$NON-NLS-1$
+                if(conceptID == null) {
+                    conceptID = frame.getReference("archimateRelationship"); //$NON-NLS-1$
+                }
+                fVisitor.visitViewComponent((IDiagramModelComponent)frame.eObject, conceptID);
+            }
+        }
+    }
+}
@@ -12,9 +12,11 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.input.SAXBuilder;
@@ -90,6 +92,31 @@ public class RelationshipsMatrix {
      * Mapping of relationships to key letters
      */
     private Map<EClass, Character> relationsValueMap = new LinkedHashMap<EClass, Character>();
+    
+    /**
+     * Bit mask of each relationship type indexed by classifier ID
+     */
+    private long[] relationshipMasks;
+    
+    /**
+     * Index into the tables of each class indexed by classifier ID, or -1 if not a class
+     */
+    private int[] tableIndex;
+    
+    /**
+     * The number of rows and columns in relationshipsTable
+     */
+    private int tableSize;
+    
+    /**
+     * Bit masks of relationship types that can start from a source concept type, indexed by table index
+     */
+    private long[] startTable;
+    
+    /**
+     * Bit masks of valid relationship types between a source and target concept type, indexed by [source table index * tableSize + target table index]
+     */
+    private long[] relationshipsTable;
 
     private RelationshipsMatrix() {
         // Load Key letters file
@@ -97,6 +124,9 @@ public class RelationshipsMatrix {
         
         // Load Relationships file
         loadRelationships();
+        
+        // Compile the look-up tables
+        compileTables();
     }
     
     public Map<EClass, List<TargetMatrix>> getRelationshipsMatrix() {
@@ -108,53 +138,106 @@ public class RelationshipsMatrix {
     }
 
     boolean isValidRelationshipStart(EClass sourceType, EClass relationshipType) {
-        // Use "Relationship" as a generic super type
-        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(sourceType)) {
-            sourceType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
-        }
-        
-        List<TargetMatrix> listMatrix = matrixMap.get(sourceType);
-        if(listMatrix != null) {
-            for(TargetMatrix targetMatrix : listMatrix) {
-                if(targetMatrix.getRelationships().contains(relationshipType)) {
-                    return true;
-                }
-            }
+        int source = getTableIndex(sourceType);
+        if(source == -1) {
+            return false;
         }
         
-        return false;
+        return (startTable[source] & getRelationshipMask(relationshipType)) != 0;
     }
     
     boolean isValidRelationship(EClass sourceType, EClass targetType, EClass relationshipType) {
-        if(relationshipType == null) {
+        int source = getTableIndex(sourceType);
+        int target = getTableIndex(targetType);
+        if(source == -1 || target == -1) {
             return false;
         }
         
-        // relationshipType has to be a Relationship class
-        if(!IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(relationshipType)) {
-            return false;
+        return (relationshipsTable[source * tableSize + target] & getRelationshipMask(relationshipType)) != 0;
+    }
+    
+    /**
+     * @return The index into the tables for a class or -1 if it is not an ArchiMate class
+     */
+    private int getTableIndex(EClass eClass) {
+        if(eClass == null || eClass.getEPackage() != IArchimatePackage.eINSTANCE) {
+            return -1;
         }
         
-        // Use "Relationship" as a generic super type
-        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(sourceType)) {
-            sourceType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        return tableIndex[eClass.getClassifierID()];
+    }
+    
+    /**
+     * @return The bit mask for a relationship class or 0 if it is not a relationship in the key letters file
+     */
+    private long getRelationshipMask(EClass relationshipType) {
+        if(relationshipType == null || relationshipType.getEPackage() != IArchimatePackage.eINSTANCE) {
+            return 0;
         }
         
-        // Use "Relationship" as a generic super type
-        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(targetType)) {
-            targetType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        return relationshipMasks[relationshipType.getClassifierID()];
+    }
+    
+    /**
+     * Compile the loaded matrix into tables indexed by classifier ID so that a look-up is one array read
+     * rather than a walk through the lists of TargetMatrix.
+     */
+    private void compileTables() {
+        List<EClassifier> classifiers = IArchimatePackage.eINSTANCE.getEClassifiers();
+        
+        // One bit per relationship type, in key letter order
+        relationshipMasks = new long[classifiers.size()];
+        int bit = 0;
+        for(EClass relationship : relationsValueMap.keySet()) {
+            if(bit == Long.SIZE) {
+                System.err.println(getClass() + ": Too many relationship types"); //$NON-NLS-1$
+                break;
+            }
+            relationshipMasks[relationship.getClassifierID()] = 1L << bit++;
         }
         
-        List<TargetMatrix> listMatrix = matrixMap.get(sourceType);
-        if(listMatrix != null) {
-            for(TargetMatrix targetMatrix : listMatrix) {
-                if(targetMatrix.getTargetClass() == targetType && targetMatrix.getRelationships().contains(relationshipType)) {
-                    return true;
-                }
+        // Relationship classes share the index of "Relationship" as a generic super type, other classes have their own index
+        EClass relationshipClass = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        tableIndex = new int[classifiers.size()];
+        tableSize = 0;
+        for(EClassifier classifier : classifiers) {
+            if(classifier instanceof EClass && !relationshipClass.isSuperTypeOf((EClass)classifier)) {
+                tableIndex[classifier.getClassifierID()] = tableSize++;
+            }
+            else {
+                tableIndex[classifier.getClassifierID()] = -1;
             }
         }
+        int relationshipIndex = tableSize++;
+        for(EClassifier classifier : classifiers) {
+            if(classifier instanceof EClass && relationshipClass.isSuperTypeOf((EClass)classifier)) {
+                tableIndex[classifier.getClassifierID()] = relationshipIndex;
+            }
+        }
+        
+        startTable = new long[tableSize];
+        relationshipsTable = new long[tableSize * tableSize];
         
-        return false;
+        for(Entry<EClass, List<TargetMatrix>> entry : matrixMap.entrySet()) {
+            int source = getTableIndex(entry.getKey());
+            if(source == -1) {
+                continue;
+            }
+            
+            for(TargetMatrix targetMatrix : entry.getValue()) {
+                long mask = 0;
+                for(EClass relationship : targetMatrix.getRelationships()) {
+                    mask |= getRelationshipMask(relationship);
+                }
+                
+                startTable[source] |= mask;
+                
+                int target = getTableIndex(targetMatrix.getTargetClass());
+                if(target != -1) {
+                    relationshipsTable[source * tableSize + target] |= mask;
+                }
+            }
+        }
     }
     
     private void loadKeyLetters() {
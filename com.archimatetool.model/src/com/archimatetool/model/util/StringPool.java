@@ -0,0 +1,122 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Pool of shared String instances used for the keys and values of Properties.
+ *
+ * Large models have many Properties with the same few keys, such as "Owner" and "Status", and often the same values.
+ * Each of these is a new String when the model is loaded, so sharing one instance of each saves a lot of memory.
+ * Strings are weakly referenced so that the pool doesn't keep Strings that are no longer used by any model.
+ * Models can be loaded in parallel so the pool is a ConcurrentHashMap rather than a synchronized map.
+ *
+ * @author Phillip Beauvoir
+ */
+public final class StringPool {
+
+    /**
+     * Values longer than this are not pooled as they are less likely to be repeated
+     */
+    public static final int MAX_VALUE_LENGTH = 64;
+
+    private static final ConcurrentMap<PooledString, PooledString> POOL = new ConcurrentHashMap<>();
+
+    /**
+     * Pooled Strings that have been garbage collected, to be removed from the pool
+     */
+    private static final ReferenceQueue<String> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * Weak reference to a pooled String that is equal to another reference to an equal String
+     */
+    private static final class PooledString extends WeakReference<String> {
+        private final int hash;
+
+        PooledString(String s, ReferenceQueue<String> queue) {
+            super(s, queue);
+            hash = s.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+
+            // A reference that has been cleared is only equal to itself so that it can be removed
+            if(obj instanceof PooledString) {
+                String s = get();
+                return s != null && s.equals(((PooledString)obj).get());
+            }
+
+            return false;
+        }
+    }
+
+    private StringPool() {
+    }
+
+    /**
+     * @param s A String, may be null
+     * @return The pooled String equal to s, or s if there isn't one yet. Null if s is null.
+     */
+    public static String intern(String s) {
+        if(s == null) {
+            return null;
+        }
+
+        if(s.isEmpty()) {
+            return ""; //$NON-NLS-1$
+        }
+
+        removeCollected();
+
+        // Look up without a reference queue as this reference is not added to the pool
+        String pooled = get(POOL.get(new PooledString(s, null)));
+
+        // Not pooled, or collected since the look-up, so add it unless another thread has just added an equal String
+        while(pooled == null) {
+            PooledString ref = new PooledString(s, QUEUE);
+            PooledString existing = POOL.putIfAbsent(ref, ref);
+            pooled = existing == null ? s : existing.get();
+        }
+
+        return pooled;
+    }
+
+    private static String get(PooledString ref) {
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Remove the references to Strings that have been garbage collected
+     */
+    private static void removeCollected() {
+        for(Reference<? extends String> ref; (ref = QUEUE.poll()) != null;) {
+            POOL.remove(ref);
+        }
+    }
+
+    /**
+     * @param s A String, may be null
+     * @return The pooled String equal to s if s is not longer than MAX_VALUE_LENGTH, otherwise s
+     */
+    public static String internValue(String s) {
+        return s != null && s.length() <= MAX_VALUE_LENGTH ? intern(s) : s;
+    }
+}
@@ -35,6 +35,7 @@ public class HTMLReportProvider extends AbstractCommandLineProvider {
     static final String PREFIX = Messages.HTMLReportProvider_0;
     
     static final String OPTION_CREATE_HTML_REPORT = "html.createReport"; //$NON-NLS-1$
+    static final String OPTION_INCREMENTAL = "html.incremental"; //$NON-NLS-1$
     
     public HTMLReportProvider() {
     }
@@ -68,6 +69,7 @@ public class HTMLReportProvider extends AbstractCommandLineProvider {
         logMessage(NLS.bind(Messages.HTMLReportProvider_4, model.getName(), sOutput));
 
         HTMLReportExporter ex = new HTMLReportExporter(model);
+        ex.setIncremental(commandLine.hasOption(OPTION_INCREMENTAL));
         ex.createReport(folderOutput, "index.html"); //$NON-NLS-1$
 
         logMessage(Messages.HTMLReportProvider_5);
@@ -89,6 +91,12 @@ public class HTMLReportProvider extends AbstractCommandLineProvider {
                 .build();
         options.addOption(option);
         
+        option = Option.builder()
+                .longOpt(OPTION_INCREMENTAL)
+                .desc(Messages.HTMLReportProvider_8)
+                .build();
+        options.addOption(option);
+        
         return options;
     }
     
@@ -5,15 +5,27 @@
  */
 package com.archimatetool.reports.html;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Hashtable;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Platform;
@@ -42,7 +54,7 @@ import org.stringtemplate.v4.StringRenderer;
 import com.archimatetool.editor.ArchiPlugin;
 import com.archimatetool.editor.browser.BrowserEditorInput;
 import com.archimatetool.editor.browser.IBrowserEditor;
-import com.archimatetool.editor.diagram.util.DiagramUtils;
+import com.archimatetool.editor.diagram.util.DiagramImageRenderer;
 import com.archimatetool.editor.diagram.util.ModelReferencedImage;
 import com.archimatetool.editor.ui.ImageFactory;
 import com.archimatetool.editor.ui.services.EditorManager;
@@ -84,6 +96,47 @@ public class HTMLReportExporter {
      */
     private Map<String, BoundsWithAbsolutePosition> childBoundsMap = new HashMap<String, BoundsWithAbsolutePosition>();
     
+    /**
+     * Number of threads encoding and saving diagram images
+     */
+    private static final int IMAGE_THREADS = 2;
+    
+    /**
+     * Maximum number of rendered diagram images waiting to be saved
+     */
+    private static final int MAX_PENDING_IMAGES = 8;
+    
+    /**
+     * Workers writing element and view pages, and workers saving diagram images, while a report is being created
+     */
+    private ExecutorService fPagesExecutor, fImagesExecutor;
+    
+    /**
+     * Pages and images being written while a report is being created
+     */
+    private List<Future<?>> fFutures;
+    
+    /**
+     * Frame template for each worker thread while a report is being created
+     */
+    private ThreadLocal<ST> fFrames;
+    
+    /**
+     * Number of pages written
+     */
+    private AtomicInteger fPageCount = new AtomicInteger();
+    
+    /**
+     * If true only write the pages and images of objects that have changed since the last report
+     */
+    private boolean fIncremental;
+    
+    /**
+     * Fingerprints of the pages and images, and the page and image files that belong to the report, while a report is being created
+     */
+    private ReportManifest fManifest;
+    private Set<File> fReportFiles;
+    
     public HTMLReportExporter(IArchimateModel model) {
         fModel = model;
     }
@@ -110,6 +163,9 @@ public class HTMLReportExporter {
     public void preview() {
         PREVIEW_FOLDER.mkdirs();
         
+        // The preview is created again each time so only write what has changed
+        setIncremental(true);
+        
         BusyIndicator.showWhile(Display.getCurrent(), () -> {
             try {
                 File file = createReport(PREVIEW_FOLDER, "preview-" + fModel.getId() + ".html");  //$NON-NLS-1$//$NON-NLS-2$
@@ -145,6 +201,16 @@ public class HTMLReportExporter {
         FileUtils.deleteFolder(PREVIEW_FOLDER);
     }
 
+    /**
+     * Set whether to create the report incrementally.
+     * If true, and the target folder already contains a report of the model, only the pages and images of objects
+     * that have changed since that report are written and the files of objects no longer in the model are deleted.
+     * Default is false.
+     */
+    public void setIncremental(boolean incremental) {
+        fIncremental = incremental;
+    }
+
     public File createReport(File targetFolder, String indexFileName) throws IOException {
         // Copy HTML skeleton to target
         copyHTMLSkeleton(targetFolder);
@@ -163,42 +229,133 @@ public class HTMLReportExporter {
         imagesFolder.mkdirs(); // Make dir
              
         // Instantiate templates files
-        File mainFile = new File(ArchiReportsPlugin.INSTANCE.getTemplatesFolder(), "st/main.stg"); //$NON-NLS-1$
-        STGroupFile groupFile = new STGroupFile(mainFile.getAbsolutePath(), '^', '^');
-        ST stFrame = groupFile.getInstanceOf("frame"); //$NON-NLS-1$
-        
-        groupFile.registerRenderer(String.class, new StringRenderer());
+        STGroupFile groupFile = createGroupFile();
         
-        // Write model purpose and properties html
-        writeElement(new File(elementsFolder, "model.html"), stFrame, fModel); //$NON-NLS-1$
+        // Each thread renders pages with its own frame template as an ST instance is not thread safe
+        fFrames = ThreadLocal.withInitial(() -> createGroupFile().getInstanceOf("frame")); //$NON-NLS-1$
         
-        // Write all folders
-        writeFolders(elementsFolder, stFrame, fModel.getFolders());
+        fPagesExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        fImagesExecutor = Executors.newFixedThreadPool(IMAGE_THREADS);
+        fFutures = new ArrayList<Future<?>>();
+        fPageCount.set(0);
         
-        // Write Diagrams and images
-        writeDiagrams(imagesFolder, viewsFolder, stFrame);
+        diagramBoundsMap.clear();
+        childBoundsMap.clear();
         
-        // Write root model.html frame
-        File indexFile = new File(targetFolder, indexFileName);
-        OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(indexFile), "UTF8"); //$NON-NLS-1$
+        fReportFiles = new HashSet<File>();
+        fManifest = new ReportManifest(new File(targetFolder, fModel.getId() + "/" + ReportManifest.MANIFEST_FILE), getReportFormat()); //$NON-NLS-1$
+        if(fIncremental) {
+            fManifest.load();
+        }
         
-        ST stModel = groupFile.getInstanceOf("modelreport"); //$NON-NLS-1$
-
-        stModel.add("model", fModel); //$NON-NLS-1$
-        stModel.add("strategyFolder", fModel.getFolder(FolderType.STRATEGY)); //$NON-NLS-1$
-        stModel.add("businessFolder", fModel.getFolder(FolderType.BUSINESS)); //$NON-NLS-1$
-        stModel.add("applicationFolder", fModel.getFolder(FolderType.APPLICATION)); //$NON-NLS-1$
-        stModel.add("technologyFolder", fModel.getFolder(FolderType.TECHNOLOGY)); //$NON-NLS-1$
-        stModel.add("motivationFolder", fModel.getFolder(FolderType.MOTIVATION)); //$NON-NLS-1$
-        stModel.add("implementationFolder", fModel.getFolder(FolderType.IMPLEMENTATION_MIGRATION)); //$NON-NLS-1$
-        stModel.add("otherFolder", fModel.getFolder(FolderType.OTHER)); //$NON-NLS-1$
-        stModel.add("relationsFolder", fModel.getFolder(FolderType.RELATIONS)); //$NON-NLS-1$
-        stModel.add("viewsFolder", fModel.getFolder(FolderType.DIAGRAMS)); //$NON-NLS-1$
+        try {
+            // Write model purpose and properties html
+            File modelFile = new File(elementsFolder, "model.html"); //$NON-NLS-1$
+            fReportFiles.add(modelFile);
+            submitElement(modelFile, fModel);
+            
+            // Write all folders
+            writeFolders(elementsFolder, fModel.getFolders());
+            
+            // Write Diagrams and images while the element pages are being written
+            writeDiagrams(imagesFolder, viewsFolder);
+            
+            // Write root model.html frame
+            File indexFile = new File(targetFolder, indexFileName);
+            
+            ST stModel = groupFile.getInstanceOf("modelreport"); //$NON-NLS-1$
+            
+            stModel.add("model", fModel); //$NON-NLS-1$
+            stModel.add("strategyFolder", fModel.getFolder(FolderType.STRATEGY)); //$NON-NLS-1$
+            stModel.add("businessFolder", fModel.getFolder(FolderType.BUSINESS)); //$NON-NLS-1$
+            stModel.add("applicationFolder", fModel.getFolder(FolderType.APPLICATION)); //$NON-NLS-1$
+            stModel.add("technologyFolder", fModel.getFolder(FolderType.TECHNOLOGY)); //$NON-NLS-1$
+            stModel.add("motivationFolder", fModel.getFolder(FolderType.MOTIVATION)); //$NON-NLS-1$
+            stModel.add("implementationFolder", fModel.getFolder(FolderType.IMPLEMENTATION_MIGRATION)); //$NON-NLS-1$
+            stModel.add("otherFolder", fModel.getFolder(FolderType.OTHER)); //$NON-NLS-1$
+            stModel.add("relationsFolder", fModel.getFolder(FolderType.RELATIONS)); //$NON-NLS-1$
+            stModel.add("viewsFolder", fModel.getFolder(FolderType.DIAGRAMS)); //$NON-NLS-1$
+            
+            writeFile(indexFile, stModel.render());
+            
+            // Wait for all pages and images to be written
+            for(Future<?> future : fFutures) {
+                waitFor(future);
+            }
+            
+            // Delete the pages and images of objects that are no longer in the model
+            if(fIncremental) {
+                deleteStaleFiles(elementsFolder);
+                deleteStaleFiles(viewsFolder);
+                deleteStaleFiles(imagesFolder);
+            }
+            
+            // Save the manifest last so that if anything failed the pages and images are written again next time
+            fManifest.save();
+            
+            return indexFile;
+        }
+        finally {
+            fPagesExecutor.shutdownNow();
+            fImagesExecutor.shutdownNow();
+            fFutures = null;
+            fFrames = null;
+            fManifest = null;
+            fReportFiles = null;
+        }
+    }
+    
+    /**
+     * @return A string identifying the format of pages and images. If this changes all pages and images are written again.
+     */
+    private String getReportFormat() {
+        return ArchiReportsPlugin.INSTANCE.getBundle().getVersion() + "@" + ImageFactory.getDeviceZoom(); //$NON-NLS-1$
+    }
+    
+    /**
+     * Add the page or image files of an object to the report and update the object's fingerprint
+     * @return true if the files have to be written because the object has changed or the files don't exist
+     */
+    private boolean isChanged(String key, EObject eObject, File... files) {
+        boolean changed = fManifest.update(key, ReportManifest.getFingerprint(eObject));
         
-        writer.write(stModel.render());
-        writer.close();
+        for(File file : files) {
+            fReportFiles.add(file);
+            changed |= !file.exists();
+        }
         
-        return indexFile;
+        return changed;
+    }
+    
+    /**
+     * Delete files in a folder that are not part of the report
+     */
+    private void deleteStaleFiles(File folder) {
+        File[] files = folder.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                if(file.isFile() && !fReportFiles.contains(file)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return A new template group. Each group loads its own templates so groups can be used on different threads.
+     */
+    private STGroupFile createGroupFile() {
+        File mainFile = new File(ArchiReportsPlugin.INSTANCE.getTemplatesFolder(), "st/main.stg"); //$NON-NLS-1$
+        STGroupFile groupFile = new STGroupFile(mainFile.getAbsolutePath(), '^', '^');
+        groupFile.registerRenderer(String.class, new StringRenderer());
+        return groupFile;
+    }
+    
+    /**
+     * @return The number of pages written by the last call to createReport()
+     */
+    int getPageCount() {
+        return fPageCount.get();
     }
     
     /**
@@ -223,57 +380,70 @@ public class HTMLReportExporter {
     /**
      * Write all folders
      */
-    private void writeFolders(File elementsFolder, ST stFrame, EList<IFolder> folders) throws IOException {
+    private void writeFolders(File elementsFolder, EList<IFolder> folders) {
     	for(IFolder folder : folders) {
-    		writeFolder(elementsFolder, stFrame, folder);
+    		writeFolder(elementsFolder, folder);
     	}
     }
     
     /**
      * Write a single folder
      */
-    private void writeFolder(File elementsFolder, ST stFrame, IFolder folder) throws IOException {
-    	writeElements(elementsFolder, stFrame, folder.getElements());
-    	writeFolders(elementsFolder, stFrame, folder.getFolders());
+    private void writeFolder(File elementsFolder, IFolder folder) {
+    	writeElements(elementsFolder, folder.getElements());
+    	writeFolders(elementsFolder, folder.getFolders());
     }
     
     /**
      * Write all elements
      */
-    private void writeElements(File elementsFolder, ST stFrame, List<EObject> list) throws IOException {
+    private void writeElements(File elementsFolder, List<EObject> list) {
         if(!list.isEmpty()) {
             for(EObject object : list) {
                 if(object instanceof IArchimateConcept) {
-                	writeElement(new File(elementsFolder, ((IIdentifier) object).getId() + ".html"), stFrame, object); //$NON-NLS-1$
+                    String id = ((IIdentifier) object).getId();
+                    File elementFile = new File(elementsFolder, id + ".html"); //$NON-NLS-1$
+                    if(isChanged("element:" + id, object, elementFile)) { //$NON-NLS-1$
+                        submitElement(elementFile, object);
+                    }
                 }
             }
         }
     }
     
+    /**
+     * Write a single element on a worker thread
+     */
+    private void submitElement(File elementFile, EObject component) {
+        fFutures.add(fPagesExecutor.submit(() -> {
+            writeElement(elementFile, component);
+            return null;
+        }));
+    }
+    
     /**
      * Write a single element
      */
-    private void writeElement(File elementFile, ST stFrame, EObject component) throws IOException {
-        OutputStreamWriter elementW = new OutputStreamWriter(new FileOutputStream(elementFile), "UTF8"); //$NON-NLS-1$
+    private void writeElement(File elementFile, EObject component) throws IOException {
+        ST stFrame = fFrames.get();
         stFrame.remove("element"); //$NON-NLS-1$
         //frame.remove("children");
         stFrame.add("element", component); //$NON-NLS-1$
-        elementW.write(stFrame.render());
-        elementW.close();
+        writeFile(elementFile, stFrame.render());
     }
     
     /**
      * Write diagrams
      */
-    private void writeDiagrams(File imagesFolder, File viewsFolder, ST stFrame) throws IOException {
+    private void writeDiagrams(File imagesFolder, File viewsFolder) throws IOException {
         if(fModel.getDiagramModels().isEmpty()) {
             return;
         }
 
-        // Save images
-        saveImages(imagesFolder);
+        // Save images of changed diagrams
+        List<IDiagramModel> changedDiagrams = saveImages(imagesFolder, viewsFolder);
 
-        for(IDiagramModel dm : fModel.getDiagramModels()) {
+        for(IDiagramModel dm : changedDiagrams) {
             // Add the necessary bounds in order to get correct absolute coordinates for the elements in the generated image
             Rectangle bounds = diagramBoundsMap.get(dm);
             
@@ -281,68 +451,151 @@ public class HTMLReportExporter {
             for(IDiagramModelObject dmo: dm.getChildren() ) {
                 addNewBounds(dmo, bounds.x * -1, bounds.y * -1);
             }
-
+        }
+        
+        // The bounds map is complete and not changed from here on so the view pages can read it on worker threads
+        for(IDiagramModel dm : changedDiagrams) {
             File viewF = new File(viewsFolder, dm.getId() + ".html"); //$NON-NLS-1$
-            OutputStreamWriter viewW = new OutputStreamWriter(new FileOutputStream(viewF), "UTF8"); //$NON-NLS-1$
-            
-            stFrame.remove("element"); //$NON-NLS-1$
-            stFrame.add("element", dm); //$NON-NLS-1$
-            
-            stFrame.remove("map"); //$NON-NLS-1$
-            stFrame.add("map", childBoundsMap); //$NON-NLS-1$
             
-            viewW.write(stFrame.render());
-            viewW.close();
+            fFutures.add(fPagesExecutor.submit(() -> {
+                writeDiagram(viewF, dm);
+                return null;
+            }));
         }
     }
     
     /**
-     * Save diagram images
+     * Write a single diagram
      */
-    private void saveImages(File imagesFolder) {
+    private void writeDiagram(File viewFile, IDiagramModel dm) throws IOException {
+        ST stFrame = fFrames.get();
+        
+        stFrame.remove("element"); //$NON-NLS-1$
+        stFrame.add("element", dm); //$NON-NLS-1$
+        
+        stFrame.remove("map"); //$NON-NLS-1$
+        stFrame.add("map", childBoundsMap); //$NON-NLS-1$
+        
+        writeFile(viewFile, stFrame.render());
+    }
+    
+    /**
+     * Write a page
+     */
+    private void writeFile(File file, String content) throws IOException {
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF8"))) { //$NON-NLS-1$
+            writer.write(content);
+        }
+        fPageCount.incrementAndGet();
+    }
+    
+    /**
+     * Save diagram images.
+     * Images have to be rendered on this thread but are encoded and saved as PNG files on worker threads
+     * @return The diagrams whose images were saved, and whose view pages have to be written
+     */
+    private List<IDiagramModel> saveImages(File imagesFolder, File viewsFolder) throws IOException {
+        List<IDiagramModel> changedDiagrams = new ArrayList<IDiagramModel>();
+        
         // Use this to generate unique name for image file
-        Hashtable<IDiagramModel, String> nameTable = new Hashtable<IDiagramModel, String>();
+        Set<String> usedNames = new HashSet<String>();
         
         int nameCount = 1;
         
-        for(IDiagramModel dm : fModel.getDiagramModels()) {
-            ModelReferencedImage geoImage = DiagramUtils.createModelReferencedImage(dm, 1, 10);
-            Image image = geoImage.getImage();
-            
-            // Generate file name
-            String diagramName = dm.getId();
-            if(StringUtils.isSet(diagramName)) {
-                // removed this because ids can have hyphens in them (when imported from TOG format)
-                // Let's hope that ids are filename friendly...
-                //diagramName = FileUtils.getValidFileName(diagramName);
+        // Images waiting to be saved, limited so that we don't hold too many decoded images in memory
+        Deque<Future<?>> pendingImages = new ArrayDeque<Future<?>>();
+        
+        // Re-use one renderer for all of the diagrams
+        DiagramImageRenderer renderer = new DiagramImageRenderer();
+        
+        try {
+            for(IDiagramModel dm : fModel.getDiagramModels()) {
+                // Generate file name
+                String diagramName = dm.getId();
+                if(StringUtils.isSet(diagramName)) {
+                    // removed this because ids can have hyphens in them (when imported from TOG format)
+                    // Let's hope that ids are filename friendly...
+                    //diagramName = FileUtils.getValidFileName(diagramName);
                 
-                int j = 2;
-                String s = diagramName + ".png";  //$NON-NLS-1$
-                while(nameTable.containsValue(s)) {
-                    s = diagramName + "_" + j++ + ".png"; //$NON-NLS-1$ //$NON-NLS-2$
+                    int j = 2;
+                    String s = diagramName + ".png";  //$NON-NLS-1$
+                    while(usedNames.contains(s)) {
+                        s = diagramName + "_" + j++ + ".png"; //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    diagramName = s;
+                }
+                else {
+                    diagramName = Messages.HTMLReportExporter_1 + " " + nameCount++ + ".png";  //$NON-NLS-1$//$NON-NLS-2$
                 }
-                diagramName = s;
-            }
-            else {
-                diagramName = Messages.HTMLReportExporter_1 + " " + nameCount++ + ".png";  //$NON-NLS-1$//$NON-NLS-2$
-            }
 
-            nameTable.put(dm, diagramName);
+                usedNames.add(diagramName);
+            
+                File file = new File(imagesFolder, diagramName);
+            
+                // Diagram has not changed since the last report
+                if(!isChanged("view:" + dm.getId(), dm, file, new File(viewsFolder, dm.getId() + ".html"))) { //$NON-NLS-1$ //$NON-NLS-2$
+                    continue;
+                }
+            
+                changedDiagrams.add(dm);
+            
+                ModelReferencedImage geoImage = renderer.createModelReferencedImage(dm, 1, 10);
+                Image image = geoImage.getImage();
 
-            // Get and store the bounds of the top-left element in the figure to act as overall x,y offset
-            Rectangle bounds = geoImage.getBounds();
-            bounds.performScale(ImageFactory.getDeviceZoom() / 100); // Account for device zoom level
-            diagramBoundsMap.put(dm, bounds);
+                // Get and store the bounds of the top-left element in the figure to act as overall x,y offset
+                Rectangle bounds = geoImage.getBounds();
+                bounds.performScale(ImageFactory.getDeviceZoom() / 100); // Account for device zoom level
+                diagramBoundsMap.put(dm, bounds);
 
-            try {
-                ImageLoader loader = new ImageLoader();
-                loader.data = new ImageData[] { image.getImageData(ImageFactory.getDeviceZoom()) };
-                File file = new File(imagesFolder, diagramName);
-                loader.save(file.getAbsolutePath(), SWT.IMAGE_PNG);
+                ImageData imageData;
+                try {
+                    imageData = image.getImageData(ImageFactory.getDeviceZoom());
+                }
+                finally {
+                    image.dispose();
+                }
+            
+                Future<?> future = fImagesExecutor.submit(() -> {
+                    ImageLoader loader = new ImageLoader();
+                    loader.data = new ImageData[] { imageData };
+                    loader.save(file.getAbsolutePath(), SWT.IMAGE_PNG);
+                });
+            
+                fFutures.add(future);
+                pendingImages.add(future);
+            
+                while(pendingImages.size() > MAX_PENDING_IMAGES) {
+                    waitFor(pendingImages.removeFirst());
+                }
+            }
+        }
+        finally {
+            renderer.dispose();
+        }
+        
+        return changedDiagrams;
+    }
+    
+    /**
+     * Wait for a page or image to be written and re-throw any exception from writing it
+     */
+    private void waitFor(Future<?> future) throws IOException {
+        try {
+            future.get();
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        catch(ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException)cause;
             }
-            finally {
-                image.dispose();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
             }
+            throw new IOException(cause);
         }
     }
     
@@ -0,0 +1,214 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.reports.html;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+
+import com.archimatetool.model.IProperties;
+import com.archimatetool.model.IProperty;
+
+
+/**
+ * Manifest of content fingerprints of the pages and images of an HTML report.
+ * 
+ * The manifest is saved alongside the report so that the next time the report is created
+ * only the pages and images of objects whose fingerprint has changed need to be written again.
+ * 
+ * A fingerprint is a digest of the values of an object and all of its child objects,
+ * and the values of the objects that they reference such as the source and target of a relation,
+ * or the concept shown by a diagram object. Changes to preferences such as default fonts and colours
+ * are not part of a fingerprint so a full report should be created when these change.
+ * 
+ * @author Phillip Beauvoir
+ */
+public class ReportManifest {
+    
+    static final String MANIFEST_FILE = "report.manifest"; //$NON-NLS-1$
+    
+    /**
+     * Key of the report format. If this is different to the saved one then all fingerprints are discarded.
+     */
+    static final String FORMAT_KEY = "format"; //$NON-NLS-1$
+    
+    private File fFile;
+    private String fFormat;
+    
+    private Properties fOldFingerprints = new Properties();
+    private Properties fNewFingerprints = new Properties();
+    
+    /**
+     * @param file The manifest file
+     * @param format A string identifying the report format, such as the version of the templates and the image scale
+     */
+    public ReportManifest(File file, String format) {
+        fFile = file;
+        fFormat = format;
+        fNewFingerprints.setProperty(FORMAT_KEY, format);
+    }
+    
+    /**
+     * Load the fingerprints saved by the last report, if any
+     */
+    public void load() throws IOException {
+        fOldFingerprints.clear();
+        
+        if(!fFile.exists()) {
+            return;
+        }
+        
+        try(InputStream in = new FileInputStream(fFile)) {
+            fOldFingerprints.load(in);
+        }
+        
+        // Different format so start again
+        if(!fFormat.equals(fOldFingerprints.getProperty(FORMAT_KEY))) {
+            fOldFingerprints.clear();
+        }
+    }
+    
+    /**
+     * Save the fingerprints added with {@link #update(String, String)}
+     */
+    public void save() throws IOException {
+        try(OutputStream out = new FileOutputStream(fFile)) {
+            fNewFingerprints.store(out, null);
+        }
+    }
+    
+    /**
+     * Set the new fingerprint for a key
+     * @return true if the fingerprint is different to the one that was loaded
+     */
+    public boolean update(String key, String fingerprint) {
+        fNewFingerprints.setProperty(key, fingerprint);
+        return !fingerprint.equals(fOldFingerprints.getProperty(key));
+    }
+    
+    /**
+     * Keep the fingerprint that was loaded for a key so that it is saved again without being updated
+     */
+    public void retain(String key) {
+        String fingerprint = fOldFingerprints.getProperty(key);
+        if(fingerprint != null) {
+            fNewFingerprints.setProperty(key, fingerprint);
+        }
+    }
+    
+    /**
+     * @return The keys of the fingerprints that were loaded
+     */
+    public Set<String> getLoadedKeys() {
+        Set<String> keys = new HashSet<>(fOldFingerprints.stringPropertyNames());
+        keys.remove(FORMAT_KEY);
+        return keys;
+    }
+    
+    /**
+     * @return The fingerprint of an object, its child objects and the objects that they reference
+     */
+    public static String getFingerprint(EObject eObject) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+        }
+        catch(NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        
+        addContents(digest, eObject);
+        
+        for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+            addContents(digest, iter.next());
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        for(byte b : digest.digest()) {
+            sb.append(String.format("%02x", b)); //$NON-NLS-1$
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Add the values of an object and of the objects that it references
+     */
+    private static void addContents(MessageDigest digest, EObject eObject) {
+        addValues(digest, eObject);
+        
+        for(EReference reference : eObject.eClass().getEAllReferences()) {
+            if(reference.isContainment() || reference.isContainer() || reference.isTransient() || reference.isDerived()) {
+                continue;
+            }
+            
+            Object value = eObject.eGet(reference);
+            
+            if(value instanceof List<?>) {
+                for(Object o : (List<?>)value) {
+                    addReferencedObject(digest, o);
+                }
+            }
+            else {
+                addReferencedObject(digest, value);
+            }
+        }
+    }
+    
+    /**
+     * Add the values and properties of a referenced object
+     */
+    private static void addReferencedObject(MessageDigest digest, Object object) {
+        if(!(object instanceof EObject)) {
+            add(digest, null);
+            return;
+        }
+        
+        addValues(digest, (EObject)object);
+        
+        if(object instanceof IProperties) {
+            for(IProperty property : ((IProperties)object).getProperties()) {
+                addValues(digest, property);
+            }
+        }
+    }
+    
+    /**
+     * Add the class and attribute values, including the ID, of an object
+     */
+    private static void addValues(MessageDigest digest, EObject eObject) {
+        add(digest, eObject.eClass().getName());
+        
+        for(EAttribute attribute : eObject.eClass().getEAllAttributes()) {
+            if(!attribute.isTransient() && !attribute.isDerived()) {
+                add(digest, String.valueOf(eObject.eGet(attribute)));
+            }
+        }
+    }
+    
+    private static void add(MessageDigest digest, String s) {
+        if(s != null) {
+            digest.update(s.getBytes(StandardCharsets.UTF_8));
+        }
+        // Separator so that adjacent values can't run into each other
+        digest.update((byte)0);
+    }
+}
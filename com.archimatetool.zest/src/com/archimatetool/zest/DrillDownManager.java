@@ -63,16 +63,24 @@ public class DrillDownManager implements ISelectionChangedListener {
         fHomeConcept = concept;
         fCurrentConcept = concept;
         
-        setGraphViewerInput(concept);
-        
         fBackStack.clear();
-        restoreLastState();
-        updateNavigationButtons();
+        
+        setGraphViewerInput(concept);
     }
     
+    /**
+     * Set the input of the graph viewer when its relationships have been found in the background,
+     * and then restore its node positions and update the navigation buttons and the View
+     */
     private void setGraphViewerInput(Object object) {
         ((ZestViewerLabelProvider)fGraphViewer.getLabelProvider()).setFocusElement(object);
-        fGraphViewer.setInput(object);
+        
+        fGraphViewer.setInputInBackground(object, () -> {
+            restoreLastState();
+            updateNavigationButtons();
+            fView.updateLabel();
+            fView.updateActions();
+        });
     }
     
     IArchimateConcept getCurrentConcept() {
@@ -106,12 +114,6 @@ public class DrillDownManager implements ISelectionChangedListener {
             fBackStack.push(fCurrentConcept);
             fCurrentConcept = concept;
             setGraphViewerInput(concept);
-            
-            updateNavigationButtons();
-            
-            restoreLastState();
-            
-            fView.updateLabel();
         }
     }
     
@@ -128,12 +130,6 @@ public class DrillDownManager implements ISelectionChangedListener {
             
             fCurrentConcept = concept;
             setGraphViewerInput(concept);
-            
-            updateNavigationButtons();
-            
-            restoreLastState();
-            
-            fView.updateLabel();
         }
     }
 
@@ -150,14 +146,16 @@ public class DrillDownManager implements ISelectionChangedListener {
     }
 
     void saveCurrentState() {
-        if(fCurrentConcept == null) {
+        // The concept shown in the graph. This is not the current concept if the current concept's relationships are still being found.
+        Object input = fGraphViewer.getInput();
+        if(input == null) {
             return;
         }
         
-        NodePositions pos = fPositions.get(fCurrentConcept);
+        NodePositions pos = fPositions.get(input);
         if(pos == null) {
             pos = new NodePositions();
-            fPositions.put(fCurrentConcept, pos);
+            fPositions.put(input, pos);
         }
         pos.saveNodePositions();
     }
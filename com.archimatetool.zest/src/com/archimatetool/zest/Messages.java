@@ -48,6 +48,8 @@ public class Messages extends NLS {
 
 	public static String ZestView_35;
 
+	public static String ZestView_36;
+
     public static String ZestView_4;
 
 	public static String ZestView_5;
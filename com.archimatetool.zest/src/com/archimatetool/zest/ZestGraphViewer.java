@@ -5,6 +5,11 @@
  */
 package com.archimatetool.zest;
 
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.eclipse.draw2d.Viewport;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
@@ -14,12 +19,17 @@ import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.events.MouseWheelListener;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.zest.core.viewers.GraphViewer;
 import org.eclipse.zest.core.widgets.ZestStyles;
 
+import com.archimatetool.editor.Logger;
 import com.archimatetool.editor.diagram.util.AnimationUtil;
 import com.archimatetool.editor.preferences.IPreferenceConstants;
 import com.archimatetool.editor.preferences.Preferences;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.zest.ZestViewerContentProvider.Relations;
+import com.archimatetool.zest.ZestViewerContentProvider.RelationsTask;
 
 
 
@@ -46,6 +56,21 @@ public class ZestGraphViewer extends GraphViewer {
         }
     };
     
+    /**
+     * Finds the relationships of a new input in the background
+     */
+    private ExecutorService fExecutor = Executors.newSingleThreadExecutor();
+    
+    /**
+     * Incremented when the input is set so that relationships found in the background for an earlier input are not used
+     */
+    private int fInputCount;
+    
+    /**
+     * The last task finding relationships in the background, cancelled when the input is set again
+     */
+    private Future<?> fFuture;
+    
     public ZestGraphViewer(Composite composite, int style) {
         super(composite, style);
         setContentProvider(new ZestViewerContentProvider());
@@ -64,6 +89,7 @@ public class ZestGraphViewer extends GraphViewer {
             @Override
             public void widgetDisposed(DisposeEvent e) {
                 Preferences.STORE.removePropertyChangeListener(prefsListener);
+                fExecutor.shutdownNow();
             }
         });
         
@@ -94,6 +120,82 @@ public class ZestGraphViewer extends GraphViewer {
     void doApplyLayout() {
         super.applyLayout();
     }
+    
+    @Override
+    public void setInput(Object input) {
+        fInputCount++;
+        cancelBackgroundTask();
+        super.setInput(input);
+    }
+    
+    private void cancelBackgroundTask() {
+        if(fFuture != null) {
+            fFuture.cancel(true);
+            fFuture = null;
+        }
+    }
+    
+    /**
+     * Find the relationships of an element with the content provider's current settings in a background thread,
+     * and then set the input on the UI thread. This keeps the UI responsive when the element has many relationships.
+     * If the input is set again before then the background task is cancelled and this input is not set.
+     * @param input The new input
+     * @param afterSetInput Run on the UI thread after the input has been set. This can be null.
+     */
+    void setInputInBackground(Object input, Runnable afterSetInput) {
+        // Nothing to find
+        if(!(input instanceof IArchimateElement)) {
+            setInput(input);
+            if(afterSetInput != null) {
+                afterSetInput.run();
+            }
+            return;
+        }
+        
+        int inputCount = ++fInputCount;
+        cancelBackgroundTask();
+        
+        RelationsTask task = ((ZestViewerContentProvider)getContentProvider()).createRelationsTask((IArchimateElement)input);
+        Display display = getControl().getDisplay();
+        
+        fFuture = fExecutor.submit(() -> {
+            Relations relations = null;
+            try {
+                relations = task.call();
+                
+                // Cancelled
+                if(relations == null) {
+                    return;
+                }
+            }
+            catch(ConcurrentModificationException ex) {
+                // The model was changed while finding the relationships, so find them again on the UI thread
+            }
+            catch(RuntimeException ex) {
+                Logger.logError("Could not find relationships in background", ex); //$NON-NLS-1$
+                // Find them again on the UI thread
+            }
+            
+            if(display.isDisposed()) {
+                return;
+            }
+            
+            Relations result = relations;
+            
+            display.asyncExec(() -> {
+                if(inputCount != fInputCount || getControl().isDisposed()) {
+                    return;
+                }
+                
+                ((ZestViewerContentProvider)getContentProvider()).setNextRelations(result);
+                setInput(input);
+                
+                if(afterSetInput != null) {
+                    afterSetInput.run();
+                }
+            });
+        });
+    }
 
     @Override
     public void applyLayout() {
@@ -30,6 +30,7 @@ import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CLabel;
 import org.eclipse.swt.layout.GridData;
@@ -209,7 +210,14 @@ implements IZestView, ISelectionListener {
         String viewPointName = getContentProvider().getViewpointFilter().getName();
        	String relationshipName = getRelationshipFilterName(getContentProvider().getRelationshipFilter());	
         
-        fLabel.setText(text + " (" + Messages.ZestView_5 + ": " + viewPointName + ", " + Messages.ZestView_6 + ": " + relationshipName + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        text += " (" + Messages.ZestView_5 + ": " + viewPointName + ", " + Messages.ZestView_6 + ": " + relationshipName + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        
+        // Too many concepts to show
+        if(getContentProvider().isTruncated()) {
+            text += " - " + NLS.bind(Messages.ZestView_36, ZestViewerContentProvider.MAX_CONCEPTS); //$NON-NLS-1$
+        }
+        
+        fLabel.setText(text);
         fLabel.setImage(ArchiLabelProvider.INSTANCE.getImage(fDrillDownManager.getCurrentConcept()));
     }
 
@@ -342,16 +350,13 @@ implements IZestView, ISelectionListener {
         IAction act = new Action(Messages.ZestView_3 + " " + depth, IAction.AS_RADIO_BUTTON) { //$NON-NLS-1$
             @Override
             public void run() {
-                IStructuredSelection selection = (IStructuredSelection)fGraphViewer.getSelection();
                 // set depth
                 int depth = Integer.valueOf(getId());
                 getContentProvider().setDepth(depth);
                 // store in prefs
                 ArchiZestPlugin.INSTANCE.getPreferenceStore().setValue(IPreferenceConstants.VISUALISER_DEPTH, depth);
                 // update viewer
-                fGraphViewer.setInput(fGraphViewer.getInput());
-                fGraphViewer.setSelection(selection);
-                fGraphViewer.doApplyLayout();
+                updateInput();
             }
         };
 
@@ -370,11 +375,7 @@ implements IZestView, ISelectionListener {
                 ArchiZestPlugin.INSTANCE.getPreferenceStore().setValue(IPreferenceConstants.VISUALISER_VIEWPOINT, vp.getID());
 
                 // update viewer
-            	fGraphViewer.setInput(fGraphViewer.getInput());
-                IStructuredSelection selection = (IStructuredSelection)fGraphViewer.getSelection();
-                fGraphViewer.setSelection(selection);
-                fGraphViewer.doApplyLayout();
-                updateLabel();
+                updateInput();
             }
         };
         
@@ -395,11 +396,7 @@ implements IZestView, ISelectionListener {
                 ArchiZestPlugin.INSTANCE.getPreferenceStore().setValue(IPreferenceConstants.VISUALISER_RELATIONSHIP, id);
 
                 // update viewer
-            	fGraphViewer.setInput(fGraphViewer.getInput());
-                IStructuredSelection selection = (IStructuredSelection)fGraphViewer.getSelection();
-                fGraphViewer.setSelection(selection);
-                fGraphViewer.doApplyLayout();
-                updateLabel();
+                updateInput();
             }
 
     	};
@@ -413,15 +410,12 @@ implements IZestView, ISelectionListener {
         IAction act = new Action(label, IAction.AS_RADIO_BUTTON) {
             @Override
             public void run() {
-            	IStructuredSelection selection = (IStructuredSelection)fGraphViewer.getSelection();
             	// Set orientation 
                 getContentProvider().setDirection(orientation);
             	// Store in prefs
                 ArchiZestPlugin.INSTANCE.getPreferenceStore().setValue(IPreferenceConstants.VISUALISER_DIRECTION, actionId);
                 // update viewer
-            	fGraphViewer.setInput(fGraphViewer.getInput());
-                fGraphViewer.setSelection(selection);
-                fGraphViewer.doApplyLayout();
+                updateInput();
             }
         };
         
@@ -430,6 +424,19 @@ implements IZestView, ISelectionListener {
         return act;
     }
     
+    /**
+     * Set the input again when the content provider's settings have changed, keeping the selection
+     */
+    private void updateInput() {
+        IStructuredSelection selection = (IStructuredSelection)fGraphViewer.getSelection();
+        
+        fGraphViewer.setInputInBackground(fDrillDownManager.getCurrentConcept(), () -> {
+            fGraphViewer.setSelection(selection);
+            fGraphViewer.doApplyLayout();
+            updateLabel();
+        });
+    }
+    
     private String getRelationshipFilterName(EClass relationClass) {
         return relationClass == null ? Messages.ZestView_7: ArchiLabelProvider.INSTANCE.getDefaultName(relationClass);
     }
@@ -5,8 +5,14 @@
  */
 package com.archimatetool.zest;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.jface.viewers.Viewer;
@@ -15,7 +21,6 @@ import org.eclipse.zest.core.viewers.IGraphContentProvider;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateRelationship;
-import com.archimatetool.model.util.ArchimateModelUtils;
 import com.archimatetool.model.viewpoints.IViewpoint;
 import com.archimatetool.model.viewpoints.ViewpointManager;
 
@@ -30,12 +35,53 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
 	final static int DIR_BOTH = 1;
 	final static int DIR_IN = 2;
 	final static int DIR_OUT = 3;
+	
+    /**
+     * Maximum number of concepts in the graph. More than this can't be laid out and drawn in a reasonable time.
+     */
+    final static int MAX_CONCEPTS = 500;
+    
+    /**
+     * Relationships of an element found with the settings at the time, and whether they were truncated at MAX_CONCEPTS
+     */
+    static class Relations {
+        private final Object input;
+        private final Object[] relationships;
+        private final boolean truncated;
+        
+        Relations(Object input, Object[] relationships, boolean truncated) {
+            this.input = input;
+            this.relationships = relationships;
+            this.truncated = truncated;
+        }
+        
+        Object getInput() {
+            return input;
+        }
+        
+        Object[] getRelationships() {
+            return relationships;
+        }
+        
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
     
     private int fDepth = 0;
     private IViewpoint fViewpoint = ViewpointManager.NONE_VIEWPOINT;
     private EClass fRelationshipClass;
     private int fDirection = DIR_BOTH;
     
+    private int fMaxConcepts = MAX_CONCEPTS;
+    
+    /**
+     * Relations found in the background to use for the next input
+     */
+    private Relations fNextRelations;
+    
+    private boolean fTruncated;
+    
     public void setViewpointFilter(IViewpoint vp) {
         assert(vp != null);
         fViewpoint = vp;
@@ -71,6 +117,24 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
         return fDepth;
     }
     
+    void setMaxConcepts(int maxConcepts) {
+        fMaxConcepts = maxConcepts;
+    }
+    
+    /**
+     * @return true if the relationships of the last input were truncated because there were more than MAX_CONCEPTS concepts
+     */
+    public boolean isTruncated() {
+        return fTruncated;
+    }
+    
+    /**
+     * Set relations found by a task created with createRelationsTask() so that they are used for the next input if it's the same
+     */
+    void setNextRelations(Relations relations) {
+        fNextRelations = relations;
+    }
+    
     @Override
     public void dispose() {
     }
@@ -81,6 +145,16 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
     
     @Override
     public Object[] getElements(Object inputElement) {
+        fTruncated = false;
+        
+        // Found in the background
+        Relations relations = fNextRelations;
+        fNextRelations = null;
+        if(relations != null && relations.getInput() == inputElement) {
+            fTruncated = relations.isTruncated();
+            return relations.getRelationships();
+        }
+        
         if(inputElement instanceof IArchimateConcept) {
             IArchimateConcept archimateConcept = (IArchimateConcept)inputElement;
             
@@ -96,9 +170,12 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
 
             // Element - Get its relationships
             if(archimateConcept instanceof IArchimateElement) {
-                List<IArchimateRelationship> mainList = new ArrayList<IArchimateRelationship>();
-                getRelations(mainList, new ArrayList<IArchimateConcept>(), archimateConcept, 0);
-                return mainList.toArray();
+                relations = createRelationsTask(archimateConcept).call();
+                if(relations == null) {
+                    return new Object[0];
+                }
+                fTruncated = relations.isTruncated();
+                return relations.getRelationships();
             }
         }
         
@@ -106,39 +183,11 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
     }
     
     /**
-     * Get all relations from source and target of concept and add to list, no more than DEPTH
+     * Create a task that finds the relationships of an element with the current settings.
+     * The task doesn't use this provider so it can be run in a background thread while the settings are changed.
      */
-    private void getRelations(List<IArchimateRelationship> mainList, List<IArchimateConcept> checkList, IArchimateConcept concept, int count) {
-        if(checkList.contains(concept)) {
-            return;
-        }
-        
-        checkList.add(concept);
-        
-        if(count > fDepth) {
-            return;
-        }
-        
-        count++;
-        
-        List<IArchimateRelationship> allRelationships = ArchimateModelUtils.getAllRelationshipsForConcept(concept);
-        
-        for(IArchimateRelationship relationship : allRelationships) {
-            IArchimateConcept other = relationship.getSource().equals(concept) ? relationship.getTarget() : relationship.getSource();
-            int direction = relationship.getSource().equals(concept) ? DIR_OUT : DIR_IN;
-
-            if(!mainList.contains(relationship) && fViewpoint.isAllowedConcept(other.eClass()) && !isFilteredByRelationship(relationship)) {
-                if(direction == fDirection || fDirection == DIR_BOTH) {
-                    mainList.add(relationship);
-                }
-            }
-
-            if(fViewpoint.isAllowedConcept(other.eClass()) && !isFilteredByRelationship(relationship)) {
-                if(direction == fDirection || fDirection == DIR_BOTH) {
-                    getRelations(mainList, checkList, other, count);
-                }
-            }
-        }
+    RelationsTask createRelationsTask(IArchimateElement element) {
+        return new RelationsTask(element, fDepth, fViewpoint, fRelationshipClass, fDirection, fMaxConcepts);
     }
     
     @Override
@@ -157,11 +206,96 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
         return null;
     }
     
-	private boolean isFilteredByRelationship(IArchimateRelationship relation) {
-		if(fRelationshipClass == null){
-			return false;
-		}
-		return fRelationshipClass != relation.eClass();
-	}
+    /**
+     * Finds the relationships of an element, and of the concepts that they connect to, no more than depth steps away.
+     * This is a breadth-first search so that each concept is reached at its least depth, and is visited once.
+     * It stops adding concepts when there are maxConcepts so that a hub element with thousands of relationships doesn't hang the UI.
+     * If the thread is interrupted it stops and call() returns null.
+     */
+    static class RelationsTask implements Callable<Relations> {
+        private IArchimateElement element;
+        private int depth;
+        private IViewpoint viewpoint;
+        private EClass relationshipClass;
+        private int direction;
+        private int maxConcepts;
+        
+        private Set<IArchimateConcept> visitedConcepts = Collections.newSetFromMap(new IdentityHashMap<>());
+        private Set<IArchimateRelationship> addedRelationships = Collections.newSetFromMap(new IdentityHashMap<>());
+        private List<IArchimateRelationship> relationships = new ArrayList<>();
+        private Deque<IArchimateConcept> nextConcepts = new ArrayDeque<>();
+        private boolean truncated;
+        
+        RelationsTask(IArchimateElement element, int depth, IViewpoint viewpoint, EClass relationshipClass, int direction, int maxConcepts) {
+            this.element = element;
+            this.depth = depth;
+            this.viewpoint = viewpoint;
+            this.relationshipClass = relationshipClass;
+            this.direction = direction;
+            this.maxConcepts = maxConcepts;
+        }
+        
+        @Override
+        public Relations call() {
+            // Check if it was deleted
+            if(element.eContainer() == null) {
+                return new Relations(element, new Object[0], false);
+            }
+            
+            visitedConcepts.add(element);
+            nextConcepts.add(element);
+            
+            for(int i = 0; i <= depth && !nextConcepts.isEmpty(); i++) {
+                Deque<IArchimateConcept> concepts = nextConcepts;
+                nextConcepts = new ArrayDeque<>();
+                
+                for(IArchimateConcept concept : concepts) {
+                    // Cancelled because there is a new input
+                    if(Thread.currentThread().isInterrupted()) {
+                        return null;
+                    }
+                    
+                    for(IArchimateRelationship relationship : concept.getSourceRelationships()) {
+                        addRelationship(concept, relationship);
+                    }
+                    for(IArchimateRelationship relationship : concept.getTargetRelationships()) {
+                        addRelationship(concept, relationship);
+                    }
+                }
+            }
+            
+            return new Relations(element, relationships.toArray(), truncated);
+        }
+        
+        private void addRelationship(IArchimateConcept concept, IArchimateRelationship relationship) {
+            boolean isSource = relationship.getSource() == concept;
+            IArchimateConcept other = isSource ? relationship.getTarget() : relationship.getSource();
+            
+            if(!viewpoint.isAllowedConcept(other.eClass()) || isFiltered(relationship)) {
+                return;
+            }
+            
+            if(direction != DIR_BOTH && direction != (isSource ? DIR_OUT : DIR_IN)) {
+                return;
+            }
+            
+            if(!visitedConcepts.contains(other)) {
+                if(visitedConcepts.size() >= maxConcepts) {
+                    truncated = true;
+                    return;
+                }
+                visitedConcepts.add(other);
+                nextConcepts.add(other);
+            }
+            
+            if(addedRelationships.add(relationship)) {
+                relationships.add(relationship);
+            }
+        }
+        
+        private boolean isFiltered(IArchimateRelationship relationship) {
+            return relationshipClass != null && relationshipClass != relationship.eClass();
+        }
+    }
 
 }
@@ -9,18 +9,34 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.archimatetool.csv.CSVConstants;
+import com.archimatetool.editor.model.IEditorModelManager;
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateFactory;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IFolder;
 import com.archimatetool.model.IProperty;
+import com.archimatetool.model.ModelVersion;
+import com.archimatetool.model.util.ArchimateResourceFactory;
+import com.archimatetool.tests.TestUtils;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -32,11 +48,12 @@ public class CSVExporterTests {
         return new JUnit4TestAdapter(CSVExporterTests.class);
     }
     
+    private IArchimateModel model;
     private CSVExporter exporter;
     
     @Before
     public void runOnceBeforeEachTest() {
-        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
         model.setId("0a9d34ab");
         model.setName("The Main Model");
         model.setPurpose("This is the Documentation");
@@ -217,6 +234,206 @@ public class CSVExporterTests {
         assertEquals(element1, list.get(3));
     }
     
+    @Test
+    public void testExport() throws Exception {
+        List<IArchimateConcept> elements = createExportModel();
+        
+        File folder = TestUtils.createTempFolder("csvexport");
+        
+        try {
+            exporter.export(folder);
+            
+            // Elements are sorted
+            List<IArchimateConcept> sorted = new ArrayList<IArchimateConcept>(elements);
+            exporter.sort(sorted);
+            
+            StringBuilder expected = new StringBuilder(exporter.createHeader(CSVConstants.MODEL_ELEMENTS_HEADER));
+            expected.append(CSVConstants.CRLF).append(exporter.createModelRow());
+            for(IArchimateConcept concept : sorted) {
+                expected.append(CSVConstants.CRLF).append(exporter.createElementRow((IArchimateElement)concept));
+            }
+            assertEquals(expected.toString(), readFile(new File(folder, "elements.csv")));
+            
+            // Properties are in model order
+            expected = new StringBuilder(exporter.createHeader(CSVConstants.PROPERTIES_HEADER));
+            for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+                EObject eObject = iter.next();
+                if(eObject instanceof IArchimateConcept) {
+                    IArchimateConcept concept = (IArchimateConcept)eObject;
+                    for(IProperty property : concept.getProperties()) {
+                        expected.append(CSVConstants.CRLF).append(exporter.createPropertyRow(concept.getId(), property));
+                    }
+                }
+            }
+            assertEquals(expected.toString(), readFile(new File(folder, "properties.csv")));
+            
+            // Relations
+            assertEquals(exporter.createHeader(CSVConstants.RELATIONSHIPS_HEADER), readFile(new File(folder, "relations.csv")));
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    @Test
+    public void testExport_NoSort() throws Exception {
+        List<IArchimateConcept> elements = createExportModel();
+        
+        File folder = TestUtils.createTempFolder("csvexport");
+        
+        try {
+            exporter.setSortConcepts(false);
+            exporter.export(folder);
+            
+            // Elements are in folder order, a folder's elements before its child folders' elements
+            StringBuilder expected = new StringBuilder(exporter.createHeader(CSVConstants.MODEL_ELEMENTS_HEADER));
+            expected.append(CSVConstants.CRLF).append(exporter.createModelRow());
+            for(IArchimateConcept concept : elements) {
+                expected.append(CSVConstants.CRLF).append(exporter.createElementRow((IArchimateElement)concept));
+            }
+            assertEquals(expected.toString(), readFile(new File(folder, "elements.csv")));
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    @Test
+    public void testExport_ModelFile() throws Exception {
+        createExportModel();
+        
+        IArchimateElement source = (IArchimateElement)model.getFolder(FolderType.BUSINESS).getElements().get(0);
+        IArchimateElement target = (IArchimateElement)model.getFolder(FolderType.BUSINESS).getElements().get(1);
+        IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        relation.connect(source, target);
+        model.getFolder(FolderType.RELATIONS).getElements().add(relation);
+        
+        IProperty property = IArchimateFactory.eINSTANCE.createProperty();
+        property.setKey("modelKey");
+        property.setValue("modelValue");
+        model.getProperties().add(property);
+        
+        File folder = TestUtils.createTempFolder("csvexport");
+        File modelFile = new File(folder, "model.archimate");
+        File loadedFolder = new File(folder, "loaded");
+        File streamedFolder = new File(folder, "streamed");
+        loadedFolder.mkdirs();
+        streamedFolder.mkdirs();
+        
+        try {
+            model.setVersion(ModelVersion.VERSION);
+            Resource resource = ArchimateResourceFactory.createNewResource(modelFile);
+            resource.getContents().add(model);
+            resource.save(null);
+            
+            exporter.setSortConcepts(false);
+            exporter.export(loadedFolder);
+            new CSVExporter(modelFile).export(streamedFolder);
+            
+            // Only the three csv files and no temporary files
+            assertEquals(3, streamedFolder.list().length);
+            
+            // Elements are in model file order so compare the rows but not their order. The model row is first.
+            String loaded = readFile(new File(loadedFolder, "elements.csv"));
+            String streamed = readFile(new File(streamedFolder, "elements.csv"));
+            assertEquals(loaded.substring(0, loaded.indexOf(CSVConstants.CRLF, loaded.indexOf(CSVConstants.CRLF) + 1)),
+                         streamed.substring(0, streamed.indexOf(CSVConstants.CRLF, streamed.indexOf(CSVConstants.CRLF) + 1)));
+            assertEquals(sortedRows(loaded), sortedRows(streamed));
+            
+            // Relations and properties are the same
+            assertEquals(readFile(new File(loadedFolder, "relations.csv")), readFile(new File(streamedFolder, "relations.csv")));
+            assertEquals(readFile(new File(loadedFolder, "properties.csv")), readFile(new File(streamedFolder, "properties.csv")));
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    @Test
+    public void testExport_ModelFile_OtherModelVersionIsLoaded() throws Exception {
+        createExportModel();
+        
+        File folder = TestUtils.createTempFolder("csvexport");
+        File modelFile = new File(folder, "model.archimate");
+        File loadedFolder = new File(folder, "loaded");
+        File streamedFolder = new File(folder, "streamed");
+        loadedFolder.mkdirs();
+        streamedFolder.mkdirs();
+        
+        try {
+            // An earlier model version needs the compatibility conversions when loaded so is not streamed
+            model.setVersion("4.0.0");
+            Resource resource = ArchimateResourceFactory.createNewResource(modelFile);
+            resource.getContents().add(model);
+            resource.save(null);
+            
+            exporter.export(loadedFolder);
+            new CSVExporter(modelFile).export(streamedFolder);
+            
+            assertTrue(IEditorModelManager.INSTANCE.isModelLoaded(modelFile));
+            
+            // Loaded models are sorted so the files are the same
+            assertEquals(3, streamedFolder.list().length);
+            assertEquals(readFile(new File(loadedFolder, "elements.csv")), readFile(new File(streamedFolder, "elements.csv")));
+            assertEquals(readFile(new File(loadedFolder, "relations.csv")), readFile(new File(streamedFolder, "relations.csv")));
+            assertEquals(readFile(new File(loadedFolder, "properties.csv")), readFile(new File(streamedFolder, "properties.csv")));
+        }
+        finally {
+            IEditorModelManager.INSTANCE.getModels().removeIf(m -> modelFile.equals(m.getFile()));
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    private List<String> sortedRows(String s) {
+        List<String> rows = new ArrayList<String>(Arrays.asList(s.split(CSVConstants.CRLF)));
+        Collections.sort(rows);
+        return rows;
+    }
+    
+    /**
+     * Add elements with properties to the Business folder and a child folder
+     * @return The elements in folder order
+     */
+    private List<IArchimateConcept> createExportModel() {
+        model.setDefaults();
+        
+        List<IArchimateConcept> elements = new ArrayList<IArchimateConcept>();
+        
+        IFolder businessFolder = model.getFolder(FolderType.BUSINESS);
+        IFolder childFolder = IArchimateFactory.eINSTANCE.createFolder();
+        businessFolder.getFolders().add(childFolder);
+        
+        String[] names = { "ZZ", "AA", "MM" };
+        
+        for(int i = 0; i < names.length; i++) {
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            element.setName(names[i]);
+            IProperty property = IArchimateFactory.eINSTANCE.createProperty();
+            property.setKey("key");
+            property.setValue(names[i]);
+            element.getProperties().add(property);
+            businessFolder.getElements().add(element);
+            elements.add(element);
+        }
+        
+        for(int i = 0; i < names.length; i++) {
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessRole();
+            element.setName(names[i]);
+            IProperty property = IArchimateFactory.eINSTANCE.createProperty();
+            property.setKey("key");
+            property.setValue(names[i]);
+            element.getProperties().add(property);
+            childFolder.getElements().add(element);
+            elements.add(element);
+        }
+        
+        return elements;
+    }
+    
+    private String readFile(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+    
     @Test
     public void testCreateElementsFileName() {
         assertEquals("elements.csv", exporter.createElementsFileName());
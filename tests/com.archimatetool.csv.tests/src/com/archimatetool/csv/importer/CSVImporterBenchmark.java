@@ -0,0 +1,116 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.csv.importer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.gef.commands.CommandStack;
+import org.junit.Test;
+
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of importing generated elements, relations and properties CSV files of increasing size.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the timings.
+ */
+@SuppressWarnings("nls")
+public class CSVImporterBenchmark {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(CSVImporterBenchmark.class);
+    }
+
+    @Test
+    public void benchmarkImport_10k() throws Exception {
+        benchmarkImport(10_000);
+    }
+
+    @Test
+    public void benchmarkImport_50k() throws Exception {
+        benchmarkImport(50_000);
+    }
+
+    @Test
+    public void benchmarkImport_200k() throws Exception {
+        benchmarkImport(200_000);
+    }
+
+    private void benchmarkImport(int numberOfRows) throws Exception {
+        File folder = TestUtils.createTempFolder("csvbenchmark");
+        File elementsFile = new File(folder, "elements.csv");
+
+        try {
+            createCSVFiles(folder, numberOfRows);
+
+            IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+            model.setDefaults();
+            model.setAdapter(CommandStack.class, new CommandStack());
+
+            // New concepts and properties
+            long start = System.currentTimeMillis();
+            new CSVImporter(model).doImport(elementsFile);
+            System.out.println("Imported " + numberOfRows + " elements, relations and properties in " + (System.currentTimeMillis() - start) + " ms");
+
+            assertEquals(numberOfRows, model.getFolder(FolderType.BUSINESS).getElements().size());
+            assertEquals(numberOfRows, model.getFolder(FolderType.RELATIONS).getElements().size());
+
+            // Import again so that all concepts and properties are updated
+            start = System.currentTimeMillis();
+            new CSVImporter(model).doImport(elementsFile);
+            System.out.println("Re-imported " + numberOfRows + " elements, relations and properties in " + (System.currentTimeMillis() - start) + " ms");
+
+            assertEquals(numberOfRows, model.getFolder(FolderType.BUSINESS).getElements().size());
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+
+    /**
+     * Create elements, relations and properties files each with numberOfRows rows.
+     * Relations connect each element to the next one, and properties are spread over the elements with several keys per element.
+     */
+    static void createCSVFiles(File folder, int numberOfRows) throws IOException {
+        try(Writer writer = newWriter(new File(folder, "elements.csv"))) {
+            writer.write("\"ID\",\"Type\",\"Name\",\"Documentation\"\r\n");
+            for(int i = 0; i < numberOfRows; i++) {
+                writer.write("\"e" + i + "\",\"BusinessActor\",\"Actor " + i + "\",\"Documentation " + i + "\"\r\n");
+            }
+        }
+
+        try(Writer writer = newWriter(new File(folder, "relations.csv"))) {
+            writer.write("\"ID\",\"Type\",\"Name\",\"Documentation\",\"Source\",\"Target\"\r\n");
+            for(int i = 0; i < numberOfRows; i++) {
+                writer.write("\"r" + i + "\",\"AssociationRelationship\",\"Relation " + i + "\",\"\",\"e" + i + "\",\"e" + ((i + 1) % numberOfRows) + "\"\r\n");
+            }
+        }
+
+        try(Writer writer = newWriter(new File(folder, "properties.csv"))) {
+            writer.write("\"ID\",\"Key\",\"Value\"\r\n");
+            for(int i = 0; i < numberOfRows; i++) {
+                writer.write("\"e" + (i / 4) + "\",\"Key " + (i % 4) + "\",\"Value " + i + "\"\r\n");
+            }
+        }
+    }
+
+    private static Writer newWriter(File file) throws IOException {
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -13,6 +13,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.nio.file.Files;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -389,6 +390,35 @@ public class CSVImporterTests {
         assertTrue(importer.isArchimateRelationshipEClass(IArchimatePackage.eINSTANCE.getAccessRelationship()));
     }
     
+    @Test
+    public void testGetDelimiter() throws Exception {
+        File file = TestUtils.createTempFile(".csv");
+        
+        Files.write(file.toPath(), "\"ID\",\"Type\",\"Name\",\"Documentation\"\r\n\"id1\",\"BusinessActor\",\"a;b;c;d;e\",\"\"".getBytes("UTF-8"));
+        assertEquals(',', importer.getDelimiter(file));
+        
+        Files.write(file.toPath(), "\"ID\";\"Type\";\"Name, with, commas\";\"Documentation\"\r\n".getBytes("UTF-8"));
+        assertEquals(';', importer.getDelimiter(file));
+        
+        Files.write(file.toPath(), "ID\tType\tName\tDocumentation\r\nid1,x,y,z\tBusinessActor\t\t".getBytes("UTF-8"));
+        assertEquals('\t', importer.getDelimiter(file));
+        
+        // Nothing found so default to a comma
+        Files.write(file.toPath(), "".getBytes("UTF-8"));
+        assertEquals(',', importer.getDelimiter(file));
+    }
+    
+    @Test
+    public void testImportElements_Semicolon() throws Exception {
+        File file = TestUtils.createTempFile(".csv");
+        Files.write(file.toPath(), "\"ID\";\"Type\";\"Name\";\"Documentation\"\r\n\"id1\";\"BusinessActor\";\"Actor, Name\";\"Docs\"\r\n".getBytes("UTF-8"));
+        
+        importer.importElements(file);
+        
+        assertEquals(1, importer.newConcepts.size());
+        assertEquals("Actor, Name", importer.newConcepts.get("id1").getName());
+    }
+    
     @Test
     public void testGetProperty() {
         IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
@@ -400,4 +430,19 @@ public class CSVImporterTests {
         assertEquals(property, importer.getProperty(element, "key"));
         assertNull(importer.getProperty(element, "key2"));
     }
+    
+    @Test
+    public void testGetProperty_FirstKeyIsFound() {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        
+        IProperty property1 = IArchimateFactory.eINSTANCE.createProperty();
+        property1.setKey("key");
+        element.getProperties().add(property1);
+        
+        IProperty property2 = IArchimateFactory.eINSTANCE.createProperty();
+        property2.setKey("key");
+        element.getProperties().add(property2);
+        
+        assertEquals(property1, importer.getProperty(element, "key"));
+    }
 }
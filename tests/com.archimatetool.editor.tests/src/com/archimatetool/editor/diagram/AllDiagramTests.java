@@ -16,7 +16,9 @@ import com.archimatetool.editor.diagram.policies.AllPoliciesTests;
 import com.archimatetool.editor.diagram.sketch.AllSketchTests;
 import com.archimatetool.editor.diagram.tools.FormatPainterInfoTests;
 import com.archimatetool.editor.diagram.tools.FormatPainterToolTests;
+import com.archimatetool.editor.diagram.util.DiagramImageRendererTests;
 import com.archimatetool.editor.diagram.util.DiagramUtilsTests;
+import com.archimatetool.editor.diagram.util.TiledImageWriterTests;
 
 @SuppressWarnings("nls")
 public class AllDiagramTests {
@@ -54,7 +56,9 @@ public class AllDiagramTests {
 		suite.addTest(FormatPainterToolTests.suite());
 
         // diagram.util
+        suite.addTest(DiagramImageRendererTests.suite());
         suite.addTest(DiagramUtilsTests.suite());
+        suite.addTest(TiledImageWriterTests.suite());
 
         return suite;
 	}
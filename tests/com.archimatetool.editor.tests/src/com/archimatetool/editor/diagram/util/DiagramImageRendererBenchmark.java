@@ -0,0 +1,119 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.util;
+
+import org.eclipse.swt.graphics.Image;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelArchimateConnection;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of creating images of all the Views in generated models with DiagramUtils, which creates a Shell and GraphicalViewer for each View,
+ * and with a DiagramImageRenderer that is re-used for each View, reporting Views per second.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the timings.
+ */
+@SuppressWarnings("nls")
+public class DiagramImageRendererBenchmark {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(DiagramImageRendererBenchmark.class);
+    }
+    
+    private static final int ELEMENTS_PER_VIEW = 40;
+
+    @BeforeClass
+    public static void runOnceBeforeAllTests() {
+        TestUtils.ensureDefaultDisplay(); // Need to do this if running only these tests
+    }
+    
+    @Test
+    public void benchmarkCreateImages_100() {
+        benchmarkCreateImages(100);
+    }
+
+    @Test
+    public void benchmarkCreateImages_500() {
+        benchmarkCreateImages(500);
+    }
+
+    private void benchmarkCreateImages(int numberOfViews) {
+        IArchimateModel model = createModel(numberOfViews);
+        
+        long start = System.currentTimeMillis();
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            DiagramUtils.createImage(dm, 1, 10).dispose();
+        }
+        long diagramUtilsTime = Math.max(1, System.currentTimeMillis() - start);
+        
+        DiagramImageRenderer renderer = new DiagramImageRenderer();
+        start = System.currentTimeMillis();
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            Image image = renderer.createImage(dm, 1, 10);
+            image.dispose();
+        }
+        long rendererTime = Math.max(1, System.currentTimeMillis() - start);
+        renderer.dispose();
+        
+        System.out.println("Created images of " + numberOfViews + " views:");
+        System.out.println("  DiagramUtils: " + diagramUtilsTime + " ms (" + (numberOfViews * 1000L / diagramUtilsTime) + " views per second)");
+        System.out.println("  DiagramImageRenderer: " + rendererTime + " ms (" + (numberOfViews * 1000L / rendererTime) + " views per second)");
+    }
+    
+    /**
+     * Create a model with Views that each show some elements with a connection from each element to the next one
+     */
+    static IArchimateModel createModel(int numberOfViews) {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        
+        for(int i = 0; i < numberOfViews; i++) {
+            IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+            dm.setName("View " + i);
+            model.getFolder(FolderType.DIAGRAMS).getElements().add(dm);
+            
+            IDiagramModelArchimateObject previous = null;
+            
+            for(int j = 0; j < ELEMENTS_PER_VIEW; j++) {
+                IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+                element.setName("Actor " + i + "-" + j);
+                model.getFolder(FolderType.BUSINESS).getElements().add(element);
+                
+                IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+                dmo.setArchimateElement(element);
+                dmo.setBounds((j % 8) * 150, (j / 8) * 80, 120, 55);
+                dm.getChildren().add(dmo);
+                
+                if(previous != null) {
+                    IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+                    relation.connect(previous.getArchimateElement(), element);
+                    model.getFolder(FolderType.RELATIONS).getElements().add(relation);
+                    
+                    IDiagramModelArchimateConnection connection = IArchimateFactory.eINSTANCE.createDiagramModelArchimateConnection();
+                    connection.setArchimateRelationship(relation);
+                    connection.connect(previous, dmo);
+                }
+                
+                previous = dmo;
+            }
+        }
+        
+        return model;
+    }
+}
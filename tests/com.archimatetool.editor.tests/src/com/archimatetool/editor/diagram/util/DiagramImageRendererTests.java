@@ -0,0 +1,223 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.Rectangle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.archimatetool.editor.TestSupport;
+import com.archimatetool.editor.ui.ImageFactory;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelArchimateConnection;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IDiagramModelGroup;
+import com.archimatetool.testingtools.ArchimateTestModel;
+
+import junit.framework.JUnit4TestAdapter;
+
+/**
+ * DiagramImageRendererTests
+ * 
+ * @author Phillip Beauvoir
+ */
+@SuppressWarnings("nls")
+public class DiagramImageRendererTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(DiagramImageRendererTests.class);
+    }
+    
+    private static IArchimateModel model;
+    
+    private DiagramImageRenderer renderer;
+    
+    @BeforeClass
+    public static void runOnceBeforeAllTests() throws IOException {
+        ArchimateTestModel tm = new ArchimateTestModel(TestSupport.TEST_MODEL_FILE_1);
+        model = tm.loadModel();
+    }
+    
+    @Before
+    public void runBeforeEachTest() {
+        renderer = new DiagramImageRenderer();
+    }
+    
+    @After
+    public void runAfterEachTest() {
+        renderer.dispose();
+    }
+
+    @Test
+    public void testCreateImage_NoChildren() {
+        // This is the blank View
+        IDiagramModel dm = model.getDiagramModels().get(0);
+        
+        Image img = renderer.createImage(dm, 1, 0);
+        assertEquals(new Rectangle(0, 0, 100, 100), img.getBounds());
+        img.dispose();
+        
+        img = renderer.createImage(dm, 0.5, 10);
+        assertEquals(new Rectangle(0, 0, 50, 50), img.getBounds());
+        img.dispose();
+    }
+    
+    @Test
+    public void testCreateImage_SameSizeAsDiagramUtils() {
+        // Render each View in turn with the same renderer, including a Sketch View
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            Image expected = DiagramUtils.createImage(dm, 1, 10);
+            Image img = renderer.createImage(dm, 1, 10);
+            
+            assertEquals(expected.getBounds(), img.getBounds());
+            
+            expected.dispose();
+            img.dispose();
+        }
+    }
+    
+    @Test
+    public void testCreateImage_SamePixelsAsDiagramUtils() {
+        IDiagramModel dm = createDiagramModelWithNestedAndConnectedFigures();
+        
+        // Render another View first so that the renderer is re-used
+        renderer.createImage(model.getDiagramModels().get(3), 1, 10).dispose();
+        
+        Image expected = DiagramUtils.createImage(dm, 1, 10);
+        Image img = renderer.createImage(dm, 1, 10);
+        
+        assertSameImageData(expected.getImageData(ImageFactory.getDeviceZoom()), img.getImageData(ImageFactory.getDeviceZoom()));
+        
+        expected.dispose();
+        img.dispose();
+    }
+    
+    @Test
+    public void testCreateImage_SamePixelsAsDiagramUtils_Scaled() {
+        IDiagramModel dm = createDiagramModelWithNestedAndConnectedFigures();
+        
+        Image expected = DiagramUtils.createImage(dm, 0.5, 10);
+        Image img = renderer.createImage(dm, 0.5, 10);
+        
+        assertSameImageData(expected.getImageData(ImageFactory.getDeviceZoom()), img.getImageData(ImageFactory.getDeviceZoom()));
+        
+        expected.dispose();
+        img.dispose();
+    }
+    
+    @Test
+    public void testCreateModelReferencedImage_SameBoundsAsDiagramUtils() {
+        IDiagramModel dm = model.getDiagramModels().get(3);
+        
+        ModelReferencedImage expected = DiagramUtils.createModelReferencedImage(dm, 1, 10);
+        ModelReferencedImage image = renderer.createModelReferencedImage(dm, 1, 10);
+        
+        assertEquals(expected.getBounds(), image.getBounds());
+        
+        expected.getImage().dispose();
+        image.getImage().dispose();
+    }
+    
+    @Test
+    public void testCreateImage_DoesNotAddAdaptersToModel() {
+        int adapters = countAdapters();
+        
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            renderer.createImage(dm, 1, 10).dispose();
+        }
+        
+        assertEquals(adapters, countAdapters());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testCreateImage_Disposed() {
+        renderer.dispose();
+        renderer.createImage(model.getDiagramModels().get(0), 1, 0);
+    }
+    
+    /**
+     * A View with a Group containing a nested element, and connections between top level and nested elements
+     */
+    private IDiagramModel createDiagramModelWithNestedAndConnectedFigures() {
+        ArchimateTestModel tm = new ArchimateTestModel();
+        tm.createSimpleModel();
+        IArchimateDiagramModel dm = tm.addNewArchimateDiagramModel();
+        
+        IDiagramModelGroup group = IArchimateFactory.eINSTANCE.createDiagramModelGroup();
+        group.setName("Group");
+        group.setBounds(20, 20, 300, 200);
+        dm.getChildren().add(group);
+        
+        IArchimateElement actor = IArchimateFactory.eINSTANCE.createBusinessActor();
+        actor.setName("Actor");
+        IDiagramModelArchimateObject dmo1 = tm.createDiagramModelArchimateObjectAndAddToModel(actor);
+        dmo1.setBounds(400, 50, 120, 55);
+        dm.getChildren().add(dmo1);
+        
+        IArchimateElement role = IArchimateFactory.eINSTANCE.createBusinessRole();
+        role.setName("Role");
+        IDiagramModelArchimateObject dmo2 = tm.createDiagramModelArchimateObjectAndAddToModel(role);
+        dmo2.setBounds(30, 40, 120, 55);
+        group.getChildren().add(dmo2);
+        
+        IArchimateElement process = IArchimateFactory.eINSTANCE.createBusinessProcess();
+        process.setName("Process");
+        IDiagramModelArchimateObject dmo3 = tm.createDiagramModelArchimateObjectAndAddToModel(process);
+        dmo3.setBounds(200, 300, 120, 55);
+        dm.getChildren().add(dmo3);
+        
+        IArchimateRelationship assignment = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        assignment.connect(actor, role);
+        IDiagramModelArchimateConnection conn1 = tm.createDiagramModelArchimateConnectionAndAddToModel(assignment);
+        conn1.connect(dmo1, dmo2);
+        
+        IArchimateRelationship serving = IArchimateFactory.eINSTANCE.createServingRelationship();
+        serving.connect(role, process);
+        IDiagramModelArchimateConnection conn2 = tm.createDiagramModelArchimateConnectionAndAddToModel(serving);
+        conn2.connect(dmo2, dmo3);
+        
+        return dm;
+    }
+    
+    private void assertSameImageData(ImageData expected, ImageData actual) {
+        assertEquals(expected.width, actual.width);
+        assertEquals(expected.height, actual.height);
+        
+        for(int y = 0; y < expected.height; y++) {
+            for(int x = 0; x < expected.width; x++) {
+                assertEquals("Pixel at " + x + "," + y,
+                        expected.palette.getRGB(expected.getPixel(x, y)), actual.palette.getRGB(actual.getPixel(x, y)));
+            }
+        }
+    }
+    
+    private int countAdapters() {
+        int count = model.eAdapters().size();
+        
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            count += iter.next().eAdapters().size();
+        }
+        
+        assertTrue(count > 0);
+        return count;
+    }
+}
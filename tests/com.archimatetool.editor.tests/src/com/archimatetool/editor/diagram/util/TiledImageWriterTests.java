@@ -0,0 +1,144 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FreeformLayer;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.editor.ui.ImageFactory;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+/**
+ * TiledImageWriterTests
+ * 
+ * @author Phillip Beauvoir
+ */
+@SuppressWarnings("nls")
+public class TiledImageWriterTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(TiledImageWriterTests.class);
+    }
+    
+    private IFigure rootFigure;
+    private File file;
+    
+    @Before
+    public void runBeforeEachTest() throws IOException {
+        rootFigure = new FreeformLayer();
+        rootFigure.setBounds(new Rectangle(0, 0, 2000, 2000));
+        
+        // Bigger than one tile in both directions, with a figure across the edges of the tiles
+        rootFigure.add(createFigure(new Rectangle(20, 30, 1200, 700), ColorConstants.red));
+        rootFigure.add(createFigure(new Rectangle(400, 450, 300, 200), ColorConstants.blue));
+        
+        file = TestUtils.createTempFile(null);
+    }
+    
+    @After
+    public void runAfterEachTest() {
+        file.delete();
+    }
+
+    @Test
+    public void testWritePNG() throws Exception {
+        testWrite(SWT.IMAGE_PNG, 1);
+    }
+
+    @Test
+    public void testWritePNG_Scaled() throws Exception {
+        testWrite(SWT.IMAGE_PNG, 2);
+    }
+
+    @Test
+    public void testWriteBMP() throws Exception {
+        testWrite(SWT.IMAGE_BMP, 1);
+    }
+
+    @Test
+    public void testWriteBMP_Scaled() throws Exception {
+        testWrite(SWT.IMAGE_BMP, 0.5);
+    }
+    
+    @Test
+    public void testWritePNG_BandsSmallerThanTile() throws Exception {
+        testWrite(SWT.IMAGE_PNG, 1, 50);
+    }
+
+    @Test
+    public void testWriteBMP_BandsSmallerThanTile() throws Exception {
+        testWrite(SWT.IMAGE_BMP, 1, 50);
+    }
+
+    @Test
+    public void testWritePNG_OneRowBands() throws Exception {
+        testWrite(SWT.IMAGE_PNG, 0.5, 1);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrite_UnsupportedFormat() throws Exception {
+        new TiledImageWriter(rootFigure, 1, 10).write(file, SWT.IMAGE_JPEG);
+    }
+    
+    private void testWrite(int format, double scale) throws Exception {
+        testWrite(format, scale, 0);
+    }
+    
+    /**
+     * @param bandRows If more than 0 the band buffer is limited to this number of rows
+     */
+    private void testWrite(int format, double scale, int bandRows) throws Exception {
+        TiledImageWriter writer = new TiledImageWriter(rootFigure, scale, 10);
+        if(bandRows > 0) {
+            writer.setMaxBandBytes(writer.getWidth() * 3 * bandRows);
+        }
+        writer.write(file, format);
+        
+        // Same as an image of the whole figure
+        Image image = DiagramUtils.createImage(rootFigure, scale, 10);
+        ImageData expected = image.getImageData(ImageFactory.getDeviceZoom());
+        image.dispose();
+        
+        ImageData actual = new ImageData(file.getPath());
+        
+        assertEquals(expected.width, writer.getWidth());
+        assertEquals(expected.height, writer.getHeight());
+        assertEquals(expected.width, actual.width);
+        assertEquals(expected.height, actual.height);
+        
+        for(int y = 0; y < expected.height; y++) {
+            for(int x = 0; x < expected.width; x++) {
+                assertEquals("Pixel at " + x + "," + y,
+                        expected.palette.getRGB(expected.getPixel(x, y)), actual.palette.getRGB(actual.getPixel(x, y)));
+            }
+        }
+    }
+    
+    private IFigure createFigure(Rectangle bounds, Color color) {
+        IFigure figure = new Figure();
+        figure.setBounds(bounds);
+        figure.setOpaque(true);
+        figure.setBackgroundColor(color);
+        return figure;
+    }
+}
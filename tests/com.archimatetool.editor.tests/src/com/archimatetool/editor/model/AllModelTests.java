@@ -12,6 +12,8 @@ import com.archimatetool.editor.model.compatibility.handlers.FixDefaultSizesHand
 import com.archimatetool.editor.model.impl.ArchiveManagerTests;
 import com.archimatetool.editor.model.impl.ByteArrayStorageTests;
 import com.archimatetool.editor.model.impl.EditorModelManagerTests;
+import com.archimatetool.editor.model.impl.ImageDataCacheTests;
+import com.archimatetool.editor.model.impl.ModelSnapshotTests;
 
 import junit.framework.TestSuite;
 
@@ -41,6 +43,8 @@ public class AllModelTests {
         suite.addTest(ArchiveManagerTests.suite());
         suite.addTest(ByteArrayStorageTests.suite());
 		suite.addTest(EditorModelManagerTests.suite());
+        suite.addTest(ImageDataCacheTests.suite());
+        suite.addTest(ModelSnapshotTests.suite());
 		
 		return suite;
 	}
@@ -6,12 +6,16 @@
 package com.archimatetool.editor.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -25,6 +29,7 @@ import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IAssignmentRelationship;
 import com.archimatetool.model.IDiagramModelArchimateConnection;
 import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IFolder;
 import com.archimatetool.testingtools.ArchimateTestModel;
 import com.archimatetool.tests.TestData;
 
@@ -168,5 +173,86 @@ public class ModelCheckerTests {
         assertTrue(messages.get(3).startsWith("Diagram Connection has orphaned ArchiMate target element in 'dm'"));
         assertTrue(messages.get(4).startsWith("Diagram Element has orphaned ArchiMate element in 'dm'"));
     }
+    
+    @Test
+    public void checkAll_FindsAllErrors() {
+        model.getDefaultDiagramModel().setName("dm");
+        
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        model.getFolder(FolderType.BUSINESS).getElements().add(element);
+        IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dmo.setArchimateElement(element);
+        model.getDefaultDiagramModel().getChildren().add(dmo);
+        
+        tm.createModelElementAndAddToModel(IArchimatePackage.eINSTANCE.getAssociationRelationship());
+        
+        assertFalse(modelChecker.checkAll());
+        assertEquals(2, modelChecker.getErrorMessages().size());
+        
+        model.getFolder(FolderType.BUSINESS).getElements().remove(element);
+        model.getFolder(FolderType.MOTIVATION).setId(null);
+        
+        assertFalse(modelChecker.checkAll());
+        
+        // Messages are in the same order as the individual checks
+        List<String> messages = new ArrayList<>();
+        messages.addAll(modelChecker.checkHasIdentifiers());
+        messages.addAll(modelChecker.checkRelationsHaveElements());
+        messages.addAll(modelChecker.checkDiagramObjectsReferences());
+        assertEquals(4, messages.size());
+        assertEquals(messages, modelChecker.getErrorMessages());
+    }
+    
+    @Test
+    public void checkChanges() {
+        // Forward notifications to the checker
+        model.eAdapters().add(new EContentAdapter() {
+            @Override
+            public void notifyChanged(Notification msg) {
+                super.notifyChanged(msg);
+                modelChecker.notifyChanged(msg);
+            }
+        });
+        
+        model.getDefaultDiagramModel().setName("dm");
+        
+        // Not checked yet so the whole model is checked
+        model.getFolder(FolderType.MOTIVATION).eSetDeliver(false);
+        model.getFolder(FolderType.MOTIVATION).setId(null);
+        model.getFolder(FolderType.MOTIVATION).eSetDeliver(true);
+        assertFalse(modelChecker.checkChanges());
+        assertEquals(1, modelChecker.getErrorMessages().size());
+        
+        // Once cleared only changed objects are checked so the unchanged folder is not reported
+        modelChecker.clearChanges();
+        assertTrue(modelChecker.checkChanges());
+        
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        model.getFolder(FolderType.BUSINESS).getElements().add(element);
+        IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dmo.setArchimateElement(element);
+        model.getDefaultDiagramModel().getChildren().add(dmo);
+        assertTrue(modelChecker.checkChanges());
+        modelChecker.clearChanges();
+        
+        // Removing the element orphans the unchanged diagram object
+        model.getFolder(FolderType.BUSINESS).getElements().remove(element);
+        assertFalse(modelChecker.checkChanges());
+        assertEquals(1, modelChecker.getErrorMessages().size());
+        assertTrue(modelChecker.getErrorMessages().get(0).startsWith("Diagram Element has orphaned ArchiMate element in 'dm'"));
+        
+        // Added objects are checked with their child objects
+        model.getDefaultDiagramModel().getChildren().remove(dmo);
+        modelChecker.clearChanges();
+        IFolder folder = IArchimateFactory.eINSTANCE.createFolder();
+        IArchimateElement child = IArchimateFactory.eINSTANCE.createBusinessRole();
+        folder.getElements().add(child);
+        model.getFolder(FolderType.BUSINESS).getFolders().add(folder);
+        child.eSetDeliver(false);
+        child.setId(null);
+        child.eSetDeliver(true);
+        assertFalse(modelChecker.checkChanges());
+        assertEquals(1, modelChecker.getErrorMessages().size());
+    }
 
 }
\ No newline at end of file
@@ -9,26 +9,37 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.eclipse.gef.commands.Command;
+import org.eclipse.gef.commands.CommandStack;
 import org.eclipse.gef.commands.CompoundCommand;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.archimatetool.editor.model.IEditorModelManager;
+import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IDiagramModel;
 import com.archimatetool.model.IFolder;
+import com.archimatetool.model.IIdentifier;
 import com.archimatetool.testingtools.ArchimateTestModel;
 import com.archimatetool.tests.TestData;
 
@@ -136,6 +147,43 @@ public class CommandsTests {
         assertEquals(1, parent.getFolders().indexOf(folder));
     }
     
+    @Test
+    public void testObjectIndexConsistentAfterDeleteUndoRedo() {
+        IFolder folder = (IFolder)tm.getObjectByID("403e5717");
+        assertNotNull(folder);
+        
+        List<IIdentifier> children = new ArrayList<>();
+        children.add(folder);
+        for(Iterator<EObject> iter = folder.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IIdentifier) {
+                children.add((IIdentifier)eObject);
+            }
+        }
+        assertTrue(children.size() > 1);
+        
+        CommandStack stack = new CommandStack();
+        stack.execute(new DeleteFolderCommand(folder));
+        for(IIdentifier child : children) {
+            assertNull(model.getObjectByID(child.getId()));
+        }
+        
+        stack.undo();
+        for(IIdentifier child : children) {
+            assertSame(child, model.getObjectByID(child.getId()));
+        }
+        
+        stack.redo();
+        for(IIdentifier child : children) {
+            assertNull(model.getObjectByID(child.getId()));
+        }
+        
+        stack.undo();
+        for(IIdentifier child : children) {
+            assertSame(child, model.getObjectByID(child.getId()));
+        }
+    }
+    
     @Test
     public void testEObjectFeatureCommand() {
         assertEquals("Archisurance", model.getName());
@@ -220,4 +268,178 @@ public class CommandsTests {
         IEditorModelManager.INSTANCE.removePropertyChangeListener(listener);
     }
 
+    @Test
+    public void testNonNotifyingCompoundCommand_Nested() {
+        final List<String> events = new ArrayList<>();
+        
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                events.add(evt.getPropertyName());
+            }
+        };
+        
+        IEditorModelManager.INSTANCE.addPropertyChangeListener(listener);
+        
+        CompoundCommand innerCmd = new NonNotifyingCompoundCommand("inner");
+        innerCmd.add(new EObjectFeatureCommand("Rename", model, IArchimatePackage.Literals.NAMEABLE__NAME, "Hello1"));
+        
+        CompoundCommand compoundCmd = new NonNotifyingCompoundCommand("outer");
+        compoundCmd.add(innerCmd);
+        compoundCmd.add(new EObjectFeatureCommand("Rename", model, IArchimatePackage.Literals.NAMEABLE__NAME, "Hello2"));
+        
+        compoundCmd.execute();
+        assertFalse(NonNotifyingCompoundCommand.isBatching());
+        
+        // Only the outer command fires start and end
+        assertEquals(2, events.size());
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_START, events.get(0));
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_END, events.get(1));
+        
+        IEditorModelManager.INSTANCE.removePropertyChangeListener(listener);
+    }
+
+    @Test
+    public void testNonNotifyingCompoundCommand_EndIsFiredOnException() {
+        final List<String> events = new ArrayList<>();
+        
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                events.add(evt.getPropertyName());
+            }
+        };
+        
+        IEditorModelManager.INSTANCE.addPropertyChangeListener(listener);
+        
+        CompoundCommand compoundCmd = new NonNotifyingCompoundCommand("command");
+        compoundCmd.add(new Command() {
+            @Override
+            public void execute() {
+                assertTrue(NonNotifyingCompoundCommand.isBatching());
+                throw new RuntimeException("Failed");
+            }
+        });
+        
+        try {
+            compoundCmd.execute();
+            fail("Expected exception");
+        }
+        catch(RuntimeException ex) {
+            assertEquals("Failed", ex.getMessage());
+        }
+        
+        assertFalse(NonNotifyingCompoundCommand.isBatching());
+        assertEquals(2, events.size());
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_START, events.get(0));
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_END, events.get(1));
+        
+        // The next command starts a new batch
+        CompoundCommand nextCmd = new NonNotifyingCompoundCommand("next");
+        nextCmd.add(new EObjectFeatureCommand("Rename", model, IArchimatePackage.Literals.NAMEABLE__NAME, "Hello1"));
+        nextCmd.execute();
+        assertEquals(4, events.size());
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_START, events.get(2));
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_END, events.get(3));
+        
+        IEditorModelManager.INSTANCE.removePropertyChangeListener(listener);
+    }
+
+    @Test
+    public void testNotificationBatcher_DeliversStraightAwayOutsideBatch() {
+        List<Notification> received = new ArrayList<>();
+        NotificationBatcher batcher = new NotificationBatcher(received::add);
+        model.eAdapters().add(createAdapter(batcher));
+        
+        new EObjectFeatureCommand("Rename", model, IArchimatePackage.Literals.NAMEABLE__NAME, "Hello").execute();
+        
+        assertEquals(1, received.size());
+        assertFalse(batcher.hasBufferedNotifications());
+    }
+
+    @Test
+    public void testNotificationBatcher_DeliversCoalescedBatchBeforeEnd() {
+        final List<Object> received = new ArrayList<>();
+        
+        NotificationBatcher batcher = new NotificationBatcher(received::add);
+        IFolder folder = model.getFolder(FolderType.BUSINESS);
+        model.eAdapters().add(createAdapter(batcher));
+        folder.eAdapters().add(createAdapter(batcher));
+        
+        PropertyChangeListener listener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                received.add(evt.getPropertyName());
+            }
+        };
+        
+        IEditorModelManager.INSTANCE.addPropertyChangeListener(listener);
+        
+        CompoundCommand innerCmd = new NonNotifyingCompoundCommand("inner");
+        CompoundCommand compoundCmd = new NonNotifyingCompoundCommand("outer");
+        compoundCmd.add(innerCmd);
+        
+        for(int i = 1; i <= 3; i++) {
+            innerCmd.add(new EObjectFeatureCommand("Rename", model, IArchimatePackage.Literals.NAMEABLE__NAME, "Hello" + i));
+            
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            compoundCmd.add(new Command() {
+                @Override
+                public void execute() {
+                    folder.getElements().add(element);
+                    assertTrue(batcher.hasBufferedNotifications());
+                }
+            });
+        }
+        
+        compoundCmd.execute();
+        
+        // One SET of the name with the last value and one change to the folder's elements, then END
+        assertEquals(4, received.size());
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_START, received.get(0));
+        
+        Notification msg = (Notification)received.get(1);
+        assertSame(model, msg.getNotifier());
+        assertEquals(Notification.SET, msg.getEventType());
+        assertEquals("Hello3", msg.getNewStringValue());
+        
+        msg = (Notification)received.get(2);
+        assertSame(folder, msg.getNotifier());
+        assertSame(IArchimatePackage.Literals.FOLDER__ELEMENTS, msg.getFeature());
+        
+        assertEquals(IEditorModelManager.PROPERTY_ECORE_EVENTS_END, received.get(3));
+        assertFalse(batcher.hasBufferedNotifications());
+        
+        IEditorModelManager.INSTANCE.removePropertyChangeListener(listener);
+    }
+
+    @Test
+    public void testNotificationBatcher_ClearDiscardsBuffer() {
+        List<Notification> received = new ArrayList<>();
+        NotificationBatcher batcher = new NotificationBatcher(received::add);
+        model.eAdapters().add(createAdapter(batcher));
+        
+        CompoundCommand compoundCmd = new NonNotifyingCompoundCommand("command");
+        compoundCmd.add(new EObjectFeatureCommand("Rename", model, IArchimatePackage.Literals.NAMEABLE__NAME, "Hello"));
+        compoundCmd.add(new Command() {
+            @Override
+            public void execute() {
+                batcher.clear();
+            }
+        });
+        
+        compoundCmd.execute();
+        
+        assertTrue(received.isEmpty());
+    }
+    
+    private AdapterImpl createAdapter(NotificationBatcher batcher) {
+        return new AdapterImpl() {
+            @Override
+            public void notifyChanged(Notification msg) {
+                batcher.notifyChanged(msg);
+            }
+        };
+    }
+
 }
@@ -14,9 +14,17 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.swt.graphics.Image;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -24,6 +32,7 @@ import org.junit.rules.ExpectedException;
 
 import com.archimatetool.editor.TestSupport;
 import com.archimatetool.editor.model.IArchiveManager;
+import com.archimatetool.editor.utils.FileUtils;
 import com.archimatetool.model.IArchimateFactory;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IDiagramModel;
@@ -219,6 +228,147 @@ public class ArchiveManagerTests {
         file.delete();
     }
     
+    @Test
+    public void testSaveModel_NoTempFilesLeft() throws IOException {
+        File folder = TestUtils.createTempFolder("archivemanager");
+        File file = new File(folder, "test.archimate");
+        model.setFile(file);
+        
+        try {
+            // Save as XML and then as archive over the existing file
+            archiveManager.saveModel();
+            assertEquals(1, folder.listFiles().length);
+            
+            IDiagramModelImage dmImage = IArchimateFactory.eINSTANCE.createDiagramModelImage();
+            dm.getChildren().add(dmImage);
+            archiveManager.loadImagesFromModelFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+            dmImage.setImagePath(archiveManager.getLoadedImagePaths().get(0));
+            
+            archiveManager.saveModel();
+            assertEquals(1, folder.listFiles().length);
+            assertTrue(IArchiveManager.FACTORY.isArchiveFile(file));
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    @Test
+    public void testSaveModel_KeepsPermissions() throws IOException {
+        File file = TestUtils.createTempFile(".archimate");
+        model.setFile(file);
+        archiveManager.saveModel();
+        
+        Assume.assumeNotNull(Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class));
+        
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        
+        archiveManager.saveModel();
+        assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+        
+        file.delete();
+    }
+    
+    @Test
+    public void testSaveModel_SymbolicLink() throws IOException {
+        File folder = TestUtils.createTempFolder("archivemanager");
+        File file = new File(folder, "test.archimate");
+        File link = new File(folder, "link.archimate");
+        
+        try {
+            model.setFile(file);
+            archiveManager.saveModel();
+            
+            try {
+                Files.createSymbolicLink(link.toPath(), file.toPath());
+            }
+            catch(UnsupportedOperationException | IOException ex) {
+                Assume.assumeNoException(ex);
+            }
+            
+            // Save through the link and the link is kept and the file it links to is saved
+            model.setFile(link);
+            archiveManager.saveModel();
+            
+            assertTrue(Files.isSymbolicLink(link.toPath()));
+            assertEquals(2, folder.listFiles().length);
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    @Test
+    public void testSaveModel_HardLink() throws IOException {
+        File folder = TestUtils.createTempFolder("archivemanager");
+        File file = new File(folder, "test.archimate");
+        File link = new File(folder, "link.archimate");
+        
+        try {
+            model.setFile(file);
+            archiveManager.saveModel();
+            
+            try {
+                Files.createLink(link.toPath(), file.toPath());
+            }
+            catch(UnsupportedOperationException | IOException ex) {
+                Assume.assumeNoException(ex);
+            }
+            
+            // Save as an archive file and the other link has the new contents
+            IDiagramModelImage dmImage = IArchimateFactory.eINSTANCE.createDiagramModelImage();
+            dm.getChildren().add(dmImage);
+            archiveManager.loadImagesFromModelFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+            dmImage.setImagePath(archiveManager.getLoadedImagePaths().get(0));
+            archiveManager.saveModel();
+            
+            assertTrue(IArchiveManager.FACTORY.isArchiveFile(link));
+            assertEquals(2, folder.listFiles().length);
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+    
+    @Test
+    public void testSaveModel_ArchiveEntries() throws IOException {
+        File file = TestUtils.createTempFile(".archimate");
+        model.setFile(file);
+        
+        archiveManager.loadImagesFromModelFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+        
+        // Two images with the same path are only saved once
+        String imagePath = archiveManager.getLoadedImagePaths().get(0);
+        for(int i = 0; i < 2; i++) {
+            IDiagramModelImage dmImage = IArchimateFactory.eINSTANCE.createDiagramModelImage();
+            dmImage.setImagePath(imagePath);
+            dm.getChildren().add(dmImage);
+        }
+        
+        archiveManager.saveModel();
+        
+        try(ZipFile zipFile = new ZipFile(file)) {
+            assertEquals(2, zipFile.size());
+            assertNotNull(zipFile.getEntry("model.xml"));
+            
+            ZipEntry imageEntry = zipFile.getEntry(imagePath);
+            assertNotNull(imageEntry);
+            assertEquals(ArchiveManager.BYTE_ARRAY_STORAGE.getEntry(imagePath).length, imageEntry.getSize());
+        }
+        
+        file.delete();
+    }
+    
+    @Test
+    public void testIsCompressedImage() {
+        assertTrue(ArchiveManager.isCompressedImage(new byte[] { (byte)0x89, 'P', 'N', 'G', 0x0D, 0x0A }));
+        assertTrue(ArchiveManager.isCompressedImage(new byte[] { (byte)0xFF, (byte)0xD8, (byte)0xFF }));
+        assertTrue(ArchiveManager.isCompressedImage(new byte[] { 'G', 'I', 'F', '8', '9', 'a' }));
+        assertFalse(ArchiveManager.isCompressedImage(new byte[] { 'B', 'M', 0, 0 }));
+        assertFalse(ArchiveManager.isCompressedImage(new byte[0]));
+    }
+    
     @Test
     public void testSaveModel_ResourceSame() throws IOException {
         File file = TestUtils.createTempFile(".archimate");
@@ -254,4 +404,26 @@ public class ArchiveManagerTests {
         assertEquals(1, model.eAdapters().size());
         assertTrue(archiveManager.getLoadedImagePaths().isEmpty());
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testDispose_ImagesSharedWithOtherModelAreKept() throws IOException {
+        archiveManager.loadImagesFromModelFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+        String imagePath = archiveManager.getLoadedImagePaths().get(0);
+        
+        IArchimateModel model2 = IArchimateFactory.eINSTANCE.createArchimateModel();
+        ArchiveManager archiveManager2 = new ArchiveManager(model2);
+        archiveManager2.loadImagesFromModelFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+        
+        // Each model holds a reference (other tests may hold more)
+        int count = ArchiveManager.BYTE_ARRAY_STORAGE.getReferenceCount(imagePath);
+        assertTrue(count >= 2);
+        
+        // Still in use by the second model
+        archiveManager.dispose();
+        assertEquals(count - 1, ArchiveManager.BYTE_ARRAY_STORAGE.getReferenceCount(imagePath));
+        assertNotNull(archiveManager2.getBytesFromEntry(imagePath));
+        
+        archiveManager2.dispose();
+        assertEquals(count - 2, ArchiveManager.BYTE_ARRAY_STORAGE.getReferenceCount(imagePath));
+    }
+}
@@ -14,7 +14,11 @@ import static org.junit.Assert.assertTrue;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipFile;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -22,6 +26,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.archimatetool.editor.TestSupport;
+import com.archimatetool.tests.TestUtils;
 
 
 @SuppressWarnings("nls")
@@ -153,5 +158,149 @@ public class ByteArrayStorageTests {
         assertEquals(bytes1, storage.getEntry(entry2));
     }
 
+    @Test
+    public void getKey_DifferentBytes() throws Exception {
+        byte[] bytes1 = new byte[] { 1, 2, 3 };
+        storage.addByteContentEntry(entry1, bytes1);
+        
+        assertNull(storage.getKey(new byte[] { 1, 2, 4 }));
+        assertNull(storage.getKey(null));
+        assertEquals(entry1, storage.getKey(new byte[] { 1, 2, 3 }));
+    }
+    
+    @Test
+    public void getKey_AfterRemoveEntryIsRekeyed() throws Exception {
+        byte[] bytes = storage.getBytesFromFile(img1File);
+        storage.addByteContentEntry(entry1, bytes);
+        storage.addByteContentEntry(entry2, storage.getBytesFromFile(img2File));
+        
+        storage.removeEntry(entry1);
+        assertEquals(entry2, storage.getKey(bytes));
+        
+        storage.removeEntry(entry2);
+        assertNull(storage.getKey(bytes));
+    }
+    
+    @Test
+    public void getKey_EntryReplacedWithDifferentBytes() throws Exception {
+        byte[] bytes = storage.getBytesFromFile(img1File);
+        storage.addByteContentEntry(entry1, bytes);
+        storage.addByteContentEntry(entry1, new byte[] { 1, 2, 3 });
+        
+        assertNull(storage.getKey(bytes));
+        assertEquals(entry1, storage.getKey(new byte[] { 1, 2, 3 }));
+        
+        storage.removeEntry(entry1);
+        assertNull(storage.getKey(new byte[] { 1, 2, 3 }));
+    }
+    
+    @Test
+    public void getDigest() throws Exception {
+        String digest1 = storage.getDigest(storage.getBytesFromFile(img1File));
+        String digest2 = storage.getDigest(storage.getBytesFromFile(img2File));
+        assertEquals(64, digest1.length());
+        assertEquals(digest1, digest2);
+        assertFalse(digest1.equals(storage.getDigest(new byte[] { 1 })));
+    }
+    
+    @Test
+    public void addLazyEntry() throws Exception {
+        String entryName = "images/_Mpy0QJbjEeOMRJdWZYcr1g.png";
+        
+        addLazyEntries(storage, entryName);
+        
+        assertTrue(storage.hasEntry(entryName));
+        assertTrue(storage.isLazyEntry(entryName));
+        assertEquals(26511, storage.getEntrySize(entryName));
+        
+        // Read it
+        byte[] bytes = storage.getEntry(entryName);
+        assertNotNull(bytes);
+        assertEquals(26511, bytes.length);
+        assertFalse(storage.isLazyEntry(entryName));
+        
+        assertEquals(entryName, storage.getKey(bytes));
+    }
+    
+    @Test
+    public void getKey_FindsLazyEntry() throws Exception {
+        String entryName = "images/_Mpy0QJbjEeOMRJdWZYcr1g.png";
+        
+        // Read the bytes with another storage
+        ByteArrayStorage storage2 = new ByteArrayStorage();
+        addLazyEntries(storage2, entryName);
+        byte[] bytes = storage2.getEntry(entryName);
+        
+        addLazyEntries(storage, entryName);
+        assertTrue(storage.isLazyEntry(entryName));
+        
+        assertEquals(entryName, storage.getKey(bytes));
+        assertFalse(storage.isLazyEntry(entryName));
+    }
+
+    @Test
+    public void readLazyEntries() throws Exception {
+        addLazyEntries(storage, "images/_Mpy0QJbjEeOMRJdWZYcr1g.png", "images/_F9Ip0Jb1EeOiBL92y1mEug.jpg");
+        
+        storage.readLazyEntries(TestSupport.TEST_MODEL_FILE_ZIPPED);
+        
+        assertFalse(storage.isLazyEntry("images/_Mpy0QJbjEeOMRJdWZYcr1g.png"));
+        assertFalse(storage.isLazyEntry("images/_F9Ip0Jb1EeOiBL92y1mEug.jpg"));
+        assertEquals(2, storage.getEntrySet().size());
+    }
+    
+    @Test
+    public void removeLazyEntry() throws Exception {
+        String entryName = "images/_Mpy0QJbjEeOMRJdWZYcr1g.png";
+        addLazyEntries(storage, entryName);
+        
+        storage.removeEntry(entryName);
+        assertFalse(storage.hasEntry(entryName));
+        assertFalse(storage.isLazyEntry(entryName));
+    }
+    
+    @Test
+    public void lazyEntry_ZipFileIsNotKeptOpen() throws Exception {
+        File tmpFile = TestUtils.createTempFile(".archimate");
+        Files.copy(TestSupport.TEST_MODEL_FILE_ZIPPED.toPath(), tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        
+        String entryName = "images/_Mpy0QJbjEeOMRJdWZYcr1g.png";
+        
+        try(ZipFile zipFile = new ZipFile(tmpFile)) {
+            storage.addLazyEntry(tmpFile, zipFile.getEntry(entryName));
+        }
+        
+        assertTrue(storage.isLazyEntry(entryName));
+        
+        // The file is not locked so it can be deleted while there are unread entries from it
+        assertTrue(tmpFile.delete());
+    }
+    
+    private void addLazyEntries(ByteArrayStorage storage, String... entryNames) throws IOException {
+        try(ZipFile zipFile = new ZipFile(TestSupport.TEST_MODEL_FILE_ZIPPED)) {
+            for(String entryName : entryNames) {
+                storage.addLazyEntry(TestSupport.TEST_MODEL_FILE_ZIPPED, zipFile.getEntry(entryName));
+            }
+        }
+    }
+    
+    @Test
+    public void referenceCounts() throws Exception {
+        storage.addFileContentEntry(entry1, img1File);
+        assertEquals(0, storage.getReferenceCount(entry1));
+        
+        storage.addReference(entry1);
+        storage.addReference(entry1);
+        assertEquals(2, storage.getReferenceCount(entry1));
+        
+        assertFalse(storage.releaseReference(entry1));
+        assertEquals(1, storage.getReferenceCount(entry1));
+        assertTrue(storage.hasEntry(entry1));
+        
+        assertTrue(storage.releaseReference(entry1));
+        assertEquals(0, storage.getReferenceCount(entry1));
+        assertFalse(storage.hasEntry(entry1));
+    }
+
     
 }
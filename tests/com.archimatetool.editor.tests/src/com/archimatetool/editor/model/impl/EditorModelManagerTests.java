@@ -60,6 +60,11 @@ public class EditorModelManagerTests {
         assertEquals(0, editorModelManager.getModels().size());
     }
 
+    @Test
+    public void getLoadingModelFiles_IsEmpty() {
+        assertEquals(0, editorModelManager.getLoadingModelFiles().size());
+    }
+
     @Test
     public void createNewModel_IsValid() {
         IArchimateModel model = editorModelManager.createNewModel();
@@ -0,0 +1,88 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.junit.Test;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ImageDataCacheTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ImageDataCacheTests.class);
+    }
+    
+    private ImageData createImageData() {
+        // 10 x 10 x 24 bit = 320 bytes (scanlines are padded to 4 bytes)
+        return new ImageData(10, 10, 24, new PaletteData(0xFF0000, 0xFF00, 0xFF));
+    }
+    
+    @Test
+    public void testPutAndGet() {
+        ImageDataCache cache = new ImageDataCache(10000);
+        ImageData imageData = createImageData();
+        
+        cache.put("path1", imageData);
+        assertSame(imageData, cache.get("path1"));
+        assertEquals(ImageDataCache.getSize(imageData), cache.getSize());
+        assertNull(cache.get("path2"));
+        assertNull(cache.get(null));
+        
+        cache.remove("path1");
+        assertNull(cache.get("path1"));
+        assertEquals(0, cache.getSize());
+    }
+    
+    @Test
+    public void testLeastRecentlyUsedIsRemoved() {
+        ImageData imageData1 = createImageData();
+        ImageData imageData2 = createImageData();
+        ImageData imageData3 = createImageData();
+        
+        long size = ImageDataCache.getSize(imageData1);
+        ImageDataCache cache = new ImageDataCache(size * 2);
+        
+        cache.put("path1", imageData1);
+        cache.put("path2", imageData2);
+        
+        // Access path1 so that path2 is least recently used
+        cache.get("path1");
+        cache.put("path3", imageData3);
+        
+        assertSame(imageData1, cache.get("path1"));
+        assertNull(cache.get("path2"));
+        assertSame(imageData3, cache.get("path3"));
+        assertEquals(size * 2, cache.getSize());
+    }
+    
+    @Test
+    public void testTooBigIsNotCached() {
+        ImageDataCache cache = new ImageDataCache(10);
+        cache.put("path1", createImageData());
+        assertNull(cache.get("path1"));
+        assertEquals(0, cache.getSize());
+    }
+    
+    @Test
+    public void testSetMaxSize() {
+        ImageDataCache cache = new ImageDataCache(10000);
+        cache.put("path1", createImageData());
+        cache.put("path2", createImageData());
+        
+        cache.setMaxSize(0);
+        assertNull(cache.get("path1"));
+        assertNull(cache.get("path2"));
+        assertEquals(0, cache.getSize());
+    }
+}
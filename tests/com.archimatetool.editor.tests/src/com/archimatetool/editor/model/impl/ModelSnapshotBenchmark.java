@@ -0,0 +1,153 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.Test;
+
+import com.archimatetool.editor.model.IArchiveManager;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IFolder;
+import com.archimatetool.model.IProperty;
+import com.archimatetool.model.util.ArchimateResourceFactory;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of loading synthetic models of increasing size from model.xml and from the binary snapshot.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the timings.
+ */
+@SuppressWarnings("nls")
+public class ModelSnapshotBenchmark {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ModelSnapshotBenchmark.class);
+    }
+
+    @Test
+    public void benchmarkLoad_10k() throws IOException {
+        benchmarkLoad(10_000);
+    }
+
+    @Test
+    public void benchmarkLoad_100k() throws IOException {
+        benchmarkLoad(100_000);
+    }
+
+    @Test
+    public void benchmarkLoad_500k() throws IOException {
+        benchmarkLoad(500_000);
+    }
+
+    private void benchmarkLoad(int numberOfElements) throws IOException {
+        File file = TestUtils.createTempFile(".archimate");
+
+        IArchimateModel model = createModel(numberOfElements);
+        model.setFile(file);
+
+        long start = System.currentTimeMillis();
+        new ArchiveManager(model).saveModel(true);
+        System.out.println("Saved model with " + numberOfElements + " elements and snapshot in " + (System.currentTimeMillis() - start) + " ms (" + file.length() / 1024 + " KB)");
+
+        // Load from model.xml
+        Resource resource = createResource(file);
+        start = System.currentTimeMillis();
+        resource.load(null);
+        long xmlTime = System.currentTimeMillis() - start;
+        int xmlCount = countObjects(resource);
+
+        // Load from the snapshot
+        resource = createResource(file);
+        start = System.currentTimeMillis();
+        assertTrue(ModelSnapshot.load(file, resource));
+        long snapshotTime = System.currentTimeMillis() - start;
+        int snapshotCount = countObjects(resource);
+
+        assertEquals(xmlCount, snapshotCount);
+
+        System.out.println("Loaded model with " + xmlCount + " objects from model.xml in " + xmlTime + " ms, from snapshot in " + snapshotTime + " ms");
+
+        file.delete();
+    }
+
+    private Resource createResource(File file) {
+        return ArchimateResourceFactory.createNewResource(IArchiveManager.FACTORY.createArchiveModelURI(file));
+    }
+
+    private int countObjects(Resource resource) {
+        int count = 0;
+        for(Iterator<?> iter = resource.getAllContents(); iter.hasNext(); iter.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Create a model with elements that each have a property, relations between them,
+     * and Views that each show 100 of the elements
+     */
+    static IArchimateModel createModel(int numberOfElements) {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+
+        IFolder elementsFolder = model.getFolder(FolderType.BUSINESS);
+        IFolder relationsFolder = model.getFolder(FolderType.RELATIONS);
+        IFolder diagramsFolder = model.getFolder(FolderType.DIAGRAMS);
+
+        IArchimateElement[] elements = new IArchimateElement[numberOfElements];
+
+        IArchimateDiagramModel dm = null;
+
+        for(int i = 0; i < numberOfElements; i++) {
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            element.setName("Actor " + i);
+            element.setDocumentation("Documentation " + i);
+
+            IProperty property = IArchimateFactory.eINSTANCE.createProperty();
+            property.setKey("Key");
+            property.setValue("Value " + i);
+            element.getProperties().add(property);
+
+            elementsFolder.getElements().add(element);
+            elements[i] = element;
+
+            if(i % 100 == 0) {
+                dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+                dm.setName("View " + i / 100);
+                diagramsFolder.getElements().add(dm);
+            }
+
+            IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+            dmo.setArchimateElement(element);
+            dmo.setBounds(i % 10 * 150, i % 100 / 10 * 80, 120, 55);
+            dm.getChildren().add(dmo);
+        }
+
+        for(int i = 0; i < numberOfElements; i++) {
+            IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+            relation.connect(elements[i], elements[(i + 1) % numberOfElements]);
+            relationsFolder.getElements().add(relation);
+        }
+
+        return model;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.editor.TestSupport;
+import com.archimatetool.editor.model.IArchiveManager;
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.util.ArchimateResourceFactory;
+import com.archimatetool.testingtools.ArchimateTestModel;
+import com.archimatetool.tests.TestData;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ModelSnapshotTests {
+
+    private IArchimateModel model;
+    private ArchiveManager archiveManager;
+    private File file;
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ModelSnapshotTests.class);
+    }
+
+    @Before
+    public void runBeforeEachTest() throws IOException {
+        model = new ArchimateTestModel(TestData.TEST_MODEL_FILE_ARCHISURANCE).loadModel();
+        archiveManager = new ArchiveManager(model);
+        file = TestUtils.createTempFile(".archimate");
+        model.setFile(file);
+    }
+
+    @Test
+    public void testSaveModel_WithSnapshot() throws IOException {
+        archiveManager.saveModel(true);
+
+        // Saved in archive format even though there are no images
+        assertTrue(IArchiveManager.FACTORY.isArchiveFile(file));
+
+        try(ZipFile zipFile = new ZipFile(file)) {
+            assertNotNull(zipFile.getEntry(ModelSnapshot.SNAPSHOT_ENTRY));
+        }
+    }
+
+    @Test
+    public void testLoad_SameAsModelXML() throws IOException {
+        archiveManager.saveModel(true);
+
+        Resource snapshotResource = createResource();
+        assertTrue(ModelSnapshot.load(file, snapshotResource));
+        assertTrue(snapshotResource.isLoaded());
+
+        Resource xmlResource = createResource();
+        xmlResource.load(null);
+
+        IArchimateModel snapshotModel = (IArchimateModel)snapshotResource.getContents().get(0);
+        IArchimateModel xmlModel = (IArchimateModel)xmlResource.getContents().get(0);
+        assertTrue(EcoreUtil.equals(xmlModel, snapshotModel));
+
+        // IDs are registered and indexed
+        IArchimateElement element = (IArchimateElement)snapshotModel.getFolder(FolderType.BUSINESS).getElements().get(0);
+        assertSame(element, snapshotModel.getObjectByID(element.getId()));
+    }
+
+    @Test
+    public void testLoad_NoSnapshot() throws IOException {
+        // XML file
+        archiveManager.saveModel(false);
+        assertFalse(ModelSnapshot.load(file, createResource()));
+
+        // Archive file without a snapshot
+        assertFalse(ModelSnapshot.load(TestSupport.TEST_MODEL_FILE_ZIPPED, createResource(TestSupport.TEST_MODEL_FILE_ZIPPED)));
+    }
+
+    @Test
+    public void testLoad_ModelXMLChanged() throws IOException {
+        archiveManager.saveModel(true);
+
+        // Copy the archive file with a changed model.xml and the original snapshot
+        File folder = TestUtils.createTempFolder("snapshot");
+        File changedFile = new File(folder, "changed.archimate");
+
+        try {
+            try(ZipFile zipFile = new ZipFile(file); ZipOutputStream zOut = new ZipOutputStream(new FileOutputStream(changedFile))) {
+                for(Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+                    ZipEntry entry = entries.nextElement();
+                    zOut.putNextEntry(new ZipEntry(entry.getName()));
+                    try(InputStream in = zipFile.getInputStream(entry)) {
+                        byte[] buf = new byte[8192];
+                        int len;
+                        while((len = in.read(buf)) != -1) {
+                            zOut.write(buf, 0, len);
+                        }
+                    }
+                    if(ModelSnapshot.MODEL_ENTRY.equals(entry.getName())) {
+                        zOut.write("\n".getBytes());
+                    }
+                    zOut.closeEntry();
+                }
+            }
+
+            Resource resource = createResource(changedFile);
+            assertFalse(ModelSnapshot.load(changedFile, resource));
+            assertEquals(0, resource.getContents().size());
+            assertFalse(resource.isLoaded());
+        }
+        finally {
+            FileUtils.deleteFolder(folder);
+        }
+    }
+
+    private Resource createResource() {
+        return createResource(file);
+    }
+
+    private Resource createResource(File file) {
+        return ArchimateResourceFactory.createNewResource(IArchiveManager.FACTORY.createArchiveModelURI(file));
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg.commandline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.commandline.CommandLineState;
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ExportViewsProviderTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ExportViewsProviderTests.class);
+    }
+
+    private ExportViewsProvider provider;
+    private IArchimateModel model;
+    private File folder;
+
+    @Before
+    public void runOnceBeforeEachTest() {
+        TestUtils.ensureDefaultDisplay();
+
+        provider = new ExportViewsProvider();
+        provider.doLog = false;
+
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        model.setName("Test");
+
+        for(String name : new String[] { "View One", "View Two", "Other" }) {
+            IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+            dm.setName(name);
+            model.getFolder(FolderType.DIAGRAMS).getElements().add(dm);
+        }
+
+        CommandLineState.setModel(model);
+
+        folder = TestUtils.createTempFolder("views");
+    }
+
+    @After
+    public void runOnceAfterEachTest() {
+        CommandLineState.setModel(null);
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
+
+    @Test
+    public void getOptions() {
+        assertNotNull(provider.getOptions().getOption(ExportViewsProvider.OPTION_EXPORT_VIEWS));
+        assertNotNull(provider.getOptions().getOption(ExportViewsProvider.OPTION_FORMAT));
+        assertNotNull(provider.getOptions().getOption(ExportViewsProvider.OPTION_SCALE));
+        assertNotNull(provider.getOptions().getOption(ExportViewsProvider.OPTION_FILTER));
+        assertNotNull(provider.getOptions().getOption(ExportViewsProvider.OPTION_THREADS));
+        assertFalse(provider.getOptions().getOption(ExportViewsProvider.OPTION_NO_EMBED_FONTS).hasArg());
+    }
+
+    @Test(expected = IOException.class)
+    public void run_NoModel() throws Exception {
+        CommandLineState.setModel(null);
+        provider.run(parse());
+    }
+
+    @Test
+    public void run_NotRunWithoutExportOption() throws Exception {
+        provider.run(new DefaultParser().parse(provider.getOptions(), new String[] { "--views.format", "svg" }));
+        assertEquals(0, folder.list().length);
+    }
+
+    @Test
+    public void run_InvalidOptionsExportNothing() throws Exception {
+        provider.run(parse("--views.format", "gif"));
+        provider.run(parse("--views.scale", "10"));
+        provider.run(parse("--views.scale", "600"));
+        provider.run(parse("--views.scale", "abc"));
+        provider.run(parse("--views.threads", "0"));
+        provider.run(parse("--views.threads", "abc"));
+        provider.run(parse("--views.filter", "[View"));
+
+        assertEquals(0, folder.list().length);
+    }
+
+    @Test
+    public void run_ExportsAllViews() throws Exception {
+        provider.run(parse());
+
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            assertTrue(getFile(dm).exists());
+        }
+
+        assertEquals(getViewKeys(model.getDiagramModels().toArray(new IDiagramModel[0])), getManifestKeys());
+    }
+
+    @Test
+    public void run_FilterMatchesPartOfName() throws Exception {
+        provider.run(parse("--views.filter", "View"));
+
+        assertTrue(getFile(getView(0)).exists());
+        assertTrue(getFile(getView(1)).exists());
+        assertFalse(getFile(getView(2)).exists());
+    }
+
+    @Test
+    public void run_FilterMatchesWholeName() throws Exception {
+        provider.run(parse("--views.filter", "^View One$"));
+
+        assertTrue(getFile(getView(0)).exists());
+        assertFalse(getFile(getView(1)).exists());
+        assertFalse(getFile(getView(2)).exists());
+    }
+
+    @Test
+    public void run_FilterMatchesId() throws Exception {
+        provider.run(parse("--views.filter", Pattern.quote(getView(2).getId())));
+
+        assertFalse(getFile(getView(0)).exists());
+        assertFalse(getFile(getView(1)).exists());
+        assertTrue(getFile(getView(2)).exists());
+    }
+
+    @Test
+    public void isIncluded() {
+        IDiagramModel dm = getView(0);
+
+        assertTrue(ExportViewsProvider.isIncluded(dm, null));
+        assertTrue(ExportViewsProvider.isIncluded(dm, Pattern.compile("One")));
+        assertTrue(ExportViewsProvider.isIncluded(dm, Pattern.compile("^View")));
+        assertTrue(ExportViewsProvider.isIncluded(dm, Pattern.compile(dm.getId())));
+        assertFalse(ExportViewsProvider.isIncluded(dm, Pattern.compile("^One")));
+        assertFalse(ExportViewsProvider.isIncluded(dm, Pattern.compile("Two")));
+    }
+
+    @Test
+    public void run_UnchangedViewsAreNotExportedAgain() throws Exception {
+        provider.run(parse());
+
+        writeMarker(getView(0));
+        writeMarker(getView(1));
+        getView(1).setName("Changed");
+
+        provider.run(parse());
+
+        assertTrue(isMarker(getView(0)));
+        assertFalse(isMarker(getView(1)));
+    }
+
+    @Test
+    public void run_MissingFilesAreExportedAgain() throws Exception {
+        provider.run(parse());
+
+        getFile(getView(0)).delete();
+
+        provider.run(parse());
+
+        assertTrue(getFile(getView(0)).exists());
+    }
+
+    @Test
+    public void run_NoEmbedFontsExportsAgain() throws Exception {
+        provider.run(parse());
+
+        writeMarker(getView(0));
+
+        provider.run(parse("--views.noEmbedFonts"));
+
+        assertFalse(isMarker(getView(0)));
+        assertTrue(readFile(getView(0)).contains("<svg"));
+    }
+
+    @Test
+    public void run_DeletedViewsFilesAreDeleted() throws Exception {
+        provider.run(parse());
+
+        IDiagramModel deleted = getView(1);
+        File deletedFile = getFile(deleted);
+        assertTrue(deletedFile.exists());
+
+        model.getFolder(FolderType.DIAGRAMS).getElements().remove(deleted);
+
+        provider.run(parse());
+
+        assertFalse(deletedFile.exists());
+        assertTrue(getFile(getView(0)).exists());
+        assertTrue(getFile(getView(1)).exists());
+        assertEquals(getViewKeys(getView(0), getView(1)), getManifestKeys());
+    }
+
+    @Test
+    public void run_OtherFilesAreNotDeleted() throws Exception {
+        File otherFile = new File(folder, "other.svg");
+        Files.write(otherFile.toPath(), "other".getBytes(StandardCharsets.UTF_8));
+
+        provider.run(parse());
+        model.getFolder(FolderType.DIAGRAMS).getElements().remove(getView(0));
+        provider.run(parse());
+
+        assertTrue(otherFile.exists());
+    }
+
+    @Test
+    public void run_FilteredViewsKeepTheirFingerprints() throws Exception {
+        provider.run(parse());
+
+        writeMarker(getView(2));
+
+        // Only the Views named "View..." are exported this time
+        provider.run(parse("--views.filter", "View"));
+        assertEquals(getViewKeys(getView(0), getView(1), getView(2)), getManifestKeys());
+
+        // So "Other" is not exported again next time as it hasn't changed
+        provider.run(parse());
+        assertTrue(isMarker(getView(2)));
+    }
+
+    private CommandLine parse(String... args) throws Exception {
+        String[] allArgs = Arrays.copyOf(new String[] { "--views.export", folder.getPath(), "--views.format", "svg" }, args.length + 4);
+        System.arraycopy(args, 0, allArgs, 4, args.length);
+        return new DefaultParser().parse(provider.getOptions(), allArgs);
+    }
+
+    private IDiagramModel getView(int index) {
+        return model.getDiagramModels().get(index);
+    }
+
+    private File getFile(IDiagramModel dm) {
+        return new File(folder, dm.getId() + ".svg");
+    }
+
+    private void writeMarker(IDiagramModel dm) throws IOException {
+        Files.write(getFile(dm).toPath(), "marker".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isMarker(IDiagramModel dm) throws IOException {
+        return "marker".equals(readFile(dm));
+    }
+
+    private String readFile(IDiagramModel dm) throws IOException {
+        return new String(Files.readAllBytes(getFile(dm).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private Set<String> getViewKeys(IDiagramModel... dms) {
+        Set<String> keys = new HashSet<>();
+        for(IDiagramModel dm : dms) {
+            keys.add(ExportViewsProvider.MANIFEST_VIEW_KEY + dm.getId());
+        }
+        return keys;
+    }
+
+    private Set<String> getManifestKeys() throws IOException {
+        Properties properties = new Properties();
+        try(InputStream in = new FileInputStream(new File(folder, ExportViewsProvider.MANIFEST_FILE))) {
+            properties.load(in);
+        }
+
+        Set<String> keys = new HashSet<>();
+        for(String key : properties.stringPropertyNames()) {
+            if(key.startsWith(ExportViewsProvider.MANIFEST_VIEW_KEY)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -16,6 +16,7 @@ public class AllTests {
 
 		suite.addTest(PDFExportProviderTests.suite());
 		suite.addTest(SVGExportProviderTests.suite());
+		suite.addTest(ViewsExporterTests.suite());
 		
         return suite;
 	}
@@ -0,0 +1,134 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ViewsExporterTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ViewsExporterTests.class);
+    }
+
+    private IArchimateModel model;
+    private File folder;
+
+    @Before
+    public void runOnceBeforeEachTest() {
+        TestUtils.ensureDefaultDisplay();
+
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+
+        for(int i = 0; i < 3; i++) {
+            IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+            model.getFolder(FolderType.DIAGRAMS).getElements().add(dm);
+
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            element.setName("Actor " + i);
+            model.getFolder(FolderType.BUSINESS).getElements().add(element);
+
+            IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+            dmo.setArchimateElement(element);
+            dmo.setBounds(10, 10, 120, 55);
+            dm.getChildren().add(dmo);
+        }
+
+        folder = TestUtils.createTempFolder("views");
+    }
+
+    @After
+    public void runOnceAfterEachTest() {
+        for(File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void testExportSVG() throws Exception {
+        ViewsExporter exporter = new ViewsExporter(ViewsExporter.Format.SVG, 2);
+        List<File> files = exporter.export(model.getDiagramModels(), folder);
+
+        assertEquals(3, files.size());
+
+        for(int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            assertEquals(model.getDiagramModels().get(i).getId() + ".svg", file.getName());
+            String contents = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            assertTrue(contents.contains("<svg"));
+        }
+    }
+
+    @Test
+    public void testExportPDF() throws Exception {
+        ViewsExporter exporter = new ViewsExporter(ViewsExporter.Format.PDF, 0);
+        List<File> files = exporter.export(model.getDiagramModels(), folder);
+
+        assertEquals(3, files.size());
+
+        for(File file : files) {
+            assertTrue(file.getName().endsWith(".pdf"));
+            assertTrue(file.length() > 100);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            assertEquals("%PDF", new String(bytes, 0, 4, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testExportPNG_Scaled() throws Exception {
+        ViewsExporter exporter = new ViewsExporter(ViewsExporter.Format.PNG, 2);
+        List<File> files = exporter.export(model.getDiagramModels(), folder);
+
+        exporter.setScale(2);
+        List<File> scaledFiles = exporter.export(model.getDiagramModels(), TestUtils.createTempFolder("views-scaled"));
+
+        for(int i = 0; i < files.size(); i++) {
+            ImageData imageData = new ImageLoader().load(files.get(i).getPath())[0];
+            ImageData scaledImageData = new ImageLoader().load(scaledFiles.get(i).getPath())[0];
+            // The margin is not scaled
+            assertTrue(scaledImageData.width > imageData.width * 1.5);
+            assertTrue(scaledImageData.height > imageData.height * 1.5);
+            scaledFiles.get(i).delete();
+        }
+
+        scaledFiles.get(0).getParentFile().delete();
+    }
+
+    @Test
+    public void testFormatFromProviderID() {
+        for(ViewsExporter.Format format : ViewsExporter.Format.values()) {
+            assertSame(format, ViewsExporter.Format.fromProviderID(format.getProviderID()));
+        }
+        assertNull(ViewsExporter.Format.fromProviderID("unknown"));
+    }
+}
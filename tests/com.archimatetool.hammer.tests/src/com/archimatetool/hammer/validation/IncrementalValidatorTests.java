@@ -0,0 +1,230 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.IIssueCategory;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModelArchimateConnection;
+import com.archimatetool.model.IFolder;
+import com.archimatetool.testingtools.ArchimateTestModel;
+import com.archimatetool.tests.TestData;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class IncrementalValidatorTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(IncrementalValidatorTests.class);
+    }
+    
+    private IArchimateModel model;
+    private IncrementalValidator validator;
+    
+    @BeforeClass
+    public static void runOnceBeforeAllTests() {
+        TestUtils.ensureDefaultDisplay(); // Need to do this if running only these tests
+    }
+    
+    @Before
+    public void runOnceBeforeEachTest() throws IOException {
+        ArchimateTestModel tm = new ArchimateTestModel(TestData.TEST_MODEL_FILE_ARCHISURANCE);
+        model = tm.loadModel();
+        validator = new IncrementalValidator(model);
+        
+        // Forward model notifications to the validator as the Editor Model Manager does
+        model.eAdapters().add(new EContentAdapter() {
+            @Override
+            public void notifyChanged(Notification msg) {
+                super.notifyChanged(msg);
+                validator.notifyChanged(msg);
+            }
+        });
+    }
+    
+    @Test
+    public void testValidatorHasModel() {
+        assertSame(model, validator.getModel());
+    }
+    
+    @Test
+    public void testValidate_SameAsValidator() {
+        assertEquals(getIssues(new Validator(model).validate()), getIssues(validator.validate()));
+        assertFalse(validator.isDirty());
+    }
+    
+    @Test
+    public void testNotValidated_NotDirty() {
+        model.getFolder(FolderType.BUSINESS).getElements().add(IArchimateFactory.eINSTANCE.createBusinessActor());
+        assertFalse(validator.isDirty());
+    }
+    
+    @Test
+    public void testUpdate_RenameElementToDuplicate() {
+        validator.validate();
+        
+        List<IArchimateElement> elements = getElements(model.getFolder(FolderType.BUSINESS));
+        elements.get(1).setName(elements.get(0).getName());
+        assertTrue(validator.isDirty());
+        
+        assertUpdateIsSameAsValidator();
+    }
+    
+    @Test
+    public void testUpdate_AddElement() {
+        validator.validate();
+        
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setName("Unused");
+        model.getFolder(FolderType.BUSINESS).getElements().add(element);
+        assertTrue(validator.isDirty());
+        
+        assertUpdateIsSameAsValidator();
+    }
+    
+    @Test
+    public void testUpdate_DeleteRelation() {
+        validator.validate();
+        
+        IArchimateRelationship relation = (IArchimateRelationship)model.getFolder(FolderType.RELATIONS).getElements().get(0);
+        for(IDiagramModelArchimateConnection connection : new ArrayList<>(relation.getReferencingDiagramConnections())) {
+            connection.disconnect();
+        }
+        relation.disconnect();
+        ((IFolder)relation.eContainer()).getElements().remove(relation);
+        assertTrue(validator.isDirty());
+        
+        assertUpdateIsSameAsValidator();
+    }
+    
+    @Test
+    public void testUpdate_AddEmptyView() {
+        validator.validate();
+        
+        IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+        model.getDefaultFolderForObject(dm).getElements().add(dm);
+        assertTrue(validator.isDirty());
+        
+        assertUpdateIsSameAsValidator();
+        
+        // And then remove it again
+        model.getDefaultFolderForObject(dm).getElements().remove(dm);
+        assertUpdateIsSameAsValidator();
+    }
+    
+    @Test
+    public void testUpdate_UnchangedIssuesAreSameInstances() {
+        List<IIssue> issues = getIssueInstances(validator.validate());
+        
+        // Only the view is dirty so the issues of the concepts are not changed
+        IArchimateDiagramModel dm = (IArchimateDiagramModel)model.getDiagramModels().get(0);
+        dm.setName("Renamed");
+        assertTrue(validator.isDirty());
+        
+        List<IIssue> updatedIssues = getIssueInstances(validator.update());
+        
+        for(IIssue issue : issues) {
+            if(issue.getObject() instanceof IArchimateConcept) {
+                assertTrue(updatedIssues.contains(issue));
+            }
+        }
+    }
+    
+    @Test
+    public void testUpdate_NotificationFromOtherModelIsIgnored() {
+        validator.validate();
+        
+        IArchimateModel otherModel = IArchimateFactory.eINSTANCE.createArchimateModel();
+        otherModel.setDefaults();
+        otherModel.eAdapters().add(new EContentAdapter() {
+            @Override
+            public void notifyChanged(Notification msg) {
+                super.notifyChanged(msg);
+                validator.notifyChanged(msg);
+            }
+        });
+        otherModel.getFolder(FolderType.BUSINESS).getElements().add(IArchimateFactory.eINSTANCE.createBusinessActor());
+        
+        assertFalse(validator.isDirty());
+    }
+    
+    private void assertUpdateIsSameAsValidator() {
+        Set<List<Object>> updated = getIssues(validator.update());
+        assertFalse(validator.isDirty());
+        assertEquals(getIssues(new Validator(model).validate()), updated);
+    }
+    
+    private List<IArchimateElement> getElements(IFolder folder) {
+        List<IArchimateElement> elements = new ArrayList<>();
+        for(Object o : folder.getElements()) {
+            if(o instanceof IArchimateElement) {
+                elements.add((IArchimateElement)o);
+            }
+        }
+        return elements;
+    }
+    
+    private List<IIssue> getIssueInstances(List<Object> result) {
+        List<IIssue> issues = new ArrayList<>();
+        
+        for(Object object : result) {
+            if(object instanceof IIssueCategory) {
+                issues.addAll(((IIssueCategory)object).getIssues());
+            }
+        }
+        
+        return issues;
+    }
+    
+    /**
+     * @return The issues as a set of (issue type, object, description) so that results can be compared regardless of order
+     */
+    private Set<List<Object>> getIssues(List<Object> result) {
+        Set<List<Object>> issues = new HashSet<>();
+        
+        for(Object object : result) {
+            if(object instanceof IIssueCategory) {
+                for(IIssue issue : ((IIssueCategory)object).getIssues()) {
+                    issues.add(Arrays.asList(issue.getClass(), issue.getObject(), issue.getDescription()));
+                }
+            }
+            else if(object instanceof IIssue) {
+                IIssue issue = (IIssue)object;
+                issues.add(Arrays.asList(issue.getClass(), issue.getObject(), issue.getDescription()));
+            }
+        }
+        
+        return issues;
+    }
+}
@@ -14,9 +14,12 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.util.List;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.archimatetool.hammer.validation.issues.IIssue;
 import com.archimatetool.hammer.validation.issues.IIssueCategory;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.testingtools.ArchimateTestModel;
@@ -61,6 +64,41 @@ public class ValidatorTests {
         }
     }
     
+    @Test
+    public void testValidate_WithMonitor() {
+        List<Object> list = validator.validate(new NullProgressMonitor());
+        assertFalse(list.isEmpty());
+        
+        // Each checker is timed
+        assertFalse(validator.getTimings().isEmpty());
+        for(Long time : validator.getTimings().values()) {
+            assertTrue(time >= 0);
+        }
+    }
+    
+    @Test(expected=OperationCanceledException.class)
+    public void testValidate_Cancelled() {
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        validator.validate(monitor);
+    }
+    
+    @Test
+    public void testValidate_IsDeterministic() {
+        List<Object> list1 = validator.validate();
+        List<Object> list2 = validator.validate();
+        
+        assertEquals(list1.size(), list2.size());
+        for(int i = 0; i < list1.size(); i++) {
+            List<?> issues1 = ((IIssueCategory)list1.get(i)).getIssues();
+            List<?> issues2 = ((IIssueCategory)list2.get(i)).getIssues();
+            assertEquals(issues1.size(), issues2.size());
+            for(int j = 0; j < issues1.size(); j++) {
+                assertSame(((IIssue)issues1.get(j)).getObject(), ((IIssue)issues2.get(j)).getObject());
+            }
+        }
+    }
+    
     @Test
     public void testGetArchimateElements() {
         assertEquals(120, validator.getArchimateElements().size());
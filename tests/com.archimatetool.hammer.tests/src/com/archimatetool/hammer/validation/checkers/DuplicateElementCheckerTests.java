@@ -56,5 +56,91 @@ public class DuplicateElementCheckerTests {
         assertSame(e2, issues.get(1).getObject());
     }
     
+    @Test
+    public void testGetIssues_DifferentTypes() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        
+        IArchimateElement e1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e1.setName("fido");
+        elements.add(e1);
+        
+        IArchimateElement e2 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        e2.setName("fido");
+        elements.add(e2);
+        
+        DuplicateElementChecker checker = new DuplicateElementChecker(elements);
+        assertTrue(checker.getIssues().isEmpty());
+    }
+    
+    @Test
+    public void testGetIssues_Order() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        
+        IArchimateElement a1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        a1.setName("a");
+        elements.add(a1);
+        
+        IArchimateElement b1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        b1.setName("b");
+        elements.add(b1);
+        
+        IArchimateElement c1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        c1.setName("c");
+        elements.add(c1);
+        
+        IArchimateElement b2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        b2.setName("b");
+        elements.add(b2);
+        
+        IArchimateElement a2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        a2.setName("a");
+        elements.add(a2);
+        
+        IArchimateElement a3 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        a3.setName("a");
+        elements.add(a3);
+        
+        DuplicateElementChecker checker = new DuplicateElementChecker(elements);
+        List<IIssue> issues = checker.getIssues();
+        
+        assertEquals(5, issues.size());
+        assertSame(a1, issues.get(0).getObject());
+        assertSame(a2, issues.get(1).getObject());
+        assertSame(a3, issues.get(2).getObject());
+        assertSame(b1, issues.get(3).getObject());
+        assertSame(b2, issues.get(4).getObject());
+    }
+    
+    @Test
+    public void testGetIssues_NormaliseNames() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        
+        IArchimateElement e1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e1.setName("Fido the  Dog");
+        elements.add(e1);
+        
+        IArchimateElement e2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e2.setName(" fido THE\tdog ");
+        elements.add(e2);
+        
+        DuplicateElementChecker checker = new DuplicateElementChecker(elements);
+        assertTrue(checker.getIssues().isEmpty());
+        
+        checker = new DuplicateElementChecker(elements, true);
+        List<IIssue> issues = checker.getIssues();
+        assertEquals(2, issues.size());
+        assertSame(e1, issues.get(0).getObject());
+        assertSame(e2, issues.get(1).getObject());
+    }
+    
+    @Test
+    public void testGetName() {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setName("  Fido the \n Dog ");
+        
+        assertEquals("  Fido the \n Dog ", new DuplicateElementChecker(null).getName(element));
+        assertEquals("fido the dog", new DuplicateElementChecker(null, true).getName(element));
+    }
+    
     
 }
@@ -30,7 +30,9 @@ import com.archimatetool.model.impl.SketchModelStickyTests;
 import com.archimatetool.model.impl.SketchModelTests;
 import com.archimatetool.model.util.ArchimateModelUtilsTests;
 import com.archimatetool.model.util.ArchimateResourceFactoryTests;
+import com.archimatetool.model.util.DiagramComponentIndexTests;
 import com.archimatetool.model.util.IDAdapterTests;
+import com.archimatetool.model.util.ModelStreamReaderTests;
 import com.archimatetool.model.util.RelationshipsMatrixTests;
 import com.archimatetool.model.viewpoints.ViewpointManagerTests;
 import com.archimatetool.model.viewpoints.ViewpointTests;
@@ -71,7 +73,9 @@ public class AllTests {
         // util
         suite.addTest(ArchimateModelUtilsTests.suite());
         suite.addTest(ArchimateResourceFactoryTests.suite());
+        suite.addTest(DiagramComponentIndexTests.suite());
         suite.addTest(IDAdapterTests.suite());
+        suite.addTest(ModelStreamReaderTests.suite());
         suite.addTest(RelationshipsMatrixTests.suite());
 
         // viewpoints
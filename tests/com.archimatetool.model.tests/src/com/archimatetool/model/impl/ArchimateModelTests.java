@@ -285,5 +285,28 @@ public class ArchimateModelTests {
         assertNotNull(id);
         assertEquals(36, id.length());
     }
+    
+    @Test
+    public void testGetObjectByID() {
+        model.setDefaults();
+        assertNull(model.getObjectByID(null));
+        assertSame(model, model.getObjectByID(model.getId()));
+        
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createApplicationService();
+        IFolder folder = model.getDefaultFolderForObject(element);
+        folder.getElements().add(element);
+        assertSame(element, model.getObjectByID(element.getId()));
+        assertSame(folder, model.getObjectByID(folder.getId()));
+        
+        // Changed ID
+        String oldID = element.getId();
+        element.setId("newID");
+        assertNull(model.getObjectByID(oldID));
+        assertSame(element, model.getObjectByID("newID"));
+        
+        // Removed
+        folder.getElements().remove(element);
+        assertNull(model.getObjectByID("newID"));
+    }
 
 }
@@ -7,13 +7,18 @@ package com.archimatetool.model.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import junit.framework.JUnit4TestAdapter;
 
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import com.archimatetool.model.IArchimateFactory;
 import com.archimatetool.model.IProperty;
+import com.archimatetool.model.util.StringPool;
 
 
 @SuppressWarnings("nls")
@@ -47,5 +52,23 @@ public class PropertyTests {
         assertEquals("key", property.getKey());
         assertEquals("value", property.getValue());
     }
+    
+    @Test
+    public void testKeysAndShortValuesArePooled() {
+        property.setKey(new String("Owner"));
+        property.setValue(new String("Draft"));
+        
+        IProperty property2 = IArchimateFactory.eINSTANCE.createProperty(new String("Owner"), new String("Draft"));
+        assertSame(property.getKey(), property2.getKey());
+        assertSame(property.getValue(), property2.getValue());
+        
+        // Long values are not pooled
+        char[] chars = new char[StringPool.MAX_VALUE_LENGTH + 1];
+        Arrays.fill(chars, 'a');
+        property.setValue(new String(chars));
+        property2.setValue(new String(chars));
+        assertEquals(property.getValue(), property2.getValue());
+        assertNotSame(property.getValue(), property2.getValue());
+    }
 
 }
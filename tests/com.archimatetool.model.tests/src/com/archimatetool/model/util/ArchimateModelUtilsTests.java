@@ -7,10 +7,14 @@ package com.archimatetool.model.util;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Set;
+
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.junit.Test;
 
+import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateFactory;
@@ -250,4 +254,21 @@ public class ArchimateModelUtilsTests {
             assertTrue(IArchimatePackage.eINSTANCE.getArchimateElement().isSuperTypeOf(eClass));
         }
     }
+    
+    @SuppressWarnings("nls")
+    @Test
+    public void testGetAllPropertyKeys() {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        model.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Owner", "Me"));
+        
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Status", "Draft"));
+        element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Owner", "You"));
+        element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty(" ", "Blank"));
+        model.getFolder(FolderType.BUSINESS).getElements().add(element);
+        
+        Set<String> keys = ArchimateModelUtils.getAllPropertyKeys(model);
+        assertEquals(Arrays.asList("Status", "Owner"), Arrays.asList(keys.toArray()));
+    }
 } 
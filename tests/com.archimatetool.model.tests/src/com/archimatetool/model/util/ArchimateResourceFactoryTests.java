@@ -9,17 +9,28 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Iterator;
 
 import junit.framework.JUnit4TestAdapter;
 
+import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.junit.Test;
 
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IIdentifier;
+import com.archimatetool.model.IProperties;
 import com.archimatetool.model.TestSupport;
 
 
@@ -80,4 +91,51 @@ public class ArchimateResourceFactoryTests {
         assertNull(resource.getResourceSet());
         assertTrue(resource.getContents().isEmpty());
     }
-} 
+    
+    @Test
+    public void testLoadedModelIDsAreRegistered() throws Exception {
+        IArchimateModel model = TestSupport.loadModel(TestSupport.TEST_MODEL_FILE_ARCHISURANCE);
+        
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IIdentifier) {
+                String id = ((IIdentifier)eObject).getId();
+                assertNotNull(id);
+                assertSame(eObject, model.getObjectByID(id));
+            }
+        }
+        
+        // New IDs don't clash with loaded ones
+        String newID = model.getIDAdapter().getNewID();
+        assertNull(model.getObjectByID(newID));
+    }
+    
+    @Test
+    public void testLoadedPropertiesAreCompacted() throws Exception {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Owner", "Me"));
+        model.getFolder(FolderType.BUSINESS).getElements().add(element);
+        model.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Status", "Draft"));
+        
+        File file = TestSupport.saveModel(model);
+        model = TestSupport.loadModel(file);
+        file.delete();
+        
+        int count = 0;
+        
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IProperties && eObject.eIsSet(IArchimatePackage.Literals.PROPERTIES__PROPERTIES)) {
+                BasicEList<?> properties = (BasicEList<?>)((IProperties)eObject).getProperties();
+                assertEquals(properties.size(), properties.data().length);
+                count++;
+            }
+        }
+        
+        assertEquals(1, count);
+        assertEquals(1, ((BasicEList<?>)model.getProperties()).data().length);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModelArchimateConnection;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IDiagramModelGroup;
+import com.archimatetool.model.TestSupport;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+public class DiagramComponentIndexTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(DiagramComponentIndexTests.class);
+    }
+
+    private IArchimateModel model;
+    private DiagramComponentIndex index;
+    private IArchimateDiagramModel dm;
+    private IArchimateElement element1, element2;
+    private IArchimateRelationship relation;
+
+    @Before
+    public void runBeforeEachTest() {
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        index = model.getIDAdapter().getDiagramComponentIndex();
+
+        element1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element2 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        model.getFolder(FolderType.BUSINESS).getElements().add(element1);
+        model.getFolder(FolderType.BUSINESS).getElements().add(element2);
+
+        relation = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        relation.connect(element1, element2);
+        model.getFolder(FolderType.RELATIONS).getElements().add(relation);
+
+        dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+        model.getFolder(FolderType.DIAGRAMS).getElements().add(dm);
+    }
+
+    @Test
+    public void testAddAndRemoveComponents() {
+        assertFalse(index.isReferenced(element1));
+        assertTrue(index.getComponents(element1).isEmpty());
+
+        IDiagramModelArchimateObject dmo1 = createDiagramObject(element1);
+        IDiagramModelArchimateObject dmo2 = createDiagramObject(element2);
+        dm.getChildren().add(dmo1);
+        dm.getChildren().add(dmo2);
+
+        IDiagramModelArchimateConnection connection = IArchimateFactory.eINSTANCE.createDiagramModelArchimateConnection();
+        connection.setArchimateRelationship(relation);
+        connection.connect(dmo1, dmo2);
+
+        assertTrue(index.isReferenced(element1));
+        assertTrue(index.isReferenced(relation));
+        assertEquals(Arrays.asList(dmo1), Arrays.asList(index.getComponents(element1).toArray()));
+        assertEquals(Arrays.asList(connection), Arrays.asList(index.getComponents(relation).toArray()));
+        assertEquals(Arrays.asList(dm), Arrays.asList(index.getDiagramModels(element1).toArray()));
+
+        connection.disconnect();
+        assertFalse(index.isReferenced(relation));
+
+        dm.getChildren().remove(dmo1);
+        assertFalse(index.isReferenced(element1));
+        assertTrue(index.isReferenced(element2));
+    }
+
+    @Test
+    public void testRemoveAncestor() {
+        IDiagramModelGroup group = IArchimateFactory.eINSTANCE.createDiagramModelGroup();
+        IDiagramModelArchimateObject dmo = createDiagramObject(element1);
+        group.getChildren().add(dmo);
+        dm.getChildren().add(group);
+        assertTrue(index.isReferenced(element1));
+
+        // Remove the group
+        dm.getChildren().remove(group);
+        assertFalse(index.isReferenced(element1));
+
+        // Add it back (as in Undo)
+        dm.getChildren().add(group);
+        assertTrue(index.isReferenced(element1));
+
+        // Remove the View
+        model.getFolder(FolderType.DIAGRAMS).getElements().remove(dm);
+        assertFalse(index.isReferenced(element1));
+    }
+
+    @Test
+    public void testConceptChanged() {
+        IDiagramModelArchimateObject dmo = createDiagramObject(element1);
+        dm.getChildren().add(dmo);
+
+        dmo.setArchimateElement(element2);
+        assertFalse(index.isReferenced(element1));
+        assertTrue(index.isReferenced(element2));
+    }
+
+    @Test
+    public void testLoadedModel() throws Exception {
+        IArchimateModel model = TestSupport.loadModel(TestSupport.TEST_MODEL_FILE_ARCHISURANCE);
+        DiagramComponentIndex index = model.getIDAdapter().getDiagramComponentIndex();
+
+        int count = 0;
+
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IArchimateElement) {
+                IArchimateElement element = (IArchimateElement)eObject;
+                assertEquals(element.getReferencingDiagramObjects().size(), index.getComponents(element).size());
+                assertTrue(index.getComponents(element).containsAll(element.getReferencingDiagramObjects()));
+                if(index.isReferenced(element)) {
+                    count++;
+                }
+            }
+        }
+
+        assertTrue(count > 0);
+    }
+
+    private IDiagramModelArchimateObject createDiagramObject(IArchimateElement element) {
+        IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dmo.setArchimateElement(element);
+        return dmo;
+    }
+}
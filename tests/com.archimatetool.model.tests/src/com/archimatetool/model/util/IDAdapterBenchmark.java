@@ -0,0 +1,106 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IFolder;
+import com.archimatetool.model.TestSupport;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of loading synthetic models of increasing size.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the timings.
+ */
+@SuppressWarnings("nls")
+public class IDAdapterBenchmark {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(IDAdapterBenchmark.class);
+    }
+
+    @Test
+    public void benchmarkLoad_10k() throws IOException {
+        benchmarkLoad(10_000);
+    }
+
+    @Test
+    public void benchmarkLoad_100k() throws IOException {
+        benchmarkLoad(100_000);
+    }
+
+    @Test
+    public void benchmarkLoad_500k() throws IOException {
+        benchmarkLoad(500_000);
+    }
+
+    private void benchmarkLoad(int numberOfObjects) throws IOException {
+        File file = TestSupport.saveModel(createModel(numberOfObjects));
+
+        long start = System.currentTimeMillis();
+        IArchimateModel model = TestSupport.loadModel(file);
+        long time = System.currentTimeMillis() - start;
+
+        System.out.println("Loaded model with " + numberOfObjects + " objects in " + time + " ms");
+
+        // Sanity check that the last object is indexed
+        IFolder relationsFolder = model.getFolder(FolderType.RELATIONS);
+        IArchimateRelationship relation = (IArchimateRelationship)relationsFolder.getElements().get(relationsFolder.getElements().size() - 1);
+        assertSame(relation, model.getObjectByID(relation.getId()));
+
+        // Time to allocate more IDs
+        start = System.currentTimeMillis();
+        for(int i = 0; i < 10_000; i++) {
+            assertNotNull(model.getIDAdapter().getNewID());
+        }
+        System.out.println("Allocated 10000 new IDs in " + (System.currentTimeMillis() - start) + " ms");
+
+        file.delete();
+    }
+
+    /**
+     * Create a model with half elements and half relations between them
+     */
+    static IArchimateModel createModel(int numberOfObjects) {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+
+        IFolder elementsFolder = model.getFolder(FolderType.BUSINESS);
+        IFolder relationsFolder = model.getFolder(FolderType.RELATIONS);
+
+        int numberOfElements = numberOfObjects / 2;
+        IArchimateElement[] elements = new IArchimateElement[numberOfElements];
+
+        for(int i = 0; i < numberOfElements; i++) {
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            element.setName("Actor " + i);
+            elementsFolder.getElements().add(element);
+            elements[i] = element;
+        }
+
+        for(int i = 0; i < numberOfObjects - numberOfElements; i++) {
+            IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+            relation.connect(elements[i % numberOfElements], elements[(i + 1) % numberOfElements]);
+            relationsFolder.getElements().add(relation);
+        }
+
+        return model;
+    }
+}
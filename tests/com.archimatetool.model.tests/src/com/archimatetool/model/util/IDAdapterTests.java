@@ -8,9 +8,10 @@ package com.archimatetool.model.util;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
-import java.util.List;
+import java.util.Set;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -18,8 +19,12 @@ import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.ecore.impl.ENotificationImpl;
 import org.junit.Test;
 
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IFolder;
 import com.archimatetool.model.impl.Folder;
 import com.archimatetool.tests.TestUtils;
 
@@ -51,7 +56,7 @@ public class IDAdapterTests {
         
         String id = "someID";
         adapter.registerID(null);
-        List<String> usedIDs = getPrivateIDList(adapter);
+        Set<String> usedIDs = getPrivateIDList(adapter);
         assertTrue(usedIDs.isEmpty());
         
         adapter.registerID(id);
@@ -70,12 +75,84 @@ public class IDAdapterTests {
         String id = adapter.getNewID();
         assertEquals(36, id.length());
         
-        List<String> usedIDs = getPrivateIDList(adapter);
+        Set<String> usedIDs = getPrivateIDList(adapter);
         assertTrue(usedIDs.contains(id));
     }
 
+    @Test
+    public void testGetObject_AddAndRemoveChildObjects() {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        IDAdapter adapter = model.getIDAdapter();
+        
+        assertNull(adapter.getObject(null));
+        assertNull(adapter.getObject("someID"));
+        
+        // Sub-folder containing an element and a child folder added in one go
+        IFolder folder = IArchimateFactory.eINSTANCE.createFolder();
+        folder.setId("folder");
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setId("element");
+        folder.getElements().add(element);
+        IFolder childFolder = IArchimateFactory.eINSTANCE.createFolder();
+        childFolder.setId("childFolder");
+        folder.getFolders().add(childFolder);
+        
+        model.getFolder(FolderType.BUSINESS).getFolders().add(folder);
+        assertSame(folder, adapter.getObject("folder"));
+        assertSame(element, adapter.getObject("element"));
+        assertSame(childFolder, adapter.getObject("childFolder"));
+        
+        // New child object with no ID is allocated an ID and indexed
+        IArchimateElement newElement = IArchimateFactory.eINSTANCE.createBusinessRole();
+        childFolder.getElements().add(newElement);
+        assertSame(newElement, adapter.getObject(newElement.getId()));
+        
+        // Remove the sub-folder and all of its children are removed
+        model.getFolder(FolderType.BUSINESS).getFolders().remove(folder);
+        assertNull(adapter.getObject("folder"));
+        assertNull(adapter.getObject("element"));
+        assertNull(adapter.getObject("childFolder"));
+        assertNull(adapter.getObject(newElement.getId()));
+        
+        // Add it back (as in Undo)
+        model.getFolder(FolderType.BUSINESS).getFolders().add(folder);
+        assertSame(folder, adapter.getObject("folder"));
+        assertSame(element, adapter.getObject("element"));
+        assertSame(childFolder, adapter.getObject("childFolder"));
+        assertSame(newElement, adapter.getObject(newElement.getId()));
+    }
+
+    @Test
+    public void testRegisterIDs() throws Exception {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        
+        // Add to a separate folder before adding to the model
+        IFolder folder = IArchimateFactory.eINSTANCE.createFolder();
+        folder.setId("folder");
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        folder.getElements().add(element);
+        assertNull(element.getId());
+        
+        IDAdapter adapter = new IDAdapter();
+        adapter.registerIDs(null);
+        adapter.registerIDs(folder);
+        
+        // New ID allocated
+        assertNotNull(element.getId());
+        
+        Set<String> usedIDs = getPrivateIDList(adapter);
+        assertEquals(2, usedIDs.size());
+        assertTrue(usedIDs.contains("folder"));
+        assertTrue(usedIDs.contains(element.getId()));
+        
+        assertSame(folder, adapter.getObject("folder"));
+        assertSame(element, adapter.getObject(element.getId()));
+    }
+    
     @SuppressWarnings("unchecked")
-    private List<String> getPrivateIDList(IDAdapter adapter) throws Exception {
-        return (List<String>)TestUtils.getPrivateField(adapter, "fUsedIDs");
+    private Set<String> getPrivateIDList(IDAdapter adapter) throws Exception {
+        return (Set<String>)TestUtils.getPrivateField(adapter, "fUsedIDs");
     }
 } 
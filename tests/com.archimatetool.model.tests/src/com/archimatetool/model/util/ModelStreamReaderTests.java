@@ -0,0 +1,183 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelArchimateComponent;
+import com.archimatetool.model.IDiagramModelComponent;
+import com.archimatetool.model.IFolder;
+import com.archimatetool.model.TestSupport;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ModelStreamReaderTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ModelStreamReaderTests.class);
+    }
+
+    private IArchimateModel model;
+
+    private int elementCount, relationCount, viewCount, componentCount, folderCount;
+
+    @Before
+    public void runBeforeEachTest() throws IOException {
+        model = TestSupport.loadModel(TestSupport.TEST_MODEL_FILE_ARCHISURANCE);
+
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IArchimateElement) {
+                elementCount++;
+            }
+            else if(eObject instanceof IArchimateRelationship) {
+                relationCount++;
+            }
+            else if(eObject instanceof IDiagramModel) {
+                viewCount++;
+            }
+            else if(eObject instanceof IDiagramModelComponent) {
+                componentCount++;
+            }
+            else if(eObject instanceof IFolder) {
+                folderCount++;
+            }
+        }
+    }
+
+    @Test
+    public void testRead_SameAsLoadedModel() throws IOException {
+        int[] counts = new int[5];
+        IArchimateModel[] streamedModel = new IArchimateModel[1];
+
+        new ModelStreamReader(new IModelStreamVisitor() {
+            IDiagramModel currentView;
+
+            @Override
+            public void startModel(IArchimateModel m) {
+                assertEquals(model.getId(), m.getId());
+                assertEquals(model.getName(), m.getName());
+                streamedModel[0] = m;
+            }
+
+            @Override
+            public void endModel(IArchimateModel m) {
+                assertSame(streamedModel[0], m);
+                assertEquals(model.getPurpose(), m.getPurpose());
+                assertEquals(model.getProperties().size(), m.getProperties().size());
+                // Folders are not added to the model
+                assertTrue(m.getFolders().isEmpty());
+            }
+
+            @Override
+            public void startFolder(IFolder folder) {
+                IFolder loaded = (IFolder)model.getObjectByID(folder.getId());
+                assertEquals(loaded.getName(), folder.getName());
+                assertEquals(loaded.getType(), folder.getType());
+                counts[0]++;
+            }
+
+            @Override
+            public void visitElement(IArchimateElement element) {
+                // Same attributes, documentation and properties
+                assertTrue(EcoreUtil.equals(model.getObjectByID(element.getId()), element));
+                counts[1]++;
+            }
+
+            @Override
+            public void visitRelationship(IArchimateRelationship relationship, String sourceID, String targetID) {
+                IArchimateRelationship loaded = (IArchimateRelationship)model.getObjectByID(relationship.getId());
+                assertEquals(loaded.eClass(), relationship.eClass());
+                assertEquals(loaded.getName(), relationship.getName());
+                assertEquals(loaded.getProperties().size(), relationship.getProperties().size());
+                assertEquals(loaded.getSource().getId(), sourceID);
+                assertEquals(loaded.getTarget().getId(), targetID);
+                assertNull(relationship.getSource());
+                counts[2]++;
+            }
+
+            @Override
+            public void startView(IDiagramModel view) {
+                assertNull(currentView);
+                currentView = view;
+                counts[3]++;
+            }
+
+            @Override
+            public void endView(IDiagramModel view) {
+                assertSame(currentView, view);
+                assertEquals(((IDiagramModel)model.getObjectByID(view.getId())).getName(), view.getName());
+                currentView = null;
+            }
+
+            @Override
+            public void visitViewComponent(IDiagramModelComponent component, String conceptID) {
+                assertNotNull(currentView);
+                IDiagramModelComponent loaded = (IDiagramModelComponent)model.getObjectByID(component.getId());
+                if(loaded instanceof IDiagramModelArchimateComponent) {
+                    IArchimateConcept concept = ((IDiagramModelArchimateComponent)loaded).getArchimateConcept();
+                    assertEquals(concept.getId(), conceptID);
+                }
+                else {
+                    assertNull(conceptID);
+                }
+                counts[4]++;
+            }
+        }).read(TestSupport.TEST_MODEL_FILE_ARCHISURANCE);
+
+        assertEquals(folderCount, counts[0]);
+        assertEquals(elementCount, counts[1]);
+        assertEquals(relationCount, counts[2]);
+        assertEquals(viewCount, counts[3]);
+        assertEquals(componentCount, counts[4]);
+    }
+
+    @Test
+    public void testRead_VisitorExceptionIsThrown() {
+        IOException exception = new IOException("Stop");
+
+        try {
+            new ModelStreamReader(new IModelStreamVisitor() {
+                @Override
+                public void visitElement(IArchimateElement element) throws IOException {
+                    throw exception;
+                }
+            }).read(TestSupport.TEST_MODEL_FILE_ARCHISURANCE);
+            fail("Should have thrown an IOException");
+        }
+        catch(IOException ex) {
+            assertSame(exception, ex);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_NotAModel() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><notamodel/>";
+        new ModelStreamReader(new IModelStreamVisitor() {}).read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
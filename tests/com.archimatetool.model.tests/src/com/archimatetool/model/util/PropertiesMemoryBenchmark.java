@@ -0,0 +1,124 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.Test;
+
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IFolder;
+import com.archimatetool.model.IProperty;
+import com.archimatetool.model.TestSupport;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of the heap used by loaded synthetic models with many Properties that have repeated keys and values.
+ * The heap used by the loaded model is compared with the heap that the Property keys and values would use if each was a separate String.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the heap sizes.
+ */
+@SuppressWarnings("nls")
+public class PropertiesMemoryBenchmark {
+
+    private static final String[] OWNERS = { "Alice", "Bob", "Carol", "Dave", "Eve" };
+    private static final String[] STATUSES = { "Draft", "Approved", "Retired" };
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(PropertiesMemoryBenchmark.class);
+    }
+
+    @Test
+    public void benchmarkHeap_100k() throws IOException {
+        benchmarkHeap(100_000);
+    }
+
+    @Test
+    public void benchmarkHeap_500k() throws IOException {
+        benchmarkHeap(500_000);
+    }
+
+    private void benchmarkHeap(int numberOfElements) throws IOException {
+        File file = TestSupport.saveModel(createModel(numberOfElements));
+
+        long before = usedHeap();
+        IArchimateModel model = TestSupport.loadModel(file);
+        long modelHeap = usedHeap() - before;
+
+        // Copy each key and value as a separate String as they would be without pooling
+        int count = 0;
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            if(iter.next() instanceof IProperty) {
+                count++;
+            }
+        }
+
+        before = usedHeap();
+        String[] strings = new String[count * 2];
+        int i = 0;
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            if(eObject instanceof IProperty) {
+                strings[i++] = new String(((IProperty)eObject).getKey());
+                strings[i++] = new String(((IProperty)eObject).getValue());
+            }
+        }
+        long stringsHeap = usedHeap() - before;
+
+        assertEquals(numberOfElements * 4, count);
+        assertEquals(strings.length, i);
+
+        System.out.println("Loaded model with " + numberOfElements + " elements and " + count + " Properties uses " + toMB(modelHeap) + " MB heap");
+        System.out.println("Without pooling the Property keys and values would use a further " + toMB(stringsHeap) + " MB heap");
+
+        file.delete();
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private String toMB(long bytes) {
+        return String.format("%.1f", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Create a model with elements that each have four Properties with the same keys.
+     * Owner and Status values are repeated, Priority values are numbers and Reference values are unique.
+     */
+    static IArchimateModel createModel(int numberOfElements) {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+
+        IFolder folder = model.getFolder(FolderType.BUSINESS);
+
+        for(int i = 0; i < numberOfElements; i++) {
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            element.setName("Actor " + i);
+            element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Owner", OWNERS[i % OWNERS.length]));
+            element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Status", STATUSES[i % STATUSES.length]));
+            element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Priority", String.valueOf(i % 10)));
+            element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("Reference", "REF-" + i));
+            folder.getElements().add(element);
+        }
+
+        return model;
+    }
+}
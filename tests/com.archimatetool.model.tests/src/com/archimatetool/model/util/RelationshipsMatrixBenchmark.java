@@ -0,0 +1,96 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EClass;
+import org.junit.Test;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of checking every combination of source, target and relationship type
+ * using the compiled tables of RelationshipsMatrix against walking the lists of TargetMatrix.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the timings.
+ */
+@SuppressWarnings("nls")
+public class RelationshipsMatrixBenchmark {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(RelationshipsMatrixBenchmark.class);
+    }
+    
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void benchmarkIsValidRelationship() {
+        EClass[] classes = getClasses();
+        EClass[] relations = ArchimateModelUtils.getRelationsClasses();
+        
+        // Warm up both so that the JIT has compiled them
+        for(int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertEquals(checkLists(classes, relations), checkTables(classes, relations));
+        }
+        
+        long start = System.nanoTime();
+        int count = 0;
+        for(int i = 0; i < ROUNDS; i++) {
+            count += checkLists(classes, relations);
+        }
+        long listsTime = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        for(int i = 0; i < ROUNDS; i++) {
+            count -= checkTables(classes, relations);
+        }
+        long tablesTime = System.nanoTime() - start;
+        
+        assertEquals(0, count);
+        
+        long checks = (long)ROUNDS * classes.length * classes.length * relations.length;
+        System.out.println("Checked " + checks + " relationships walking the lists in " + (listsTime / 1000000) + " ms");
+        System.out.println("Checked " + checks + " relationships using the tables in " + (tablesTime / 1000000) + " ms");
+    }
+    
+    private int checkLists(EClass[] classes, EClass[] relations) {
+        int count = 0;
+        for(EClass source : classes) {
+            for(EClass target : classes) {
+                for(EClass relation : relations) {
+                    if(RelationshipsMatrixTests.isValidRelationshipFromLists(source, target, relation)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    private int checkTables(EClass[] classes, EClass[] relations) {
+        int count = 0;
+        for(EClass source : classes) {
+            for(EClass target : classes) {
+                for(EClass relation : relations) {
+                    if(RelationshipsMatrix.INSTANCE.isValidRelationship(source, target, relation)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    private EClass[] getClasses() {
+        List<EClass> list = RelationshipsMatrixTests.getAllClasses();
+        return list.toArray(new EClass[list.size()]);
+    }
+}
@@ -5,13 +5,16 @@
  */
 package com.archimatetool.model.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.junit.Test;
 
 import com.archimatetool.model.IArchimateElement;
@@ -130,4 +133,94 @@ public class RelationshipsMatrixTests {
         // Not OK from Junction to relation
         assertFalse(matrix.isValidRelationship(objectClass, relationClass, relationshipType));
     }
+    
+    @Test
+    public void testIsValidRelationship_NotArchimateClasses() {
+        EClass relationshipType = IArchimatePackage.eINSTANCE.getAssociationRelationship(); 
+        EClass objectClass = IArchimatePackage.eINSTANCE.getBusinessActor();
+        
+        assertFalse(matrix.isValidRelationship(null, objectClass, relationshipType));
+        assertFalse(matrix.isValidRelationship(objectClass, null, relationshipType));
+        assertFalse(matrix.isValidRelationship(objectClass, objectClass, null));
+        assertFalse(matrix.isValidRelationship(objectClass, objectClass, objectClass));
+        assertFalse(matrix.isValidRelationship(objectClass, objectClass, IArchimatePackage.eINSTANCE.getDiagramModelArchimateConnection()));
+        assertFalse(matrix.isValidRelationshipStart(null, relationshipType));
+        assertFalse(matrix.isValidRelationshipStart(objectClass, null));
+    }
+    
+    @Test
+    public void testIsValidRelationship_SameAsMatrixLists() {
+        for(EClass sourceType : getAllClasses()) {
+            for(EClass relationshipType : getAllClasses()) {
+                assertEquals(isValidRelationshipStartFromLists(sourceType, relationshipType), matrix.isValidRelationshipStart(sourceType, relationshipType));
+            }
+            
+            for(EClass relationshipType : ArchimateModelUtils.getRelationsClasses()) {
+                for(EClass targetType : getAllClasses()) {
+                    assertEquals(isValidRelationshipFromLists(sourceType, targetType, relationshipType),
+                            matrix.isValidRelationship(sourceType, targetType, relationshipType));
+                }
+            }
+        }
+    }
+    
+    static List<EClass> getAllClasses() {
+        List<EClass> list = new ArrayList<EClass>();
+        for(EClassifier classifier : IArchimatePackage.eINSTANCE.getEClassifiers()) {
+            if(classifier instanceof EClass) {
+                list.add((EClass)classifier);
+            }
+        }
+        return list;
+    }
+    
+    /**
+     * Check a relationship by walking the lists of TargetMatrix
+     */
+    static boolean isValidRelationshipFromLists(EClass sourceType, EClass targetType, EClass relationshipType) {
+        EClass relationshipClass = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        
+        if(!relationshipClass.isSuperTypeOf(relationshipType)) {
+            return false;
+        }
+        
+        if(relationshipClass.isSuperTypeOf(sourceType)) {
+            sourceType = relationshipClass;
+        }
+        
+        if(relationshipClass.isSuperTypeOf(targetType)) {
+            targetType = relationshipClass;
+        }
+        
+        List<TargetMatrix> listMatrix = RelationshipsMatrix.INSTANCE.getRelationshipsMatrix().get(sourceType);
+        if(listMatrix != null) {
+            for(TargetMatrix targetMatrix : listMatrix) {
+                if(targetMatrix.getTargetClass() == targetType && targetMatrix.getRelationships().contains(relationshipType)) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Check a relationship start by walking the lists of TargetMatrix
+     */
+    static boolean isValidRelationshipStartFromLists(EClass sourceType, EClass relationshipType) {
+        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(sourceType)) {
+            sourceType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        }
+        
+        List<TargetMatrix> listMatrix = RelationshipsMatrix.INSTANCE.getRelationshipsMatrix().get(sourceType);
+        if(listMatrix != null) {
+            for(TargetMatrix targetMatrix : listMatrix) {
+                if(targetMatrix.getRelationships().contains(relationshipType)) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
 } 
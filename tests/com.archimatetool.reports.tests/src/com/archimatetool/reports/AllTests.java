@@ -7,6 +7,7 @@ package com.archimatetool.reports;
 
 
 import com.archimatetool.reports.html.HTMLReportExporterTests;
+import com.archimatetool.reports.html.ReportManifestTests;
 
 import junit.framework.TestSuite;
 
@@ -17,6 +18,7 @@ public class AllTests {
 		TestSuite suite = new TestSuite("com.archimatetool.reports");
 
 		suite.addTest(HTMLReportExporterTests.suite());
+		suite.addTest(ReportManifestTests.suite());
 		
         return suite;
 	}
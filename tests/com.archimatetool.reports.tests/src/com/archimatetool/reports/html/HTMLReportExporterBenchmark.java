@@ -0,0 +1,123 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.reports.html;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+/**
+ * Benchmark of creating an HTML report for generated models of increasing size, reporting pages per second.
+ *
+ * This is not part of AllTests as it takes some time to run. Run it manually and compare the timings.
+ */
+@SuppressWarnings("nls")
+public class HTMLReportExporterBenchmark {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(HTMLReportExporterBenchmark.class);
+    }
+    
+    private static final int ELEMENTS_PER_VIEW = 20;
+
+    @BeforeClass
+    public static void runOnceBeforeAllTests() {
+        TestUtils.ensureDefaultDisplay(); // Need to do this if running only these tests
+    }
+    
+    @Test
+    public void benchmarkCreateReport_1k() throws Exception {
+        benchmarkCreateReport(1_000, 50);
+    }
+
+    @Test
+    public void benchmarkCreateReport_10k() throws Exception {
+        benchmarkCreateReport(10_000, 500);
+    }
+
+    @Test
+    public void benchmarkCreateReport_30k() throws Exception {
+        benchmarkCreateReport(30_000, 1_500);
+    }
+
+    private void benchmarkCreateReport(int numberOfElements, int numberOfViews) throws Exception {
+        IArchimateModel model = createModel(numberOfElements, numberOfViews);
+        File targetFolder = TestUtils.createTempFolder("archi-html-report-benchmark");
+        
+        try {
+            HTMLReportExporter exporter = new HTMLReportExporter(model);
+            
+            long start = System.currentTimeMillis();
+            File outputFile = exporter.createReport(targetFolder, "index.html");
+            long time = Math.max(1, System.currentTimeMillis() - start);
+            
+            assertTrue(outputFile.exists());
+            
+            int pages = exporter.getPageCount();
+            System.out.println("Created report with " + numberOfElements + " elements and " + numberOfViews + " views: "
+                    + pages + " pages in " + time + " ms (" + (pages * 1000L / time) + " pages per second)");
+        }
+        finally {
+            FileUtils.deleteFolder(targetFolder);
+        }
+    }
+    
+    /**
+     * Create a model with elements, a relation from each element to the next one, and views each showing some of the elements
+     */
+    static IArchimateModel createModel(int numberOfElements, int numberOfViews) {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        model.setName("Benchmark");
+        
+        IArchimateElement[] elements = new IArchimateElement[numberOfElements];
+        
+        for(int i = 0; i < numberOfElements; i++) {
+            IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+            element.setName("Actor " + i);
+            element.setDocumentation("Documentation " + i);
+            model.getFolder(FolderType.BUSINESS).getElements().add(element);
+            elements[i] = element;
+        }
+        
+        for(int i = 0; i < numberOfElements; i++) {
+            IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+            relation.connect(elements[i], elements[(i + 1) % numberOfElements]);
+            model.getFolder(FolderType.RELATIONS).getElements().add(relation);
+        }
+        
+        for(int i = 0; i < numberOfViews; i++) {
+            IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+            dm.setName("View " + i);
+            model.getFolder(FolderType.DIAGRAMS).getElements().add(dm);
+            
+            for(int j = 0; j < ELEMENTS_PER_VIEW; j++) {
+                IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+                dmo.setArchimateElement(elements[(i * ELEMENTS_PER_VIEW + j) % numberOfElements]);
+                dmo.setBounds((j % 5) * 150, (j / 5) * 80, 120, 55);
+                dm.getChildren().add(dmo);
+            }
+        }
+        
+        return model;
+    }
+}
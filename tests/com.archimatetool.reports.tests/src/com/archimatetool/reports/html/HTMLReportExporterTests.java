@@ -5,9 +5,12 @@
  */
 package com.archimatetool.reports.html;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.Iterator;
 
 import org.eclipse.emf.ecore.EObject;
@@ -15,8 +18,12 @@ import org.junit.Test;
 
 import com.archimatetool.editor.utils.FileUtils;
 import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IFolder;
 import com.archimatetool.testingtools.ArchimateTestModel;
 import com.archimatetool.tests.TestData;
 import com.archimatetool.tests.TestUtils;
@@ -89,5 +96,55 @@ public class HTMLReportExporterTests {
         // Clean up
         FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
     }
+    
+    @Test
+    public void testCreateReport_Incremental() throws Exception {
+        ArchimateTestModel tm = new ArchimateTestModel(TestData.TEST_MODEL_FILE_ARCHISURANCE);
+        IArchimateModel model = tm.loadModel();
+        
+        File targetFolder = TestUtils.createTempFolder("archi-html-report");
+        File elementsFolder = new File(targetFolder, model.getId() + "/elements");
+        File viewsFolder = new File(targetFolder, model.getId() + "/views");
+        File imagesFolder = new File(targetFolder, model.getId() + "/images");
+        
+        // Full report
+        HTMLReportExporter exporter = new HTMLReportExporter(model);
+        exporter.createReport(targetFolder, "index.html");
+        assertTrue(new File(targetFolder, model.getId() + "/" + ReportManifest.MANIFEST_FILE).exists());
+        
+        // Nothing changed so only the model page and index are written
+        exporter.setIncremental(true);
+        exporter.createReport(targetFolder, "index.html");
+        assertEquals(2, exporter.getPageCount());
+        
+        // Change an element so its page is written
+        IArchimateElement element = (IArchimateElement)model.getFolder(FolderType.BUSINESS).getElements().get(0);
+        File elementFile = new File(elementsFolder, element.getId() + ".html");
+        element.setName("Changed name");
+        exporter.createReport(targetFolder, "index.html");
+        assertTrue(exporter.getPageCount() > 2);
+        assertTrue(new String(Files.readAllBytes(elementFile.toPath()), "UTF-8").contains("Changed name"));
+        
+        // A deleted page is written again
+        elementFile.delete();
+        exporter.createReport(targetFolder, "index.html");
+        assertEquals(3, exporter.getPageCount());
+        assertTrue(elementFile.exists());
+        
+        // Files of a deleted view are deleted
+        IDiagramModel dm = model.getDiagramModels().get(0);
+        File viewFile = new File(viewsFolder, dm.getId() + ".html");
+        File imageFile = new File(imagesFolder, dm.getId() + ".png");
+        assertTrue(viewFile.exists());
+        assertTrue(imageFile.exists());
+        
+        ((IFolder)dm.eContainer()).getElements().remove(dm);
+        exporter.createReport(targetFolder, "index.html");
+        assertFalse(viewFile.exists());
+        assertFalse(imageFile.exists());
+        
+        // Clean up
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
 
 }
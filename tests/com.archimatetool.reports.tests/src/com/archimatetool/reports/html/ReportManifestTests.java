@@ -0,0 +1,126 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.reports.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IProperty;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ReportManifestTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ReportManifestTests.class);
+    }
+    
+    @After
+    public void runAfterEachTest() {
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
+    
+    @Test
+    public void testGetFingerprint_ChangesWithContent() {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setName("Actor");
+        String fingerprint = ReportManifest.getFingerprint(element);
+        
+        assertEquals(fingerprint, ReportManifest.getFingerprint(element));
+        
+        element.setDocumentation("Documentation");
+        assertNotEquals(fingerprint, ReportManifest.getFingerprint(element));
+        fingerprint = ReportManifest.getFingerprint(element);
+        
+        IProperty property = IArchimateFactory.eINSTANCE.createProperty();
+        property.setKey("key");
+        element.getProperties().add(property);
+        assertNotEquals(fingerprint, ReportManifest.getFingerprint(element));
+        fingerprint = ReportManifest.getFingerprint(element);
+        
+        property.setValue("value");
+        assertNotEquals(fingerprint, ReportManifest.getFingerprint(element));
+    }
+    
+    @Test
+    public void testGetFingerprint_ChangesWithReferencedObjects() {
+        IArchimateElement source = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IArchimateElement target = IArchimateFactory.eINSTANCE.createBusinessRole();
+        IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        relation.connect(source, target);
+        
+        String fingerprint = ReportManifest.getFingerprint(relation);
+        
+        // The relation's page shows the names of its source and target
+        target.setName("Role");
+        assertNotEquals(fingerprint, ReportManifest.getFingerprint(relation));
+    }
+    
+    @Test
+    public void testUpdate() throws Exception {
+        File file = new File(TestUtils.createTempFolder("manifest"), ReportManifest.MANIFEST_FILE);
+        
+        ReportManifest manifest = new ReportManifest(file, "1");
+        manifest.load();
+        assertTrue(manifest.update("key", "abc"));
+        manifest.save();
+        
+        manifest = new ReportManifest(file, "1");
+        manifest.load();
+        assertFalse(manifest.update("key", "abc"));
+        assertTrue(manifest.update("key", "def"));
+        assertTrue(manifest.update("key2", "abc"));
+        
+        // Different format
+        manifest = new ReportManifest(file, "2");
+        manifest.load();
+        assertTrue(manifest.update("key", "abc"));
+    }
+    
+    @Test
+    public void testRetainAndGetLoadedKeys() throws Exception {
+        File file = new File(TestUtils.createTempFolder("manifest"), ReportManifest.MANIFEST_FILE);
+        
+        ReportManifest manifest = new ReportManifest(file, "1");
+        manifest.load();
+        assertTrue(manifest.getLoadedKeys().isEmpty());
+        manifest.update("key1", "abc");
+        manifest.update("key2", "def");
+        manifest.update("key3", "ghi");
+        manifest.save();
+        
+        manifest = new ReportManifest(file, "1");
+        manifest.load();
+        assertEquals(new HashSet<>(Arrays.asList("key1", "key2", "key3")), manifest.getLoadedKeys());
+        
+        // key2 is kept without being updated, key3 is dropped
+        manifest.update("key1", "abc");
+        manifest.retain("key2");
+        manifest.retain("unknown");
+        manifest.save();
+        
+        manifest = new ReportManifest(file, "1");
+        manifest.load();
+        assertEquals(new HashSet<>(Arrays.asList("key1", "key2")), manifest.getLoadedKeys());
+        assertFalse(manifest.update("key2", "def"));
+    }
+}
@@ -21,6 +21,7 @@ public class AllTests {
         suite.addTest(getTest("com.archimatetool.csv.AllTests"));
         suite.addTest(getTest("com.archimatetool.editor.AllTests"));
         suite.addTest(getTest("com.archimatetool.export.svg.AllTests"));
+        suite.addTest(getTest("com.archimatetool.export.svg.commandline.AllTests"));
         suite.addTest(getTest("com.archimatetool.hammer.AllTests"));
         suite.addTest(getTest("com.archimatetool.help.AllTests"));
         suite.addTest(getTest("com.archimatetool.jasperreports.AllTests"));
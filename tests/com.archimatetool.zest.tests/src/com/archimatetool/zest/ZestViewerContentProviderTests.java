@@ -8,6 +8,8 @@ package com.archimatetool.zest;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.eclipse.emf.ecore.EClass;
 import org.junit.BeforeClass;
@@ -98,6 +100,65 @@ public class ZestViewerContentProviderTests {
         }
     }
 
+    @Test
+    public void testGetElements_Truncated() {
+        ZestViewerContentProvider provider = new ZestViewerContentProvider();
+        IArchimateElement inputElement = (IArchimateElement)tm.getObjectByID("521");
+        
+        provider.setDepth(5);
+        provider.getElements(inputElement);
+        assertFalse(provider.isTruncated());
+        
+        provider.setMaxConcepts(3);
+        Object[] elements = provider.getElements(inputElement);
+        assertTrue(provider.isTruncated());
+        
+        Set<Object> concepts = new HashSet<>();
+        for(Object object : elements) {
+            concepts.add(provider.getSource(object));
+            concepts.add(provider.getDestination(object));
+        }
+        assertTrue(concepts.contains(inputElement));
+        assertTrue(concepts.size() <= 3);
+    }
+    
+    @Test
+    public void testCreateRelationsTask() {
+        ZestViewerContentProvider provider = new ZestViewerContentProvider();
+        IArchimateElement inputElement = (IArchimateElement)tm.getObjectByID("521");
+        provider.setDepth(2);
+        
+        ZestViewerContentProvider.Relations relations = provider.createRelationsTask(inputElement).call();
+        assertSame(inputElement, relations.getInput());
+        assertArrayEquals(provider.getElements(inputElement), relations.getRelationships());
+        
+        // Relations found in the background are used for the same input
+        Object[] expected = new Object[0];
+        provider.setNextRelations(new ZestViewerContentProvider.Relations(inputElement, expected, true));
+        assertSame(expected, provider.getElements(inputElement));
+        assertTrue(provider.isTruncated());
+        
+        // But only once
+        assertArrayEquals(relations.getRelationships(), provider.getElements(inputElement));
+        assertFalse(provider.isTruncated());
+    }
+
+    @Test
+    public void testCreateRelationsTask_Interrupted() {
+        ZestViewerContentProvider provider = new ZestViewerContentProvider();
+        IArchimateElement inputElement = (IArchimateElement)tm.getObjectByID("521");
+        
+        Thread.currentThread().interrupt();
+        try {
+            assertNull(provider.createRelationsTask(inputElement).call());
+        }
+        finally {
+            Thread.interrupted();
+        }
+        
+        assertNotNull(provider.createRelationsTask(inputElement).call());
+    }
+    
     @Test
     public void testGetElements_Relationship() {
         IArchimateRelationship inputElement = (IArchimateRelationship)tm.getObjectByID("460");